@@ -2,32 +2,145 @@ package com.altamiracorp.bigtable.model.accumulo;
 
 import com.altamiracorp.bigtable.model.BaseBuilder;
 import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.compression.CompressionPolicy;
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.RowIterator;
 import org.apache.accumulo.core.client.mapreduce.InputFormatBase;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
-import org.apache.accumulo.core.util.PeekingIterator;
+import org.apache.accumulo.core.util.Pair;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 public abstract class AccumuloBaseInputFormat<TModel extends Row, TRepo extends BaseBuilder<TModel>> extends InputFormatBase<Text, TModel> {
+    private static final String CONFIG_COMPRESSED_COLUMNS = AccumuloBaseInputFormat.class.getName() + ".compressedColumns";
+
+    /**
+     * Task counters maintained by the record reader
+     */
+    public static enum Counters {
+        ROWS_READ,
+        CELLS_READ,
+        BYTES_READ
+    }
 
     public abstract TRepo getBuilder();
 
+    /**
+     * Restricts the scan to the provided column families
+     *
+     * @param job
+     * @param columnFamilies
+     */
+    public static void fetchColumnFamilies(Job job, String... columnFamilies) {
+        List<Pair<Text, Text>> columns = new ArrayList<Pair<Text, Text>>();
+        for (String columnFamily : columnFamilies) {
+            columns.add(new Pair<Text, Text>(new Text(columnFamily), null));
+        }
+        fetchColumns(job, columns);
+    }
+
+    /**
+     * Restricts the scan to the provided columns. Keys are column families, values are column qualifiers
+     * or "*" to fetch the whole column family, the same convention used by
+     * {@link AccumuloSession#findByRowKey(String, String, java.util.Map, com.altamiracorp.bigtable.model.user.ModelUserContext)}.
+     *
+     * @param job
+     * @param columnsToFetch
+     */
+    public static void fetchColumns(Job job, Map<String, String> columnsToFetch) {
+        List<Pair<Text, Text>> columns = new ArrayList<Pair<Text, Text>>();
+        for (Map.Entry<String, String> columnFamilyAndColumnQualifier : columnsToFetch.entrySet()) {
+            Text columnQualifier = null;
+            if (!columnFamilyAndColumnQualifier.getValue().equals("*")) {
+                columnQualifier = new Text(columnFamilyAndColumnQualifier.getValue());
+            }
+            columns.add(new Pair<Text, Text>(new Text(columnFamilyAndColumnQualifier.getKey()), columnQualifier));
+        }
+        fetchColumns(job, columns);
+    }
+
+    /**
+     * Adds a server side filter to the scan, e.g. a RegExFilter or TimestampFilter
+     *
+     * @param job
+     * @param filter
+     */
+    public static void addFilter(Job job, IteratorSetting filter) {
+        addIterator(job, filter);
+    }
+
+    /**
+     * Reads the columns that sessions compress in compressed form, so their values are decompressed like a
+     * session's reads. Uses the format of bigtable.compression.columns, e.g. "content=deflate,metadata:json=fast".
+     *
+     * @param job
+     * @param compressedColumns
+     */
+    public static void setCompressedColumns(Job job, String compressedColumns) {
+        job.getConfiguration().set(CONFIG_COMPRESSED_COLUMNS, compressedColumns);
+    }
+
+    /**
+     * Scans an offline clone of the table, reading its files directly instead of going through the
+     * tablet servers. {@link AccumuloModelOutputFormat} deletes the snapshot when the job commits or aborts;
+     * jobs using another output format must close the returned snapshot once the job completes.
+     *
+     * @param job
+     * @param connector
+     * @param tableName table to snapshot
+     * @return the snapshot the job was configured to read
+     */
+    public static OfflineTableSnapshot setOfflineSnapshot(Job job, Connector connector, String tableName) {
+        OfflineTableSnapshot snapshot = OfflineTableSnapshot.create(connector, tableName);
+        snapshot.configure(job);
+        return snapshot;
+    }
+
+    /**
+     * Connects with the instance and credentials stored in the job for reading
+     */
+    static Connector getInputConnector(JobContext jobContext) throws AccumuloException, AccumuloSecurityException {
+        return getInstance(jobContext).getConnector(getPrincipal(jobContext), getAuthenticationToken(jobContext));
+    }
+
     @Override
     public RecordReader<Text, TModel> createRecordReader(InputSplit split, TaskAttemptContext context) throws IOException, InterruptedException {
         return new RecordReaderBase<Text, TModel>() {
-            RowIterator rowIterator;
+            private final CountingEntryIterator cells = new CountingEntryIterator();
+            private RowIterator rowIterator;
+            private TRepo builder;
+            private String tableName;
+            private Counter rowsRead;
+            private Counter cellsRead;
+            private Counter bytesRead;
+            private CompressionPolicy compressionPolicy;
 
             @Override
             public void initialize(InputSplit inSplit, TaskAttemptContext attempt) throws IOException {
                 super.initialize(inSplit, attempt);
                 this.rowIterator = new RowIterator(scannerIterator);
+                this.builder = getBuilder();
+                this.tableName = builder.getTableName();
+                this.rowsRead = attempt.getCounter(Counters.ROWS_READ);
+                this.cellsRead = attempt.getCounter(Counters.CELLS_READ);
+                this.bytesRead = attempt.getCounter(Counters.BYTES_READ);
+                String compressedColumns = attempt.getConfiguration().get(CONFIG_COMPRESSED_COLUMNS);
+                this.compressionPolicy = compressedColumns == null ? null : CompressionPolicy.parse(compressedColumns);
                 this.currentK = new Text();
                 this.currentV = null;
             }
@@ -37,15 +150,76 @@ public abstract class AccumuloBaseInputFormat<TModel extends Row, TRepo extends
                 if (!rowIterator.hasNext()) {
                     return false;
                 }
-                PeekingIterator<Map.Entry<Key, Value>> it = new PeekingIterator<Map.Entry<Key, Value>>(rowIterator.next());
-                TRepo builder = getBuilder();
-                this.currentV = builder.fromRow(AccumuloHelper.accumuloRowToRow(builder.getTableName(), it));
+                cells.reset(rowIterator.next());
+                this.currentV = builder.fromRow(AccumuloHelper.accumuloRowToRow(tableName, cells, compressionPolicy));
                 this.currentV.setDirtyBits(false);
                 this.numKeysRead = this.rowIterator.getKVCount();
-                this.currentKey = new Key(this.currentV.getRowKey().toString());
-                this.currentK = new Text(this.currentKey.getRow());
+                this.currentKey = cells.getLastKey();
+                this.currentKey.getRow(this.currentK);
+                incrementCounters();
                 return true;
             }
+
+            private void incrementCounters() {
+                if (rowsRead != null) {
+                    rowsRead.increment(1);
+                }
+                if (cellsRead != null) {
+                    cellsRead.increment(cells.getCount());
+                }
+                if (bytesRead != null) {
+                    bytesRead.increment(cells.getBytes());
+                }
+            }
         };
     }
+
+    /**
+     * Iterator over the entries of a single row which keeps track of entry counts and sizes. A single
+     * instance is reused for every row read by a record reader.
+     */
+    private static class CountingEntryIterator implements Iterator<Map.Entry<Key, Value>> {
+        private Iterator<Map.Entry<Key, Value>> row;
+        private Key lastKey;
+        private long count;
+        private long bytes;
+
+        public void reset(Iterator<Map.Entry<Key, Value>> row) {
+            this.row = row;
+            this.lastKey = null;
+            this.count = 0;
+            this.bytes = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return row.hasNext();
+        }
+
+        @Override
+        public Map.Entry<Key, Value> next() {
+            Map.Entry<Key, Value> entry = row.next();
+            lastKey = entry.getKey();
+            count++;
+            bytes += lastKey.getSize() + entry.getValue().getSize();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public Key getLastKey() {
+            return lastKey;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
 }
@@ -4,6 +4,7 @@ import com.altamiracorp.bigtable.model.Column;
 import com.altamiracorp.bigtable.model.ColumnFamily;
 import com.altamiracorp.bigtable.model.Row;
 import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.compression.CompressionPolicy;
 import org.apache.accumulo.core.client.*;
 import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.data.Key;
@@ -12,11 +13,71 @@ import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.user.RegExFilter;
 import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.accumulo.core.util.PeekingIterator;
+import org.apache.hadoop.io.Text;
 
 import java.util.*;
 
 public class AccumuloHelper {
     public static boolean addRowToWriter(BatchWriter writer, Row row) throws MutationsRejectedException {
+        Mutation mutation = createMutation(row);
+        if (mutation == null) {
+            return false;
+        }
+        writer.addMutation(mutation);
+        return true;
+    }
+
+    /**
+     * Creates a mutation containing the dirty and deleted columns of the provided row
+     *
+     * @param row
+     * @return the mutation or null if the row has nothing to write
+     */
+    public static Mutation createMutation(Row row) {
+        String rowKey = getRowKeyString(row);
+        Mutation mutation = new Mutation(rowKey);
+        Collection<ColumnFamily> columnFamilies = row.getColumnFamilies();
+        for (ColumnFamily columnFamily : columnFamilies) {
+            addColumnFamilyToMutation(mutation, columnFamily);
+        }
+        if (mutation.size() == 0) {
+            return null;
+        }
+        return mutation;
+    }
+
+    /**
+     * Converts the dirty and deleted columns of the provided row to sorted key/value pairs, suitable
+     * for appending to an RFile. Deleted columns become delete keys with empty values.
+     *
+     * @param row
+     * @param timestamp timestamp to assign to every key
+     * @return the sorted key/value pairs
+     */
+    public static SortedMap<Key, Value> rowToKeyValues(Row row, long timestamp) {
+        Text rowKey = new Text(getRowKeyString(row));
+        SortedMap<Key, Value> results = new TreeMap<Key, Value>();
+        Collection<ColumnFamily> columnFamilies = row.getColumnFamilies();
+        for (ColumnFamily columnFamily : columnFamilies) {
+            Text columnFamilyName = new Text(columnFamily.getColumnFamilyName());
+            for (Column column : columnFamily.getColumns()) {
+                if (!column.isDelete() && !column.isDirty()) {
+                    continue;
+                }
+                ColumnVisibility columnVisibility = column.getVisibility() == null ? new ColumnVisibility() : new ColumnVisibility(column.getVisibility());
+                Key key = new Key(rowKey, columnFamilyName, new Text(column.getName()), columnVisibility, timestamp);
+                if (column.isDelete()) {
+                    key.setDeleted(true);
+                    results.put(key, new Value(new byte[0]));
+                } else {
+                    results.put(key, toAccumuloValue(column.getValue()));
+                }
+            }
+        }
+        return results;
+    }
+
+    private static String getRowKeyString(Row row) {
         if (row == null) {
             throw new NullPointerException("row cannot be null");
         }
@@ -27,16 +88,7 @@ public class AccumuloHelper {
         if (rowKey.length() == 0) {
             throw new NullPointerException("rowKey cannot have 0 length");
         }
-        Mutation mutation = new Mutation(rowKey);
-        Collection<ColumnFamily> columnFamilies = row.getColumnFamilies();
-        for (ColumnFamily columnFamily : columnFamilies) {
-            addColumnFamilyToMutation(mutation, columnFamily);
-        }
-        if (mutation.size() == 0) {
-            return false;
-        }
-        writer.addMutation(mutation);
-        return true;
+        return rowKey;
     }
 
     private static void addColumnFamilyToMutation(Mutation mutation, ColumnFamily columnFamily) {
@@ -58,12 +110,7 @@ public class AccumuloHelper {
     }
 
     private static void addColumnToMutation(Mutation mutation, Column column, String columnFamilyName) {
-        com.altamiracorp.bigtable.model.Value v = column.getValue();
-        Value value = null;
-        if (v != null) {
-            value = new Value(v.toBytes());
-        }
-
+        Value value = toAccumuloValue(column.getValue());
         if (column.getVisibility() != null) {
             mutation.put(columnFamilyName, column.getName(), new ColumnVisibility(column.getVisibility()), value);
         } else {
@@ -71,11 +118,26 @@ public class AccumuloHelper {
         }
     }
 
-    public static Iterable<Row> scannerToRows(final String tableName, final ScannerBase scanner) {
+    private static Value toAccumuloValue(com.altamiracorp.bigtable.model.Value value) {
+        if (value == null) {
+            return null;
+        }
+        return new Value(value.getStoredBytes());
+    }
+
+    public static Iterable<Row> scannerToRows(String tableName, ScannerBase scanner) {
+        return scannerToRows(tableName, scanner, null);
+    }
+
+    /**
+     * @param entries           a scanner, or any other entries in key order
+     * @param compressionPolicy the policy whose columns are read in compressed form, or null
+     */
+    public static Iterable<Row> scannerToRows(final String tableName, final Iterable<Map.Entry<Key, Value>> entries, final CompressionPolicy compressionPolicy) {
         return new Iterable<Row>() {
             @Override
             public Iterator<Row> iterator() {
-                final RowIterator rowIterator = new RowIterator(scanner);
+                final RowIterator rowIterator = new RowIterator(entries);
                 return new Iterator<Row>() {
                     @Override
                     public boolean hasNext() {
@@ -85,7 +147,7 @@ public class AccumuloHelper {
                     @Override
                     public Row next() {
                         Iterator<Map.Entry<Key, Value>> row = rowIterator.next();
-                        return accumuloRowToRow(tableName, row);
+                        return accumuloRowToRow(tableName, row, compressionPolicy);
                     }
 
                     @Override
@@ -129,15 +191,21 @@ public class AccumuloHelper {
         ColumnFamily colFam = new ColumnFamily(colFamName);
 
         while (iterator.peek() != null && iterator.peek().getKey().getColumnFamily().toString().equals(colFamName)) {
-            System.out.println(iterator.peek());
             Map.Entry<Key, Value> next = iterator.next();
-            colFam.addColumn(new Column(next.getKey().getColumnQualifier().toString(), next.getValue().toString(), next.getKey().getColumnVisibility().toString()));
+            colFam.addColumn(new Column(next.getKey().getColumnQualifier().toString(), next.getValue().get(), next.getKey().getColumnVisibility().toString()));
         }
 
         return colFam;
     }
 
     public static Row accumuloRowToRow(String tableName, Iterator<Map.Entry<Key, Value>> accumuloRow) {
+        return accumuloRowToRow(tableName, accumuloRow, null);
+    }
+
+    /**
+     * @param compressionPolicy the policy whose columns are read in compressed form, or null
+     */
+    public static Row accumuloRowToRow(String tableName, Iterator<Map.Entry<Key, Value>> accumuloRow, CompressionPolicy compressionPolicy) {
         Row<RowKey> row = null;
         while (accumuloRow.hasNext()) {
             Map.Entry<Key, Value> accumuloColumn = accumuloRow.next();
@@ -153,14 +221,20 @@ public class AccumuloHelper {
             }
 
             String columnNameString = accumuloColumn.getKey().getColumnQualifier().toString();
-            columnFamily.set(columnNameString, accumuloValueToObject(accumuloColumn.getValue()), accumuloColumn.getKey().getColumnVisibility().toString());
+            columnFamily.set(columnNameString, accumuloValueToObject(columnFamilyString, columnNameString, accumuloColumn.getValue(), compressionPolicy), accumuloColumn.getKey().getColumnVisibility().toString());
         }
         row.setDirtyBits(false);
         return row;
     }
 
-    private static byte[] accumuloValueToObject(Value value) {
-        return value.get();
+    /**
+     * @return the bytes of the value, or a possibly compressed value for the columns the compression policy selects
+     */
+    static Object accumuloValueToObject(String columnFamilyName, String columnName, Value value, CompressionPolicy compressionPolicy) {
+        if (compressionPolicy == null || compressionPolicy.isEmpty() || compressionPolicy.getCodec(columnFamilyName, columnName) == null) {
+            return value.get();
+        }
+        return com.altamiracorp.bigtable.model.Value.fromStoredBytes(value.get());
     }
 
 
@@ -1,19 +1,54 @@
 package com.altamiracorp.bigtable.model.accumulo;
 
 import com.altamiracorp.bigtable.model.Row;
+import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.accumulo.core.client.ClientConfiguration;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.TableExistsException;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.client.mapreduce.AccumuloFileOutputFormat;
 import org.apache.accumulo.core.client.mapreduce.AccumuloOutputFormat;
 import org.apache.accumulo.core.client.security.tokens.AuthenticationToken;
 import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.FileOperations;
+import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.*;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
+/**
+ * Writes Rows to Accumulo. Each Row is routed to the table returned by {@link Row#getTableName()}. Rows without
+ * a table name go to the table named by the output key, or to the default table when the key is null.
+ */
 public class AccumuloModelOutputFormat extends OutputFormat<Text, Row> {
+    private static final String CONFIG_BULK_OUTPUT = AccumuloModelOutputFormat.class.getName() + ".bulkOutput";
+    private static final String CONFIG_OUTPUT_TABLES = AccumuloModelOutputFormat.class.getName() + ".outputTables";
+    private static final String CONFIG_CREATE_OUTPUT_TABLES = AccumuloModelOutputFormat.class.getName() + ".createOutputTables";
+    private static final String CONFIG_BULK_BUFFER_SIZE = AccumuloModelOutputFormat.class.getName() + ".bulkBufferSize";
+    private static final long DEFAULT_BULK_BUFFER_SIZE = 64 * 1024 * 1024;
+    private static final String CONFIG_MARK_SUCCESSFUL_JOBS = "mapreduce.fileoutputcommitter.marksuccessfuljobs";
+    private static final String BULK_FAILURES_DIRECTORY_SUFFIX = "_failures";
+    private static final String BULK_FILE_PREFIX = "part";
+    private static final long BULK_KEY_TIMESTAMP = 0L;
+
     private AccumuloOutputFormat accumuloOutputFormat = new AccumuloOutputFormat();
+    private AccumuloFileOutputFormat accumuloFileOutputFormat = new AccumuloFileOutputFormat();
 
     public static void init(Job job, String accumuloInstanceName, String zookeeperServers, String user, String password, String tableName) throws AccumuloSecurityException {
         ClientConfiguration clientConfig = new ClientConfiguration()
@@ -25,23 +60,136 @@ public class AccumuloModelOutputFormat extends OutputFormat<Text, Row> {
         AccumuloOutputFormat.setDefaultTableName(job, tableName);
     }
 
+    /**
+     * Declares the tables the job writes to. The tables are checked when the job is submitted, and
+     * created if requested, instead of failing in the middle of the job.
+     *
+     * @param job
+     * @param createTables true to create tables that do not exist
+     * @param tableNames
+     */
+    public static void setOutputTables(Job job, boolean createTables, Collection<String> tableNames) {
+        job.getConfiguration().setStrings(CONFIG_OUTPUT_TABLES, tableNames.toArray(new String[tableNames.size()]));
+        job.getConfiguration().setBoolean(CONFIG_CREATE_OUTPUT_TABLES, createTables);
+        AccumuloOutputFormat.setCreateTables(job, createTables);
+    }
+
+    /**
+     * Writes sorted RFiles to the provided directory instead of sending mutations to the tablet servers.
+     * Each table gets its own sub directory, which is bulk imported into the table when the job commits.
+     * Rows may reach the record writer in any order: the keys of each table are buffered and sorted, and
+     * written to a new RFile every time the buffer fills up, see {@link #setBulkBufferSize(Job, long)}.
+     *
+     * @param job
+     * @param outputPath directory to write the RFiles to, must not exist
+     */
+    public static void setBulkOutput(Job job, Path outputPath) {
+        job.getConfiguration().setBoolean(CONFIG_BULK_OUTPUT, true);
+        job.getConfiguration().setBoolean(CONFIG_MARK_SUCCESSFUL_JOBS, false);
+        FileOutputFormat.setOutputPath(job, outputPath);
+    }
+
+    /**
+     * Sets how many bytes of keys and values a task buffers, across all tables, before writing them out as
+     * sorted RFiles. Larger buffers write fewer, larger files.
+     *
+     * @param job
+     * @param bufferSize
+     */
+    public static void setBulkBufferSize(Job job, long bufferSize) {
+        job.getConfiguration().setLong(CONFIG_BULK_BUFFER_SIZE, bufferSize);
+    }
+
+    protected static boolean isBulkOutput(JobContext jobContext) {
+        return jobContext.getConfiguration().getBoolean(CONFIG_BULK_OUTPUT, false);
+    }
+
     @Override
     public RecordWriter<Text, Row> getRecordWriter(TaskAttemptContext taskAttemptContext) throws IOException, InterruptedException {
+        if (isBulkOutput(taskAttemptContext)) {
+            FileOutputCommitter committer = (FileOutputCommitter) accumuloFileOutputFormat.getOutputCommitter(taskAttemptContext);
+            return new FileRowRecordWriter(taskAttemptContext, committer.getWorkPath());
+        }
         return new RowRecordWriter(accumuloOutputFormat.getRecordWriter(taskAttemptContext));
     }
 
     @Override
     public void checkOutputSpecs(JobContext jobContext) throws IOException, InterruptedException {
         accumuloOutputFormat.checkOutputSpecs(jobContext);
+        if (isBulkOutput(jobContext)) {
+            accumuloFileOutputFormat.checkOutputSpecs(jobContext);
+        }
+        checkOutputTables(jobContext);
+    }
+
+    private void checkOutputTables(JobContext jobContext) throws IOException {
+        String[] tableNames = jobContext.getConfiguration().getStrings(CONFIG_OUTPUT_TABLES);
+        if (tableNames == null) {
+            return;
+        }
+        boolean createTables = jobContext.getConfiguration().getBoolean(CONFIG_CREATE_OUTPUT_TABLES, false);
+        try {
+            Connector connector = JobConfiguration.getConnector(jobContext);
+            for (String tableName : tableNames) {
+                if (connector.tableOperations().exists(tableName)) {
+                    continue;
+                }
+                if (!createTables) {
+                    throw new IOException("Output table does not exist: " + tableName);
+                }
+                try {
+                    connector.tableOperations().create(tableName);
+                } catch (TableExistsException e) {
+                    // created concurrently, which is fine
+                }
+            }
+        } catch (AccumuloException e) {
+            throw new IOException("Could not check output tables", e);
+        } catch (AccumuloSecurityException e) {
+            throw new IOException("Could not check output tables", e);
+        }
     }
 
     @Override
     public OutputCommitter getOutputCommitter(TaskAttemptContext taskAttemptContext) throws IOException, InterruptedException {
-        return accumuloOutputFormat.getOutputCommitter(taskAttemptContext);
+        if (isBulkOutput(taskAttemptContext)) {
+            return new BulkImportOutputCommitter(accumuloFileOutputFormat.getOutputCommitter(taskAttemptContext));
+        }
+        return new SnapshotCleanupOutputCommitter(accumuloOutputFormat.getOutputCommitter(taskAttemptContext));
+    }
+
+    /**
+     * Resolves the destination table of a row, reusing one Text instance per table name
+     */
+    private static class TableRouter {
+        private final Map<String, Text> tableNames = new HashMap<String, Text>();
+        private final Text defaultTableName;
+
+        public TableRouter(Text defaultTableName) {
+            this.defaultTableName = defaultTableName;
+        }
+
+        public Text getTableName(Text key, Row row) {
+            String tableName = row.getTableName();
+            if (tableName == null) {
+                return key == null ? defaultTableName : key;
+            }
+            Text result = tableNames.get(tableName);
+            if (result == null) {
+                result = new Text(tableName);
+                tableNames.put(tableName, result);
+            }
+            return result;
+        }
     }
 
+    /**
+     * Sends mutations through the multi table batch writer of {@link AccumuloOutputFormat}, so the write
+     * buffer is shared by all the tables
+     */
     private class RowRecordWriter extends RecordWriter<Text, Row> {
         private final RecordWriter<Text, Mutation> recordWriter;
+        private final TableRouter tableRouter = new TableRouter(null);
 
         public RowRecordWriter(RecordWriter<Text, Mutation> recordWriter) {
             this.recordWriter = recordWriter;
@@ -51,7 +199,7 @@ public class AccumuloModelOutputFormat extends OutputFormat<Text, Row> {
         public void write(Text text, Row row) throws IOException, InterruptedException {
             Mutation mutation = AccumuloSession.createMutationFromRow(row);
             if (mutation != null) {
-                this.recordWriter.write(text, mutation);
+                this.recordWriter.write(tableRouter.getTableName(text, row), mutation);
             }
         }
 
@@ -60,4 +208,222 @@ public class AccumuloModelOutputFormat extends OutputFormat<Text, Row> {
             this.recordWriter.close(taskAttemptContext);
         }
     }
+
+    /**
+     * Buffers the keys of each table sorted in memory, and writes every table's buffer to its own RFile when
+     * the buffer size is reached and when the task closes. Bulk import accepts overlapping files, so the rows
+     * can arrive in any order.
+     */
+    private class FileRowRecordWriter extends RecordWriter<Text, Row> {
+        private final TaskAttemptContext taskAttemptContext;
+        private final Path workPath;
+        private final AccumuloConfiguration accumuloConfiguration;
+        private final TableRouter tableRouter;
+        private final long bufferSize;
+        private final Map<Text, SortedMap<Key, Value>> buffers = new HashMap<Text, SortedMap<Key, Value>>();
+        private long bufferedBytes;
+        private int fileCount;
+
+        public FileRowRecordWriter(TaskAttemptContext taskAttemptContext, Path workPath) {
+            this.taskAttemptContext = taskAttemptContext;
+            this.workPath = workPath;
+            this.accumuloConfiguration = JobConfiguration.getAccumuloConfiguration(taskAttemptContext);
+            this.bufferSize = taskAttemptContext.getConfiguration().getLong(CONFIG_BULK_BUFFER_SIZE, DEFAULT_BULK_BUFFER_SIZE);
+            String defaultTableName = JobConfiguration.getDefaultTableName(taskAttemptContext);
+            this.tableRouter = new TableRouter(defaultTableName == null ? null : new Text(defaultTableName));
+        }
+
+        @Override
+        public void write(Text text, Row row) throws IOException, InterruptedException {
+            SortedMap<Key, Value> buffer = getBuffer(tableRouter.getTableName(text, row));
+            for (Map.Entry<Key, Value> entry : AccumuloHelper.rowToKeyValues(row, BULK_KEY_TIMESTAMP).entrySet()) {
+                Key key = entry.getKey();
+                // a later put or delete of the same cell replaces the earlier one, as a later mutation would
+                Key replacedKey = new Key(key);
+                replacedKey.setDeleted(!key.isDeleted());
+                Value replacedValue = buffer.remove(replacedKey);
+                if (replacedValue != null) {
+                    bufferedBytes -= replacedKey.getSize() + replacedValue.getSize();
+                }
+                replacedValue = buffer.put(key, entry.getValue());
+                if (replacedValue != null) {
+                    bufferedBytes -= key.getSize() + replacedValue.getSize();
+                }
+                bufferedBytes += key.getSize() + entry.getValue().getSize();
+            }
+            if (bufferedBytes >= bufferSize) {
+                writeBuffers();
+            }
+        }
+
+        private SortedMap<Key, Value> getBuffer(Text tableName) throws IOException {
+            if (tableName == null) {
+                throw new IOException("No table name for row and no default table configured");
+            }
+            SortedMap<Key, Value> buffer = buffers.get(tableName);
+            if (buffer == null) {
+                buffer = new TreeMap<Key, Value>();
+                buffers.put(tableName, buffer);
+            }
+            return buffer;
+        }
+
+        private void writeBuffers() throws IOException {
+            String extension = FileOperations.getNewFileExtension(accumuloConfiguration);
+            String fileName = FileOutputFormat.getUniqueFile(taskAttemptContext, BULK_FILE_PREFIX + "-" + fileCount, "." + extension);
+            for (Map.Entry<Text, SortedMap<Key, Value>> buffer : buffers.entrySet()) {
+                if (buffer.getValue().isEmpty()) {
+                    continue;
+                }
+                Path file = new Path(new Path(workPath, buffer.getKey().toString()), fileName);
+                FileSKVWriter writer = FileOperations.getInstance().openWriter(file.toString(), file.getFileSystem(taskAttemptContext.getConfiguration()), taskAttemptContext.getConfiguration(), accumuloConfiguration);
+                try {
+                    writer.startDefaultLocalityGroup();
+                    for (Map.Entry<Key, Value> entry : buffer.getValue().entrySet()) {
+                        writer.append(entry.getKey(), entry.getValue());
+                    }
+                } finally {
+                    writer.close();
+                }
+                buffer.getValue().clear();
+            }
+            bufferedBytes = 0;
+            fileCount++;
+        }
+
+        @Override
+        public void close(TaskAttemptContext taskAttemptContext) throws IOException, InterruptedException {
+            writeBuffers();
+            buffers.clear();
+        }
+    }
+
+    /**
+     * Delegates to the committer of the underlying output format and deletes the job's offline snapshots,
+     * see {@link OfflineTableSnapshot}, once the job commits or aborts
+     */
+    private static class SnapshotCleanupOutputCommitter extends OutputCommitter {
+        private final OutputCommitter outputCommitter;
+
+        public SnapshotCleanupOutputCommitter(OutputCommitter outputCommitter) {
+            this.outputCommitter = outputCommitter;
+        }
+
+        @Override
+        public void setupJob(JobContext jobContext) throws IOException {
+            outputCommitter.setupJob(jobContext);
+        }
+
+        @Override
+        public void commitJob(JobContext jobContext) throws IOException {
+            try {
+                commitOutput(jobContext);
+            } finally {
+                OfflineTableSnapshot.deleteSnapshots(jobContext);
+            }
+        }
+
+        protected void commitOutput(JobContext jobContext) throws IOException {
+            outputCommitter.commitJob(jobContext);
+        }
+
+        @Override
+        public void abortJob(JobContext jobContext, JobStatus.State state) throws IOException {
+            try {
+                outputCommitter.abortJob(jobContext, state);
+            } finally {
+                OfflineTableSnapshot.deleteSnapshots(jobContext);
+            }
+        }
+
+        @Override
+        public void setupTask(TaskAttemptContext taskAttemptContext) throws IOException {
+            outputCommitter.setupTask(taskAttemptContext);
+        }
+
+        @Override
+        public boolean needsTaskCommit(TaskAttemptContext taskAttemptContext) throws IOException {
+            return outputCommitter.needsTaskCommit(taskAttemptContext);
+        }
+
+        @Override
+        public void commitTask(TaskAttemptContext taskAttemptContext) throws IOException {
+            outputCommitter.commitTask(taskAttemptContext);
+        }
+
+        @Override
+        public void abortTask(TaskAttemptContext taskAttemptContext) throws IOException {
+            outputCommitter.abortTask(taskAttemptContext);
+        }
+    }
+
+    /**
+     * Commits the RFiles like any file output and then bulk imports each table's directory. Imported keys
+     * are assigned the import time so that puts and deletes supersede the data already in the table. Files
+     * the tablet servers reject are moved to a failures directory next to the output, and fail the commit.
+     */
+    private static class BulkImportOutputCommitter extends SnapshotCleanupOutputCommitter {
+        public BulkImportOutputCommitter(OutputCommitter fileOutputCommitter) {
+            super(fileOutputCommitter);
+        }
+
+        @Override
+        protected void commitOutput(JobContext jobContext) throws IOException {
+            super.commitOutput(jobContext);
+            Path outputPath = FileOutputFormat.getOutputPath(jobContext);
+            FileSystem fs = outputPath.getFileSystem(jobContext.getConfiguration());
+            if (!fs.exists(outputPath)) {
+                return;
+            }
+            Path failuresPath = new Path(outputPath.getParent(), outputPath.getName() + BULK_FAILURES_DIRECTORY_SUFFIX);
+            for (FileStatus tableDirectory : fs.listStatus(outputPath)) {
+                if (tableDirectory.isDirectory()) {
+                    String tableName = tableDirectory.getPath().getName();
+                    importDirectory(jobContext, fs, tableName, tableDirectory.getPath(), new Path(failuresPath, tableName));
+                }
+            }
+        }
+
+        private void importDirectory(JobContext jobContext, FileSystem fs, String tableName, Path directory, Path failuresDirectory) throws IOException {
+            fs.delete(failuresDirectory, true);
+            fs.mkdirs(failuresDirectory);
+            try {
+                Connector connector = JobConfiguration.getConnector(jobContext);
+                connector.tableOperations().importDirectory(tableName, directory.toString(), failuresDirectory.toString(), true);
+            } catch (TableNotFoundException e) {
+                throw new IOException("Could not bulk import into table: " + tableName, e);
+            } catch (AccumuloException e) {
+                throw new IOException("Could not bulk import into table: " + tableName, e);
+            } catch (AccumuloSecurityException e) {
+                throw new IOException("Could not bulk import into table: " + tableName, e);
+            }
+            FileStatus[] failures = fs.listStatus(failuresDirectory);
+            if (failures.length > 0) {
+                throw new IOException("Could not bulk import " + failures.length + " file(s) into table " + tableName + ", moved to: " + failuresDirectory);
+            }
+        }
+    }
+
+    /**
+     * Exposes the configuration stored in the job by {@link AccumuloOutputFormat} and {@link AccumuloFileOutputFormat}
+     */
+    private static class JobConfiguration extends AccumuloOutputFormat {
+        public static Connector getConnector(JobContext jobContext) throws AccumuloException, AccumuloSecurityException {
+            return getInstance(jobContext).getConnector(getPrincipal(jobContext), getAuthenticationToken(jobContext));
+        }
+
+        public static String getDefaultTableName(JobContext jobContext) {
+            return AccumuloOutputFormat.getDefaultTableName(jobContext);
+        }
+
+        public static AccumuloConfiguration getAccumuloConfiguration(JobContext jobContext) {
+            return FileConfiguration.getAccumuloConfiguration(jobContext);
+        }
+    }
+
+    private static class FileConfiguration extends AccumuloFileOutputFormat {
+        public static AccumuloConfiguration getAccumuloConfiguration(JobContext jobContext) {
+            return AccumuloFileOutputFormat.getAccumuloConfiguration(jobContext);
+        }
+    }
 }
@@ -1,26 +1,51 @@
 package com.altamiracorp.bigtable.model.accumulo;
 
 import com.altamiracorp.bigtable.model.*;
+import com.altamiracorp.bigtable.model.compression.CompressionPolicy;
 import com.altamiracorp.bigtable.model.exceptions.MutationsWriteException;
 import com.altamiracorp.bigtable.model.exceptions.TableDoesNotExistException;
+import com.altamiracorp.bigtable.model.index.SecondaryIndex;
+import com.altamiracorp.bigtable.model.key.RowKeyRegexPlan;
+import com.altamiracorp.bigtable.model.metrics.MetricsRegistry;
+import com.altamiracorp.bigtable.model.metrics.SlowQueryLog;
+import com.altamiracorp.bigtable.model.stats.TableStatistics;
 import com.altamiracorp.bigtable.model.user.ModelUserContext;
 import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
 import org.apache.accumulo.core.client.*;
 import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.admin.TableOperations;
 import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Condition;
+import org.apache.accumulo.core.data.ConditionalMutation;
+import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Combiner;
+import org.apache.accumulo.core.iterators.FirstEntryInRowIterator;
+import org.apache.accumulo.core.iterators.IteratorUtil;
+import org.apache.accumulo.core.iterators.LongCombiner;
+import org.apache.accumulo.core.iterators.SortedKeyIterator;
 import org.apache.accumulo.core.iterators.user.RegExFilter;
 import org.apache.accumulo.core.iterators.user.RowDeletingIterator;
+import org.apache.accumulo.core.iterators.conf.ColumnSet;
+import org.apache.accumulo.core.iterators.user.SummingCombiner;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.accumulo.core.util.Pair;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.io.Text;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 
 public class AccumuloSession extends ModelSession {
@@ -30,19 +55,43 @@ public class AccumuloSession extends ModelSession {
     private static final String ACCUMULO_USER = "bigtable.accumulo.username";
     private static final String ACCUMULO_PASSWORD = "bigtable.accumulo.password";
     private static final String ZK_SERVER_NAMES = "bigtable.accumulo.zookeeperServerNames";
+    private static final String ACCUMULO_WHOLE_ROW_SCANS = "bigtable.accumulo.wholeRowScans";
+    private static final String ACCUMULO_READ_YOUR_WRITES = "bigtable.accumulo.readYourWrites";
+    private static final String ACCUMULO_GROUP_COMMIT_WINDOW = "bigtable.accumulo.groupCommit.windowMillis";
+    private static final String ACCUMULO_GROUP_COMMIT_MAX_BYTES = "bigtable.accumulo.groupCommit.maxBytes";
+    private static final String ACCUMULO_GROUP_COMMIT_MAX_WAITERS = "bigtable.accumulo.groupCommit.maxWaiters";
 
     private static final String ROW_DELETING_ITERATOR_NAME = RowDeletingIterator.class.getSimpleName();
     private static final int ROW_DELETING_ITERATOR_PRIORITY = 7;
+    private static final int BATCH_SCANNER_THREADS = 10;
+    private static final int FIRST_ENTRY_IN_ROW_ITERATOR_PRIORITY = 150;
+    private static final int SORTED_KEY_ITERATOR_PRIORITY = 151;
+    private static final int COLUMN_SCAN_BATCH_SIZE = 1000;
+    private static final int STATISTICS_MAX_SAMPLED_TABLETS = 100;
+    private static final int STATISTICS_ROWS_PER_TABLET = 100;
+    private static final int SAMPLE_MAX_ROWS_PER_TABLET = 1000;
+    private static final int SAMPLE_MAX_ROW_BYTES = 32;
+    private static final String COUNTER_COMBINER_NAME = "counters";
+    private static final int COUNTER_COMBINER_PRIORITY = 10;
+    private static final String COUNTER_COMBINER_COLUMNS_OPTION = "columns";
+    private static final String COUNTER_COMBINER_ALL_OPTION = "all";
+    private static final int READ_YOUR_WRITES_MAX_PENDING_ROWS = 10000;
+    private static final long GROUP_COMMIT_DEFAULT_MAX_BYTES = 500000L;
+    private static final int GROUP_COMMIT_DEFAULT_MAX_WAITERS = 50;
 
     private Connector connector;
     private BatchWriterConfig batchWriterConfig = new BatchWriterConfig();
     private boolean autoflush = true;
+    private boolean wholeRowScans;
+    private volatile boolean readYourWrites;
+    private volatile GroupCommitFlusher groupCommitFlusher;
+    private final PendingWrites pendingWrites = new PendingWrites();
     private final Map<String, BatchWriter> batchWriters = new HashMap<String, BatchWriter>();
     private final Set<String> rowDeletingIteratorAttachList = new HashSet<String>();
 
     @Override
     public void init(Map<String, Object> properties) {
-        LOGGER.trace("init called with parameters: properties=?", properties);
+        LOGGER.trace("init called with parameters: properties={}", properties);
         checkProperties(properties);
         try {
             String zkServerNames;
@@ -61,6 +110,26 @@ public class AccumuloSession extends ModelSession {
             if (autoflushObj != null) {
                 autoflush = Boolean.getBoolean(autoflushObj.toString());
             }
+            Object wholeRowScansObj = properties.get(ACCUMULO_WHOLE_ROW_SCANS);
+            if (wholeRowScansObj != null) {
+                wholeRowScans = Boolean.parseBoolean(wholeRowScansObj.toString());
+            }
+            Object readYourWritesObj = properties.get(ACCUMULO_READ_YOUR_WRITES);
+            if (readYourWritesObj != null) {
+                readYourWrites = Boolean.parseBoolean(readYourWritesObj.toString());
+            }
+            Object groupCommitWindowObj = properties.get(ACCUMULO_GROUP_COMMIT_WINDOW);
+            if (groupCommitWindowObj != null) {
+                Object maxBytesObj = properties.get(ACCUMULO_GROUP_COMMIT_MAX_BYTES);
+                Object maxWaitersObj = properties.get(ACCUMULO_GROUP_COMMIT_MAX_WAITERS);
+                setGroupCommit(Long.parseLong(groupCommitWindowObj.toString()),
+                        maxBytesObj == null ? GROUP_COMMIT_DEFAULT_MAX_BYTES : Long.parseLong(maxBytesObj.toString()),
+                        maxWaitersObj == null ? GROUP_COMMIT_DEFAULT_MAX_WAITERS : Integer.parseInt(maxWaitersObj.toString()));
+            }
+            initMetrics(properties);
+            initSlowQueryLog(properties);
+            initCompression(properties);
+            initPrefetch(properties);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -84,104 +153,276 @@ public class AccumuloSession extends ModelSession {
      */
     @Override
     public void save(Row row, FlushFlag flushFlag) {
-        LOGGER.trace("save called with parameters: row=?", row);
+        LOGGER.trace("save called with parameters: row={}", row);
+        long startTime = startTimer();
         try {
-            BatchWriter writer = getBatchWriter(row.getTableName());
-            AccumuloHelper.addRowToWriter(writer, row);
-            flush(writer, flushFlag);
+            Future<Void> flush = write(row, flushFlag);
+            if (flush != null) {
+                awaitFlush(flush);
+            }
         } catch (MutationsRejectedException e) {
             throw new MutationsWriteException("Error occured when writing mutation", e);
         }
+        recordLatency(MetricsRegistry.OPERATION_SAVE, row.getTableName(), startTime);
     }
 
-    private void flush(BatchWriter writer, FlushFlag flushFlag) throws MutationsRejectedException {
+    /**
+     * Saves a row and flushes it without waiting for the flush. With group commit on, the returned future
+     * completes once a coalesced flush covering the row has finished; with it off the row is flushed before this
+     * returns.
+     *
+     * @return fails with a {@link MutationsRejectedException} if the flush did
+     * @throws MutationsWriteException    Thrown if the Accumulo writer was unable to write mutations
+     * @throws TableDoesNotExistException Thrown if an Accumulo writer cannot be setup for the row's table
+     */
+    public Future<Void> saveAsync(Row row) {
+        LOGGER.trace("saveAsync called with parameters: row={}", row);
+        long startTime = startTimer();
+        Future<Void> flush;
+        try {
+            flush = write(row, FlushFlag.FLUSH);
+        } catch (MutationsRejectedException e) {
+            throw new MutationsWriteException("Error occured when writing mutation", e);
+        }
+        recordLatency(MetricsRegistry.OPERATION_SAVE, row.getTableName(), startTime);
+        if (flush == null) {
+            FutureTask<Void> flushed = new FutureTask<Void>(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }, null);
+            flushed.run();
+            return flushed;
+        }
+        return flush;
+    }
+
+    /**
+     * Adds a row to its table's writer and flushes it as the flush flag asks, or asks the group commit flusher
+     * to when group commit is on
+     *
+     * @return the group flush covering the row, or null if there is nothing to wait for
+     */
+    private Future<Void> write(Row row, FlushFlag flushFlag) throws MutationsRejectedException {
+        BatchWriter writer = getBatchWriter(row.getTableName());
+        updateIndexes(row, flushFlag);
+        getCompressionPolicy().apply(row);
+        GroupCommitFlusher groupCommitFlusher = this.groupCommitFlusher;
+        boolean groupCommit = groupCommitFlusher != null && isFlushRequested(flushFlag);
+        long size = groupCommit ? GroupCommitFlusher.estimateSize(row) : 0;
+        AccumuloHelper.addRowToWriter(writer, row);
+        if (!groupCommit && isFlushRequested(flushFlag)) {
+            flushWriter(row.getTableName(), writer);
+        } else {
+            addPendingWrites(row.getTableName(), writer, Collections.singletonList(row));
+        }
+        return groupCommit ? groupCommitFlusher.requestFlush(row.getTableName(), size) : null;
+    }
+
+    private boolean isFlushRequested(FlushFlag flushFlag) {
         switch (flushFlag) {
             case DEFAULT:
-                if (autoflush) {
-                    writer.flush();
-                }
-                break;
+                return autoflush;
             case FLUSH:
-                writer.flush();
-                break;
+                return true;
             case NO_FLUSH:
-                break;
+                return false;
             default:
                 throw new RuntimeException("Unexpected flush flag: " + flushFlag);
         }
     }
 
+    private static void awaitFlush(Future<Void> flush) throws MutationsRejectedException {
+        try {
+            flush.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a flush", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MutationsRejectedException) {
+                throw (MutationsRejectedException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Records rows left unflushed in a table's writer for the read your writes overlay, and flushes the writer
+     * once the overlay holds too many of its rows. Must be called after the rows were added to the writer, see
+     * {@link PendingWrites}.
+     *
+     * @param rows rows just added to the writer
+     */
+    private void addPendingWrites(String tableName, BatchWriter writer, Collection<Row> rows) throws MutationsRejectedException {
+        if (!readYourWrites) {
+            return;
+        }
+        for (Row row : rows) {
+            pendingWrites.addRow(tableName, row);
+        }
+        if (pendingWrites.getRowCount(tableName) > READ_YOUR_WRITES_MAX_PENDING_ROWS) {
+            flushWriter(tableName, writer);
+        }
+    }
+
+    /**
+     * Flushes a table's writer without holding any lock, so writers of the same table are not blocked by the
+     * flush, and then drops the overlay's rows that were added to the writer before it started
+     */
+    private void flushWriter(String tableName, BatchWriter writer) throws MutationsRejectedException {
+        long sequence = pendingWrites.getSequence();
+        writer.flush();
+        pendingWrites.clear(tableName, sequence);
+    }
+
     /**
      * @throws MutationsWriteException    Thrown if the Accumulo writer was unable to write mutations
      * @throws TableDoesNotExistException Thrown if an Accumulo writer cannot be setup for the row's table
      */
     @Override
     public void saveMany(String tableName, Collection<Row> rows) {
-        LOGGER.trace("saveMany called with parameters: tableName=?, rows=?", tableName, rows);
+        LOGGER.trace("saveMany called with parameters: tableName={}, rows={}", tableName, rows);
         if (rows.size() == 0) {
             return;
         }
+        long startTime = startTimer();
         try {
             BatchWriter writer = getBatchWriter(tableName);
+            CompressionPolicy compressionPolicy = getCompressionPolicy();
+            for (Row row : rows) {
+                updateIndexes(row, FlushFlag.NO_FLUSH);
+                compressionPolicy.apply(row);
+            }
+            GroupCommitFlusher groupCommitFlusher = this.groupCommitFlusher;
+            boolean groupCommit = groupCommitFlusher != null && autoflush;
+            boolean flushed = autoflush && !groupCommit;
+            if (flushed) {
+                for (SecondaryIndex index : getIndexes(tableName)) {
+                    flushWriter(index.getIndexTableName(), getBatchWriter(index.getIndexTableName()));
+                }
+            }
+            long size = 0;
             for (Row row : rows) {
                 AccumuloHelper.addRowToWriter(writer, row);
+                size += groupCommit ? GroupCommitFlusher.estimateSize(row) : 0;
             }
-            if (autoflush) {
-                writer.flush();
+            if (flushed) {
+                flushWriter(tableName, writer);
+            } else {
+                addPendingWrites(tableName, writer, rows);
+            }
+            if (groupCommit) {
+                List<Future<Void>> flushes = new ArrayList<Future<Void>>();
+                for (SecondaryIndex index : getIndexes(tableName)) {
+                    flushes.add(groupCommitFlusher.requestFlush(index.getIndexTableName(), 0));
+                }
+                flushes.add(groupCommitFlusher.requestFlush(tableName, size));
+                for (Future<Void> flush : flushes) {
+                    awaitFlush(flush);
+                }
             }
         } catch (MutationsRejectedException e) {
             throw new MutationsWriteException("Error occured while writing batch of mutations", e);
         }
+        recordLatency(MetricsRegistry.OPERATION_SAVE_MANY, tableName, startTime);
     }
 
     @Override
     public Iterable<Row> findByRowKeyRange(String tableName, String rowKeyStart, String rowKeyEnd, ModelUserContext user) {
-        LOGGER.trace("findByRowKeyRange called with parameters: tableName=?, rowKeyStart=?, rowKeyEnd=?, user=?", tableName, rowKeyStart, rowKeyEnd, user);
+        LOGGER.trace("findByRowKeyRange called with parameters: tableName={}, rowKeyStart={}, rowKeyEnd={}, user={}", tableName, rowKeyStart, rowKeyEnd, user);
 
-        return scanTableRange(tableName, new Range(rowKeyStart, rowKeyEnd), user);
+        return scanTableRange(tableName, new Range(rowKeyStart, rowKeyEnd), "rowKeyStart=" + rowKeyStart + ", rowKeyEnd=" + rowKeyEnd, user);
     }
 
     @Override
     public Iterable<Row> findByRowStartsWith(String tableName, String rowKeyPrefix, ModelUserContext user) {
-        LOGGER.trace(String.format("Scanning table (%s) key range with prefix: %s", tableName, rowKeyPrefix));
+        LOGGER.trace("findByRowStartsWith called with parameters: tableName={}, rowKeyPrefix={}, user={}", tableName, rowKeyPrefix, user);
 
-        return scanTableRange(tableName, Range.prefix(rowKeyPrefix), user);
+        return scanTableRange(tableName, Range.prefix(rowKeyPrefix), "rowKeyPrefix=" + rowKeyPrefix, user);
     }
 
-    private Iterable<Row> scanTableRange(final String tableName, final Range scannerRange, final ModelUserContext user) {
+    private Iterable<Row> scanTableRange(final String tableName, final Range scannerRange, final String query, final ModelUserContext user) {
         try {
             final Scanner scanner = createScanner(tableName, user);
             scanner.setRange(scannerRange);
 
-            return AccumuloHelper.scannerToRows(tableName, scanner);
+            return prefetch(overlayPendingWrites(tableName, scannerRange, user, scannerToRows(createScanMonitor(tableName, MetricsRegistry.OPERATION_SCAN, query, user), scanner)));
         } catch (TableNotFoundException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Scans only the ranges of the literal prefixes found by {@link RowKeyRegexPlan}, one after another with a
+     * single scanner so that rows come back in row key order. Expressions without a literal prefix scan the whole
+     * table.
+     */
     @Override
     public Iterable<Row> findByRowKeyRegex(String tableName, String rowKeyRegex, ModelUserContext user) {
-        LOGGER.trace("findByRowKeyRegex called with parameters: tableName=?, rowKeyRegex=?, user=?", tableName, rowKeyRegex, user);
+        LOGGER.trace("findByRowKeyRegex called with parameters: tableName={}, rowKeyRegex={}, user={}", tableName, rowKeyRegex, user);
+        List<Range> ranges = planRowKeyRegex(rowKeyRegex);
         try {
             Scanner scanner = createScanner(tableName, user);
-            scanner.setRange(new Range());
-
-            IteratorSetting iter = new IteratorSetting(15, "regExFilter", RegExFilter.class);
-            RegExFilter.setRegexs(iter, rowKeyRegex, null, null, null, false);
-            scanner.addScanIterator(iter);
-
-            return AccumuloHelper.scannerToRows(tableName, scanner);
+            scanner.addScanIterator(createRowKeyRegexFilter(rowKeyRegex));
+            return prefetch(scannerToRows(createScanMonitor(tableName, MetricsRegistry.OPERATION_SCAN, "rowKeyRegex=" + rowKeyRegex, user), scanner, ranges));
         } catch (TableNotFoundException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Scans the ranges planned like {@link #findByRowKeyRegex} across tablets in parallel with a batch scanner
+     */
+    @Override
+    public Iterable<Row> findByRowKeyRegexUnordered(final String tableName, final String rowKeyRegex, final ModelUserContext user) {
+        LOGGER.trace("findByRowKeyRegexUnordered called with parameters: tableName={}, rowKeyRegex={}, user={}", tableName, rowKeyRegex, user);
+        final List<Range> ranges = planRowKeyRegex(rowKeyRegex);
+        final IteratorSetting regexFilter = createRowKeyRegexFilter(rowKeyRegex);
+        ScanMonitor monitor = createScanMonitor(tableName, MetricsRegistry.OPERATION_SCAN, "rowKeyRegex=" + rowKeyRegex + ", unordered", user);
+        return prefetch(new WholeRowIterable(monitor, getCompressionPolicy()) {
+            @Override
+            protected ScannerBase createScanner() {
+                BatchScanner scanner = createBatchScanner(tableName, user);
+                scanner.setRanges(ranges);
+                scanner.addScanIterator(regexFilter);
+                WholeRowIterable.addWholeRowIterator(scanner);
+                return scanner;
+            }
+        });
+    }
+
+    /**
+     * @return the sorted ranges of the expression's literal prefixes, or the whole table when it has none
+     */
+    private static List<Range> planRowKeyRegex(String rowKeyRegex) {
+        RowKeyRegexPlan plan = RowKeyRegexPlan.plan(rowKeyRegex);
+        LOGGER.debug("findByRowKeyRegex planned {} for rowKeyRegex={}", plan, rowKeyRegex);
+        List<Range> ranges = new ArrayList<Range>();
+        if (plan.isFullScan()) {
+            ranges.add(new Range());
+        } else {
+            for (String prefix : plan.getPrefixes()) {
+                ranges.add(Range.prefix(prefix));
+            }
+        }
+        return ranges;
+    }
+
+    private static IteratorSetting createRowKeyRegexFilter(String rowKeyRegex) {
+        IteratorSetting regexFilter = new IteratorSetting(15, "regExFilter", RegExFilter.class);
+        RegExFilter.setRegexs(regexFilter, rowKeyRegex, null, null, null, false);
+        return regexFilter;
+    }
+
     @Override
     public Iterable<Row> findAll(String tableName, ModelUserContext user) {
-        LOGGER.trace("findAll called with parameters: tableName=?, user=?", tableName, user);
+        LOGGER.trace("findAll called with parameters: tableName={}, user={}", tableName, user);
         try {
             Scanner scanner = createScanner(tableName, user);
-            return AccumuloHelper.scannerToRows(tableName, scanner);
+            return prefetch(overlayPendingWrites(tableName, new Range(), user, scannerToRows(createScanMonitor(tableName, MetricsRegistry.OPERATION_SCAN, "all", user), scanner)));
         } catch (TableNotFoundException e) {
             throw new RuntimeException(e);
         }
@@ -189,15 +430,23 @@ public class AccumuloSession extends ModelSession {
 
     @Override
     public long rowCount(String tableName, ModelUserContext user) {
-        LOGGER.trace("rowCount called with parameters: tableName=?, user=?", tableName, user);
+        LOGGER.trace("rowCount called with parameters: tableName={}, user={}", tableName, user);
         try {
             // TODO this requires all rows to be returned to the client. It would be nice to have this run server side.
             Scanner scanner = createScanner(tableName, user);
-            RowIterator rowIterator = new RowIterator(scanner);
+            ScanMonitor monitor = createScanMonitor(tableName, MetricsRegistry.OPERATION_ROW_COUNT, "all", user);
+            ScanMonitor.Execution execution = monitor.isEnabled() ? monitor.start(scanner.iterator()) : null;
+            RowIterator rowIterator = execution == null ? new RowIterator(scanner) : new RowIterator(execution);
             long count = 0;
             while (rowIterator.hasNext()) {
                 rowIterator.next();
                 count++;
+                if (execution != null) {
+                    execution.rowRead();
+                }
+            }
+            if (execution != null) {
+                execution.finish();
             }
             return count;
         } catch (TableNotFoundException e) {
@@ -207,17 +456,23 @@ public class AccumuloSession extends ModelSession {
 
     @Override
     public Row findByRowKey(String tableName, String rowKey, ModelUserContext user) {
-        LOGGER.trace("findByRowKey called with parameters: tableName=?, rowKey=?, user=?", tableName, rowKey, user);
+        LOGGER.trace("findByRowKey called with parameters: tableName={}, rowKey={}, user={}", tableName, rowKey, user);
         try {
+            PendingWrites.PendingRow pendingRow = readYourWrites ? pendingWrites.getRow(tableName, rowKey) : null;
             Scanner scanner = createScanner(tableName, user);
             scanner.setRange(new Range(rowKey));
-            Iterator<Row> rows = AccumuloHelper.scannerToRows(tableName, scanner).iterator();
-            if (!rows.hasNext()) {
-                return null;
+            Iterator<Row> rows = scannerToRows(createScanMonitor(tableName, MetricsRegistry.OPERATION_FIND_BY_ROW_KEY, "rowKey=" + rowKey, user), scanner).iterator();
+            Row result;
+            try {
+                result = rows.hasNext() ? rows.next() : null;
+                if (rows.hasNext()) {
+                    throw new RuntimeException("Too many rows returned for a single row query (rowKey: " + rowKey + ")");
+                }
+            } finally {
+                closeRows(rows);
             }
-            Row result = rows.next();
-            if (rows.hasNext()) {
-                throw new RuntimeException("Too many rows returned for a single row query (rowKey: " + rowKey + ")");
+            if (pendingRow != null) {
+                result = PendingWrites.apply(tableName, pendingRow, result, ((AccumuloUserContext) user).getAuthorizations());
             }
             return result;
         } catch (TableNotFoundException e) {
@@ -225,6 +480,630 @@ public class AccumuloSession extends ModelSession {
         }
     }
 
+    /**
+     * Fetches the rows with a batch scanner, one range per row key, instead of a scan per row
+     */
+    @Override
+    public List<Row> findByRowKeys(String tableName, Collection<String> rowKeys, ModelUserContext user) {
+        LOGGER.trace("findByRowKeys called with parameters: tableName={}, rowKeys={}, user={}", tableName, rowKeys, user);
+        if (rowKeys.size() == 0) {
+            return new ArrayList<Row>();
+        }
+        long startTime = startTimer();
+        Map<String, PendingWrites.PendingRow> pendingRows = new HashMap<String, PendingWrites.PendingRow>();
+        if (readYourWrites) {
+            for (String rowKey : rowKeys) {
+                PendingWrites.PendingRow pendingRow = pendingWrites.getRow(tableName, rowKey);
+                if (pendingRow != null) {
+                    pendingRows.put(rowKey, pendingRow);
+                }
+            }
+        }
+        BatchScanner scanner = createBatchScanner(tableName, user);
+        try {
+            List<Range> ranges = new ArrayList<Range>();
+            for (String rowKey : rowKeys) {
+                ranges.add(new Range(rowKey));
+            }
+            scanner.setRanges(ranges);
+
+            Map<String, List<Map.Entry<Key, Value>>> cellsByRowKey = new HashMap<String, List<Map.Entry<Key, Value>>>();
+            for (Map.Entry<Key, Value> cell : scanner) {
+                String rowKey = cell.getKey().getRow().toString();
+                List<Map.Entry<Key, Value>> cells = cellsByRowKey.get(rowKey);
+                if (cells == null) {
+                    cells = new ArrayList<Map.Entry<Key, Value>>();
+                    cellsByRowKey.put(rowKey, cells);
+                }
+                cells.add(cell);
+            }
+
+            List<Row> results = new ArrayList<Row>();
+            for (String rowKey : new LinkedHashSet<String>(rowKeys)) {
+                List<Map.Entry<Key, Value>> cells = cellsByRowKey.get(rowKey);
+                Row row = cells == null ? null : AccumuloHelper.accumuloRowToRow(tableName, cells.iterator(), getCompressionPolicy());
+                if (pendingRows.containsKey(rowKey)) {
+                    row = PendingWrites.apply(tableName, pendingRows.get(rowKey), row, ((AccumuloUserContext) user).getAuthorizations());
+                }
+                if (row != null) {
+                    results.add(row);
+                }
+            }
+            recordLatency(MetricsRegistry.OPERATION_FIND_BY_ROW_KEYS, tableName, startTime);
+            return results;
+        } finally {
+            scanner.close();
+        }
+    }
+
+    /**
+     * Reads the columns in batches as the cursor advances. The scan range starts after the resume position, and a
+     * single column family with a column name range narrows it to those columns.
+     */
+    @Override
+    public ColumnCursor scanColumns(final String tableName, String rowKey, ColumnScan scan, ModelUserContext user) {
+        LOGGER.trace("scanColumns called with parameters: tableName={}, rowKey={}, user={}", tableName, rowKey, user);
+        Range range = createColumnScanRange(rowKey, scan);
+        if (range == null) {
+            return new ColumnCursor(Collections.<Cell>emptyList().iterator(), scan);
+        }
+        Scanner scanner;
+        try {
+            scanner = createScanner(tableName, user);
+        } catch (TableNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        for (String columnFamilyName : scan.getColumnFamilyNames()) {
+            scanner.fetchColumnFamily(new Text(columnFamilyName));
+        }
+        scanner.setRange(range);
+        scanner.setBatchSize((int) Math.max(1, Math.min(scan.getOffset() + scan.getLimit(), COLUMN_SCAN_BATCH_SIZE)));
+
+        ScanMonitor monitor = createScanMonitor(tableName, MetricsRegistry.OPERATION_SCAN, "rowKey=" + rowKey + ", columns", user);
+        ScanMonitor.Execution execution = monitor.isEnabled() ? monitor.start(scanner.iterator()) : null;
+        Iterator<Map.Entry<Key, Value>> entries = execution == null ? scanner.iterator() : execution;
+        return new ColumnCursor(new CellIterator(entries, execution, getCompressionPolicy()), scan);
+    }
+
+    /**
+     * Converts the entries of a column scan to cells, finishing the scan's execution when the entries run out
+     * or the cursor is closed
+     */
+    private static class CellIterator implements Iterator<Cell>, Closeable {
+        private final Iterator<Map.Entry<Key, Value>> entries;
+        private final ScanMonitor.Execution execution;
+        private final CompressionPolicy compressionPolicy;
+
+        private CellIterator(Iterator<Map.Entry<Key, Value>> entries, ScanMonitor.Execution execution, CompressionPolicy compressionPolicy) {
+            this.entries = entries;
+            this.execution = execution;
+            this.compressionPolicy = compressionPolicy;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = entries.hasNext();
+            if (!hasNext && execution != null) {
+                execution.finish();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public Cell next() {
+            Map.Entry<Key, Value> entry = entries.next();
+            Key key = entry.getKey();
+            String columnFamilyName = key.getColumnFamily().toString();
+            String columnName = key.getColumnQualifier().toString();
+            return new Cell(columnFamilyName, new Column(columnName,
+                    AccumuloHelper.accumuloValueToObject(columnFamilyName, columnName, entry.getValue(), compressionPolicy), key.getColumnVisibility().toString()));
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            if (execution != null) {
+                execution.close();
+            }
+        }
+    }
+
+    /**
+     * @return the range of the row's columns selected by the scan, or null if it is empty
+     */
+    private static Range createColumnScanRange(String rowKey, ColumnScan scan) {
+        Text row = new Text(rowKey);
+        Key start = new Key(row);
+        Key end = start.followingKey(PartialKey.ROW);
+        if (scan.getColumnFamilyNames().size() == 1) {
+            Text columnFamily = new Text(scan.getColumnFamilyNames().iterator().next());
+            if (scan.getColumnNameStart() != null) {
+                start = new Key(row, columnFamily, new Text(scan.getColumnNameStart()));
+            }
+            if (scan.getColumnNameEnd() != null) {
+                end = new Key(row, columnFamily, new Text(scan.getColumnNameEnd()));
+            }
+        }
+        if (scan.getResumeToken() != null) {
+            Key resumeKey = new Key(row, new Text(scan.getResumeColumnFamilyName()), new Text(scan.getResumeColumnName()),
+                    new Text(scan.getResumeVisibility())).followingKey(PartialKey.ROW_COLFAM_COLQUAL_COLVIS);
+            if (resumeKey.compareTo(start) > 0) {
+                start = resumeKey;
+            }
+        }
+        if (start.compareTo(end) >= 0) {
+            return null;
+        }
+        return new Range(start, true, end, false);
+    }
+
+    /**
+     * Writes each amount as a new cell without reading the counter. The counter combiner adds the cells of a
+     * counter together when it is read or compacted, so concurrent writers never lose increments. The writes are
+     * flushed like {@link #save(Row)}, so with autoflush off increments are buffered.
+     *
+     * @throws MutationsWriteException    Thrown if the Accumulo writer was unable to write mutations
+     * @throws TableDoesNotExistException Thrown if an Accumulo writer cannot be setup for the table
+     */
+    @Override
+    public void incrementMany(String tableName, Collection<CounterIncrement> increments) {
+        LOGGER.trace("incrementMany called with parameters: tableName={}, increments={}", tableName, increments);
+        if (increments.size() == 0) {
+            return;
+        }
+        long startTime = startTimer();
+        Map<String, Mutation> mutations = new LinkedHashMap<String, Mutation>();
+        for (CounterIncrement increment : increments) {
+            checkCounterFamily(tableName, increment.getColumnFamilyName());
+            Mutation mutation = mutations.get(increment.getRowKey());
+            if (mutation == null) {
+                mutation = new Mutation(increment.getRowKey());
+                mutations.put(increment.getRowKey(), mutation);
+            }
+            mutation.put(new Text(increment.getColumnFamilyName()), new Text(increment.getColumnName()),
+                    new Value(LongCombiner.FIXED_LEN_ENCODER.encode(increment.getDelta())));
+        }
+        try {
+            BatchWriter writer = getBatchWriter(tableName);
+            GroupCommitFlusher groupCommitFlusher = this.groupCommitFlusher;
+            boolean groupCommit = groupCommitFlusher != null && autoflush;
+            writer.addMutations(mutations.values());
+            if (!groupCommit && isFlushRequested(FlushFlag.DEFAULT)) {
+                flushWriter(tableName, writer);
+            }
+            if (groupCommit) {
+                long size = 0;
+                for (Mutation mutation : mutations.values()) {
+                    size += mutation.numBytes();
+                }
+                awaitFlush(groupCommitFlusher.requestFlush(tableName, size));
+            }
+        } catch (MutationsRejectedException e) {
+            throw new MutationsWriteException("Error occured while writing counter increments", e);
+        }
+        recordLatency(MetricsRegistry.OPERATION_INCREMENT, tableName, startTime);
+    }
+
+    /**
+     * Advances the sequence with a conditional mutation that only applies if the column still holds the value
+     * read, retrying when another writer got there first, so sessions sharing a sequence never reserve the same
+     * ids. A MockInstance has no conditional writer, so there the sequence falls back to the single session
+     * implementation.
+     */
+    @Override
+    public long allocateIds(String tableName, String rowKey, String columnFamilyName, String columnName, long count) {
+        LOGGER.trace("allocateIds called with parameters: tableName={}, rowKey={}, columnFamilyName={}, columnName={}, count={}", tableName, rowKey, columnFamilyName, columnName, count);
+        long startTime = startTimer();
+        ConditionalWriter writer;
+        try {
+            writer = connector.createConditionalWriter(tableName, new ConditionalWriterConfig());
+        } catch (UnsupportedOperationException e) {
+            return super.allocateIds(tableName, rowKey, columnFamilyName, columnName, count);
+        } catch (TableNotFoundException e) {
+            throw new TableDoesNotExistException("Could not find table: " + tableName, e);
+        }
+        try {
+            Scanner scanner = connector.createScanner(tableName, Authorizations.EMPTY);
+            scanner.setRange(Range.exact(rowKey, columnFamilyName, columnName));
+            while (true) {
+                byte[] current = null;
+                for (Map.Entry<Key, Value> entry : scanner) {
+                    current = entry.getValue().get();
+                }
+                long first = current == null ? 0 : LongCombiner.FIXED_LEN_ENCODER.decode(current);
+                Condition condition = new Condition(columnFamilyName, columnName);
+                if (current != null) {
+                    condition.setValue(current);
+                }
+                ConditionalMutation mutation = new ConditionalMutation(rowKey, condition);
+                mutation.put(new Text(columnFamilyName), new Text(columnName), new Value(LongCombiner.FIXED_LEN_ENCODER.encode(first + count)));
+                ConditionalWriter.Status status = writer.write(mutation).getStatus();
+                if (status == ConditionalWriter.Status.ACCEPTED) {
+                    recordLatency(MetricsRegistry.OPERATION_INCREMENT, tableName, startTime);
+                    return first;
+                }
+                if (status != ConditionalWriter.Status.REJECTED) {
+                    throw new MutationsWriteException("Could not allocate ids from " + tableName + ":" + rowKey + ", status " + status, null);
+                }
+            }
+        } catch (TableNotFoundException e) {
+            throw new RuntimeException(e);
+        } catch (AccumuloException e) {
+            throw new RuntimeException(e);
+        } catch (AccumuloSecurityException e) {
+            throw new RuntimeException(e);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Returns only the first key of each row, with an empty value
+     */
+    @Override
+    public List<String> listRowKeys(String tableName, String keyStart, String keyEnd, int limit, ModelUserContext user) {
+        LOGGER.trace("listRowKeys called with parameters: tableName={}, keyStart={}, keyEnd={}, limit={}, user={}", tableName, keyStart, keyEnd, limit, user);
+        List<String> results = new ArrayList<String>();
+        if (limit <= 0) {
+            return results;
+        }
+        long startTime = startTimer();
+        try {
+            Scanner scanner = createScanner(tableName, user);
+            addKeysOnlyIterators(scanner);
+            scanner.setRange(new Range(keyStart, keyEnd));
+            scanner.setBatchSize(Math.min(limit, 1000));
+            for (Map.Entry<Key, Value> entry : scanner) {
+                results.add(entry.getKey().getRow().toString());
+                if (results.size() >= limit) {
+                    break;
+                }
+            }
+        } catch (TableNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        recordLatency(MetricsRegistry.OPERATION_LIST_ROW_KEYS, tableName, startTime);
+        return results;
+    }
+
+    @Override
+    public boolean exists(String tableName, String rowKey, ModelUserContext user) {
+        LOGGER.trace("exists called with parameters: tableName={}, rowKey={}, user={}", tableName, rowKey, user);
+        long startTime = startTimer();
+        boolean exists;
+        try {
+            Scanner scanner = createScanner(tableName, user);
+            addKeysOnlyIterators(scanner);
+            scanner.setRange(new Range(rowKey));
+            scanner.setBatchSize(1);
+            exists = scanner.iterator().hasNext();
+        } catch (TableNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        recordLatency(MetricsRegistry.OPERATION_EXISTS, tableName, startTime);
+        return exists;
+    }
+
+    @Override
+    public Set<String> existsMany(String tableName, Collection<String> rowKeys, ModelUserContext user) {
+        LOGGER.trace("existsMany called with parameters: tableName={}, rowKeys={}, user={}", tableName, rowKeys, user);
+        Set<String> results = new LinkedHashSet<String>();
+        if (rowKeys.size() == 0) {
+            return results;
+        }
+        long startTime = startTimer();
+        BatchScanner scanner = createBatchScanner(tableName, user);
+        Set<String> found = new HashSet<String>();
+        try {
+            addKeysOnlyIterators(scanner);
+            List<Range> ranges = new ArrayList<Range>();
+            for (String rowKey : rowKeys) {
+                ranges.add(new Range(rowKey));
+            }
+            scanner.setRanges(ranges);
+            for (Map.Entry<Key, Value> entry : scanner) {
+                found.add(entry.getKey().getRow().toString());
+            }
+        } finally {
+            scanner.close();
+        }
+        for (String rowKey : rowKeys) {
+            if (found.contains(rowKey)) {
+                results.add(rowKey);
+            }
+        }
+        recordLatency(MetricsRegistry.OPERATION_EXISTS, tableName, startTime);
+        return results;
+    }
+
+    /**
+     * Reads the first rows of up to 100 tablets spread across the range. A tablet whose sample reaches its end is
+     * counted exactly. The rows of the other tablets are estimated from the number of entries in their files, as
+     * recorded in the metadata table, divided by the average number of cells in the sampled rows. Entry counts
+     * leave out data not yet flushed from memory, and a tablet that the range only partly covers is credited with
+     * all of its entries, so the sampled rows of a tablet are also a lower bound for it. Tablets whose entries are
+     * unknown, because they have no files or the user may not read the metadata table, are assumed to hold as many
+     * rows as the average of the others.
+     */
+    @Override
+    public TableStatistics getStatistics(String tableName, String keyStart, String keyEnd, ModelUserContext user) {
+        LOGGER.trace("getStatistics called with parameters: tableName={}, keyStart={}, keyEnd={}, user={}", tableName, keyStart, keyEnd, user);
+        long startTime = startTimer();
+        List<Tablet> tablets = createTablets(listSplits(tableName), new Range(keyStart, keyEnd));
+        Map<Text, Long> entriesByEndRow = TabletEntries.read(connector, tableName);
+
+        long sampledRows = 0;
+        long sampledCells = 0;
+        long sampledBytes = 0;
+        for (Tablet tablet : spread(tablets, STATISTICS_MAX_SAMPLED_TABLETS)) {
+            tablet.sample = sampleTablet(tableName, tablet.range, user);
+            sampledRows += tablet.sample.rows;
+            sampledCells += tablet.sample.cells;
+            sampledBytes += tablet.sample.bytes;
+        }
+
+        long exactRows = 0;
+        long exactCells = 0;
+        long exactBytes = 0;
+        long estimatedRows = 0;
+        int unknownTablets = 0;
+        boolean exact = true;
+        for (Tablet tablet : tablets) {
+            TabletSample sample = tablet.sample;
+            if (sample != null && sample.complete) {
+                exactRows += sample.rows;
+                exactCells += sample.cells;
+                exactBytes += sample.bytes;
+                estimatedRows += sample.rows;
+                continue;
+            }
+            exact = false;
+            Long entries = entriesByEndRow.get(tablet.endRow);
+            long rowsFromEntries = entries == null || sampledCells == 0 ? -1 : entries * sampledRows / sampledCells;
+            if (sample != null) {
+                estimatedRows += Math.max(sample.rows, rowsFromEntries);
+            } else if (rowsFromEntries >= 0) {
+                estimatedRows += rowsFromEntries;
+            } else {
+                unknownTablets++;
+            }
+        }
+        if (unknownTablets > 0 && unknownTablets < tablets.size()) {
+            estimatedRows += estimatedRows * unknownTablets / (tablets.size() - unknownTablets);
+        }
+
+        long estimatedCells = exactCells;
+        long estimatedBytes = exactBytes;
+        if (sampledRows > 0) {
+            estimatedCells += (estimatedRows - exactRows) * sampledCells / sampledRows;
+            estimatedBytes += (estimatedRows - exactRows) * sampledBytes / sampledRows;
+        }
+        recordLatency(MetricsRegistry.OPERATION_STATISTICS, tableName, startTime);
+        return new TableStatistics(tableName, keyStart, keyEnd, tablets.size(), estimatedRows, estimatedCells,
+                estimatedBytes, sampledRows, exact);
+    }
+
+    private TabletSample sampleTablet(String tableName, Range tablet, ModelUserContext user) {
+        TabletSample sample = new TabletSample();
+        try {
+            Scanner scanner = createScanner(tableName, user);
+            scanner.setRange(tablet);
+            RowIterator rowIterator = new RowIterator(scanner);
+            while (sample.rows < STATISTICS_ROWS_PER_TABLET && rowIterator.hasNext()) {
+                Iterator<Map.Entry<Key, Value>> cells = rowIterator.next();
+                while (cells.hasNext()) {
+                    Map.Entry<Key, Value> cell = cells.next();
+                    sample.cells++;
+                    sample.bytes += cell.getKey().getSize() + cell.getValue().getSize();
+                }
+                sample.rows++;
+            }
+            sample.complete = !rowIterator.hasNext();
+        } catch (TableNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        return sample;
+    }
+
+    /**
+     * Picks rows at random from tablets spread evenly across the range. Up to 1000 row keys of each of those
+     * tablets are read with a keys only scan, starting from a random row between the tablet's bounds and wrapping
+     * around to its start, and reservoir sampled, so that only the picked rows are read in full. Tablets larger
+     * than that contribute rows from the run after their random start rather than from all of their rows.
+     */
+    @Override
+    public List<Row> sample(String tableName, String keyStart, String keyEnd, int count, ModelUserContext user) {
+        return sample(tableName, keyStart, keyEnd, count, SAMPLE_MAX_ROWS_PER_TABLET, user);
+    }
+
+    List<Row> sample(String tableName, String keyStart, String keyEnd, int count, int maxRowsPerTablet, ModelUserContext user) {
+        LOGGER.trace("sample called with parameters: tableName={}, keyStart={}, keyEnd={}, count={}, user={}", tableName, keyStart, keyEnd, count, user);
+        if (count <= 0) {
+            return new ArrayList<Row>();
+        }
+        long startTime = startTimer();
+        Random random = new Random();
+        List<String> rowKeys = new ArrayList<String>();
+        long seen = 0;
+        try {
+            Scanner scanner = createScanner(tableName, user);
+            addKeysOnlyIterators(scanner);
+            scanner.setBatchSize(Math.min(maxRowsPerTablet, COLUMN_SCAN_BATCH_SIZE));
+            for (Tablet tablet : spread(createTablets(listSplits(tableName), new Range(keyStart, keyEnd)), count)) {
+                for (String rowKey : readTabletRowKeys(scanner, tablet.range, maxRowsPerTablet, random)) {
+                    seen++;
+                    if (rowKeys.size() < count) {
+                        rowKeys.add(rowKey);
+                    } else {
+                        long index = (long) (random.nextDouble() * seen);
+                        if (index < count) {
+                            rowKeys.set((int) index, rowKey);
+                        }
+                    }
+                }
+            }
+        } catch (TableNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        if (rowKeys.size() == 0) {
+            return new ArrayList<Row>();
+        }
+
+        List<Row> results = findByRowKeys(tableName, rowKeys, user);
+        Collections.sort(results, new RowKeyComparator());
+        recordLatency(MetricsRegistry.OPERATION_SAMPLE, tableName, startTime);
+        return results;
+    }
+
+    /**
+     * @return at most max row keys of the tablet, read from a random row between its bounds to its end and then
+     * from its start, or from its start if either bound is open
+     */
+    private static List<String> readTabletRowKeys(Scanner scanner, Range tablet, int max, Random random) {
+        List<String> results = new ArrayList<String>();
+        if (tablet.isInfiniteStartKey() || tablet.isInfiniteStopKey()) {
+            readRowKeys(scanner, tablet, max, results);
+            return results;
+        }
+        Key randomStart = new Key(randomRowBetween(tablet.getStartKey().getRow(), tablet.getEndKey().getRow(), random));
+        Range fromRandomStart = tablet.clip(new Range(randomStart, true, null, false), true);
+        Range beforeRandomStart = tablet.clip(new Range(null, false, randomStart, false), true);
+        if (fromRandomStart != null) {
+            readRowKeys(scanner, fromRandomStart, max, results);
+        }
+        if (beforeRandomStart != null) {
+            readRowKeys(scanner, beforeRandomStart, max, results);
+        }
+        return results;
+    }
+
+    private static void readRowKeys(Scanner scanner, Range range, int max, List<String> results) {
+        scanner.setRange(range);
+        Iterator<Map.Entry<Key, Value>> entries = scanner.iterator();
+        while (results.size() < max && entries.hasNext()) {
+            results.add(entries.next().getKey().getRow().toString());
+        }
+    }
+
+    /**
+     * Picks a row between two rows by reading their bytes, padded to the same length and cut to at most 32 bytes,
+     * as unsigned numbers. Rows are only uniform in that order when their bytes are, so this is a starting point
+     * that spreads reads across a tablet, not an exact random row.
+     */
+    static Text randomRowBetween(Text start, Text end, Random random) {
+        int length = Math.min(Math.max(start.getLength(), end.getLength()), SAMPLE_MAX_ROW_BYTES);
+        BigInteger low = toUnsigned(start, length);
+        BigInteger span = toUnsigned(end, length).subtract(low);
+        if (span.signum() <= 0) {
+            return new Text(start);
+        }
+        BigInteger offset = new BigInteger(span.bitLength() + 8, random).mod(span);
+        byte[] bytes = low.add(offset).toByteArray();
+        byte[] row = new byte[length];
+        int copied = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - copied, row, length - copied, copied);
+        return new Text(row);
+    }
+
+    private static BigInteger toUnsigned(Text row, int length) {
+        byte[] bytes = new byte[length];
+        System.arraycopy(row.getBytes(), 0, bytes, 0, Math.min(row.getLength(), length));
+        return new BigInteger(1, bytes);
+    }
+
+    private List<Text> listSplits(String tableName) {
+        try {
+            List<Text> splits = new ArrayList<Text>(connector.tableOperations().listSplits(tableName));
+            Collections.sort(splits);
+            return splits;
+        } catch (TableNotFoundException e) {
+            throw new RuntimeException(e);
+        } catch (AccumuloSecurityException e) {
+            throw new RuntimeException(e);
+        } catch (AccumuloException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return the tablets holding the range, in row key order, each with the part of the range it holds
+     */
+    private static List<Tablet> createTablets(List<Text> splits, Range range) {
+        List<Tablet> results = new ArrayList<Tablet>();
+        Text previousSplit = null;
+        for (int i = 0; i <= splits.size(); i++) {
+            Text split = i < splits.size() ? splits.get(i) : null;
+            Range tabletRange = range.clip(new Range(previousSplit, false, split, true), true);
+            if (tabletRange != null) {
+                results.add(new Tablet(tabletRange, split));
+            }
+            previousSplit = split;
+        }
+        return results;
+    }
+
+    /**
+     * @return at most max items picked at even intervals
+     */
+    private static <T> List<T> spread(List<T> items, int max) {
+        if (items.size() <= max) {
+            return items;
+        }
+        List<T> results = new ArrayList<T>(max);
+        for (int i = 0; i < max; i++) {
+            results.add(items.get((int) ((long) i * items.size() / max)));
+        }
+        return results;
+    }
+
+    /**
+     * The part of a range held by one tablet, and the first rows read from it when it was sampled
+     */
+    private static class Tablet {
+        private final Range range;
+        private final Text endRow;
+        private TabletSample sample;
+
+        private Tablet(Range range, Text endRow) {
+            this.range = range;
+            this.endRow = endRow;
+        }
+    }
+
+    private static class TabletSample {
+        private long rows;
+        private long cells;
+        private long bytes;
+        private boolean complete;
+    }
+
+    /**
+     * Reduces each row to its first key with an empty value. Runs after the row deleting iterator so that
+     * deleted rows are not reported.
+     */
+    private static void addKeysOnlyIterators(ScannerBase scanner) {
+        scanner.addScanIterator(new IteratorSetting(FIRST_ENTRY_IN_ROW_ITERATOR_PRIORITY, FirstEntryInRowIterator.class.getSimpleName(), FirstEntryInRowIterator.class));
+        scanner.addScanIterator(new IteratorSetting(SORTED_KEY_ITERATOR_PRIORITY, SortedKeyIterator.class.getSimpleName(), SortedKeyIterator.class));
+    }
+
+    /**
+     * @return a context with every authorization of the connector's user
+     */
+    @Override
+    public ModelUserContext createIndexMaintenanceUserContext() {
+        try {
+            return new AccumuloUserContext(connector.securityOperations().getUserAuthorizations(connector.whoami()));
+        } catch (AccumuloException e) {
+            throw new RuntimeException(e);
+        } catch (AccumuloSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private Scanner createScanner(String tableName, ModelUserContext user) throws TableNotFoundException {
         ensureRowDeletingIteratorIsAttached(tableName);
 
@@ -238,6 +1117,17 @@ public class AccumuloSession extends ModelSession {
         return scanner;
     }
 
+    private BatchScanner createBatchScanner(String tableName, ModelUserContext user) {
+        ensureRowDeletingIteratorIsAttached(tableName);
+        try {
+            BatchScanner scanner = connector.createBatchScanner(tableName, ((AccumuloUserContext) user).getAuthorizations(), BATCH_SCANNER_THREADS);
+            scanner.addScanIterator(new IteratorSetting(100, RowDeletingIterator.class.getSimpleName(), RowDeletingIterator.class));
+            return scanner;
+        } catch (TableNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private void ensureRowDeletingIteratorIsAttached(String tableName) {
         try {
             if (rowDeletingIteratorAttachList.contains(tableName)) {
@@ -256,8 +1146,9 @@ public class AccumuloSession extends ModelSession {
 
     @Override
     public Row findByRowKey(String tableName, String rowKey, Map<String, String> columnsToReturn, ModelUserContext user) {
-        LOGGER.trace("findByRowKey called with parameters: tableName=?, rowKey=?, columnsToReturn=?, user=?", tableName, rowKey, columnsToReturn, user);
+        LOGGER.trace("findByRowKey called with parameters: tableName={}, rowKey={}, columnsToReturn={}, user={}", tableName, rowKey, columnsToReturn, user);
         try {
+            PendingWrites.PendingRow pendingRow = readYourWrites ? pendingWrites.getRow(tableName, rowKey) : null;
             Scanner scanner = createScanner(tableName, user);
             scanner.setRange(new Range(rowKey));
             for (Map.Entry<String, String> columnFamilyAndColumnQualifier : columnsToReturn.entrySet()) {
@@ -267,13 +1158,18 @@ public class AccumuloSession extends ModelSession {
                     scanner.fetchColumn(new Text(columnFamilyAndColumnQualifier.getKey()), new Text(columnFamilyAndColumnQualifier.getValue()));
                 }
             }
-            Iterator<Row> rows = AccumuloHelper.scannerToRows(tableName, scanner).iterator();
-            if (!rows.hasNext()) {
-                return null;
+            Iterator<Row> rows = scannerToRows(createScanMonitor(tableName, MetricsRegistry.OPERATION_FIND_BY_ROW_KEY, "rowKey=" + rowKey + ", columns=" + columnsToReturn, user), scanner).iterator();
+            Row result;
+            try {
+                result = rows.hasNext() ? rows.next() : null;
+                if (rows.hasNext()) {
+                    throw new RuntimeException("Too many rows returned for a single row query (rowKey: " + rowKey + ")");
+                }
+            } finally {
+                closeRows(rows);
             }
-            Row result = rows.next();
-            if (rows.hasNext()) {
-                throw new RuntimeException("Too many rows returned for a single row query (rowKey: " + rowKey + ")");
+            if (pendingRow != null) {
+                result = retainColumns(PendingWrites.apply(tableName, pendingRow, result, ((AccumuloUserContext) user).getAuthorizations()), columnsToReturn);
             }
             return result;
         } catch (TableNotFoundException e) {
@@ -283,7 +1179,7 @@ public class AccumuloSession extends ModelSession {
 
     @Override
     public void initializeTable(String tableName, ModelUserContext user) {
-        LOGGER.trace("initializeTable called with parameters: tableName=?, user=?", tableName, user);
+        LOGGER.trace("initializeTable called with parameters: tableName={}, user={}", tableName, user);
         LOGGER.debug("initializeTable: " + tableName);
         try {
             if (!connector.tableOperations().exists(tableName)) {
@@ -297,11 +1193,64 @@ public class AccumuloSession extends ModelSession {
         } catch (AccumuloException e) {
             throw new RuntimeException(e);
         }
+        attachCounterCombiner(tableName);
+    }
+
+    /**
+     * Sums the counter families of the table on scans and compactions. Runs before the versioning iterator, which
+     * would otherwise keep only the latest increment. The columns of a combiner already on the table are kept, so
+     * a session that declares only some of the counter families never strips the combiner from the others.
+     */
+    private void attachCounterCombiner(String tableName) {
+        Set<String> families = getCounterFamilies(tableName);
+        if (families.size() == 0) {
+            return;
+        }
+        Set<String> encodedColumns = new TreeSet<String>();
+        for (String family : families) {
+            encodedColumns.add(ColumnSet.encodeColumns(new Text(family), null));
+        }
+        try {
+            TableOperations tableOperations = connector.tableOperations();
+            IteratorSetting existing = null;
+            if (tableOperations.listIterators(tableName).containsKey(COUNTER_COMBINER_NAME)) {
+                existing = tableOperations.getIteratorSetting(tableName, COUNTER_COMBINER_NAME, IteratorUtil.IteratorScope.scan);
+                if (Boolean.parseBoolean(existing.getOptions().get(COUNTER_COMBINER_ALL_OPTION))) {
+                    return;
+                }
+                String existingColumns = existing.getOptions().get(COUNTER_COMBINER_COLUMNS_OPTION);
+                if (existingColumns != null) {
+                    for (String encodedColumn : existingColumns.split(",")) {
+                        if (encodedColumn.length() > 0) {
+                            encodedColumns.add(encodedColumn);
+                        }
+                    }
+                }
+            }
+
+            IteratorSetting setting = new IteratorSetting(COUNTER_COMBINER_PRIORITY, COUNTER_COMBINER_NAME, SummingCombiner.class);
+            LongCombiner.setEncodingType(setting, LongCombiner.Type.FIXEDLEN);
+            List<IteratorSetting.Column> columns = new ArrayList<IteratorSetting.Column>();
+            for (String encodedColumn : encodedColumns) {
+                Pair<Text, Text> column = ColumnSet.decodeColumns(encodedColumn);
+                columns.add(column.getSecond() == null ? new IteratorSetting.Column(column.getFirst()) : new IteratorSetting.Column(column.getFirst(), column.getSecond()));
+            }
+            Combiner.setColumns(setting, columns);
+            if (existing != null) {
+                if (existing.getOptions().equals(setting.getOptions())) {
+                    return;
+                }
+                tableOperations.removeIterator(tableName, COUNTER_COMBINER_NAME, EnumSet.allOf(IteratorUtil.IteratorScope.class));
+            }
+            tableOperations.attachIterator(tableName, setting);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
     }
 
     @Override
     public void deleteTable(String tableName, ModelUserContext user) {
-        LOGGER.trace("deleteTable called with parameters: tableName=?, user=?", tableName, user);
+        LOGGER.trace("deleteTable called with parameters: tableName={}, user={}", tableName, user);
         LOGGER.debug("deleteTable: " + tableName);
         try {
             if (connector.tableOperations().exists(tableName)) {
@@ -318,14 +1267,20 @@ public class AccumuloSession extends ModelSession {
 
     @Override
     public void deleteRow(String tableName, RowKey rowKey) {
-        LOGGER.trace("deleteRow called with parameters: tableName=?, rowKey=?", tableName, rowKey);
+        LOGGER.trace("deleteRow called with parameters: tableName={}, rowKey={}", tableName, rowKey);
         // In most instances (e.g., when reading is not necessary), the
         // RowDeletingIterator gives better performance than the deleting
         // mutation. This is due to the fact that Deleting mutations marks each
         // entry with a delete marker. Using the iterator marks a whole row with
         // a single mutation.
+        long startTime = startTimer();
+        deleteIndexEntries(tableName, rowKey);
         try {
-            BatchWriter writer = connector.createBatchWriter(tableName, batchWriterConfig);
+            if (readYourWrites && pendingWrites.contains(tableName, rowKey.toString())) {
+                // Write the pending columns first, so that the delete marker removes them
+                flushWriter(tableName, getBatchWriter(tableName));
+            }
+            BatchWriter writer = new MeteredBatchWriter(tableName, createBatchWriter(tableName), this);
             try {
                 Mutation mutation = new Mutation(rowKey.toString());
                 mutation.put(new byte[0], new byte[0], RowDeletingIterator.DELETE_ROW_VALUE.get());
@@ -338,6 +1293,7 @@ public class AccumuloSession extends ModelSession {
             } finally {
                 writer.close();
             }
+            recordLatency(MetricsRegistry.OPERATION_DELETE_ROW, tableName, startTime);
         } catch (MutationsRejectedException mre) {
             throw new RuntimeException(mre);
         } catch (TableNotFoundException tnfe) {
@@ -346,14 +1302,21 @@ public class AccumuloSession extends ModelSession {
     }
 
     public void deleteColumn(Row row, String tableName, String columnFamily, String columnQualifier, String columnVisibility) {
-        LOGGER.trace("deleteColumn called with parameters: row=?, tableName=?, columnFamily=?, columnQualifier=?", row, tableName, columnFamily, columnQualifier);
+        LOGGER.trace("deleteColumn called with parameters: row={}, tableName={}, columnFamily={}, columnQualifier={}", row, tableName, columnFamily, columnQualifier);
+        deleteIndexEntries(tableName, row.getRowKey(), columnFamily, columnQualifier);
         try {
             BatchWriter writer = getBatchWriter(tableName);
             Mutation mutation = createMutationFromRow(row);
+            if (mutation == null) {
+                mutation = new Mutation(row.getRowKey().toString());
+            }
             mutation.putDelete(new Text(columnFamily), new Text(columnQualifier), new ColumnVisibility(columnVisibility));
             writer.addMutation(mutation);
             if (autoflush) {
-                writer.flush();
+                flushWriter(tableName, writer);
+            } else if (readYourWrites) {
+                addPendingWrites(tableName, writer, Collections.singletonList(row));
+                pendingWrites.deleteColumn(tableName, row.getRowKey().toString(), columnFamily, columnQualifier, columnVisibility);
             }
         } catch (AccumuloException ae) {
             throw new RuntimeException(ae);
@@ -362,7 +1325,7 @@ public class AccumuloSession extends ModelSession {
 
     @Override
     public List<String> getTableList(ModelUserContext user) {
-        LOGGER.trace("getTableList called with parameters: user=?", user);
+        LOGGER.trace("getTableList called with parameters: user={}", user);
         return new ArrayList<String>(connector.tableOperations().list());
     }
 
@@ -371,6 +1334,10 @@ public class AccumuloSession extends ModelSession {
      */
     @Override
     public void close() {
+        GroupCommitFlusher groupCommitFlusher = this.groupCommitFlusher;
+        if (groupCommitFlusher != null) {
+            groupCommitFlusher.shutdown();
+        }
         flush();
         ArrayList<Map.Entry<String, BatchWriter>> localBatchWriters = createCopyOfBatchWriters();
         for (Map.Entry<String, BatchWriter> writer : localBatchWriters) {
@@ -398,7 +1365,7 @@ public class AccumuloSession extends ModelSession {
         ArrayList<Map.Entry<String, BatchWriter>> localBatchWriters = createCopyOfBatchWriters();
         for (Map.Entry<String, BatchWriter> writer : localBatchWriters) {
             try {
-                writer.getValue().flush();
+                flushWriter(writer.getKey(), writer.getValue());
             } catch (MutationsRejectedException e) {
                 throw new MutationsWriteException("Could not flush writer for table: " + writer.getKey(), e);
             }
@@ -418,7 +1385,7 @@ public class AccumuloSession extends ModelSession {
             synchronized (batchWriters) {
                 BatchWriter writer = batchWriters.get(tableName);
                 if (writer == null) {
-                    writer = connector.createBatchWriter(tableName, batchWriterConfig);
+                    writer = new MeteredBatchWriter(tableName, createBatchWriter(tableName), this);
                     batchWriters.put(tableName, writer);
                 }
                 return writer;
@@ -428,26 +1395,204 @@ public class AccumuloSession extends ModelSession {
         }
     }
 
-    public Connector getConnector() {
-        return connector;
+    /**
+     * Creates the writer wrapped by the session's metered writers; tests replace it with one that buffers
+     */
+    BatchWriter createBatchWriter(String tableName) throws TableNotFoundException {
+        return connector.createBatchWriter(tableName, batchWriterConfig);
     }
 
-    public static Mutation createMutationFromRow(Row row) {
-        LOGGER.trace("createMutationFromRow called with parameters: row=?", row);
-        Mutation mutation = null;
-        Collection<ColumnFamily> columnFamilies = row.getColumnFamilies();
-        for (ColumnFamily columnFamily : columnFamilies) {
+    private Iterable<Row> scannerToRows(ScanMonitor monitor, final Scanner scanner) {
+        if (!wholeRowScans) {
+            return MeteredRowIterable.create(monitor, scanner, getCompressionPolicy());
+        }
+        WholeRowIterable.addWholeRowIterator(scanner);
+        return new WholeRowIterable(monitor, getCompressionPolicy()) {
+            @Override
+            protected ScannerBase createScanner() {
+                return scanner;
+            }
+        };
+    }
+
+    /**
+     * Reads the ranges one after another with the scanner, see {@link SequentialRangeScan}
+     */
+    private Iterable<Row> scannerToRows(ScanMonitor monitor, final Scanner scanner, List<Range> ranges) {
+        final SequentialRangeScan entries = new SequentialRangeScan(scanner, ranges);
+        if (!wholeRowScans) {
+            return MeteredRowIterable.create(monitor, entries, getCompressionPolicy());
+        }
+        WholeRowIterable.addWholeRowIterator(scanner);
+        return new WholeRowIterable(monitor, getCompressionPolicy()) {
+            @Override
+            protected ScannerBase createScanner() {
+                return scanner;
+            }
+
+            @Override
+            protected Iterator<Map.Entry<Key, Value>> entries(ScannerBase scanner) {
+                return entries.iterator();
+            }
+        };
+    }
+
+    /**
+     * Closes an iterator of rows that holds a scanner, for reads that may stop before the end
+     */
+    private static void closeRows(Iterator<Row> rows) {
+        if (!(rows instanceof Closeable)) {
+            return;
+        }
+        try {
+            ((Closeable) rows).close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Iterable<Row> overlayPendingWrites(String tableName, Range range, ModelUserContext user, Iterable<Row> rows) {
+        if (!readYourWrites) {
+            return rows;
+        }
+        return pendingWrites.overlay(tableName, range, rows, ((AccumuloUserContext) user).getAuthorizations());
+    }
+
+    /**
+     * @param columnsToReturn column qualifiers by column family, or * for every column of the family
+     * @return the row with only the requested columns, or null if none of them are set
+     */
+    private static Row retainColumns(Row<?> row, Map<String, String> columnsToReturn) {
+        if (row == null) {
+            return null;
+        }
+        Row<RowKey> result = new Row<RowKey>(row.getTableName(), new RowKey(row.getRowKey().toString()));
+        for (ColumnFamily columnFamily : row.getColumnFamilies()) {
+            String columnName = columnsToReturn.get(columnFamily.getColumnFamilyName());
+            if (columnName == null) {
+                continue;
+            }
+            ColumnFamily resultColumnFamily = new ColumnFamily(columnFamily.getColumnFamilyName());
             for (Column column : columnFamily.getColumns()) {
-                if (column.isDirty()) {
-                    Value value = new Value(column.getValue().toBytes());
-                    if (mutation == null) {
-                        mutation = new Mutation(row.getRowKey().toString());
-                    }
-                    mutation.put(columnFamily.getColumnFamilyName(), column.getName(), new ColumnVisibility(column.getVisibility()), value);
+                if (columnName.equals("*") || columnName.equals(column.getName())) {
+                    resultColumnFamily.addColumn(column);
                 }
             }
+            if (resultColumnFamily.getColumns().size() > 0) {
+                result.addColumnFamily(resultColumnFamily);
+            }
+        }
+        if (result.getColumnFamilies().size() == 0) {
+            return null;
+        }
+        result.setDirtyBits(false);
+        return result;
+    }
+
+    private ScanMonitor createScanMonitor(String tableName, String operation, String query, ModelUserContext user) {
+        SlowQueryLog slowQueryLog = getSlowQueryLog();
+        String authorizations = null;
+        if (slowQueryLog.isEnabled() && user instanceof AccumuloUserContext) {
+            authorizations = ((AccumuloUserContext) user).getAuthorizations().toString();
+        }
+        return new ScanMonitor(tableName, operation, query, authorizations, getMetricsRegistry(), slowQueryLog);
+    }
+
+    private long startTimer() {
+        return getMetricsRegistry().isEnabled() ? System.nanoTime() : 0;
+    }
+
+    private void recordLatency(String operation, String tableName, long startTime) {
+        if (startTime != 0) {
+            getMetricsRegistry().recordLatency(operation, tableName, System.nanoTime() - startTime);
+        }
+    }
+
+    public boolean isWholeRowScans() {
+        return wholeRowScans;
+    }
+
+    /**
+     * Ships each scanned row as a single encoded entry instead of one entry per cell, which cuts the per entry
+     * overhead of rows with many columns. The whole row is held in memory on the tablet server while it is
+     * encoded, so avoid it for very wide rows.
+     *
+     * @param wholeRowScans
+     */
+    public void setWholeRowScans(boolean wholeRowScans) {
+        this.wholeRowScans = wholeRowScans;
+    }
+
+    public boolean isReadYourWrites() {
+        return readYourWrites;
+    }
+
+    /**
+     * Makes rows that are still buffered in this session's batch writers visible to its own reads, so that
+     * writes can be saved with {@link FlushFlag#NO_FLUSH} or with autoflush off without flushing before each
+     * read. findByRowKey, findByRowKeys, range and prefix scans and findAll lay the buffered columns over what
+     * they read; regex scans, row key listings and counters do not. A table's buffered columns are kept until
+     * this session flushes its writer, so a later write to the same columns by another client is hidden until
+     * then.
+     *
+     * @param readYourWrites
+     */
+    public void setReadYourWrites(boolean readYourWrites) {
+        this.readYourWrites = readYourWrites;
+        if (!readYourWrites) {
+            pendingWrites.clear();
+        }
+    }
+
+    public boolean isGroupCommit() {
+        return groupCommitFlusher != null;
+    }
+
+    /**
+     * Coalesces the flushes of concurrent saves. A save that flushes, with {@link FlushFlag#FLUSH} or with
+     * autoflush on, adds its row to the table's writer and then waits for a shared flush of the writer instead of
+     * flushing it itself. The shared flush starts once the first waiter has waited the window, or earlier once
+     * the waiters or the bytes they wrote reach their limits. Each save still returns only after its row has been
+     * flushed, but a lone writer waits up to the window longer than before. Use {@link #saveAsync(Row)} to get a
+     * future for the flush instead of waiting.
+     *
+     * @param windowMillis how long a flush waits for more saves, or 0 to turn group commit off
+     * @param maxBytes     the bytes written by the waiting saves that start the flush early
+     * @param maxWaiters   the number of waiting saves that start the flush early
+     */
+    public void setGroupCommit(long windowMillis, long maxBytes, int maxWaiters) {
+        GroupCommitFlusher previous = groupCommitFlusher;
+        if (windowMillis <= 0) {
+            groupCommitFlusher = null;
+        } else {
+            groupCommitFlusher = new GroupCommitFlusher(windowMillis, maxBytes, maxWaiters) {
+                @Override
+                protected void flush(String tableName) throws MutationsRejectedException {
+                    flushWriter(tableName, getBatchWriter(tableName));
+                }
+            };
+        }
+        if (previous != null) {
+            previous.shutdown();
         }
-        return mutation;
+    }
+
+    GroupCommitFlusher getGroupCommitFlusher() {
+        return groupCommitFlusher;
+    }
+
+    public Connector getConnector() {
+        return connector;
+    }
+
+    /**
+     * Creates a mutation containing the dirty and deleted columns of the provided row
+     *
+     * @return the mutation or null if the row has nothing to write
+     */
+    public static Mutation createMutationFromRow(Row row) {
+        LOGGER.trace("createMutationFromRow called with parameters: row={}", row);
+        return AccumuloHelper.createMutation(row);
     }
 
     private void checkProperties(Map<String, Object> properties) {
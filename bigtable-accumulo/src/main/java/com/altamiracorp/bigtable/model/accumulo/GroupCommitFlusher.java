@@ -0,0 +1,193 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.Column;
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces the flushes asked for by concurrent writers of a table into one flush of its batch writer. The first
+ * request for a table opens a group and schedules its flush at the end of the time window; requests that arrive
+ * before the flush starts join the group, and the flush starts early once the group holds enough waiters or
+ * bytes. Every request gets the group's future, which completes when a flush that started after the request has
+ * finished, so the caller's mutations are durable once it is done.
+ */
+abstract class GroupCommitFlusher {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final int FLUSH_THREADS = 4;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+
+    private final long windowMillis;
+    private final long maxBytes;
+    private final int maxWaiters;
+    private final ScheduledThreadPoolExecutor executor;
+    private final Map<String, Group> openGroups = new HashMap<String, Group>();
+    private final AtomicLong flushCount = new AtomicLong();
+
+    /**
+     * @param windowMillis how long the first request of a group waits for others to join it
+     * @param maxBytes     the bytes written by a group's requests that start its flush before the window ends
+     * @param maxWaiters   the number of requests in a group that start its flush before the window ends
+     */
+    public GroupCommitFlusher(long windowMillis, long maxBytes, int maxWaiters) {
+        this.windowMillis = windowMillis;
+        this.maxBytes = maxBytes;
+        this.maxWaiters = maxWaiters;
+        this.executor = new ScheduledThreadPoolExecutor(FLUSH_THREADS, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "bigtable-group-commit-" + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Flushes the table's writer
+     */
+    protected abstract void flush(String tableName) throws MutationsRejectedException;
+
+    /**
+     * Called after the caller's mutations have been added to the table's writer
+     *
+     * @param bytes the estimated size of the caller's mutations
+     * @return completes when a flush covering the caller's mutations has finished, failing with a
+     *         {@link MutationsRejectedException} if the flush did
+     */
+    public Future<Void> requestFlush(String tableName, long bytes) {
+        Group group;
+        boolean full;
+        synchronized (openGroups) {
+            group = openGroups.get(tableName);
+            if (group == null) {
+                group = new Group(tableName);
+                openGroups.put(tableName, group);
+                try {
+                    group.scheduled = executor.schedule(group.future, windowMillis, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    group.rejected = true;
+                }
+            }
+            group.waiters++;
+            group.bytes += bytes;
+            full = group.waiters >= maxWaiters || group.bytes >= maxBytes || group.rejected;
+        }
+        if (full) {
+            flushNow(group);
+        }
+        return group.future;
+    }
+
+    private void flushNow(Group group) {
+        try {
+            executor.execute(group.future);
+        } catch (RejectedExecutionException e) {
+            // shut down, so the requesting thread flushes
+            group.future.run();
+        }
+    }
+
+    /**
+     * @return the number of flushes done, for tests and monitoring
+     */
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /**
+     * Flushes the open groups without waiting for their windows and stops the flush threads. Later requests are
+     * flushed by the requesting thread.
+     */
+    public void shutdown() {
+        List<Group> groups;
+        synchronized (openGroups) {
+            groups = new ArrayList<Group>(openGroups.values());
+        }
+        for (Group group : groups) {
+            flushNow(group);
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void close(Group group) {
+        ScheduledFuture<?> scheduled;
+        synchronized (openGroups) {
+            if (openGroups.get(group.tableName) == group) {
+                openGroups.remove(group.tableName);
+            }
+            scheduled = group.scheduled;
+        }
+        // a group flushed early no longer needs its scheduled run, which would otherwise hold up shutdown
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+    }
+
+    /**
+     * @return a rough size of the dirty and deleted columns of a row, as written by {@link AccumuloHelper#createMutation}
+     */
+    public static long estimateSize(Row<?> row) {
+        long size = row.getRowKey().toString().length();
+        for (ColumnFamily columnFamily : row.getColumnFamilies()) {
+            for (Column column : columnFamily.getColumns()) {
+                if (!column.isDirty() && !column.isDelete()) {
+                    continue;
+                }
+                size += columnFamily.getColumnFamilyName().length() + column.getName().length();
+                if (column.getVisibility() != null) {
+                    size += column.getVisibility().length();
+                }
+                if (!column.isDelete()) {
+                    size += column.getValue().getStoredBytes().length;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * The requests waiting for the next flush of a table. Its future runs at most once, so the scheduled run and
+     * an early run cannot both flush the group.
+     */
+    private class Group implements Callable<Void> {
+        private final String tableName;
+        private final FutureTask<Void> future = new FutureTask<Void>(this);
+        private int waiters;
+        private long bytes;
+        private boolean rejected;
+        private ScheduledFuture<?> scheduled;
+
+        private Group(String tableName) {
+            this.tableName = tableName;
+        }
+
+        @Override
+        public Void call() throws MutationsRejectedException {
+            close(this);
+            flushCount.incrementAndGet();
+            flush(tableName);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.jfr.FlightRecorderSupport;
+import com.altamiracorp.bigtable.model.jfr.FlushEvent;
+import com.altamiracorp.bigtable.model.jfr.WriteEvent;
+import com.altamiracorp.bigtable.model.metrics.MetricsRegistry;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.data.ConstraintViolationSummary;
+import org.apache.accumulo.core.data.Mutation;
+
+/**
+ * Counts the mutations and bytes written to a table and times flushes and closes, for the metrics registry and
+ * Flight Recorder. The registry is looked up on each call so that metrics can be enabled on a session
+ * whose writers already exist.
+ */
+class MeteredBatchWriter implements BatchWriter {
+    private final String tableName;
+    private final BatchWriter writer;
+    private final ModelSession session;
+
+    public MeteredBatchWriter(String tableName, BatchWriter writer, ModelSession session) {
+        this.tableName = tableName;
+        this.writer = writer;
+        this.session = session;
+    }
+
+    @Override
+    public void addMutation(Mutation mutation) throws MutationsRejectedException {
+        MetricsRegistry metrics = session.getMetricsRegistry();
+        WriteEvent event = beginWriteEvent();
+        try {
+            writer.addMutation(mutation);
+        } catch (MutationsRejectedException e) {
+            recordRejected(metrics, e);
+            throw e;
+        }
+        if (event != null) {
+            event.tableName = tableName;
+            event.updates = mutation.size();
+            event.bytes = mutation.numBytes();
+            event.commit();
+        }
+        if (metrics.isEnabled()) {
+            metrics.incrementCounter(MetricsRegistry.COUNTER_MUTATIONS_WRITTEN, tableName, 1);
+            metrics.incrementCounter(MetricsRegistry.COUNTER_BYTES_WRITTEN, tableName, mutation.numBytes());
+        }
+    }
+
+    @Override
+    public void addMutations(Iterable<Mutation> mutations) throws MutationsRejectedException {
+        for (Mutation mutation : mutations) {
+            addMutation(mutation);
+        }
+    }
+
+    @Override
+    public void flush() throws MutationsRejectedException {
+        MetricsRegistry metrics = session.getMetricsRegistry();
+        long startTime = metrics.isEnabled() ? System.nanoTime() : 0;
+        FlushEvent event = beginFlushEvent();
+        try {
+            writer.flush();
+        } catch (MutationsRejectedException e) {
+            recordRejected(metrics, e);
+            throw e;
+        } finally {
+            recordFlush(metrics, startTime, event, false);
+        }
+    }
+
+    @Override
+    public void close() throws MutationsRejectedException {
+        MetricsRegistry metrics = session.getMetricsRegistry();
+        long startTime = metrics.isEnabled() ? System.nanoTime() : 0;
+        FlushEvent event = beginFlushEvent();
+        try {
+            writer.close();
+        } catch (MutationsRejectedException e) {
+            recordRejected(metrics, e);
+            throw e;
+        } finally {
+            recordFlush(metrics, startTime, event, true);
+        }
+    }
+
+    private static WriteEvent beginWriteEvent() {
+        if (!FlightRecorderSupport.isAvailable()) {
+            return null;
+        }
+        WriteEvent event = new WriteEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    private static FlushEvent beginFlushEvent() {
+        if (!FlightRecorderSupport.isAvailable()) {
+            return null;
+        }
+        FlushEvent event = new FlushEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    private void recordFlush(MetricsRegistry metrics, long startTime, FlushEvent event, boolean close) {
+        if (event != null) {
+            event.tableName = tableName;
+            event.close = close;
+            event.commit();
+        }
+        if (metrics.isEnabled()) {
+            // closes are counted apart, so that the short lived writers of deletes do not inflate the flush count
+            metrics.recordLatency(close ? MetricsRegistry.OPERATION_CLOSE_WRITER : MetricsRegistry.OPERATION_FLUSH, tableName, System.nanoTime() - startTime);
+            metrics.incrementCounter(close ? MetricsRegistry.COUNTER_WRITER_CLOSES : MetricsRegistry.COUNTER_FLUSHES, tableName, 1);
+        }
+    }
+
+    /**
+     * Counts the mutations which violated constraints. Authorization and server failures do not report
+     * a mutation count and are counted as one.
+     */
+    private void recordRejected(MetricsRegistry metrics, MutationsRejectedException e) {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+        long rejected = 0;
+        if (e.getConstraintViolationSummaries() != null) {
+            for (ConstraintViolationSummary summary : e.getConstraintViolationSummaries()) {
+                rejected += summary.getNumberOfViolatingMutations();
+            }
+        }
+        metrics.incrementCounter(MetricsRegistry.COUNTER_MUTATIONS_REJECTED, tableName, Math.max(rejected, 1));
+    }
+}
@@ -0,0 +1,88 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.compression.CompressionPolicy;
+import org.apache.accumulo.core.client.RowIterator;
+import org.apache.accumulo.core.client.ScannerBase;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Converts scanned entries to rows like {@link AccumuloHelper#scannerToRows(String, ScannerBase)} while
+ * measuring the scan with a {@link ScanMonitor}. The scan latency, from the call to iterator() until the
+ * last row has been read, is recorded when the iterator is exhausted or closed. Callers that stop early should
+ * close the iterator; a slow scan that is abandoned without closing is still logged once a row read finds it
+ * past the slow query threshold.
+ */
+class MeteredRowIterable implements Iterable<Row> {
+    private final ScanMonitor monitor;
+    private final Iterable<Map.Entry<Key, Value>> entries;
+    private final CompressionPolicy compressionPolicy;
+
+    /**
+     * @param entries a scanner, or any other entries in key order
+     */
+    public MeteredRowIterable(ScanMonitor monitor, Iterable<Map.Entry<Key, Value>> entries, CompressionPolicy compressionPolicy) {
+        this.monitor = monitor;
+        this.entries = entries;
+        this.compressionPolicy = compressionPolicy;
+    }
+
+    /**
+     * Returns a metered iterable when metrics or the slow query log are enabled, otherwise the plain conversion
+     */
+    public static Iterable<Row> create(ScanMonitor monitor, Iterable<Map.Entry<Key, Value>> entries, CompressionPolicy compressionPolicy) {
+        if (!monitor.isEnabled()) {
+            return AccumuloHelper.scannerToRows(monitor.getTableName(), entries, compressionPolicy);
+        }
+        return new MeteredRowIterable(monitor, entries, compressionPolicy);
+    }
+
+    @Override
+    public MeteredRowIterator iterator() {
+        return new MeteredRowIterator(monitor.start(entries.iterator()));
+    }
+
+    public class MeteredRowIterator implements Iterator<Row>, Closeable {
+        private final ScanMonitor.Execution execution;
+        private final RowIterator rowIterator;
+
+        private MeteredRowIterator(ScanMonitor.Execution execution) {
+            this.execution = execution;
+            this.rowIterator = new RowIterator(execution);
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = rowIterator.hasNext();
+            if (!hasNext) {
+                execution.finish();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public Row next() {
+            Row row = AccumuloHelper.accumuloRowToRow(monitor.getTableName(), rowIterator.next(), compressionPolicy);
+            execution.rowRead();
+            return row;
+        }
+
+        @Override
+        public void remove() {
+            rowIterator.remove();
+        }
+
+        /**
+         * Records the scan as it stands when the caller stops reading early
+         */
+        @Override
+        public void close() {
+            execution.close();
+        }
+    }
+}
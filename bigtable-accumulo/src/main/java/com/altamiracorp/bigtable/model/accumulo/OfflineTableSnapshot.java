@@ -0,0 +1,171 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.TableExistsException;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.client.mapreduce.InputFormatBase;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * An offline clone of a table which MapReduce jobs can scan without going through the tablet servers.
+ * Map tasks read the clone's RFiles directly, so a full table batch job does not compete with online
+ * traffic for scan threads. The clone shares files with the source table, so creating it is cheap.
+ * <p/>
+ * The job records the snapshots it reads, and {@link AccumuloModelOutputFormat} deletes them once the job
+ * commits or aborts, using the input connector settings. Jobs writing elsewhere close the snapshot themselves:
+ * <pre>
+ * OfflineTableSnapshot snapshot = MyInputFormat.setOfflineSnapshot(job, connector, "my_table");
+ * try {
+ *     job.waitForCompletion(true);
+ * } finally {
+ *     snapshot.close();
+ * }
+ * </pre>
+ * Closing is idempotent, so doing both is fine. The job's user needs read access to the Accumulo files in HDFS.
+ */
+public class OfflineTableSnapshot implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OfflineTableSnapshot.class);
+    private static final String SNAPSHOT_TABLE_NAME_SEPARATOR = "_snapshot_";
+    private static final String CONFIG_SNAPSHOT_TABLES = OfflineTableSnapshot.class.getName() + ".snapshotTables";
+
+    private final Connector connector;
+    private final String tableName;
+    private final String snapshotTableName;
+
+    private OfflineTableSnapshot(Connector connector, String tableName, String snapshotTableName) {
+        this.connector = connector;
+        this.tableName = tableName;
+        this.snapshotTableName = snapshotTableName;
+    }
+
+    /**
+     * Clones the table and takes the clone offline, waiting until all of its tablets are unloaded
+     *
+     * @param connector
+     * @param tableName table to snapshot
+     * @return the snapshot
+     */
+    public static OfflineTableSnapshot create(Connector connector, String tableName) {
+        String snapshotTableName = tableName + SNAPSHOT_TABLE_NAME_SEPARATOR + System.currentTimeMillis();
+        LOGGER.debug("creating offline snapshot " + snapshotTableName + " of table " + tableName);
+        try {
+            connector.tableOperations().clone(tableName, snapshotTableName, true, new HashMap<String, String>(), new HashSet<String>());
+            OfflineTableSnapshot snapshot = new OfflineTableSnapshot(connector, tableName, snapshotTableName);
+            boolean offline = false;
+            try {
+                connector.tableOperations().offline(snapshotTableName, true);
+                offline = true;
+            } finally {
+                if (!offline) {
+                    snapshot.closeAfterFailure();
+                }
+            }
+            return snapshot;
+        } catch (AccumuloException e) {
+            throw new RuntimeException(e);
+        } catch (AccumuloSecurityException e) {
+            throw new RuntimeException(e);
+        } catch (TableNotFoundException e) {
+            throw new RuntimeException(e);
+        } catch (TableExistsException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Points the job at this snapshot, enables offline scanning and records the snapshot so it is deleted
+     * when the job completes
+     *
+     * @param job
+     */
+    public void configure(Job job) {
+        InputFormatBase.setInputTableName(job, snapshotTableName);
+        InputFormatBase.setOfflineTableScan(job, true);
+        Configuration conf = job.getConfiguration();
+        String snapshotTables = conf.get(CONFIG_SNAPSHOT_TABLES);
+        conf.set(CONFIG_SNAPSHOT_TABLES, snapshotTables == null ? snapshotTableName : snapshotTables + "," + snapshotTableName);
+    }
+
+    /**
+     * Deletes the snapshots recorded by {@link #configure(Job)}. Called by output committers when the job
+     * commits or aborts; failures are logged, since the job's output is already committed or discarded.
+     *
+     * @param jobContext
+     */
+    public static void deleteSnapshots(JobContext jobContext) {
+        String[] snapshotTableNames = jobContext.getConfiguration().getStrings(CONFIG_SNAPSHOT_TABLES);
+        if (snapshotTableNames == null) {
+            return;
+        }
+        Connector connector;
+        try {
+            connector = AccumuloBaseInputFormat.getInputConnector(jobContext);
+        } catch (AccumuloException e) {
+            LOGGER.warn("could not connect to delete offline snapshots", e);
+            return;
+        } catch (AccumuloSecurityException e) {
+            LOGGER.warn("could not connect to delete offline snapshots", e);
+            return;
+        }
+        for (String snapshotTableName : snapshotTableNames) {
+            try {
+                delete(connector, snapshotTableName);
+            } catch (RuntimeException e) {
+                LOGGER.warn("could not delete offline snapshot " + snapshotTableName, e);
+            }
+        }
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getSnapshotTableName() {
+        return snapshotTableName;
+    }
+
+    /**
+     * Deletes the snapshot table. Files still referenced by the source table are kept.
+     */
+    @Override
+    public void close() {
+        delete(connector, snapshotTableName);
+    }
+
+    private static void delete(Connector connector, String snapshotTableName) {
+        LOGGER.debug("deleting offline snapshot " + snapshotTableName);
+        try {
+            if (connector.tableOperations().exists(snapshotTableName)) {
+                connector.tableOperations().delete(snapshotTableName);
+            }
+        } catch (AccumuloException e) {
+            throw new RuntimeException(e);
+        } catch (AccumuloSecurityException e) {
+            throw new RuntimeException(e);
+        } catch (TableNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Deletes a snapshot that could not be taken offline, logging cleanup failures so they do not hide the
+     * original one
+     */
+    private void closeAfterFailure() {
+        try {
+            close();
+        } catch (RuntimeException e) {
+            LOGGER.warn("could not delete offline snapshot " + snapshotTableName + " after failing to take it offline", e);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.Column;
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.Value;
+import com.altamiracorp.bigtable.model.join.MergeJoin;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.accumulo.core.security.VisibilityEvaluator;
+import org.apache.accumulo.core.security.VisibilityParseException;
+import org.apache.hadoop.io.Text;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The columns written to batch writers that have not been flushed yet, by table and row key, so that reads can
+ * see them. Rows read from the tables are passed through {@link #apply} or {@link #overlay}, which lay the pending
+ * columns over them, hide pending deletes and add rows that only exist in the writers.
+ * <p/>
+ * Pending rows are immutable and replaced on every write, so reads work on a consistent snapshot without holding
+ * the lock. Each write is numbered: a writer adds its mutation to the batch writer before recording it here, so a
+ * flush started after {@link #getSequence()} returned a number writes every row numbered up to it, and
+ * {@link #clear(String, long)} drops only those.
+ */
+class PendingWrites {
+    private static final Comparator<String> ROW_KEY_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String rowKey1, String rowKey2) {
+            return MergeJoin.compareRowKeys(rowKey1, rowKey2);
+        }
+    };
+
+    private final Map<String, TreeMap<String, PendingRow>> tables = new HashMap<String, TreeMap<String, PendingRow>>();
+    private long sequence;
+
+    /**
+     * Records the dirty and deleted columns of a row, the same columns {@link AccumuloHelper#createMutation}
+     * writes
+     */
+    public synchronized void addRow(String tableName, Row<?> row) {
+        String rowKey = row.getRowKey().toString();
+        TreeMap<String, PendingRow> rows = getRows(tableName);
+        PendingRow pendingRow = rows.get(rowKey);
+        Map<String, PendingCell> cells = pendingRow == null ? new LinkedHashMap<String, PendingCell>() : new LinkedHashMap<String, PendingCell>(pendingRow.cells);
+        for (ColumnFamily columnFamily : row.getColumnFamilies()) {
+            for (Column column : columnFamily.getColumns()) {
+                if (column.isDelete()) {
+                    put(cells, new PendingCell(columnFamily.getColumnFamilyName(), column.getName(), column.getVisibility(), null));
+                } else if (column.isDirty()) {
+                    put(cells, new PendingCell(columnFamily.getColumnFamilyName(), column.getName(), column.getVisibility(), new Value(column.getValue())));
+                }
+            }
+        }
+        rows.put(rowKey, new PendingRow(rowKey, cells, ++sequence));
+    }
+
+    public synchronized void deleteColumn(String tableName, String rowKey, String columnFamily, String columnQualifier, String columnVisibility) {
+        TreeMap<String, PendingRow> rows = getRows(tableName);
+        PendingRow pendingRow = rows.get(rowKey);
+        Map<String, PendingCell> cells = pendingRow == null ? new LinkedHashMap<String, PendingCell>() : new LinkedHashMap<String, PendingCell>(pendingRow.cells);
+        put(cells, new PendingCell(columnFamily, columnQualifier, columnVisibility, null));
+        rows.put(rowKey, new PendingRow(rowKey, cells, ++sequence));
+    }
+
+    private static void put(Map<String, PendingCell> cells, PendingCell cell) {
+        cells.put(cell.columnFamily + '\u0000' + cell.columnQualifier + '\u0000' + cell.columnVisibility, cell);
+    }
+
+    public synchronized boolean contains(String tableName, String rowKey) {
+        TreeMap<String, PendingRow> rows = tables.get(tableName);
+        return rows != null && rows.containsKey(rowKey);
+    }
+
+    public synchronized void removeRow(String tableName, String rowKey) {
+        TreeMap<String, PendingRow> rows = tables.get(tableName);
+        if (rows != null) {
+            rows.remove(rowKey);
+        }
+    }
+
+    public synchronized int getRowCount(String tableName) {
+        TreeMap<String, PendingRow> rows = tables.get(tableName);
+        return rows == null ? 0 : rows.size();
+    }
+
+    /**
+     * @return the number of the last write recorded
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Called once the table's writer has been flushed
+     *
+     * @param sequence the number returned by {@link #getSequence()} before the flush started
+     */
+    public synchronized void clear(String tableName, long sequence) {
+        TreeMap<String, PendingRow> rows = tables.get(tableName);
+        if (rows == null) {
+            return;
+        }
+        Iterator<PendingRow> it = rows.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().sequence <= sequence) {
+                it.remove();
+            }
+        }
+        if (rows.isEmpty()) {
+            tables.remove(tableName);
+        }
+    }
+
+    public synchronized void clear(String tableName) {
+        tables.remove(tableName);
+    }
+
+    public synchronized void clear() {
+        tables.clear();
+    }
+
+    private TreeMap<String, PendingRow> getRows(String tableName) {
+        TreeMap<String, PendingRow> rows = tables.get(tableName);
+        if (rows == null) {
+            rows = new TreeMap<String, PendingRow>(ROW_KEY_ORDER);
+            tables.put(tableName, rows);
+        }
+        return rows;
+    }
+
+    /**
+     * Takes the pending columns of a row. Readers take them before reading the row from the table, so that a
+     * flush between the two cannot drop columns from both.
+     *
+     * @return the pending columns of the row, or null if it has none
+     */
+    public synchronized PendingRow getRow(String tableName, String rowKey) {
+        TreeMap<String, PendingRow> rows = tables.get(tableName);
+        return rows == null ? null : rows.get(rowKey);
+    }
+
+    /**
+     * @return a copy of the pending rows within the range, in row key order
+     */
+    private synchronized SortedMap<String, PendingRow> getRows(String tableName, Range range) {
+        TreeMap<String, PendingRow> rows = tables.get(tableName);
+        if (rows == null || rows.size() == 0) {
+            return new TreeMap<String, PendingRow>(ROW_KEY_ORDER);
+        }
+        SortedMap<String, PendingRow> candidates = range.getStartKey() == null ? rows : rows.tailMap(range.getStartKey().getRow().toString());
+        TreeMap<String, PendingRow> results = new TreeMap<String, PendingRow>(ROW_KEY_ORDER);
+        for (PendingRow pendingRow : candidates.values()) {
+            Key key = new Key(new Text(pendingRow.rowKey));
+            if (range.afterEndKey(key)) {
+                break;
+            }
+            if (range.contains(key)) {
+                results.put(pendingRow.rowKey, pendingRow);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @param row the row read from the table, or null if it was not found
+     * @return the row with the pending columns visible to the authorizations, or null if it has no columns
+     */
+    public Row apply(String tableName, String rowKey, Row<?> row, Authorizations authorizations) {
+        return apply(tableName, getRow(tableName, rowKey), row, authorizations);
+    }
+
+    /**
+     * @param pendingRow the pending columns taken with {@link #getRow} before the row was read, or null
+     * @param row        the row read from the table, or null if it was not found
+     * @return the row with the pending columns visible to the authorizations, or null if it has no columns
+     */
+    public static Row apply(String tableName, PendingRow pendingRow, Row<?> row, Authorizations authorizations) {
+        if (pendingRow == null) {
+            return row;
+        }
+        return pendingRow.apply(tableName, row, new VisibilityEvaluator(authorizations));
+    }
+
+    /**
+     * Merges the pending rows within the range into rows read in row key order from the range
+     */
+    public Iterable<Row> overlay(final String tableName, final Range range, final Iterable<Row> rows, final Authorizations authorizations) {
+        return new Iterable<Row>() {
+            @Override
+            public Iterator<Row> iterator() {
+                SortedMap<String, PendingRow> pendingRows = getRows(tableName, range);
+                if (pendingRows.size() == 0) {
+                    return rows.iterator();
+                }
+                return new OverlayIterator(tableName, rows.iterator(), pendingRows.values().iterator(), new VisibilityEvaluator(authorizations));
+            }
+        };
+    }
+
+    private static class OverlayIterator implements Iterator<Row>, Closeable {
+        private final String tableName;
+        private final Iterator<Row> rows;
+        private final Iterator<PendingRow> pendingRows;
+        private final VisibilityEvaluator visibilityEvaluator;
+        private Row row;
+        private PendingRow pendingRow;
+        private Row next;
+
+        private OverlayIterator(String tableName, Iterator<Row> rows, Iterator<PendingRow> pendingRows, VisibilityEvaluator visibilityEvaluator) {
+            this.tableName = tableName;
+            this.rows = rows;
+            this.pendingRows = pendingRows;
+            this.visibilityEvaluator = visibilityEvaluator;
+            this.row = rows.hasNext() ? rows.next() : null;
+            this.pendingRow = pendingRows.next();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && (row != null || pendingRow != null)) {
+                int comparison;
+                if (row == null) {
+                    comparison = 1;
+                } else if (pendingRow == null) {
+                    comparison = -1;
+                } else {
+                    comparison = MergeJoin.compareRowKeys(row.getRowKey().toString(), pendingRow.rowKey);
+                }
+                if (comparison < 0) {
+                    next = row;
+                    row = rows.hasNext() ? rows.next() : null;
+                } else {
+                    next = pendingRow.apply(tableName, comparison == 0 ? row : null, visibilityEvaluator);
+                    if (comparison == 0) {
+                        row = rows.hasNext() ? rows.next() : null;
+                    }
+                    pendingRow = pendingRows.hasNext() ? pendingRows.next() : null;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Row result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Closes the iterator of the rows read from the table, which may hold a scanner
+         */
+        @Override
+        public void close() throws IOException {
+            row = null;
+            pendingRow = null;
+            if (rows instanceof Closeable) {
+                ((Closeable) rows).close();
+            }
+        }
+    }
+
+    static class PendingRow {
+        private final String rowKey;
+        private final Map<String, PendingCell> cells;
+        private final long sequence;
+
+        private PendingRow(String rowKey, Map<String, PendingCell> cells, long sequence) {
+            this.rowKey = rowKey;
+            this.cells = cells;
+            this.sequence = sequence;
+        }
+
+        private Row apply(String tableName, Row<?> row, VisibilityEvaluator visibilityEvaluator) {
+            Row<RowKey> result = new Row<RowKey>(tableName, new RowKey(rowKey));
+            if (row != null) {
+                for (ColumnFamily columnFamily : row.getColumnFamilies()) {
+                    for (Column column : columnFamily.getColumns()) {
+                        String visibility = column.getVisibility() == null ? "" : column.getVisibility();
+                        if (!cells.containsKey(columnFamily.getColumnFamilyName() + '\u0000' + column.getName() + '\u0000' + visibility)) {
+                            set(result, columnFamily.getColumnFamilyName(), column.getName(), column.getValue(), visibility);
+                        }
+                    }
+                }
+            }
+            for (PendingCell cell : cells.values()) {
+                if (cell.value != null && isVisible(cell.columnVisibility, visibilityEvaluator)) {
+                    set(result, cell.columnFamily, cell.columnQualifier, cell.value, cell.columnVisibility);
+                }
+            }
+            if (result.getColumnFamilies().size() == 0) {
+                return null;
+            }
+            result.setDirtyBits(false);
+            return result;
+        }
+
+        private static void set(Row<RowKey> row, String columnFamilyName, String columnName, Object value, String visibility) {
+            ColumnFamily columnFamily = row.get(columnFamilyName);
+            if (columnFamily == null) {
+                columnFamily = new ColumnFamily(columnFamilyName);
+                row.addColumnFamily(columnFamily);
+            }
+            columnFamily.set(columnName, value, visibility);
+        }
+
+        private static boolean isVisible(String visibility, VisibilityEvaluator visibilityEvaluator) {
+            if (visibility.length() == 0) {
+                return true;
+            }
+            try {
+                return visibilityEvaluator.evaluate(new ColumnVisibility(visibility));
+            } catch (VisibilityParseException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static class PendingCell {
+        private final String columnFamily;
+        private final String columnQualifier;
+        private final String columnVisibility;
+        private final Value value;
+
+        /**
+         * @param value a copy of the written value, compressed as it was written, or null for a delete
+         */
+        private PendingCell(String columnFamily, String columnQualifier, String columnVisibility, Value value) {
+            this.columnFamily = columnFamily;
+            this.columnQualifier = columnQualifier;
+            this.columnVisibility = columnVisibility == null ? "" : columnVisibility;
+            this.value = value;
+        }
+    }
+}
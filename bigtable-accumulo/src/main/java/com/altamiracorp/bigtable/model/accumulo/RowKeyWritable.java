@@ -0,0 +1,97 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.RowKey;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A RowKey which can be used as a MapReduce key. The key is serialized as a varint length followed by
+ * its UTF-8 bytes and sorts in the same order as Accumulo sorts rows. The registered {@link Comparator}
+ * compares the serialized bytes directly, so the shuffle never deserializes keys.
+ */
+public class RowKeyWritable implements WritableComparable<RowKeyWritable> {
+    private final Text rowKey = new Text();
+
+    static {
+        WritableComparator.define(RowKeyWritable.class, new Comparator());
+    }
+
+    public RowKeyWritable() {
+    }
+
+    public RowKeyWritable(RowKey rowKey) {
+        set(rowKey);
+    }
+
+    public RowKeyWritable(String rowKey) {
+        set(rowKey);
+    }
+
+    public void set(RowKey rowKey) {
+        set(rowKey.toString());
+    }
+
+    public void set(String rowKey) {
+        this.rowKey.set(rowKey);
+    }
+
+    public RowKey getRowKey() {
+        return new RowKey(rowKey.toString());
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        WritableUtils.writeVInt(out, rowKey.getLength());
+        out.write(rowKey.getBytes(), 0, rowKey.getLength());
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        int length = WritableUtils.readVInt(in);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        rowKey.set(bytes);
+    }
+
+    @Override
+    public int compareTo(RowKeyWritable other) {
+        return rowKey.compareTo(other.rowKey);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof RowKeyWritable && rowKey.equals(((RowKeyWritable) other).rowKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return rowKey.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return rowKey.toString();
+    }
+
+    /**
+     * Compares serialized RowKeyWritables byte by byte, skipping the length prefix
+     */
+    public static class Comparator extends WritableComparator {
+        public Comparator() {
+            super(RowKeyWritable.class);
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            int prefix1 = WritableUtils.decodeVIntSize(b1[s1]);
+            int prefix2 = WritableUtils.decodeVIntSize(b2[s2]);
+            return compareBytes(b1, s1 + prefix1, l1 - prefix1, b2, s2 + prefix2, l2 - prefix2);
+        }
+    }
+}
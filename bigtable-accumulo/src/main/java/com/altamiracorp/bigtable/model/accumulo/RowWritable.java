@@ -0,0 +1,178 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.Column;
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.Value;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Row which can be used as a MapReduce value. Columns are grouped under their family, so each family
+ * name is written once per row, and visibilities are written once per row and referenced by index
+ * afterwards. All lengths and counts are varints. Dirty and delete flags are kept, so a row read from the
+ * shuffle can be written with {@link AccumuloModelOutputFormat} like the original. Compressed values are written
+ * compressed and flagged, so they are read back compressed, and a column without a value, like a delete, is
+ * flagged instead of writing one.
+ * <p/>
+ * Deserialized rows always use a plain {@link RowKey}; builders can convert them as they do for scans.
+ */
+public class RowWritable implements Writable {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int FLAG_DIRTY = 0x01;
+    private static final int FLAG_DELETE = 0x02;
+    private static final int FLAG_COMPRESSED = 0x04;
+    private static final int FLAG_NO_VALUE = 0x08;
+
+    private Row row;
+
+    public RowWritable() {
+    }
+
+    public RowWritable(Row row) {
+        this.row = row;
+    }
+
+    public Row getRow() {
+        return row;
+    }
+
+    public void setRow(Row row) {
+        this.row = row;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        writeNullableString(out, row.getTableName());
+        writeString(out, row.getRowKey().toString());
+
+        @SuppressWarnings("unchecked")
+        List<ColumnFamily> columnFamilies = new ArrayList<ColumnFamily>(row.getColumnFamilies());
+        WritableUtils.writeVInt(out, columnFamilies.size());
+        Map<String, Integer> visibilities = new HashMap<String, Integer>();
+        for (ColumnFamily columnFamily : columnFamilies) {
+            writeString(out, columnFamily.getColumnFamilyName());
+            WritableUtils.writeVInt(out, columnFamily.getColumns().size());
+            for (Column column : columnFamily.getColumns()) {
+                writeString(out, column.getName());
+                Value value = column.getValue();
+                out.writeByte((column.isDirty() ? FLAG_DIRTY : 0) | (column.isDelete() ? FLAG_DELETE : 0)
+                        | (value == null ? FLAG_NO_VALUE : value.isCompressed() ? FLAG_COMPRESSED : 0));
+                writeVisibility(out, column.getVisibility(), visibilities);
+                if (value != null) {
+                    writeBytes(out, value.getStoredBytes());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        String tableName = readNullableString(in);
+        Row<RowKey> result = new Row<RowKey>(tableName, new RowKey(readString(in)));
+
+        int columnFamilyCount = WritableUtils.readVInt(in);
+        List<String> visibilities = new ArrayList<String>();
+        for (int i = 0; i < columnFamilyCount; i++) {
+            ColumnFamily columnFamily = new ColumnFamily(readString(in));
+            int columnCount = WritableUtils.readVInt(in);
+            for (int j = 0; j < columnCount; j++) {
+                String name = readString(in);
+                int flags = in.readByte();
+                String visibility = readVisibility(in, visibilities);
+                Object value = null;
+                if ((flags & FLAG_NO_VALUE) == 0) {
+                    byte[] storedBytes = readBytes(in);
+                    value = (flags & FLAG_COMPRESSED) != 0 ? Value.fromStoredBytes(storedBytes) : storedBytes;
+                }
+                Column column = new Column(name, value, visibility);
+                columnFamily.addColumn(column);
+                column.setDirty((flags & FLAG_DIRTY) != 0);
+                column.setDelete((flags & FLAG_DELETE) != 0);
+            }
+            result.addColumnFamily(columnFamily);
+        }
+        this.row = result;
+    }
+
+    /**
+     * Writes 0 for no visibility, the index plus one of a visibility already written in this row, or the
+     * next index followed by the visibility the first time it is seen
+     */
+    private static void writeVisibility(DataOutput out, String visibility, Map<String, Integer> visibilities) throws IOException {
+        if (visibility == null) {
+            WritableUtils.writeVInt(out, 0);
+            return;
+        }
+        Integer index = visibilities.get(visibility);
+        if (index != null) {
+            WritableUtils.writeVInt(out, index + 1);
+            return;
+        }
+        index = visibilities.size();
+        visibilities.put(visibility, index);
+        WritableUtils.writeVInt(out, index + 1);
+        writeString(out, visibility);
+    }
+
+    private static String readVisibility(DataInput in, List<String> visibilities) throws IOException {
+        int index = WritableUtils.readVInt(in) - 1;
+        if (index < 0) {
+            return null;
+        }
+        if (index == visibilities.size()) {
+            visibilities.add(readString(in));
+        } else if (index > visibilities.size()) {
+            throw new IOException("Invalid visibility index: " + index);
+        }
+        return visibilities.get(index);
+    }
+
+    private static void writeNullableString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return readString(in);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        writeBytes(out, value.getBytes(UTF8));
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return new String(readBytes(in), UTF8);
+    }
+
+    private static void writeBytes(DataOutput out, byte[] value) throws IOException {
+        WritableUtils.writeVInt(out, value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        byte[] value = new byte[WritableUtils.readVInt(in)];
+        in.readFully(value);
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return row == null ? "null" : row.toString();
+    }
+}
@@ -0,0 +1,191 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.jfr.FlightRecorderSupport;
+import com.altamiracorp.bigtable.model.jfr.ScanEvent;
+import com.altamiracorp.bigtable.model.metrics.MetricsRegistry;
+import com.altamiracorp.bigtable.model.metrics.SlowQueryLog;
+import com.altamiracorp.bigtable.model.metrics.SlowQueryRecord;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes one query and measures its executions for the metrics registry, the slow query log and
+ * Flight Recorder
+ */
+class ScanMonitor {
+    private final String tableName;
+    private final String operation;
+    private final String query;
+    private final String authorizations;
+    private final MetricsRegistry metrics;
+    private final SlowQueryLog slowQueryLog;
+
+    public ScanMonitor(String tableName, String operation, String query, String authorizations, MetricsRegistry metrics, SlowQueryLog slowQueryLog) {
+        this.tableName = tableName;
+        this.operation = operation;
+        this.query = query;
+        this.authorizations = authorizations;
+        this.metrics = metrics;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    public boolean isEnabled() {
+        return metrics.isEnabled() || slowQueryLog.isEnabled() || isScanEventEnabled();
+    }
+
+    private static boolean isScanEventEnabled() {
+        return FlightRecorderSupport.isAvailable() && ScanEventCheck.EVENT.isEnabled();
+    }
+
+    /**
+     * Holds one event that is never committed, only asked whether scan events are recorded, so that the check
+     * does not allocate. Only loaded when Flight Recorder is available.
+     */
+    private static class ScanEventCheck {
+        private static final ScanEvent EVENT = new ScanEvent();
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Execution start(Iterator<Map.Entry<Key, Value>> entries) {
+        return new Execution(entries);
+    }
+
+    /**
+     * Counts the entries read by one execution of the query. Cells are reported to the metrics registry
+     * as rows complete, the latency and slow query record when the execution finishes or is closed. A query
+     * that runs past the slow query threshold is logged as soon as a row read notices it, so that scans the
+     * caller abandons without closing are logged too; the record is replaced with the final one on finish.
+     */
+    public class Execution implements Iterator<Map.Entry<Key, Value>>, Closeable {
+        private final Iterator<Map.Entry<Key, Value>> entries;
+        private final long startTime = System.nanoTime();
+        private long firstRowTime = -1;
+        private long rows;
+        private long cells;
+        private long bytes;
+        private long reportedCells;
+        private long reportedBytes;
+        private boolean finished;
+        private SlowQueryRecord runningRecord;
+        private ScanEvent event;
+
+        private Execution(Iterator<Map.Entry<Key, Value>> entries) {
+            this.entries = entries;
+            if (isScanEventEnabled()) {
+                event = new ScanEvent();
+                event.begin();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        @Override
+        public Map.Entry<Key, Value> next() {
+            Map.Entry<Key, Value> entry = entries.next();
+            cells++;
+            bytes += entry.getKey().getSize() + entry.getValue().getSize();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            entries.remove();
+        }
+
+        public void rowRead() {
+            if (firstRowTime < 0) {
+                firstRowTime = System.nanoTime();
+            }
+            rows++;
+            if (metrics.isEnabled()) {
+                metrics.incrementCounter(MetricsRegistry.COUNTER_ROWS_READ, tableName, 1);
+                reportCells();
+            }
+            if (runningRecord == null && slowQueryLog.isEnabled()) {
+                long duration = System.nanoTime() - startTime;
+                if (slowQueryLog.isSlow(duration)) {
+                    runningRecord = createSlowQueryRecord(duration);
+                    slowQueryLog.recordRunning(runningRecord);
+                }
+            }
+        }
+
+        /**
+         * Counts a row read as a single entry holding all of its cells, see {@link WholeRowIterable}
+         */
+        public void wholeRowRead(int cellCount) {
+            cells += cellCount - 1;
+            rowRead();
+        }
+
+        /**
+         * RowIterator reads one entry ahead, so the cells are reported as they are read rather than per row
+         */
+        private void reportCells() {
+            metrics.incrementCounter(MetricsRegistry.COUNTER_CELLS_READ, tableName, cells - reportedCells);
+            metrics.incrementCounter(MetricsRegistry.COUNTER_BYTES_READ, tableName, bytes - reportedBytes);
+            reportedCells = cells;
+            reportedBytes = bytes;
+        }
+
+        public void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            long duration = System.nanoTime() - startTime;
+            if (event != null) {
+                event.tableName = tableName;
+                event.operation = operation;
+                event.query = query;
+                event.rows = rows;
+                event.cells = cells;
+                event.bytes = bytes;
+                event.commit();
+            }
+            if (metrics.isEnabled()) {
+                reportCells();
+                metrics.recordLatency(operation, tableName, duration);
+            }
+            if (runningRecord != null) {
+                slowQueryLog.update(runningRecord, createSlowQueryRecord(duration));
+            } else if (slowQueryLog.isSlow(duration)) {
+                slowQueryLog.record(createSlowQueryRecord(duration));
+            }
+        }
+
+        /**
+         * Finishes an execution whose caller stopped reading early
+         */
+        @Override
+        public void close() {
+            finish();
+        }
+
+        private SlowQueryRecord createSlowQueryRecord(long duration) {
+            return new SlowQueryRecord(
+                    System.currentTimeMillis(),
+                    tableName,
+                    operation,
+                    query,
+                    authorizations,
+                    rows,
+                    cells,
+                    bytes,
+                    firstRowTime < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(firstRowTime - startTime),
+                    TimeUnit.NANOSECONDS.toMillis(duration),
+                    SlowQueryLog.getCallerStack());
+        }
+    }
+}
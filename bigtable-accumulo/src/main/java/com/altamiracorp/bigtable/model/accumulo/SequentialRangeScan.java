@@ -0,0 +1,60 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Scans several ranges one after another with a single scanner, so entries come back in key order like the
+ * scan of one range while the gaps between the ranges are never read. The ranges must be sorted and must not
+ * overlap. Each range is started when the previous one runs out.
+ */
+class SequentialRangeScan implements Iterable<Map.Entry<Key, Value>> {
+    private final Scanner scanner;
+    private final List<Range> ranges;
+
+    public SequentialRangeScan(Scanner scanner, List<Range> ranges) {
+        this.scanner = scanner;
+        this.ranges = ranges;
+    }
+
+    @Override
+    public Iterator<Map.Entry<Key, Value>> iterator() {
+        return new Iterator<Map.Entry<Key, Value>>() {
+            private Iterator<Map.Entry<Key, Value>> entries = Collections.<Map.Entry<Key, Value>>emptyList().iterator();
+            private int nextRange;
+
+            @Override
+            public boolean hasNext() {
+                while (!entries.hasNext()) {
+                    if (nextRange >= ranges.size()) {
+                        return false;
+                    }
+                    scanner.setRange(ranges.get(nextRange++));
+                    entries = scanner.iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public Map.Entry<Key, Value> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return entries.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
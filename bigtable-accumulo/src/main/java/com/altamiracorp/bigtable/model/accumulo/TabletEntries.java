@@ -0,0 +1,79 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.KeyExtent;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.metadata.MetadataTable;
+import org.apache.accumulo.core.metadata.schema.DataFileValue;
+import org.apache.accumulo.core.metadata.schema.MetadataSchema;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.TablePermission;
+import org.apache.hadoop.io.Text;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the number of entries in each tablet's files from the metadata table. Accumulo has no public API for
+ * this: TableOperations.getDiskUsage only reports the bytes of whole tables. The metadata layout and the
+ * KeyExtent, DataFileValue and MetadataSchema classes used to read it are Accumulo 1.6 internals that may change
+ * in any release, so they are kept to this class. Any failure to read the entries, including those classes
+ * having moved, is logged and reported as an empty map, which statistics treat as entries being unknown.
+ */
+final class TabletEntries {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TabletEntries.class);
+
+    private TabletEntries() {
+    }
+
+    /**
+     * Adds up the entries of each tablet's files. Tablets are keyed by their end row, null for the last tablet.
+     *
+     * @return the entries of the tablets that have files, or an empty map if the user may not read the metadata
+     * table or it could not be read
+     */
+    static Map<Text, Long> read(Connector connector, String tableName) {
+        try {
+            return readFromMetadata(connector, tableName);
+        } catch (TableNotFoundException e) {
+            LOGGER.debug("Could not read the tablet entries of table: " + tableName, e);
+        } catch (AccumuloSecurityException e) {
+            LOGGER.debug("Could not read the tablet entries of table: " + tableName, e);
+        } catch (AccumuloException e) {
+            LOGGER.warn("Could not read the tablet entries of table: " + tableName, e);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not read the tablet entries of table: " + tableName, e);
+        } catch (LinkageError e) {
+            LOGGER.warn("The metadata classes of this Accumulo version are not supported, tablet entries are unknown", e);
+        }
+        return new HashMap<Text, Long>();
+    }
+
+    private static Map<Text, Long> readFromMetadata(Connector connector, String tableName) throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
+        Map<Text, Long> results = new HashMap<Text, Long>();
+        if (!connector.securityOperations().hasTablePermission(connector.whoami(), MetadataTable.NAME, TablePermission.READ)) {
+            return results;
+        }
+        String tableId = connector.tableOperations().tableIdMap().get(tableName);
+        if (tableId == null) {
+            throw new TableNotFoundException(null, tableName, null);
+        }
+        Scanner scanner = connector.createScanner(MetadataTable.NAME, Authorizations.EMPTY);
+        scanner.setRange(MetadataSchema.TabletsSection.getRange(tableId));
+        scanner.fetchColumnFamily(MetadataSchema.TabletsSection.DataFileColumnFamily.NAME);
+        for (Map.Entry<Key, Value> entry : scanner) {
+            Text endRow = new KeyExtent(entry.getKey().getRow(), (Text) null).getEndRow();
+            Long entries = results.get(endRow);
+            long fileEntries = new DataFileValue(entry.getValue().get()).getNumEntries();
+            results.put(endRow, entries == null ? fileEntries : entries + fileEntries);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,131 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.compression.CompressionPolicy;
+import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.ScannerBase;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.user.WholeRowIterator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+
+/**
+ * Converts the entries of a scanner with a {@link WholeRowIterator} attached to rows. Each row ships as a single
+ * entry, which is decoded here, so rows never need to be reassembled from their cells. Batch scanners return
+ * entries from several tablets at once and rely on this to keep rows whole; their rows come in no particular order.
+ * <p/>
+ * Each call to iterator() asks for a scanner. A batch scanner is closed once its last row has been read or its
+ * iterator is closed, so callers that stop early should close the iterator.
+ */
+abstract class WholeRowIterable implements Iterable<Row> {
+    static final int WHOLE_ROW_ITERATOR_PRIORITY = 200;
+
+    private final ScanMonitor monitor;
+    private final CompressionPolicy compressionPolicy;
+
+    /**
+     * @param compressionPolicy the policy whose columns are read in compressed form, or null
+     */
+    public WholeRowIterable(ScanMonitor monitor, CompressionPolicy compressionPolicy) {
+        this.monitor = monitor;
+        this.compressionPolicy = compressionPolicy;
+    }
+
+    public static void addWholeRowIterator(ScannerBase scanner) {
+        scanner.addScanIterator(new IteratorSetting(WHOLE_ROW_ITERATOR_PRIORITY, WholeRowIterator.class.getSimpleName(), WholeRowIterator.class));
+    }
+
+    /**
+     * @return a scanner with its ranges, filters and whole row iterator set
+     */
+    protected abstract ScannerBase createScanner();
+
+    /**
+     * @return the entries of the scanner; overridden to read several ranges with one scanner
+     */
+    protected Iterator<Map.Entry<Key, Value>> entries(ScannerBase scanner) {
+        return scanner.iterator();
+    }
+
+    @Override
+    public ScannerRowIterator iterator() {
+        ScannerBase scanner = createScanner();
+        Iterator<Map.Entry<Key, Value>> entries = entries(scanner);
+        ScanMonitor.Execution execution = monitor.isEnabled() ? monitor.start(entries) : null;
+        return new ScannerRowIterator(scanner, execution == null ? entries : execution, execution);
+    }
+
+    public class ScannerRowIterator implements Iterator<Row>, Closeable {
+        private final ScannerBase scanner;
+        private final ScanMonitor.Execution execution;
+        private final Iterator<Map.Entry<Key, Value>> entries;
+        private boolean closed;
+
+        private ScannerRowIterator(ScannerBase scanner, Iterator<Map.Entry<Key, Value>> entries, ScanMonitor.Execution execution) {
+            this.scanner = scanner;
+            this.entries = entries;
+            this.execution = execution;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            if (entries.hasNext()) {
+                return true;
+            }
+            close();
+            return false;
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<Key, Value> entry = entries.next();
+            SortedMap<Key, Value> cells;
+            try {
+                cells = WholeRowIterator.decodeRow(entry.getKey(), entry.getValue());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            Row row = AccumuloHelper.accumuloRowToRow(monitor.getTableName(), cells.entrySet().iterator(), compressionPolicy);
+            if (execution != null) {
+                execution.wholeRowRead(cells.size());
+            }
+            return row;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Closes a batch scanner and records the scan. Called once the last row has been read, and by callers that
+         * stop early.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (scanner instanceof BatchScanner) {
+                ((BatchScanner) scanner).close();
+            }
+            if (execution != null) {
+                execution.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.BaseBuilder;
+import com.altamiracorp.bigtable.model.Row;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloBaseInputFormatTest {
+    private static final String INSTANCE_NAME = "AccumuloBaseInputFormatTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+
+    private Connector connector;
+
+    @Before
+    public void before() throws Exception {
+        connector = MockAccumulo.connect(INSTANCE_NAME);
+        MockAccumulo.recreateTable(connector, TEST_TABLE_NAME);
+
+        BatchWriter writer = connector.createBatchWriter(TEST_TABLE_NAME, new BatchWriterConfig());
+        for (int i = 1; i <= 3; i++) {
+            Mutation mutation = new Mutation("testRowKey" + i);
+            mutation.put("testColumnFamily1", "testColumn1", "testValue" + i);
+            mutation.put("testColumnFamily2", "testColumn2", "testValue" + i);
+            writer.addMutation(mutation);
+        }
+        writer.close();
+    }
+
+    @Test
+    public void testReadWithColumnProjection() throws Exception {
+        Job job = Job.getInstance();
+        TestInputFormat.setMockInstance(job, INSTANCE_NAME);
+        TestInputFormat.setConnectorInfo(job, "root", new PasswordToken(""));
+        TestInputFormat.setInputTableName(job, TEST_TABLE_NAME);
+        TestInputFormat.setScanAuthorizations(job, new Authorizations());
+        TestInputFormat.fetchColumnFamilies(job, "testColumnFamily2");
+
+        TestInputFormat inputFormat = new TestInputFormat();
+        org.apache.hadoop.mapreduce.Counters counters = new org.apache.hadoop.mapreduce.Counters();
+        List<String> rowKeys = new ArrayList<String>();
+        for (InputSplit split : inputFormat.getSplits(job)) {
+            TaskAttemptContext context = new TaskAttemptContextImpl(job.getConfiguration(), new TaskAttemptID(), new CountersReporter(counters));
+            RecordReader<Text, Row> reader = inputFormat.createRecordReader(split, context);
+            reader.initialize(split, context);
+            while (reader.nextKeyValue()) {
+                Row row = reader.getCurrentValue();
+                assertEquals(row.getRowKey().toString(), reader.getCurrentKey().toString());
+                assertNull(row.get("testColumnFamily1"));
+                assertEquals("testValue" + (rowKeys.size() + 1), row.get("testColumnFamily2").get("testColumn2").toString());
+                rowKeys.add(row.getRowKey().toString());
+            }
+            reader.close();
+        }
+
+        assertEquals(3, rowKeys.size());
+        assertEquals(3, counters.findCounter(AccumuloBaseInputFormat.Counters.ROWS_READ).getValue());
+        assertEquals(3, counters.findCounter(AccumuloBaseInputFormat.Counters.CELLS_READ).getValue());
+        assertTrue(counters.findCounter(AccumuloBaseInputFormat.Counters.BYTES_READ).getValue() > 0);
+    }
+
+    public static class TestInputFormat extends AccumuloBaseInputFormat<Row, BaseBuilder<Row>> {
+        @Override
+        public BaseBuilder<Row> getBuilder() {
+            return new BaseBuilder<Row>() {
+                @Override
+                public Row fromRow(Row row) {
+                    return row;
+                }
+
+                @Override
+                public String getTableName() {
+                    return TEST_TABLE_NAME;
+                }
+            };
+        }
+    }
+
+    static class CountersReporter extends StatusReporter {
+        private final org.apache.hadoop.mapreduce.Counters counters;
+
+        public CountersReporter(org.apache.hadoop.mapreduce.Counters counters) {
+            this.counters = counters;
+        }
+
+        @Override
+        public Counter getCounter(Enum<?> name) {
+            return counters.findCounter(name);
+        }
+
+        @Override
+        public Counter getCounter(String group, String name) {
+            return counters.findCounter(group, name);
+        }
+
+        @Override
+        public void progress() {
+        }
+
+        @Override
+        public float getProgress() {
+            return 0;
+        }
+
+        @Override
+        public void setStatus(String status) {
+        }
+    }
+}
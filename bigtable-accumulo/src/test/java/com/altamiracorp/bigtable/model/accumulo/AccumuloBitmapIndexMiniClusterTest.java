@@ -0,0 +1,119 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.bitmap.BitmapIndex;
+import com.altamiracorp.bigtable.model.bitmap.BitmapQuery;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.ZooKeeperInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.minicluster.MiniAccumuloCluster;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloBitmapIndexMiniClusterTest {
+    private static final String TEST_TABLE_NAME = "testTable";
+    private static final String ROOT_PASSWORD = "password";
+
+    private static File dir;
+    private static MiniAccumuloCluster cluster;
+    private static Connector connector;
+
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        dir = File.createTempFile("AccumuloBitmapIndexMiniClusterTest", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        cluster = new MiniAccumuloCluster(dir, ROOT_PASSWORD);
+        cluster.start();
+        connector = new ZooKeeperInstance(cluster.getInstanceName(), cluster.getZooKeepers()).getConnector("root", new PasswordToken(ROOT_PASSWORD));
+    }
+
+    @AfterClass
+    public static void afterClass() throws Exception {
+        if (cluster != null) {
+            cluster.stop();
+        }
+        deleteDirectory(dir);
+    }
+
+    @Test
+    public void testConcurrentSessionsNeverShareOrdinals() throws Exception {
+        List<AccumuloSession> sessions = new ArrayList<AccumuloSession>();
+        for (int i = 0; i < 2; i++) {
+            AccumuloSession session = new AccumuloSession(connector, true);
+            session.initializeTable(TEST_TABLE_NAME, queryUser);
+            session.addBitmapIndex(new BitmapIndex("status", TEST_TABLE_NAME, "item", "status"), queryUser);
+            sessions.add(session);
+        }
+
+        // the first save attaches the iterators of both tables, which concurrent first scans would race on
+        sessions.get(0).save(createItem("item"));
+
+        final List<Long> ids = Collections.synchronizedList(new ArrayList<Long>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            final AccumuloSession session = sessions.get(i % sessions.size());
+            final int thread = i;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10; j++) {
+                        ids.add(session.allocateIds(TEST_TABLE_NAME, "sequence", "ids", "next", 1));
+                        session.save(createItem("item" + thread + "_" + j));
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80, new HashSet<Long>(ids).size());
+        for (AccumuloSession session : sessions) {
+            List<Row> rows = session.findByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.eq("status", "active"), queryUser);
+            Set<String> rowKeys = new HashSet<String>();
+            for (Row row : rows) {
+                rowKeys.add(row.getRowKey().toString());
+            }
+            assertEquals(81, rowKeys.size());
+            assertEquals(81, session.countByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.eq("status", "active")));
+        }
+    }
+
+    private static Row<RowKey> createItem(String rowKey) {
+        Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey(rowKey));
+        row.addColumnFamily(new ColumnFamily("item").set("status", "active"));
+        return row;
+    }
+
+    private static void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteDirectory(file);
+            }
+        }
+        dir.delete();
+    }
+}
@@ -0,0 +1,209 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.FlushFlag;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.bitmap.BitmapIndex;
+import com.altamiracorp.bigtable.model.bitmap.BitmapQuery;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloBitmapIndexTest {
+    private static final String INSTANCE_NAME = "AccumuloBitmapIndexTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+
+    private Connector connector;
+    private AccumuloSession accumuloSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @Before
+    public void before() throws Exception {
+        connector = MockAccumulo.connect(INSTANCE_NAME);
+        accumuloSession = MockAccumulo.createSession(connector, TEST_TABLE_NAME, queryUser);
+        accumuloSession.deleteTable(BitmapIndex.getBitmapTableName(TEST_TABLE_NAME), queryUser);
+        addIndexes(accumuloSession);
+    }
+
+    @Test
+    public void testFindByBitmapQuery() {
+        saveItem("item1", "active", "us-east");
+        saveItem("item2", "active", "us-west");
+        saveItem("item3", "inactive", "us-east");
+        saveItem("item4", "active", "eu-west");
+
+        assertEquals(Arrays.asList("item1", "item2", "item4"), find(BitmapQuery.eq("status", "active")));
+        assertEquals(Arrays.asList("item1", "item2"), find(BitmapQuery.and(
+                BitmapQuery.eq("status", "active"),
+                BitmapQuery.in("region", "us-east", "us-west"))));
+        assertEquals(Arrays.asList("item2", "item3", "item4"), find(BitmapQuery.or(
+                BitmapQuery.eq("status", "inactive"),
+                BitmapQuery.not(BitmapQuery.eq("region", "us-east")))));
+        assertEquals(3, accumuloSession.countByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.eq("status", "active")));
+    }
+
+    @Test
+    public void testBitmapsFollowUpdatesAndDeletes() throws Exception {
+        saveItem("item1", "active", "us-east");
+        saveItem("item2", "active", "us-west");
+        saveItem("item1", "inactive", "us-east");
+        accumuloSession.deleteRow(TEST_TABLE_NAME, new RowKey("item2"));
+
+        assertEquals(0, find(BitmapQuery.eq("status", "active")).size());
+        assertEquals(Arrays.asList("item1"), find(BitmapQuery.eq("status", "inactive")));
+
+        accumuloSession.flush();
+        AccumuloSession other = createSession();
+        addIndexes(other);
+        assertEquals(Arrays.asList("item1"), rowKeys(other.findByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.eq("status", "inactive"), queryUser)));
+        assertEquals(0, other.countByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.eq("status", "active")));
+    }
+
+    @Test
+    public void testDeletedColumnsLeaveTheirBitmaps() {
+        saveItem("item1", "active", "us-east");
+        saveItem("item2", "active", "us-west");
+        Row<RowKey> row = createItem("item1", "active", "us-east");
+        row.get("item").getColumn("status").setDelete(true);
+        accumuloSession.save(row);
+
+        assertEquals(Arrays.asList("item2"), find(BitmapQuery.eq("status", "active")));
+        assertEquals(Arrays.asList("item1", "item2"), find(BitmapQuery.in("region", "us-east", "us-west")));
+    }
+
+    @Test
+    public void testSessionsShareOrdinalsAndSeeEachOthersChanges() {
+        AccumuloSession other = createSession();
+        addIndexes(other);
+        saveItem("item1", "active", "us-east");
+        assertEquals(1, other.countByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.eq("status", "active")));
+
+        other.save(createItem("item2", "active", "us-west"));
+        saveItem("item3", "active", "eu-west");
+        other.save(createItem("item1", "inactive", "us-east"));
+        // rows come in ordinal order, and each session gives ordinals from its own block
+        assertEquals(Arrays.asList("item3", "item2"), find(BitmapQuery.eq("status", "active")));
+        assertEquals(Arrays.asList("item1"), find(BitmapQuery.eq("status", "inactive")));
+        assertEquals(3, accumuloSession.countByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.not(BitmapQuery.eq("status", "pending"))));
+    }
+
+    @Test
+    public void testNotMatchesOnlyRowsThatExist() {
+        saveItem("item1", "active", "us-east");
+        saveItem("item2", "inactive", "us-east");
+        saveItem("item3", "inactive", "us-west");
+        accumuloSession.deleteRow(TEST_TABLE_NAME, new RowKey("item2"));
+
+        BitmapQuery notActive = BitmapQuery.not(BitmapQuery.eq("status", "active"));
+        assertEquals(Arrays.asList("item3"), find(notActive));
+        assertEquals(1, accumuloSession.countByBitmapQuery(TEST_TABLE_NAME, notActive));
+
+        saveItem("item2", "inactive", "eu-west");
+        assertEquals(2, accumuloSession.countByBitmapQuery(TEST_TABLE_NAME, notActive));
+
+        AccumuloSession other = createSession();
+        addIndexes(other);
+        assertEquals(2, other.countByBitmapQuery(TEST_TABLE_NAME, notActive));
+        assertEquals(2, other.countByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.not(BitmapQuery.eq("region", "us-west"))));
+    }
+
+    @Test
+    public void testBitmapsFollowTheRowsFlushFlag() {
+        AccumuloSession bufferingSession = new AccumuloSession(connector, true) {
+            @Override
+            BatchWriter createBatchWriter(String tableName) throws TableNotFoundException {
+                return new BufferingBatchWriter(super.createBatchWriter(tableName));
+            }
+        };
+        addIndexes(bufferingSession);
+        AccumuloSession other = createSession();
+        addIndexes(other);
+
+        bufferingSession.save(createItem("item1", "active", "us-east"));
+        assertEquals(Arrays.asList("item1"), rowKeys(other.findByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.eq("status", "active"), queryUser)));
+
+        bufferingSession.save(createItem("item2", "active", "us-west"), FlushFlag.NO_FLUSH);
+        AccumuloSession beforeFlush = createSession();
+        addIndexes(beforeFlush);
+        assertEquals(1, beforeFlush.countByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.eq("status", "active")));
+
+        bufferingSession.flush();
+        AccumuloSession afterFlush = createSession();
+        addIndexes(afterFlush);
+        assertEquals(Arrays.asList("item1", "item2"), rowKeys(afterFlush.findByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.eq("status", "active"), queryUser)));
+        assertEquals(0, afterFlush.countByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.not(BitmapQuery.eq("status", "active"))));
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        // the first save attaches the iterators of both tables, which concurrent first scans would race on
+        saveItem("item0_0", "active", "us-east");
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            final int thread = i;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 25; j++) {
+                        saveItem("item" + thread + "_" + j, j % 2 == 0 ? "active" : "inactive", "us-east");
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(96, accumuloSession.countByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.not(BitmapQuery.eq("status", "active"))));
+        AccumuloSession other = createSession();
+        addIndexes(other);
+        assertEquals(104, other.findByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.eq("status", "active"), queryUser).size());
+        assertEquals(200, other.countByBitmapQuery(TEST_TABLE_NAME, BitmapQuery.eq("region", "us-east")));
+    }
+
+    private AccumuloSession createSession() {
+        return new AccumuloSession(connector, true);
+    }
+
+    private void addIndexes(AccumuloSession session) {
+        session.addBitmapIndex(new BitmapIndex("status", TEST_TABLE_NAME, "item", "status"), queryUser);
+        session.addBitmapIndex(new BitmapIndex("region", TEST_TABLE_NAME, "item", "region"), queryUser);
+    }
+
+    private void saveItem(String rowKey, String status, String region) {
+        accumuloSession.save(createItem(rowKey, status, region));
+    }
+
+    private static Row<RowKey> createItem(String rowKey, String status, String region) {
+        Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey(rowKey));
+        row.addColumnFamily(new ColumnFamily("item").set("status", status).set("region", region));
+        return row;
+    }
+
+    private List<String> find(BitmapQuery query) {
+        return rowKeys(accumuloSession.findByBitmapQuery(TEST_TABLE_NAME, query, queryUser));
+    }
+
+    private static List<String> rowKeys(List<Row> rows) {
+        List<String> results = new ArrayList<String>();
+        for (Row row : rows) {
+            results.add(row.getRowKey().toString());
+        }
+        return results;
+    }
+}
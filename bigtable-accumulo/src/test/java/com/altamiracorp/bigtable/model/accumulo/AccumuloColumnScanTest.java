@@ -0,0 +1,126 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.Cell;
+import com.altamiracorp.bigtable.model.ColumnCursor;
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.ColumnScan;
+import com.altamiracorp.bigtable.model.MockSession;
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.metrics.DefaultMetricsRegistry;
+import com.altamiracorp.bigtable.model.metrics.MetricsRegistry;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloColumnScanTest {
+    private static final String INSTANCE_NAME = "AccumuloColumnScanTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+    private static final int EDGE_COUNT = 2500;
+
+    private AccumuloSession accumuloSession;
+    private MockSession mockSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @Before
+    public void before() throws Exception {
+        accumuloSession = MockAccumulo.createSession(MockAccumulo.connect(INSTANCE_NAME), TEST_TABLE_NAME, queryUser);
+        mockSession = new MockSession();
+        mockSession.initializeTable(TEST_TABLE_NAME, queryUser);
+
+        Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey("vertex1"));
+        ColumnFamily edges = new ColumnFamily("edges");
+        for (int i = 0; i < EDGE_COUNT; i++) {
+            edges.set(String.format("vertex%05d", i), i);
+        }
+        row.addColumnFamily(edges);
+        row.addColumnFamily(new ColumnFamily("properties").set("name", "one").set("type", "vertex"));
+        accumuloSession.save(row);
+        mockSession.save(row);
+    }
+
+    @Test
+    public void testPageThroughColumns() {
+        for (ModelSession session : new ModelSession[]{accumuloSession, mockSession}) {
+            ColumnScan scan = new ColumnScan().setLimit(1000);
+            List<String> columns = new ArrayList<String>();
+            int pages = 0;
+            while (true) {
+                ColumnCursor cursor = session.scanColumns(TEST_TABLE_NAME, "vertex1", scan, queryUser);
+                int count = 0;
+                while (cursor.hasNext()) {
+                    Cell cell = cursor.next();
+                    columns.add(cell.getColumnFamilyName() + ":" + cell.getColumnName());
+                    count++;
+                }
+                pages++;
+                if (count < 1000) {
+                    break;
+                }
+                scan.setResumeToken(cursor.getResumeToken());
+            }
+            assertEquals(3, pages);
+            assertEquals(EDGE_COUNT + 2, columns.size());
+            assertEquals("edges:vertex00000", columns.get(0));
+            assertEquals("edges:vertex01000", columns.get(1000));
+            assertEquals("properties:type", columns.get(columns.size() - 1));
+        }
+    }
+
+    @Test
+    public void testFilters() {
+        for (ModelSession session : new ModelSession[]{accumuloSession, mockSession}) {
+            assertEquals(Arrays.asList("edges:vertex00010", "edges:vertex00011", "edges:vertex00012"),
+                    scan(session, new ColumnScan().addColumnFamily("edges").setColumnNameRange("vertex00010", "vertex00013")));
+            assertEquals(Arrays.asList("edges:vertex00011", "edges:vertex00012"),
+                    scan(session, new ColumnScan().addColumnFamily("edges").setColumnNameRange("vertex00010", "vertex00013").setOffset(1).setLimit(5)));
+            assertEquals(Arrays.asList("properties:name", "properties:type"),
+                    scan(session, new ColumnScan().addColumnFamily("properties")));
+            assertEquals(Arrays.asList("edges:vertex02499", "properties:name", "properties:type"),
+                    scan(session, new ColumnScan().setColumnNameRange("n", "x").setOffset(EDGE_COUNT - 1)));
+            assertEquals(0, scan(session, new ColumnScan().addColumnFamily("edges").setColumnNameRange("b", "a")).size());
+            assertEquals(0, scan(session, new ColumnScan().setLimit(0)).size());
+            assertFalse(session.scanColumns(TEST_TABLE_NAME, "missing", new ColumnScan(), queryUser).hasNext());
+        }
+    }
+
+    @Test
+    public void testClosingTheCursorFinishesTheScan() {
+        DefaultMetricsRegistry metrics = new DefaultMetricsRegistry();
+        accumuloSession.setMetricsRegistry(metrics);
+        ColumnScan scan = new ColumnScan().addColumnFamily("edges").setLimit(11);
+        ColumnCursor cursor = accumuloSession.scanColumns(TEST_TABLE_NAME, "vertex1", scan, queryUser);
+        try {
+            for (int i = 0; i < 10; i++) {
+                cursor.next();
+            }
+            assertTrue(cursor.hasNext());
+            assertEquals(0, metrics.getLatencyHistogram(MetricsRegistry.OPERATION_SCAN, TEST_TABLE_NAME).getCount());
+        } finally {
+            cursor.close();
+        }
+        assertEquals(1, metrics.getLatencyHistogram(MetricsRegistry.OPERATION_SCAN, TEST_TABLE_NAME).getCount());
+        assertTrue(metrics.getCounter(MetricsRegistry.COUNTER_CELLS_READ, TEST_TABLE_NAME) >= 11);
+    }
+
+    private List<String> scan(ModelSession session, ColumnScan scan) {
+        List<String> results = new ArrayList<String>();
+        ColumnCursor cursor = session.scanColumns(TEST_TABLE_NAME, "vertex1", scan, queryUser);
+        while (cursor.hasNext()) {
+            Cell cell = cursor.next();
+            results.add(cell.getColumnFamilyName() + ":" + cell.getColumnName());
+        }
+        return results;
+    }
+}
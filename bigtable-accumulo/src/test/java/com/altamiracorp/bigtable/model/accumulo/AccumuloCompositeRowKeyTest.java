@@ -0,0 +1,87 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.key.CompositeRowKey;
+import com.altamiracorp.bigtable.model.key.KeyRange;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloCompositeRowKeyTest {
+    private static final String INSTANCE_NAME = "AccumuloCompositeRowKeyTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+
+    private AccumuloSession accumuloSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @Before
+    public void before() throws Exception {
+        accumuloSession = MockAccumulo.createSession(MockAccumulo.connect(INSTANCE_NAME), TEST_TABLE_NAME, queryUser);
+    }
+
+    @Test
+    public void testLongRangeScan() {
+        for (long value = -5; value <= 5; value++) {
+            save(CompositeRowKey.builder().add("sensor1").addLong(value).build());
+            save(CompositeRowKey.builder().add("sensor2").addLong(value).build());
+        }
+        save(CompositeRowKey.builder().add("sensor1").addLong(-2).add("extra").build());
+
+        CompositeRowKey sensor = CompositeRowKey.builder().add("sensor1").build();
+        KeyRange range = KeyRange.longRange(sensor, -2, 3);
+        List<Long> values = new ArrayList<Long>();
+        for (Row row : accumuloSession.findByRowKeyRange(TEST_TABLE_NAME, range.getStart(), range.getEnd(), queryUser)) {
+            CompositeRowKey key = CompositeRowKey.parse(row.getRowKey().toString());
+            assertEquals("sensor1", key.getString(0));
+            values.add(key.getLong(1));
+        }
+        assertEquals(6, values.size());
+        assertEquals(Long.valueOf(-2), values.get(0));
+        assertEquals(Long.valueOf(-2), values.get(1));
+        assertEquals(Long.valueOf(2), values.get(5));
+
+        KeyRange prefix = KeyRange.prefix(sensor);
+        int count = 0;
+        for (Row row : accumuloSession.findByRowKeyRange(TEST_TABLE_NAME, prefix.getStart(), prefix.getEnd(), queryUser)) {
+            count++;
+        }
+        assertEquals(12, count);
+    }
+
+    @Test
+    public void testDescendingTimestampRangeScan() {
+        CompositeRowKey sensor = CompositeRowKey.builder().add("sensor1").build();
+        for (long time = 1000; time <= 5000; time += 1000) {
+            save(CompositeRowKey.builder().add("sensor1").addTimestampDescending(new Date(time)).build());
+        }
+
+        KeyRange range = KeyRange.timestampRangeDescending(sensor, new Date(2000), new Date(4000));
+        List<Date> times = new ArrayList<Date>();
+        for (Row row : accumuloSession.findByRowKeyRange(TEST_TABLE_NAME, range.getStart(), range.getEnd(), queryUser)) {
+            times.add(CompositeRowKey.parse(row.getRowKey().toString()).getTimestampDescending(1));
+        }
+        assertEquals(2, times.size());
+        assertEquals(new Date(3000), times.get(0));
+        assertEquals(new Date(2000), times.get(1));
+    }
+
+    private void save(RowKey rowKey) {
+        Row row = new Row<RowKey>(TEST_TABLE_NAME, rowKey);
+        ColumnFamily columnFamily = new ColumnFamily("testColumnFamily");
+        columnFamily.set("testColumn", "testValue");
+        row.addColumnFamily(columnFamily);
+        accumuloSession.save(row);
+    }
+}
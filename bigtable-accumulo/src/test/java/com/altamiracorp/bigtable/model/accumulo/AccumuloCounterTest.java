@@ -0,0 +1,127 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.CounterIncrement;
+import com.altamiracorp.bigtable.model.MockSession;
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloCounterTest {
+    private static final String INSTANCE_NAME = "AccumuloCounterTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+
+    private AccumuloSession accumuloSession;
+    private MockSession mockSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @Before
+    public void before() throws Exception {
+        Connector connector = MockAccumulo.connect(INSTANCE_NAME);
+        accumuloSession = new AccumuloSession(connector, true);
+        accumuloSession.deleteTable(TEST_TABLE_NAME, queryUser);
+        accumuloSession.addCounterFamily(TEST_TABLE_NAME, "hits", queryUser);
+        mockSession = new MockSession();
+        mockSession.addCounterFamily(TEST_TABLE_NAME, "hits", queryUser);
+    }
+
+    @Test
+    public void testIncrement() {
+        for (ModelSession session : new ModelSession[]{accumuloSession, mockSession}) {
+            Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey("page1"));
+            row.addColumnFamily(new ColumnFamily("data").set("title", "Page One"));
+            session.save(row);
+
+            session.increment(TEST_TABLE_NAME, "page1", "hits", "views", 1);
+            session.increment(TEST_TABLE_NAME, "page1", "hits", "views", 5);
+            session.increment(TEST_TABLE_NAME, "page1", "hits", "views", -2);
+            session.incrementMany(TEST_TABLE_NAME, Arrays.asList(
+                    new CounterIncrement("page1", "hits", "views", 10),
+                    new CounterIncrement("page1", "hits", "clicks", 3),
+                    new CounterIncrement("page2", "hits", "views", 7)));
+
+            Row page1 = session.findByRowKey(TEST_TABLE_NAME, "page1", queryUser);
+            assertEquals(14L, (long) page1.get("hits").get("views").toLong());
+            assertEquals(3L, (long) page1.get("hits").get("clicks").toLong());
+            assertEquals("Page One", page1.get("data").get("title").toString());
+            assertEquals(7L, (long) session.findByRowKey(TEST_TABLE_NAME, "page2", queryUser).get("hits").get("views").toLong());
+        }
+    }
+
+    @Test
+    public void testConcurrentIncrements() throws Exception {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 50; j++) {
+                        accumuloSession.increment(TEST_TABLE_NAME, "page1", "hits", "views", 1);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(200L, (long) accumuloSession.findByRowKey(TEST_TABLE_NAME, "page1", queryUser).get("hits").get("views").toLong());
+    }
+
+    @Test
+    public void testCombinerIsKeptWhenTableIsInitializedAgain() throws Exception {
+        accumuloSession.increment(TEST_TABLE_NAME, "page1", "hits", "views", 2);
+        accumuloSession.initializeTable(TEST_TABLE_NAME, queryUser);
+        accumuloSession.addCounterFamily(TEST_TABLE_NAME, "shares", queryUser);
+        accumuloSession.increment(TEST_TABLE_NAME, "page1", "hits", "views", 3);
+        accumuloSession.increment(TEST_TABLE_NAME, "page1", "shares", "total", 4);
+        accumuloSession.increment(TEST_TABLE_NAME, "page1", "shares", "total", 4);
+
+        Row page1 = accumuloSession.findByRowKey(TEST_TABLE_NAME, "page1", queryUser);
+        assertEquals(5L, (long) page1.get("hits").get("views").toLong());
+        assertEquals(8L, (long) page1.get("shares").get("total").toLong());
+    }
+
+    @Test
+    public void testCombinerKeepsFamiliesDeclaredByOtherSessions() throws Exception {
+        Connector connector = MockAccumulo.connect(INSTANCE_NAME);
+        AccumuloSession otherSession = new AccumuloSession(connector, true);
+        otherSession.addCounterFamily(TEST_TABLE_NAME, "shares", queryUser);
+        otherSession.increment(TEST_TABLE_NAME, "page1", "shares", "total", 4);
+        otherSession.increment(TEST_TABLE_NAME, "page1", "shares", "total", 4);
+        accumuloSession.increment(TEST_TABLE_NAME, "page1", "hits", "views", 2);
+        accumuloSession.increment(TEST_TABLE_NAME, "page1", "hits", "views", 3);
+
+        Row page1 = accumuloSession.findByRowKey(TEST_TABLE_NAME, "page1", queryUser);
+        assertEquals(5L, (long) page1.get("hits").get("views").toLong());
+        assertEquals(8L, (long) page1.get("shares").get("total").toLong());
+    }
+
+    @Test
+    public void testUndeclaredFamily() {
+        for (ModelSession session : new ModelSession[]{accumuloSession, mockSession}) {
+            try {
+                session.increment(TEST_TABLE_NAME, "page1", "data", "views", 1);
+                fail("expected an undeclared counter family to be rejected");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("data"));
+            }
+        }
+    }
+}
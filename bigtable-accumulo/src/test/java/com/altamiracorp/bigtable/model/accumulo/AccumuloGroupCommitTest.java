@@ -0,0 +1,128 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.FlushFlag;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloGroupCommitTest {
+    private static final String INSTANCE_NAME = "AccumuloGroupCommitTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+
+    private AccumuloSession accumuloSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @Before
+    public void before() throws Exception {
+        accumuloSession = MockAccumulo.createSession(MockAccumulo.connect(INSTANCE_NAME), TEST_TABLE_NAME, queryUser);
+    }
+
+    @After
+    public void after() {
+        accumuloSession.setGroupCommit(0, 0, 0);
+    }
+
+    @Test
+    public void testConcurrentFlushesAreCoalesced() throws Exception {
+        final int threadCount = 100;
+        accumuloSession.setGroupCommit(200, Long.MAX_VALUE, threadCount);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < threadCount; i++) {
+            final Row<RowKey> row = createRow(String.format("row%03d", i), i);
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        accumuloSession.save(row, FlushFlag.FLUSH);
+                    } catch (Throwable e) {
+                        failure.set(e);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(threadCount, count(accumuloSession.findAll(TEST_TABLE_NAME, queryUser)));
+        long flushCount = accumuloSession.getGroupCommitFlusher().getFlushCount();
+        assertTrue("flushes: " + flushCount, flushCount >= 1 && flushCount < threadCount / 10);
+    }
+
+    @Test
+    public void testWaiterLimitStartsTheFlush() throws Exception {
+        accumuloSession.setGroupCommit(60000, Long.MAX_VALUE, 3);
+        List<Future<Void>> flushes = new ArrayList<Future<Void>>();
+        for (int i = 0; i < 3; i++) {
+            flushes.add(accumuloSession.saveAsync(createRow("row" + i, i)));
+        }
+        for (Future<Void> flush : flushes) {
+            flush.get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(1, accumuloSession.getGroupCommitFlusher().getFlushCount());
+        assertEquals(3, count(accumuloSession.findAll(TEST_TABLE_NAME, queryUser)));
+    }
+
+    @Test
+    public void testByteLimitStartsTheFlush() throws Exception {
+        accumuloSession.setGroupCommit(60000, 1, 1000);
+        accumuloSession.saveAsync(createRow("row0", 0)).get(10, TimeUnit.SECONDS);
+        assertEquals(1, accumuloSession.getGroupCommitFlusher().getFlushCount());
+    }
+
+    @Test
+    public void testSaveAsyncWithoutGroupCommit() throws Exception {
+        assertFalse(accumuloSession.isGroupCommit());
+        Future<Void> flush = accumuloSession.saveAsync(createRow("row0", 0));
+        assertTrue(flush.isDone());
+        flush.get();
+        assertNotNull(accumuloSession.findByRowKey(TEST_TABLE_NAME, "row0", queryUser));
+    }
+
+    @Test
+    public void testNoFlushDoesNotWait() {
+        accumuloSession.setGroupCommit(60000, Long.MAX_VALUE, 1000);
+        long startTime = System.currentTimeMillis();
+        accumuloSession.save(createRow("row0", 0), FlushFlag.NO_FLUSH);
+        assertTrue(System.currentTimeMillis() - startTime < 30000);
+        assertEquals(0, accumuloSession.getGroupCommitFlusher().getFlushCount());
+    }
+
+    private static Row<RowKey> createRow(String rowKey, int value) {
+        Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey(rowKey));
+        row.addColumnFamily(new ColumnFamily("data").set("value", value));
+        return row;
+    }
+
+    private static int count(Iterable<Row> rows) {
+        int count = 0;
+        for (Row row : rows) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,64 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloKeysOnlyScanTest {
+    private static final String INSTANCE_NAME = "AccumuloKeysOnlyScanTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+
+    private AccumuloSession accumuloSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @Before
+    public void before() throws Exception {
+        accumuloSession = MockAccumulo.createSession(MockAccumulo.connect(INSTANCE_NAME, "secret"), TEST_TABLE_NAME, queryUser);
+
+        save("row1", "");
+        save("row2", "");
+        save("row3", "secret");
+        save("row4", "");
+        save("row5", "");
+        accumuloSession.deleteRow(TEST_TABLE_NAME, new RowKey("row4"));
+    }
+
+    @Test
+    public void testListRowKeys() {
+        assertEquals(Arrays.asList("row1", "row2", "row5"), accumuloSession.listRowKeys(TEST_TABLE_NAME, "row0", "row9", 10, queryUser));
+        assertEquals(Arrays.asList("row2"), accumuloSession.listRowKeys(TEST_TABLE_NAME, "row2", "row9", 1, queryUser));
+        assertEquals(Arrays.asList("row1", "row2", "row3"),
+                accumuloSession.listRowKeys(TEST_TABLE_NAME, "row0", "row9", 3, new AccumuloUserContext(new Authorizations("secret"))));
+        assertEquals(0, accumuloSession.listRowKeys(TEST_TABLE_NAME, "row0", "row9", 0, queryUser).size());
+    }
+
+    @Test
+    public void testExists() {
+        assertTrue(accumuloSession.exists(TEST_TABLE_NAME, "row1", queryUser));
+        assertFalse(accumuloSession.exists(TEST_TABLE_NAME, "row3", queryUser));
+        assertTrue(accumuloSession.exists(TEST_TABLE_NAME, "row3", new AccumuloUserContext(new Authorizations("secret"))));
+        assertFalse(accumuloSession.exists(TEST_TABLE_NAME, "row4", queryUser));
+        assertFalse(accumuloSession.exists(TEST_TABLE_NAME, "row", queryUser));
+
+        assertEquals(Arrays.asList("row5", "row1"), new ArrayList<String>(
+                accumuloSession.existsMany(TEST_TABLE_NAME, Arrays.asList("row5", "row4", "row3", "row1", "missing"), queryUser)));
+    }
+
+    private void save(String rowKey, String visibility) {
+        Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey(rowKey));
+        row.addColumnFamily(new ColumnFamily("data").set("a", "value", visibility).set("b", "value", visibility));
+        accumuloSession.save(row);
+    }
+}
@@ -0,0 +1,84 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.MockSession;
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.join.JoinType;
+import com.altamiracorp.bigtable.model.join.JoinedRow;
+import com.altamiracorp.bigtable.model.join.MergeJoin;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloMergeJoinTest {
+    private static final String INSTANCE_NAME = "AccumuloMergeJoinTest";
+    private static final String LEFT_TABLE_NAME = "leftTable";
+    private static final String RIGHT_TABLE_NAME = "rightTable";
+
+    private AccumuloSession accumuloSession;
+    private MockSession mockSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @Before
+    public void before() throws Exception {
+        accumuloSession = new AccumuloSession(MockAccumulo.connect(INSTANCE_NAME), true);
+        mockSession = new MockSession();
+        for (ModelSession session : new ModelSession[]{accumuloSession, mockSession}) {
+            MockAccumulo.recreateTable(session, LEFT_TABLE_NAME, queryUser);
+            MockAccumulo.recreateTable(session, RIGHT_TABLE_NAME, queryUser);
+            save(session, LEFT_TABLE_NAME, "a", "b", "c", "e");
+            save(session, RIGHT_TABLE_NAME, "b", "c", "d", "f");
+        }
+    }
+
+    @Test
+    public void testJoinTypes() {
+        for (ModelSession session : new ModelSession[]{accumuloSession, mockSession}) {
+            assertEquals(Arrays.asList("b:left/right", "c:left/right"), join(session, JoinType.INNER));
+            assertEquals(Arrays.asList("a:left/-", "b:left/right", "c:left/right", "e:left/-"), join(session, JoinType.LEFT));
+            assertEquals(Arrays.asList("a:left/-", "b:left/right", "c:left/right", "d:-/right", "e:left/-", "f:-/right"),
+                    join(session, JoinType.FULL));
+        }
+    }
+
+    @Test
+    public void testEarlyClose() {
+        MergeJoin.MergeJoinIterator iterator = accumuloSession.mergeJoin(LEFT_TABLE_NAME, RIGHT_TABLE_NAME, "a", "z", JoinType.FULL, queryUser).iterator();
+        assertEquals("a", iterator.next().getRowKey());
+        iterator.close();
+        assertFalse(iterator.hasNext());
+    }
+
+    private List<String> join(ModelSession session, JoinType joinType) {
+        List<String> results = new ArrayList<String>();
+        for (JoinedRow joinedRow : session.mergeJoin(LEFT_TABLE_NAME, RIGHT_TABLE_NAME, "a", "z", joinType, queryUser)) {
+            results.add(joinedRow.getRowKey() + ":" + value(joinedRow.getLeft()) + "/" + value(joinedRow.getRight()));
+        }
+        return results;
+    }
+
+    private static String value(Row row) {
+        return row == null ? "-" : row.get("data").get("table").toString();
+    }
+
+    private static void save(ModelSession session, String tableName, String... rowKeys) {
+        String side = tableName.equals(LEFT_TABLE_NAME) ? "left" : "right";
+        for (String rowKey : rowKeys) {
+            Row<RowKey> row = new Row<RowKey>(tableName, new RowKey(rowKey));
+            row.addColumnFamily(new ColumnFamily("data").set("table", side));
+            session.save(row);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.Column;
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.mapreduce.AccumuloOutputFormat;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.*;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloModelOutputFormatTest {
+    private static final String INSTANCE_NAME = "AccumuloModelOutputFormatTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+    private static final String TEST_INDEX_TABLE_NAME = "testIndexTable";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Connector connector;
+    private AccumuloSession accumuloSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @Before
+    public void before() throws Exception {
+        connector = MockAccumulo.connect(INSTANCE_NAME);
+        MockAccumulo.recreateTable(connector, TEST_TABLE_NAME);
+        if (connector.tableOperations().exists(TEST_INDEX_TABLE_NAME)) {
+            connector.tableOperations().delete(TEST_INDEX_TABLE_NAME);
+        }
+        accumuloSession = new AccumuloSession(connector, true);
+
+        BatchWriter writer = connector.createBatchWriter(TEST_TABLE_NAME, new BatchWriterConfig());
+        Mutation mutation = new Mutation("testRowKey1");
+        mutation.put("testColumnFamily1", "testColumn1", "oldValue1");
+        mutation.put("testColumnFamily1", "testColumn2", "oldValue2");
+        writer.addMutation(mutation);
+        writer.close();
+    }
+
+    @Test
+    public void testBulkOutput() throws Exception {
+        Job job = Job.getInstance();
+        AccumuloOutputFormat.setMockInstance(job, INSTANCE_NAME);
+        AccumuloOutputFormat.setConnectorInfo(job, "root", new PasswordToken(""));
+        AccumuloOutputFormat.setDefaultTableName(job, TEST_TABLE_NAME);
+        AccumuloModelOutputFormat.setBulkOutput(job, new Path(new File(temporaryFolder.getRoot(), "bulk").toURI()));
+        AccumuloModelOutputFormat.setOutputTables(job, true, Arrays.asList(TEST_TABLE_NAME, TEST_INDEX_TABLE_NAME));
+
+        Row row1 = new Row<RowKey>(TEST_TABLE_NAME, new RowKey("testRowKey1"));
+        ColumnFamily columnFamily1 = new ColumnFamily("testColumnFamily1");
+        columnFamily1.set("testColumn1", "newValue1");
+        Column deletedColumn = new Column("testColumn2", "");
+        deletedColumn.setDelete(true);
+        columnFamily1.addColumn(deletedColumn);
+        row1.addColumnFamily(columnFamily1);
+
+        Row row2 = new Row<RowKey>(TEST_TABLE_NAME, new RowKey("testRowKey2"));
+        ColumnFamily columnFamily2 = new ColumnFamily("testColumnFamily1");
+        columnFamily2.set("testColumn1", "newValue2");
+        row2.addColumnFamily(columnFamily2);
+
+        List<Row> rows = new ArrayList<Row>();
+        rows.add(row1);
+        rows.add(row2);
+        rows.add(createIndexRow("newValue1"));
+        runOutput(job, rows);
+
+        Row result1 = accumuloSession.findByRowKey(TEST_TABLE_NAME, "testRowKey1", queryUser);
+        assertEquals(1, result1.get("testColumnFamily1").getColumns().size());
+        assertEquals("newValue1", result1.get("testColumnFamily1").get("testColumn1").toString());
+
+        Row result2 = accumuloSession.findByRowKey(TEST_TABLE_NAME, "testRowKey2", queryUser);
+        assertEquals("newValue2", result2.get("testColumnFamily1").get("testColumn1").toString());
+        assertNull(accumuloSession.findByRowKey(TEST_TABLE_NAME, "newValue1", queryUser));
+
+        Row indexResult = accumuloSession.findByRowKey(TEST_INDEX_TABLE_NAME, "newValue1", queryUser);
+        assertEquals("", indexResult.get("testColumnFamily1").get("testRowKey1").toString());
+    }
+
+    @Test
+    public void testBulkOutputSortsRowsWrittenOutOfOrder() throws Exception {
+        Job job = Job.getInstance();
+        AccumuloOutputFormat.setMockInstance(job, INSTANCE_NAME);
+        AccumuloOutputFormat.setConnectorInfo(job, "root", new PasswordToken(""));
+        AccumuloOutputFormat.setDefaultTableName(job, TEST_TABLE_NAME);
+        AccumuloModelOutputFormat.setBulkOutput(job, new Path(new File(temporaryFolder.getRoot(), "bulk").toURI()));
+        AccumuloModelOutputFormat.setBulkBufferSize(job, 100);
+        AccumuloModelOutputFormat.setOutputTables(job, true, Arrays.asList(TEST_TABLE_NAME, TEST_INDEX_TABLE_NAME));
+
+        List<Row> rows = new ArrayList<Row>();
+        String[] values = new String[]{"value5", "value1", "value9", "value3", "value7", "value2", "value8", "value4", "value6"};
+        for (String value : values) {
+            rows.add(createIndexRow(value));
+        }
+        runOutput(job, rows);
+
+        for (String value : values) {
+            Row indexResult = accumuloSession.findByRowKey(TEST_INDEX_TABLE_NAME, value, queryUser);
+            assertNotNull(value, indexResult);
+            assertEquals("", indexResult.get("testColumnFamily1").get("testRowKey1").toString());
+        }
+    }
+
+    @Test
+    public void testBulkOutputFailsWhenFilesAreNotImported() throws Exception {
+        Job job = Job.getInstance();
+        AccumuloOutputFormat.setMockInstance(job, INSTANCE_NAME);
+        AccumuloOutputFormat.setConnectorInfo(job, "root", new PasswordToken(""));
+        AccumuloOutputFormat.setDefaultTableName(job, TEST_TABLE_NAME);
+        File outputDirectory = new File(temporaryFolder.getRoot(), "bulk");
+        AccumuloModelOutputFormat.setBulkOutput(job, new Path(outputDirectory.toURI()));
+
+        AccumuloModelOutputFormat outputFormat = new AccumuloModelOutputFormat();
+        TaskAttemptContext context = new TaskAttemptContextImpl(job.getConfiguration(), new TaskAttemptID("test", 1, TaskType.REDUCE, 0, 0));
+        OutputCommitter committer = outputFormat.getOutputCommitter(context);
+        committer.setupJob(context);
+        File tableDirectory = new File(outputDirectory, TEST_TABLE_NAME);
+        assertTrue(tableDirectory.mkdirs());
+        FileOutputStream out = new FileOutputStream(new File(tableDirectory, "corrupt.rf"));
+        try {
+            out.write("not an rfile".getBytes());
+        } finally {
+            out.close();
+        }
+
+        try {
+            committer.commitJob(context);
+            fail("commit should fail when files are not imported");
+        } catch (IOException e) {
+            assertTrue(new File(temporaryFolder.getRoot(), "bulk_failures/" + TEST_TABLE_NAME + "/corrupt.rf").exists());
+        }
+    }
+
+    @Test
+    public void testRoutesRowsByTableName() throws Exception {
+        Job job = Job.getInstance();
+        AccumuloOutputFormat.setMockInstance(job, INSTANCE_NAME);
+        AccumuloOutputFormat.setConnectorInfo(job, "root", new PasswordToken(""));
+        AccumuloOutputFormat.setDefaultTableName(job, TEST_TABLE_NAME);
+        AccumuloModelOutputFormat.setOutputTables(job, true, Arrays.asList(TEST_TABLE_NAME, TEST_INDEX_TABLE_NAME));
+
+        Row row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey("testRowKey2"));
+        ColumnFamily columnFamily = new ColumnFamily("testColumnFamily1");
+        columnFamily.set("testColumn1", "newValue2");
+        row.addColumnFamily(columnFamily);
+
+        List<Row> rows = new ArrayList<Row>();
+        rows.add(row);
+        rows.add(createIndexRow("newValue2"));
+        runOutput(job, rows);
+
+        Row result = accumuloSession.findByRowKey(TEST_TABLE_NAME, "testRowKey2", queryUser);
+        assertEquals("newValue2", result.get("testColumnFamily1").get("testColumn1").toString());
+        assertNull(accumuloSession.findByRowKey(TEST_TABLE_NAME, "newValue2", queryUser));
+
+        Row indexResult = accumuloSession.findByRowKey(TEST_INDEX_TABLE_NAME, "newValue2", queryUser);
+        assertNotNull(indexResult.get("testColumnFamily1").get("testRowKey1"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingOutputTable() throws Exception {
+        Job job = Job.getInstance();
+        AccumuloOutputFormat.setMockInstance(job, INSTANCE_NAME);
+        AccumuloOutputFormat.setConnectorInfo(job, "root", new PasswordToken(""));
+        AccumuloModelOutputFormat.setOutputTables(job, false, Arrays.asList(TEST_INDEX_TABLE_NAME));
+        new AccumuloModelOutputFormat().checkOutputSpecs(job);
+    }
+
+    private Row createIndexRow(String value) {
+        Row row = new Row<RowKey>(TEST_INDEX_TABLE_NAME, new RowKey(value));
+        ColumnFamily columnFamily = new ColumnFamily("testColumnFamily1");
+        columnFamily.set("testRowKey1", "");
+        row.addColumnFamily(columnFamily);
+        return row;
+    }
+
+    private void runOutput(Job job, List<Row> rows) throws Exception {
+        AccumuloModelOutputFormat outputFormat = new AccumuloModelOutputFormat();
+        outputFormat.checkOutputSpecs(job);
+        TaskAttemptContext context = new TaskAttemptContextImpl(job.getConfiguration(), new TaskAttemptID("test", 1, TaskType.REDUCE, 0, 0));
+        OutputCommitter committer = outputFormat.getOutputCommitter(context);
+        committer.setupJob(context);
+        committer.setupTask(context);
+        RecordWriter<Text, Row> writer = outputFormat.getRecordWriter(context);
+        for (Row row : rows) {
+            writer.write(new Text(row.getRowKey().toString()), row);
+        }
+        writer.close(context);
+        committer.commitTask(context);
+        committer.commitJob(context);
+    }
+}
@@ -0,0 +1,56 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.PrefetchingIterable;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloPrefetchingScanTest {
+    private static final String INSTANCE_NAME = "AccumuloPrefetchingScanTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+
+    private AccumuloSession accumuloSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @Before
+    public void before() throws Exception {
+        accumuloSession = MockAccumulo.createSession(MockAccumulo.connect(INSTANCE_NAME), TEST_TABLE_NAME, queryUser);
+    }
+
+    @Test
+    public void testPrefetchedScan() {
+        for (int i = 0; i < 50; i++) {
+            Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey(String.format("row%02d", i)));
+            row.addColumnFamily(new ColumnFamily("data").set("value", i));
+            accumuloSession.save(row);
+        }
+        List<String> expected = rowKeys(accumuloSession.findAll(TEST_TABLE_NAME, queryUser));
+
+        accumuloSession.setPrefetchDepth(4);
+        Iterable<Row> rows = accumuloSession.findAll(TEST_TABLE_NAME, queryUser);
+        assertTrue(rows instanceof PrefetchingIterable);
+        assertEquals(50, expected.size());
+        assertEquals(expected, rowKeys(rows));
+        assertEquals(expected.subList(10, 20), rowKeys(accumuloSession.findByRowKeyRange(TEST_TABLE_NAME, "row10", "row19", queryUser)));
+    }
+
+    private static List<String> rowKeys(Iterable<Row> rows) {
+        List<String> results = new ArrayList<String>();
+        for (Row row : rows) {
+            results.add(row.getRowKey().toString());
+        }
+        return results;
+    }
+}
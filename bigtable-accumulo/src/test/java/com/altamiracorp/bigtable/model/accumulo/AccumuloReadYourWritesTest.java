@@ -0,0 +1,160 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.FlushFlag;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloReadYourWritesTest {
+    private static final String INSTANCE_NAME = "AccumuloReadYourWritesTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+
+    private AccumuloSession accumuloSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations("a"));
+    private Authorizations authorizations = new Authorizations("a");
+    private PendingWrites pendingWrites = new PendingWrites();
+
+    @Before
+    public void before() throws Exception {
+        Connector connector = MockAccumulo.connect(INSTANCE_NAME, "a", "b");
+        accumuloSession = new AccumuloSession(connector, false) {
+            @Override
+            BatchWriter createBatchWriter(String tableName) throws TableNotFoundException {
+                return new BufferingBatchWriter(super.createBatchWriter(tableName));
+            }
+        };
+        MockAccumulo.recreateTable(accumuloSession, TEST_TABLE_NAME, queryUser);
+        accumuloSession.setReadYourWrites(true);
+    }
+
+    @Test
+    public void testPendingColumnsAreLaidOverStoredRows() {
+        Row<RowKey> update = new Row<RowKey>(TEST_TABLE_NAME, new RowKey("row3"));
+        update.addColumnFamily(new ColumnFamily("data").set("value", "pending3").set("secret", "hidden", "b"));
+        pendingWrites.addRow(TEST_TABLE_NAME, update);
+        pendingWrites.addRow(TEST_TABLE_NAME, createRow("row2", "pending2"));
+
+        assertEquals("pending2", value(pendingWrites.apply(TEST_TABLE_NAME, "row2", null, authorizations)));
+        Row row3 = pendingWrites.apply(TEST_TABLE_NAME, "row3", stored("row3", "stored3"), authorizations);
+        assertEquals("pending3", value(row3));
+        assertEquals("stored", row3.get("data").get("kind").toString());
+        assertNull(row3.get("data").get("secret"));
+        assertEquals("hidden", pendingWrites.apply(TEST_TABLE_NAME, "row3", null, new Authorizations("b")).get("data").get("secret").toString());
+        Row row1 = stored("row1", "stored1");
+        assertSame(row1, pendingWrites.apply(TEST_TABLE_NAME, "row1", row1, authorizations));
+
+        List<Row> storedRows = Arrays.<Row>asList(stored("row1", "stored1"), stored("row3", "stored3"), stored("row4", "stored4"));
+        assertEquals(Arrays.asList("row1=stored1", "row2=pending2", "row3=pending3", "row4=stored4"),
+                values(pendingWrites.overlay(TEST_TABLE_NAME, new Range(), storedRows, authorizations)));
+        assertEquals(Arrays.asList("row2=pending2", "row3=pending3"),
+                values(pendingWrites.overlay(TEST_TABLE_NAME, new Range("row2", "row3"), storedRows.subList(1, 2), authorizations)));
+        assertEquals(Arrays.asList("row2=pending2"),
+                values(pendingWrites.overlay(TEST_TABLE_NAME, Range.prefix("row2"), new ArrayList<Row>(), authorizations)));
+
+        pendingWrites.clear(TEST_TABLE_NAME);
+        assertEquals(0, pendingWrites.getRowCount(TEST_TABLE_NAME));
+        assertNull(pendingWrites.apply(TEST_TABLE_NAME, "row2", null, authorizations));
+    }
+
+    @Test
+    public void testClearKeepsRowsWrittenAfterTheFlushStarted() {
+        pendingWrites.addRow(TEST_TABLE_NAME, createRow("row1", "pending1"));
+        pendingWrites.addRow(TEST_TABLE_NAME, createRow("row2", "pending2"));
+        long sequence = pendingWrites.getSequence();
+        pendingWrites.addRow(TEST_TABLE_NAME, createRow("row2", "pending2b"));
+        pendingWrites.addRow(TEST_TABLE_NAME, createRow("row3", "pending3"));
+
+        pendingWrites.clear(TEST_TABLE_NAME, sequence);
+        assertEquals(2, pendingWrites.getRowCount(TEST_TABLE_NAME));
+        assertNull(pendingWrites.apply(TEST_TABLE_NAME, "row1", null, authorizations));
+        assertEquals("pending2b", value(pendingWrites.apply(TEST_TABLE_NAME, "row2", null, authorizations)));
+        assertEquals("pending3", value(pendingWrites.apply(TEST_TABLE_NAME, "row3", null, authorizations)));
+
+        pendingWrites.clear(TEST_TABLE_NAME, pendingWrites.getSequence());
+        assertEquals(0, pendingWrites.getRowCount(TEST_TABLE_NAME));
+    }
+
+    @Test
+    public void testPendingDeletesHideStoredColumns() {
+        pendingWrites.deleteColumn(TEST_TABLE_NAME, "row1", "data", "kind", "");
+        assertNull(pendingWrites.apply(TEST_TABLE_NAME, "row1", stored("row1", "stored1"), authorizations).get("data").get("kind"));
+
+        pendingWrites.deleteColumn(TEST_TABLE_NAME, "row1", "data", "value", null);
+        assertNull(pendingWrites.apply(TEST_TABLE_NAME, "row1", stored("row1", "stored1"), authorizations));
+        assertEquals(new ArrayList<String>(), values(pendingWrites.overlay(TEST_TABLE_NAME, new Range(), Arrays.<Row>asList(stored("row1", "stored1")), authorizations)));
+
+        pendingWrites.addRow(TEST_TABLE_NAME, createRow("row1", "again"));
+        assertEquals("again", value(pendingWrites.apply(TEST_TABLE_NAME, "row1", stored("row1", "stored1"), authorizations)));
+    }
+
+    @Test
+    public void testSessionReadsWithoutReadYourWrites() {
+        accumuloSession.setReadYourWrites(false);
+        accumuloSession.save(createRow("row1", "pending1"), FlushFlag.NO_FLUSH);
+        assertNull(accumuloSession.findByRowKey(TEST_TABLE_NAME, "row1", queryUser));
+        assertEquals(new ArrayList<String>(), values(accumuloSession.findAll(TEST_TABLE_NAME, queryUser)));
+
+        accumuloSession.flush();
+        assertEquals("pending1", value(accumuloSession.findByRowKey(TEST_TABLE_NAME, "row1", queryUser)));
+    }
+
+    @Test
+    public void testSessionReadsWithPendingWrites() {
+        accumuloSession.save(createRow("row1", "stored1"), FlushFlag.FLUSH);
+        accumuloSession.save(createRow("row2", "pending2"), FlushFlag.NO_FLUSH);
+        accumuloSession.save(createRow("row3", "pending3"), FlushFlag.NO_FLUSH);
+        Row row1 = accumuloSession.findByRowKey(TEST_TABLE_NAME, "row1", queryUser);
+        accumuloSession.deleteColumn(row1, TEST_TABLE_NAME, "data", "kind", "");
+
+        assertEquals(Arrays.asList("row1=stored1", "row2=pending2", "row3=pending3"), values(accumuloSession.findAll(TEST_TABLE_NAME, queryUser)));
+        assertEquals(Arrays.asList("row2=pending2", "row3=pending3"), values(accumuloSession.findByRowKeyRange(TEST_TABLE_NAME, "row2", "row3", queryUser)));
+        assertEquals(Arrays.asList("row3=pending3", "row2=pending2"), values(accumuloSession.findByRowKeys(TEST_TABLE_NAME, Arrays.asList("row3", "row2", "row4"), queryUser)));
+        assertNull(accumuloSession.findByRowKey(TEST_TABLE_NAME, "row1", queryUser).get("data").get("kind"));
+
+        accumuloSession.deleteRow(TEST_TABLE_NAME, new RowKey("row2"));
+        assertNull(accumuloSession.findByRowKey(TEST_TABLE_NAME, "row2", queryUser));
+        accumuloSession.flush();
+        assertEquals(Arrays.asList("row1=stored1", "row3=pending3"), values(accumuloSession.findAll(TEST_TABLE_NAME, queryUser)));
+    }
+
+    private static Row<RowKey> createRow(String rowKey, String value) {
+        Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey(rowKey));
+        row.addColumnFamily(new ColumnFamily("data").set("value", value).set("kind", "stored"));
+        return row;
+    }
+
+    private static Row<RowKey> stored(String rowKey, String value) {
+        Row<RowKey> row = createRow(rowKey, value);
+        row.setDirtyBits(false);
+        return row;
+    }
+
+    private static String value(Row row) {
+        return row.get("data").get("value").toString();
+    }
+
+    private static List<String> values(Iterable<Row> rows) {
+        List<String> results = new ArrayList<String>();
+        for (Row row : rows) {
+            results.add(row.getRowKey() + "=" + value(row));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,91 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.MockSession;
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloRowKeyRegexTest {
+    private static final String INSTANCE_NAME = "AccumuloRowKeyRegexTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+    private static final List<String> ROW_KEYS = Arrays.asList(
+            "group_1", "group_12", "user_1", "user_123_a", "user_123_b", "user_124", "user.123", "xuser_123_a");
+
+    private AccumuloSession accumuloSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @Before
+    public void before() throws Exception {
+        accumuloSession = MockAccumulo.createSession(MockAccumulo.connect(INSTANCE_NAME), TEST_TABLE_NAME, queryUser);
+    }
+
+    @Test
+    public void testFindByRowKeyRegex() {
+        MockSession mockSession = new MockSession();
+        mockSession.initializeTable(TEST_TABLE_NAME, queryUser);
+        for (String rowKey : ROW_KEYS) {
+            save(accumuloSession, rowKey);
+            save(mockSession, rowKey);
+        }
+
+        for (String regex : new String[]{"user_123_.*", "user_12?", "(user|group)_1.*", "user_1.*|group_12", ".*_1", "user.1.*"}) {
+            List<String> expected = new ArrayList<String>();
+            for (String rowKey : ROW_KEYS) {
+                if (Pattern.matches(regex, rowKey)) {
+                    expected.add(rowKey);
+                }
+            }
+            Collections.sort(expected);
+            // several prefixes and full scans are returned in row key order too
+            assertEquals(regex, expected, find(accumuloSession, regex));
+            assertEquals(regex, expected, find(mockSession, regex));
+            assertEquals(regex, expected, sort(findUnordered(accumuloSession, regex)));
+            assertEquals(regex, expected, sort(findUnordered(mockSession, regex)));
+        }
+        Row row = accumuloSession.findByRowKeyRegex(TEST_TABLE_NAME, "(user|group)_12", queryUser).iterator().next();
+        assertEquals("group_12", row.get("data").get("value").toString());
+    }
+
+    private void save(ModelSession session, String rowKey) {
+        Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey(rowKey));
+        row.addColumnFamily(new ColumnFamily("data").set("value", rowKey));
+        session.save(row);
+    }
+
+    private List<String> find(ModelSession session, String regex) {
+        List<String> results = new ArrayList<String>();
+        for (Row row : session.findByRowKeyRegex(TEST_TABLE_NAME, regex, queryUser)) {
+            results.add(row.getRowKey().toString());
+        }
+        return results;
+    }
+
+    private List<String> findUnordered(ModelSession session, String regex) {
+        List<String> results = new ArrayList<String>();
+        for (Row row : session.findByRowKeyRegexUnordered(TEST_TABLE_NAME, regex, queryUser)) {
+            results.add(row.getRowKey().toString());
+        }
+        return results;
+    }
+
+    private static List<String> sort(List<String> rowKeys) {
+        Collections.sort(rowKeys);
+        return rowKeys;
+    }
+}
@@ -0,0 +1,119 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.index.IndexType;
+import com.altamiracorp.bigtable.model.index.SecondaryIndex;
+import com.altamiracorp.bigtable.model.metrics.DefaultMetricsRegistry;
+import com.altamiracorp.bigtable.model.metrics.MetricsRegistry;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloSecondaryIndexTest {
+    private static final String INSTANCE_NAME = "AccumuloSecondaryIndexTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+
+    private AccumuloSession accumuloSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @Before
+    public void before() throws Exception {
+        accumuloSession = MockAccumulo.createSession(MockAccumulo.connect(INSTANCE_NAME), TEST_TABLE_NAME, queryUser);
+        for (String indexName : new String[]{"email", "age"}) {
+            accumuloSession.deleteTable(TEST_TABLE_NAME + "_index_" + indexName, queryUser);
+        }
+        accumuloSession.addIndex(new SecondaryIndex("email", TEST_TABLE_NAME, "user", "email"), queryUser);
+        accumuloSession.addIndex(new SecondaryIndex("age", TEST_TABLE_NAME, "user", "age", IndexType.LONG), queryUser);
+    }
+
+    @Test
+    public void testFindByIndex() {
+        saveUser("user1", "a@example.com", 30);
+        saveUser("user2", "b@example.com", -5);
+        saveUser("user3", "a@example.com", 41);
+
+        assertEquals(Arrays.asList("user1", "user3"), rowKeys(accumuloSession.findByIndex(TEST_TABLE_NAME, "email", "a@example.com", queryUser)));
+        assertEquals(Arrays.asList("user2"), rowKeys(accumuloSession.findByIndex(TEST_TABLE_NAME, "email", "b@example.com", queryUser)));
+        assertEquals(0, accumuloSession.findByIndex(TEST_TABLE_NAME, "email", "a@example", queryUser).size());
+
+        assertEquals(Arrays.asList("user2", "user1"), rowKeys(accumuloSession.findByIndexRange(TEST_TABLE_NAME, "age", -10, 41, queryUser)));
+    }
+
+    @Test
+    public void testIndexFollowsUpdatesAndDeletes() {
+        DefaultMetricsRegistry metrics = new DefaultMetricsRegistry();
+        accumuloSession.setMetricsRegistry(metrics);
+        saveUser("user1", "old@example.com", 30);
+        saveUser("user1", "new@example.com", 30);
+        // the replaced entry is deleted through the index table's writer rather than a writer of its own
+        assertEquals(0, metrics.getCounter(MetricsRegistry.COUNTER_WRITER_CLOSES, TEST_TABLE_NAME + "_index_email"));
+
+        assertEquals(0, accumuloSession.findByIndex(TEST_TABLE_NAME, "email", "old@example.com", queryUser).size());
+        assertEquals(Arrays.asList("user1"), rowKeys(accumuloSession.findByIndex(TEST_TABLE_NAME, "email", "new@example.com", queryUser)));
+        assertEquals(1, count(accumuloSession.findAll(TEST_TABLE_NAME + "_index_email", queryUser)));
+
+        accumuloSession.deleteRow(TEST_TABLE_NAME, new RowKey("user1"));
+        assertEquals(0, accumuloSession.findByIndex(TEST_TABLE_NAME, "email", "new@example.com", queryUser).size());
+        assertEquals(0, count(accumuloSession.findAll(TEST_TABLE_NAME + "_index_email", queryUser)));
+        assertEquals(0, count(accumuloSession.findAll(TEST_TABLE_NAME + "_index_age", queryUser)));
+    }
+
+    @Test
+    public void testIndexFollowsDeletedColumns() {
+        saveUser("user1", "a@example.com", 30);
+
+        Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey("user1"));
+        row.addColumnFamily(new ColumnFamily("user").set("email", "a@example.com"));
+        row.get("user").getColumn("email").setDelete(true);
+        accumuloSession.save(row);
+
+        assertEquals(0, accumuloSession.findByIndex(TEST_TABLE_NAME, "email", "a@example.com", queryUser).size());
+        assertEquals(0, count(accumuloSession.findAll(TEST_TABLE_NAME + "_index_email", queryUser)));
+        assertEquals(Arrays.asList("user1"), rowKeys(accumuloSession.findByIndexRange(TEST_TABLE_NAME, "age", 0, 100, queryUser)));
+    }
+
+    @Test
+    public void testFindByRowKeys() {
+        saveUser("user1", "a@example.com", 1);
+        saveUser("user2", "b@example.com", 2);
+        saveUser("user3", "c@example.com", 3);
+
+        List<Row> rows = accumuloSession.findByRowKeys(TEST_TABLE_NAME, Arrays.asList("user3", "missing", "user1"), queryUser);
+        assertEquals(Arrays.asList("user3", "user1"), rowKeys(rows));
+        assertEquals("c@example.com", rows.get(0).get("user").get("email").toString());
+    }
+
+    private void saveUser(String rowKey, String email, long age) {
+        Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey(rowKey));
+        row.addColumnFamily(new ColumnFamily("user").set("email", email).set("age", age));
+        accumuloSession.save(row);
+    }
+
+    private static List<String> rowKeys(List<Row> rows) {
+        List<String> results = new ArrayList<String>();
+        for (Row row : rows) {
+            results.add(row.getRowKey().toString());
+        }
+        return results;
+    }
+
+    private static int count(Iterable<Row> rows) {
+        int count = 0;
+        for (Row row : rows) {
+            count++;
+        }
+        return count;
+    }
+}
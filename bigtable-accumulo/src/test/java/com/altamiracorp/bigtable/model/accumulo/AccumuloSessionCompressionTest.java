@@ -0,0 +1,85 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.Value;
+import com.altamiracorp.bigtable.model.compression.CompressionCodec;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.security.Authorizations;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloSessionCompressionTest {
+    private static final String INSTANCE_NAME = "AccumuloSessionCompressionTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+
+    private Connector connector;
+    private AccumuloSession accumuloSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @Before
+    public void before() throws Exception {
+        connector = MockAccumulo.connect(INSTANCE_NAME);
+        accumuloSession = MockAccumulo.createSession(connector, TEST_TABLE_NAME, queryUser);
+        accumuloSession.getCompressionPolicy()
+                .compressFamily("content", CompressionCodec.DEFLATE)
+                .compressColumn("metadata", "json", CompressionCodec.FAST);
+    }
+
+    @Test
+    public void testCompressedColumnsRoundTrip() throws Exception {
+        JSONObject json = new JSONObject();
+        for (int i = 0; i < 500; i++) {
+            json.put("key" + i, "some repetitive value " + (i % 10));
+        }
+        Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey("row1"));
+        row.addColumnFamily(new ColumnFamily("content").set("body", json.toString()).set("small", "tiny"));
+        row.addColumnFamily(new ColumnFamily("metadata").set("json", json).set("other", json.toString()));
+        accumuloSession.save(row);
+
+        Map<String, Integer> storedSizes = new HashMap<String, Integer>();
+        Scanner scanner = connector.createScanner(TEST_TABLE_NAME, new Authorizations());
+        for (Map.Entry<Key, org.apache.accumulo.core.data.Value> entry : scanner) {
+            storedSizes.put(entry.getKey().getColumnQualifier().toString(), entry.getValue().getSize());
+        }
+        int uncompressedSize = json.toString().length();
+        assertTrue(storedSizes.get("body") < uncompressedSize / 4);
+        assertTrue(storedSizes.get("json") < uncompressedSize / 4);
+        assertEquals(4, (int) storedSizes.get("small"));
+        assertEquals(uncompressedSize, (int) storedSizes.get("other"));
+
+        Row found = accumuloSession.findByRowKey(TEST_TABLE_NAME, "row1", queryUser);
+        Value body = found.get("content").get("body");
+        assertTrue(body.isCompressed());
+        assertEquals(json.toString(), body.toString());
+        assertEquals(json.toString(), Value.toJson(found.get("metadata").get("json")).toString());
+        assertEquals("tiny", found.get("content").get("small").toString());
+        assertFalse(found.get("metadata").get("other").isCompressed());
+    }
+
+    @Test
+    public void testCallerBytesAreNeverDecompressed() {
+        byte[] headerBytes = CompressionCodec.FAST.compress("compressed by the caller".getBytes());
+        Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey("row1"));
+        row.addColumnFamily(new ColumnFamily("metadata").set("other", headerBytes));
+        accumuloSession.save(row);
+
+        Value found = accumuloSession.findByRowKey(TEST_TABLE_NAME, "row1", queryUser).get("metadata").get("other");
+        assertFalse(found.isCompressed());
+        assertArrayEquals(headerBytes, found.toBytes());
+    }
+
+}
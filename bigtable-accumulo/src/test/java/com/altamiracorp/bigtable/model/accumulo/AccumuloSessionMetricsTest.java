@@ -0,0 +1,152 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.jfr.FlightRecorderSupport;
+import com.altamiracorp.bigtable.model.jfr.ScanEvent;
+import com.altamiracorp.bigtable.model.metrics.DefaultMetricsRegistry;
+import com.altamiracorp.bigtable.model.metrics.MetricsRegistry;
+import com.altamiracorp.bigtable.model.metrics.SlowQueryLog;
+import com.altamiracorp.bigtable.model.metrics.SlowQueryRecord;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.security.Authorizations;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloSessionMetricsTest {
+    private static final String INSTANCE_NAME = "AccumuloSessionMetricsTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+
+    private AccumuloSession accumuloSession;
+    private DefaultMetricsRegistry metrics;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @Before
+    public void before() throws Exception {
+        accumuloSession = MockAccumulo.createSession(MockAccumulo.connect(INSTANCE_NAME), TEST_TABLE_NAME, queryUser);
+        metrics = new DefaultMetricsRegistry();
+        accumuloSession.setMetricsRegistry(metrics);
+    }
+
+    @Test
+    public void testReadAndWriteMetrics() {
+        saveRows(3);
+
+        assertEquals(3, metrics.getLatencyHistogram(MetricsRegistry.OPERATION_SAVE, TEST_TABLE_NAME).getCount());
+        assertEquals(3, metrics.getCounter(MetricsRegistry.COUNTER_MUTATIONS_WRITTEN, TEST_TABLE_NAME));
+        assertTrue(metrics.getCounter(MetricsRegistry.COUNTER_BYTES_WRITTEN, TEST_TABLE_NAME) > 0);
+        assertEquals(3, metrics.getCounter(MetricsRegistry.COUNTER_FLUSHES, TEST_TABLE_NAME));
+
+        assertNotNull(accumuloSession.findByRowKey(TEST_TABLE_NAME, "testRowKey1", queryUser));
+        assertEquals(1, metrics.getLatencyHistogram(MetricsRegistry.OPERATION_FIND_BY_ROW_KEY, TEST_TABLE_NAME).getCount());
+
+        int count = 0;
+        for (Row row : accumuloSession.findAll(TEST_TABLE_NAME, queryUser)) {
+            count++;
+        }
+        assertEquals(3, count);
+        assertEquals(1, metrics.getLatencyHistogram(MetricsRegistry.OPERATION_SCAN, TEST_TABLE_NAME).getCount());
+        assertEquals(4, metrics.getCounter(MetricsRegistry.COUNTER_ROWS_READ, TEST_TABLE_NAME));
+        assertEquals(8, metrics.getCounter(MetricsRegistry.COUNTER_CELLS_READ, TEST_TABLE_NAME));
+        assertTrue(metrics.getCounter(MetricsRegistry.COUNTER_BYTES_READ, TEST_TABLE_NAME) > 0);
+        assertTrue(metrics.getOperationP99Millis().containsKey(TEST_TABLE_NAME + "/" + MetricsRegistry.OPERATION_SCAN));
+
+        accumuloSession.deleteRow(TEST_TABLE_NAME, new RowKey("testRowKey0"));
+        assertEquals(4, metrics.getCounter(MetricsRegistry.COUNTER_FLUSHES, TEST_TABLE_NAME));
+        assertEquals(1, metrics.getCounter(MetricsRegistry.COUNTER_WRITER_CLOSES, TEST_TABLE_NAME));
+    }
+
+    @Test
+    public void testSlowQueryLog() throws Exception {
+        saveRows(3);
+        accumuloSession.setSlowQueryLog(new SlowQueryLog(0, 10));
+
+        accumuloSession.findByRowKey(TEST_TABLE_NAME, "testRowKey1", queryUser);
+        for (Row row : accumuloSession.findByRowStartsWith(TEST_TABLE_NAME, "testRowKey", queryUser)) {
+            assertNotNull(row);
+        }
+        Iterator<Row> abandoned = accumuloSession.findByRowKeyRange(TEST_TABLE_NAME, "testRowKey0", "testRowKey1", queryUser).iterator();
+        abandoned.next();
+        assertEquals(3, accumuloSession.rowCount(TEST_TABLE_NAME, queryUser));
+
+        List<SlowQueryRecord> records = accumuloSession.getSlowQueryLog().getRecords();
+        assertEquals(4, records.size());
+        assertEquals(MetricsRegistry.OPERATION_ROW_COUNT, records.get(0).getOperation());
+        assertEquals(3, records.get(0).getRowsReturned());
+        SlowQueryRecord abandonedScan = records.get(1);
+        assertEquals(MetricsRegistry.OPERATION_SCAN, abandonedScan.getOperation());
+        assertEquals("rowKeyStart=testRowKey0, rowKeyEnd=testRowKey1", abandonedScan.getQuery());
+        assertEquals(1, abandonedScan.getRowsReturned());
+        SlowQueryRecord scan = records.get(2);
+        assertEquals(TEST_TABLE_NAME, scan.getTableName());
+        assertEquals(MetricsRegistry.OPERATION_SCAN, scan.getOperation());
+        assertEquals("rowKeyPrefix=testRowKey", scan.getQuery());
+        assertEquals(3, scan.getRowsReturned());
+        assertEquals(6, scan.getCellsScanned());
+        assertTrue(scan.getTimeToFirstRowMillis() >= 0);
+        assertTrue(scan.getCallerStack().toString(), scan.getCallerStack().get(0).startsWith(AccumuloSessionMetricsTest.class.getName()));
+        assertEquals(MetricsRegistry.OPERATION_FIND_BY_ROW_KEY, records.get(3).getOperation());
+
+        // closing the abandoned scan replaces its running record rather than adding another
+        ((Closeable) abandoned).close();
+        records = accumuloSession.getSlowQueryLog().getRecords();
+        assertEquals(4, records.size());
+        assertNotSame(abandonedScan, records.get(1));
+        assertEquals(1, records.get(1).getRowsReturned());
+    }
+
+    @Test
+    public void testFlightRecorderScanEvent() throws Exception {
+        Assume.assumeTrue(FlightRecorderSupport.isAvailable());
+        saveRows(3);
+        accumuloSession.setMetricsRegistry(null);
+
+        File file = File.createTempFile("AccumuloSessionMetricsTest", ".jfr");
+        try {
+            Recording recording = new Recording();
+            recording.enable(ScanEvent.class);
+            recording.start();
+            for (Row row : accumuloSession.findByRowStartsWith(TEST_TABLE_NAME, "testRowKey", queryUser)) {
+                assertNotNull(row);
+            }
+            recording.stop();
+            recording.dump(file.toPath());
+            recording.close();
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+            assertEquals(1, events.size());
+            assertEquals(TEST_TABLE_NAME, events.get(0).getString("tableName"));
+            assertEquals("rowKeyPrefix=testRowKey", events.get(0).getString("query"));
+            assertEquals(3, events.get(0).getLong("rows"));
+            assertEquals(6, events.get(0).getLong("cells"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private void saveRows(int count) {
+        for (int i = 0; i < count; i++) {
+            Row row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey("testRowKey" + i));
+            ColumnFamily columnFamily = new ColumnFamily("testColumnFamily");
+            columnFamily.set("testColumn1", "testValue" + i);
+            columnFamily.set("testColumn2", "testValue" + i);
+            row.addColumnFamily(columnFamily);
+            accumuloSession.save(row);
+        }
+    }
+}
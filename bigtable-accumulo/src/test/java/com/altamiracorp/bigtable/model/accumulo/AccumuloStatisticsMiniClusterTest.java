@@ -0,0 +1,89 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.stats.TableStatistics;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.ZooKeeperInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.minicluster.MiniAccumuloCluster;
+import org.apache.hadoop.io.Text;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloStatisticsMiniClusterTest {
+    private static final String TEST_TABLE_NAME = "testTable";
+    private static final String ROOT_PASSWORD = "password";
+    private static final int ROW_COUNT = 1000;
+
+    private static File dir;
+    private static MiniAccumuloCluster cluster;
+    private static Connector connector;
+
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        dir = File.createTempFile("AccumuloStatisticsMiniClusterTest", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        cluster = new MiniAccumuloCluster(dir, ROOT_PASSWORD);
+        cluster.start();
+        connector = new ZooKeeperInstance(cluster.getInstanceName(), cluster.getZooKeepers()).getConnector("root", new PasswordToken(ROOT_PASSWORD));
+    }
+
+    @AfterClass
+    public static void afterClass() throws Exception {
+        if (cluster != null) {
+            cluster.stop();
+        }
+        deleteDirectory(dir);
+    }
+
+    @Test
+    public void testRowsAreEstimatedFromFileEntries() throws Exception {
+        AccumuloSession accumuloSession = new AccumuloSession(connector, true);
+        accumuloSession.initializeTable(TEST_TABLE_NAME, queryUser);
+        connector.tableOperations().addSplits(TEST_TABLE_NAME, new TreeSet<Text>(Arrays.asList(new Text("row0499"))));
+        for (int i = 0; i < ROW_COUNT; i++) {
+            Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey(String.format("row%04d", i)));
+            row.addColumnFamily(new ColumnFamily("data").set("name", "name" + i).set("value", i));
+            accumuloSession.save(row);
+        }
+
+        // nothing is in files yet, so only the sampled rows are known
+        TableStatistics inMemory = accumuloSession.getStatistics(TEST_TABLE_NAME, queryUser);
+        assertFalse(inMemory.isExact());
+        assertEquals(2, inMemory.getTablets());
+        assertEquals(200, inMemory.getEstimatedRows());
+
+        connector.tableOperations().flush(TEST_TABLE_NAME, null, null, true);
+        TableStatistics flushed = accumuloSession.getStatistics(TEST_TABLE_NAME, queryUser);
+        assertFalse(flushed.isExact());
+        assertEquals(200, flushed.getSampledRows());
+        assertEquals(ROW_COUNT, flushed.getEstimatedRows());
+        assertEquals(ROW_COUNT * 2, flushed.getEstimatedCells());
+    }
+
+    private static void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteDirectory(file);
+            }
+        }
+        dir.delete();
+    }
+}
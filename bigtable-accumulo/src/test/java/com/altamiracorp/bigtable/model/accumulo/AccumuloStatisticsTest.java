@@ -0,0 +1,152 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.MockSession;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.stats.TableStatistics;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.io.Text;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloStatisticsTest {
+    private static final String INSTANCE_NAME = "AccumuloStatisticsTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+    private static final int ROW_COUNT = 1000;
+
+    private AccumuloSession accumuloSession;
+    private MockSession mockSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations());
+
+    @Before
+    public void before() throws Exception {
+        Connector connector = MockAccumulo.connect(INSTANCE_NAME);
+        accumuloSession = MockAccumulo.createSession(connector, TEST_TABLE_NAME, queryUser);
+        connector.tableOperations().addSplits(TEST_TABLE_NAME,
+                new TreeSet<Text>(Arrays.asList(new Text("row0249"), new Text("row0499"), new Text("row0749"))));
+        mockSession = new MockSession();
+        mockSession.initializeTable(TEST_TABLE_NAME, queryUser);
+
+        for (int i = 0; i < ROW_COUNT; i++) {
+            Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey(String.format("row%04d", i)));
+            row.addColumnFamily(new ColumnFamily("data").set("name", "name" + i).set("value", i));
+            accumuloSession.save(row);
+            mockSession.save(row);
+        }
+    }
+
+    @Test
+    public void testSmallRangeIsExact() {
+        TableStatistics statistics = accumuloSession.getStatistics(TEST_TABLE_NAME, "row0100", "row0150", queryUser);
+        assertTrue(statistics.isExact());
+        assertEquals(1, statistics.getTablets());
+        assertEquals(51, statistics.getEstimatedRows());
+        assertEquals(51 * 2, statistics.getEstimatedCells());
+        assertTrue(statistics.getEstimatedBytes() > 0);
+
+        TableStatistics spanning = accumuloSession.getStatistics(TEST_TABLE_NAME, "row0200", "row0300", queryUser);
+        assertTrue(spanning.isExact());
+        assertEquals(2, spanning.getTablets());
+        assertEquals(101, spanning.getEstimatedRows());
+
+        TableStatistics mockStatistics = mockSession.getStatistics(TEST_TABLE_NAME, queryUser);
+        assertTrue(mockStatistics.isExact());
+        assertEquals(ROW_COUNT, mockStatistics.getEstimatedRows());
+        assertEquals(ROW_COUNT * 2, mockStatistics.getEstimatedCells());
+    }
+
+    @Test
+    public void testLargeTableIsEstimatedFromSamples() {
+        TableStatistics statistics = accumuloSession.getStatistics(TEST_TABLE_NAME, queryUser);
+        assertFalse(statistics.isExact());
+        assertEquals(4, statistics.getTablets());
+        assertEquals(400, statistics.getSampledRows());
+        assertTrue(statistics.getEstimatedRows() >= 400 && statistics.getEstimatedRows() <= ROW_COUNT);
+        assertEquals(statistics.getEstimatedRows() * 2, statistics.getEstimatedCells());
+    }
+
+    @Test
+    public void testSampleSpreadsAcrossTablets() {
+        List<String> sample = rowKeys(accumuloSession.sample(TEST_TABLE_NAME, null, null, 200, queryUser));
+        assertEquals(200, sample.size());
+        assertEquals(200, new TreeSet<String>(sample).size());
+        assertSorted(sample);
+        // rows are picked from all of each tablet, not only from its first rows
+        int pastTheFirstRows = 0;
+        for (String rowKey : sample) {
+            if (Integer.parseInt(rowKey.substring(3)) % 250 >= 100) {
+                pastTheFirstRows++;
+            }
+        }
+        assertTrue("rows past the first 100 of their tablet: " + pastTheFirstRows, pastTheFirstRows > 60);
+
+        List<String> rangeSample = rowKeys(accumuloSession.sample(TEST_TABLE_NAME, "row0500", "row0600", 3, queryUser));
+        assertEquals(3, rangeSample.size());
+        assertSorted(rangeSample);
+        for (String rowKey : rangeSample) {
+            assertTrue(rowKey, rowKey.compareTo("row0500") >= 0 && rowKey.compareTo("row0600") <= 0);
+        }
+        assertEquals(0, accumuloSession.sample(TEST_TABLE_NAME, null, null, 0, queryUser).size());
+
+        List<String> mockSample = rowKeys(mockSession.sample(TEST_TABLE_NAME, null, null, 8, queryUser));
+        assertEquals(8, mockSample.size());
+        assertSorted(mockSample);
+    }
+
+    @Test
+    public void testSampleReadsAtMostTheCapOfEachTablet() {
+        List<String> sample = rowKeys(accumuloSession.sample(TEST_TABLE_NAME, null, null, 200, 20, queryUser));
+        assertEquals(4 * 20, sample.size());
+        assertSorted(sample);
+        // the inner tablets are read from a random row, so not only their first rows are picked
+        int pastTheFirstRows = 0;
+        for (String rowKey : sample) {
+            int row = Integer.parseInt(rowKey.substring(3));
+            if (row >= 250 && row < 750 && row % 250 >= 20) {
+                pastTheFirstRows++;
+            }
+        }
+        assertTrue("rows past the first 20 of the inner tablets: " + pastTheFirstRows, pastTheFirstRows > 0);
+    }
+
+    @Test
+    public void testRandomRowBetween() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            String row = AccumuloSession.randomRowBetween(new Text("row0250"), new Text("row0499"), random).toString();
+            assertTrue(row, row.compareTo("row0250") >= 0 && row.compareTo("row0499") < 0);
+        }
+        assertEquals("abc", AccumuloSession.randomRowBetween(new Text("abc"), new Text("abc"), random).toString());
+        String shortRow = AccumuloSession.randomRowBetween(new Text("a"), new Text("b\u0000\u0001"), random).toString();
+        assertTrue(shortRow, shortRow.compareTo("a") >= 0 && shortRow.compareTo("b\u0000\u0001") < 0);
+    }
+
+    private static void assertSorted(List<String> rowKeys) {
+        List<String> sorted = new ArrayList<String>(rowKeys);
+        Collections.sort(sorted);
+        assertEquals(sorted, rowKeys);
+    }
+
+    private static List<String> rowKeys(List<Row> rows) {
+        List<String> results = new ArrayList<String>();
+        for (Row row : rows) {
+            results.add(row.getRowKey().toString());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,141 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.Column;
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.PrefetchingIterable;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.metrics.DefaultMetricsRegistry;
+import com.altamiracorp.bigtable.model.metrics.MetricsRegistry;
+import com.altamiracorp.bigtable.model.metrics.SlowQueryLog;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.ScannerBase;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AccumuloWholeRowScanTest {
+    private static final String INSTANCE_NAME = "AccumuloWholeRowScanTest";
+    private static final String TEST_TABLE_NAME = "testTable";
+
+    private Connector connector;
+    private AccumuloSession accumuloSession;
+    private AccumuloUserContext queryUser = new AccumuloUserContext(new Authorizations("a"));
+
+    @Before
+    public void before() throws Exception {
+        connector = MockAccumulo.connect(INSTANCE_NAME, "a", "b");
+        accumuloSession = MockAccumulo.createSession(connector, TEST_TABLE_NAME, queryUser);
+
+        for (int i = 0; i < 5; i++) {
+            Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey("row" + i));
+            ColumnFamily data = new ColumnFamily("data");
+            for (int column = 0; column < 20; column++) {
+                data.set("column" + column, "value" + i + "_" + column, column % 4 == 0 ? "b" : "a");
+            }
+            row.addColumnFamily(data);
+            row.addColumnFamily(new ColumnFamily("other").set("name", "row" + i));
+            accumuloSession.save(row);
+        }
+        accumuloSession.deleteRow(TEST_TABLE_NAME, new RowKey("row3"));
+    }
+
+    @Test
+    public void testWholeRowScansReturnTheSameRows() {
+        List<Map<String, String>> expectedAll = toCells(accumuloSession.findAll(TEST_TABLE_NAME, queryUser));
+        List<Map<String, String>> expectedRange = toCells(accumuloSession.findByRowKeyRange(TEST_TABLE_NAME, "row1", "row2", queryUser));
+        Row expectedRow = accumuloSession.findByRowKey(TEST_TABLE_NAME, "row4", queryUser);
+        List<Map<String, String>> expectedRegex = toCells(accumuloSession.findByRowKeyRegex(TEST_TABLE_NAME, "row(0|4)", queryUser));
+        assertEquals(4, expectedAll.size());
+        assertEquals(Arrays.asList(expectedAll.get(0), expectedAll.get(3)), expectedRegex);
+        assertEquals(16, expectedAll.get(0).size() - 1);
+
+        accumuloSession.setWholeRowScans(true);
+        DefaultMetricsRegistry metrics = new DefaultMetricsRegistry();
+        accumuloSession.setMetricsRegistry(metrics);
+
+        assertEquals(expectedAll, toCells(accumuloSession.findAll(TEST_TABLE_NAME, queryUser)));
+        assertEquals(expectedRange, toCells(accumuloSession.findByRowKeyRange(TEST_TABLE_NAME, "row1", "row2", queryUser)));
+        assertEquals(toCells(expectedRow), toCells(accumuloSession.findByRowKey(TEST_TABLE_NAME, "row4", queryUser)));
+        assertNull(accumuloSession.findByRowKey(TEST_TABLE_NAME, "row3", queryUser));
+        assertEquals(expectedRegex, toCells(accumuloSession.findByRowKeyRegex(TEST_TABLE_NAME, "row(0|4)", queryUser)));
+
+        assertEquals(4 + 2 + 1 + 2, metrics.getCounter(MetricsRegistry.COUNTER_ROWS_READ, TEST_TABLE_NAME));
+        assertEquals((4 + 2 + 1 + 2) * 16, metrics.getCounter(MetricsRegistry.COUNTER_CELLS_READ, TEST_TABLE_NAME));
+    }
+
+    @Test
+    public void testClosingTheIteratorClosesTheBatchScanner() throws Exception {
+        final AtomicInteger closes = new AtomicInteger();
+        final BatchScanner batchScanner = connector.createBatchScanner(TEST_TABLE_NAME, new Authorizations("a"), 2);
+        batchScanner.setRanges(Arrays.asList(new Range()));
+        WholeRowIterable.addWholeRowIterator(batchScanner);
+        WholeRowIterable rows = new WholeRowIterable(new ScanMonitor(TEST_TABLE_NAME, MetricsRegistry.OPERATION_SCAN, "all", null, new DefaultMetricsRegistry(), new SlowQueryLog(-1, 0)), null) {
+            @Override
+            protected ScannerBase createScanner() {
+                return (BatchScanner) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{BatchScanner.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().equals("close")) {
+                            closes.incrementAndGet();
+                        }
+                        return method.invoke(batchScanner, args);
+                    }
+                });
+            }
+        };
+
+        WholeRowIterable.ScannerRowIterator iterator = rows.iterator();
+        assertNotNull(iterator.next());
+        iterator.close();
+        iterator.close();
+        assertFalse(iterator.hasNext());
+        assertEquals(1, closes.get());
+
+        PrefetchingIterable.PrefetchingIterator<Row> prefetchingIterator = new PrefetchingIterable<Row>(rows, 1).iterator();
+        assertNotNull(prefetchingIterator.next());
+        prefetchingIterator.close();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (closes.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, closes.get());
+    }
+
+    private static List<Map<String, String>> toCells(Iterable<Row> rows) {
+        List<Map<String, String>> results = new ArrayList<Map<String, String>>();
+        for (Row row : rows) {
+            results.add(toCells(row));
+        }
+        return results;
+    }
+
+    private static Map<String, String> toCells(Row<?> row) {
+        Map<String, String> cells = new HashMap<String, String>();
+        cells.put("rowKey", row.getRowKey().toString());
+        for (ColumnFamily columnFamily : row.getColumnFamilies()) {
+            for (Column column : columnFamily.getColumns()) {
+                cells.put(columnFamily.getColumnFamilyName() + ":" + column.getName() + "[" + column.getVisibility() + "]", column.getValue().toString());
+            }
+        }
+        return cells;
+    }
+}
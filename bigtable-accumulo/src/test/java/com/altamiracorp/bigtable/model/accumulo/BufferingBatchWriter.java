@@ -0,0 +1,46 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.data.Mutation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds mutations until it is flushed or closed, as a real batch writer may, unlike the mock instance's writers
+ * which write them at once
+ */
+class BufferingBatchWriter implements BatchWriter {
+    private final BatchWriter writer;
+    private final List<Mutation> mutations = new ArrayList<Mutation>();
+
+    BufferingBatchWriter(BatchWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public synchronized void addMutation(Mutation mutation) throws MutationsRejectedException {
+        mutations.add(mutation);
+    }
+
+    @Override
+    public synchronized void addMutations(Iterable<Mutation> iterable) throws MutationsRejectedException {
+        for (Mutation mutation : iterable) {
+            mutations.add(mutation);
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws MutationsRejectedException {
+        writer.addMutations(mutations);
+        mutations.clear();
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws MutationsRejectedException {
+        flush();
+        writer.close();
+    }
+}
@@ -0,0 +1,56 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.user.ModelUserContext;
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.TableExistsException;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.security.Authorizations;
+
+/**
+ * The MockInstance fixture shared by the tests. Each test class uses an instance of its own name, so tables do not
+ * leak between classes, and recreates its tables before each test.
+ */
+final class MockAccumulo {
+    private MockAccumulo() {
+    }
+
+    /**
+     * Connects as root, granting the authorizations given
+     */
+    static Connector connect(String instanceName, String... authorizations) throws AccumuloException, AccumuloSecurityException {
+        Connector connector = new MockInstance(instanceName).getConnector("root", new PasswordToken(""));
+        if (authorizations.length > 0) {
+            connector.securityOperations().changeUserAuthorizations("root", new Authorizations(authorizations));
+        }
+        return connector;
+    }
+
+    /**
+     * Creates a session with an empty table
+     */
+    static AccumuloSession createSession(Connector connector, String tableName, ModelUserContext user) {
+        AccumuloSession session = new AccumuloSession(connector, true);
+        recreateTable(session, tableName, user);
+        return session;
+    }
+
+    static void recreateTable(ModelSession session, String tableName, ModelUserContext user) {
+        session.deleteTable(tableName, user);
+        session.initializeTable(tableName, user);
+    }
+
+    /**
+     * Recreates a table without going through a session, for tests of the MapReduce formats
+     */
+    static void recreateTable(Connector connector, String tableName) throws AccumuloException, AccumuloSecurityException, TableNotFoundException, TableExistsException {
+        if (connector.tableOperations().exists(tableName)) {
+            connector.tableOperations().delete(tableName);
+        }
+        connector.tableOperations().create(tableName);
+    }
+}
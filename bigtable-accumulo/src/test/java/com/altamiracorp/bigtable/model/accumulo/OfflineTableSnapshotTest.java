@@ -0,0 +1,157 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.user.accumulo.AccumuloUserContext;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.ClientConfiguration;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.ZooKeeperInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.minicluster.MiniAccumuloCluster;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class OfflineTableSnapshotTest {
+    private static final String TEST_TABLE_NAME = "testTable";
+    private static final String ROOT_PASSWORD = "password";
+
+    private static File dir;
+    private static MiniAccumuloCluster cluster;
+    private static Connector connector;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        dir = File.createTempFile("OfflineTableSnapshotTest", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        cluster = new MiniAccumuloCluster(dir, ROOT_PASSWORD);
+        cluster.start();
+        connector = new ZooKeeperInstance(cluster.getInstanceName(), cluster.getZooKeepers()).getConnector("root", new PasswordToken(ROOT_PASSWORD));
+    }
+
+    @AfterClass
+    public static void afterClass() throws Exception {
+        if (cluster != null) {
+            cluster.stop();
+        }
+        deleteDirectory(dir);
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        connector.tableOperations().create(TEST_TABLE_NAME);
+        writeRows(1, 3);
+
+        Job job = Job.getInstance();
+        OfflineTableSnapshot snapshot = AccumuloBaseInputFormatTest.TestInputFormat.setOfflineSnapshot(job, connector, TEST_TABLE_NAME);
+        try {
+            assertEquals(TEST_TABLE_NAME, snapshot.getTableName());
+            assertTrue(connector.tableOperations().exists(snapshot.getSnapshotTableName()));
+
+            // writes after the snapshot was taken are not part of it
+            writeRows(4, 5);
+
+            AccumuloBaseInputFormatTest.TestInputFormat.setZooKeeperInstance(job, new ClientConfiguration()
+                    .withInstance(cluster.getInstanceName())
+                    .withZkHosts(cluster.getZooKeepers()));
+            AccumuloBaseInputFormatTest.TestInputFormat.setConnectorInfo(job, "root", new PasswordToken(ROOT_PASSWORD));
+            AccumuloBaseInputFormatTest.TestInputFormat.setScanAuthorizations(job, new Authorizations());
+            // getSplits rejects offline scans of tables that are online, so this also checks the clone is offline
+            assertEquals(3, readRowKeys(job).size());
+        } finally {
+            snapshot.close();
+        }
+
+        assertFalse(connector.tableOperations().exists(snapshot.getSnapshotTableName()));
+        assertTrue(connector.tableOperations().exists(TEST_TABLE_NAME));
+        assertEquals(5, count(new AccumuloSession(connector, true).findAll(TEST_TABLE_NAME, new AccumuloUserContext(new Authorizations()))));
+    }
+
+    @Test
+    public void testSnapshotIsDeletedWhenTheJobCommits() throws Exception {
+        String tableName = TEST_TABLE_NAME + "Committed";
+        connector.tableOperations().create(tableName);
+
+        Job job = Job.getInstance();
+        OfflineTableSnapshot snapshot = AccumuloBaseInputFormatTest.TestInputFormat.setOfflineSnapshot(job, connector, tableName);
+        AccumuloBaseInputFormatTest.TestInputFormat.setZooKeeperInstance(job, new ClientConfiguration()
+                .withInstance(cluster.getInstanceName())
+                .withZkHosts(cluster.getZooKeepers()));
+        AccumuloBaseInputFormatTest.TestInputFormat.setConnectorInfo(job, "root", new PasswordToken(ROOT_PASSWORD));
+        assertTrue(connector.tableOperations().exists(snapshot.getSnapshotTableName()));
+
+        TaskAttemptContext context = new TaskAttemptContextImpl(job.getConfiguration(), new TaskAttemptID());
+        OutputCommitter committer = new AccumuloModelOutputFormat().getOutputCommitter(context);
+        committer.setupJob(job);
+        committer.commitJob(job);
+
+        assertFalse(connector.tableOperations().exists(snapshot.getSnapshotTableName()));
+        assertTrue(connector.tableOperations().exists(tableName));
+        // closing after the committer deleted the snapshot is fine
+        snapshot.close();
+    }
+
+    private static void writeRows(int first, int last) throws Exception {
+        BatchWriter writer = connector.createBatchWriter(TEST_TABLE_NAME, new BatchWriterConfig());
+        for (int i = first; i <= last; i++) {
+            Mutation mutation = new Mutation("testRowKey" + i);
+            mutation.put("testColumnFamily1", "testColumn1", "testValue" + i);
+            writer.addMutation(mutation);
+        }
+        writer.close();
+    }
+
+    private static List<String> readRowKeys(Job job) throws Exception {
+        AccumuloBaseInputFormatTest.TestInputFormat inputFormat = new AccumuloBaseInputFormatTest.TestInputFormat();
+        List<String> rowKeys = new ArrayList<String>();
+        for (InputSplit split : inputFormat.getSplits(job)) {
+            TaskAttemptContext context = new TaskAttemptContextImpl(job.getConfiguration(), new TaskAttemptID(), new AccumuloBaseInputFormatTest.CountersReporter(new Counters()));
+            RecordReader<Text, Row> reader = inputFormat.createRecordReader(split, context);
+            reader.initialize(split, context);
+            while (reader.nextKeyValue()) {
+                rowKeys.add(reader.getCurrentKey().toString());
+            }
+            reader.close();
+        }
+        return rowKeys;
+    }
+
+    private static int count(Iterable<Row> rows) {
+        int count = 0;
+        for (Row row : rows) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteDirectory(file);
+            }
+        }
+        dir.delete();
+    }
+}
@@ -0,0 +1,133 @@
+package com.altamiracorp.bigtable.model.accumulo;
+
+import com.altamiracorp.bigtable.model.Column;
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.compression.CompressionCodec;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class RowWritableTest {
+    @Test
+    public void testRoundTrip() throws Exception {
+        Row<RowKey> row = new Row<RowKey>("testTable", new RowKey("testRowKey"));
+        ColumnFamily columnFamily1 = new ColumnFamily("testColumnFamily1");
+        columnFamily1.set("testColumn1", "testValue1", "A&B");
+        columnFamily1.set("testColumn2", 42L, "A&B");
+        Column deletedColumn = new Column("testColumn3", "");
+        deletedColumn.setDelete(true);
+        columnFamily1.addColumn(deletedColumn);
+        row.addColumnFamily(columnFamily1);
+        ColumnFamily columnFamily2 = new ColumnFamily("testColumnFamily2");
+        columnFamily2.set("testColumn1", "testValue2");
+        row.addColumnFamily(columnFamily2);
+        columnFamily2.setDirtyBit(false);
+
+        RowWritable result = new RowWritable();
+        result.readFields(toInput(new RowWritable(row)));
+        Row resultRow = result.getRow();
+
+        assertEquals("testTable", resultRow.getTableName());
+        assertEquals("testRowKey", resultRow.getRowKey().toString());
+        assertEquals(2, resultRow.getColumnFamilies().size());
+        ColumnFamily resultColumnFamily1 = resultRow.get("testColumnFamily1");
+        assertEquals("testValue1", resultColumnFamily1.get("testColumn1").toString());
+        assertEquals(42L, resultColumnFamily1.get("testColumn2").toLong().longValue());
+        assertEquals("A&B", resultColumnFamily1.getColumn("testColumn2").getVisibility());
+        assertTrue(resultColumnFamily1.getColumn("testColumn1").isDirty());
+        assertTrue(resultColumnFamily1.getColumn("testColumn3").isDelete());
+        assertNull(resultColumnFamily1.getColumn("testColumn3").getVisibility());
+        Column resultColumn = ((ColumnFamily) resultRow.get("testColumnFamily2")).getColumn("testColumn1");
+        assertEquals("testValue2", resultColumn.getValue().toString());
+        assertFalse(resultColumn.isDirty());
+    }
+
+    @Test
+    public void testColumnsWithoutValueRoundTrip() throws Exception {
+        Row<RowKey> row = new Row<RowKey>("testTable", new RowKey("testRowKey"));
+        ColumnFamily columnFamily = new ColumnFamily("testColumnFamily1");
+        Column deletedColumn = new Column("deleted", null, "A");
+        deletedColumn.setDelete(true);
+        columnFamily.addColumn(deletedColumn);
+        columnFamily.set("empty", "");
+        row.addColumnFamily(columnFamily);
+
+        RowWritable result = new RowWritable();
+        result.readFields(toInput(new RowWritable(row)));
+        ColumnFamily resultColumnFamily = result.getRow().get("testColumnFamily1");
+        Column resultDeletedColumn = resultColumnFamily.getColumn("deleted");
+        assertNull(resultDeletedColumn.getValue());
+        assertTrue(resultDeletedColumn.isDelete());
+        assertEquals("A", resultDeletedColumn.getVisibility());
+        assertEquals("", resultColumnFamily.get("empty").toString());
+    }
+
+    @Test
+    public void testCompressedValuesRoundTrip() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            text.append("repetitive text ");
+        }
+        byte[] headerBytes = CompressionCodec.FAST.compress("not compressed by the session".getBytes());
+        Row<RowKey> row = new Row<RowKey>("testTable", new RowKey("testRowKey"));
+        ColumnFamily columnFamily = new ColumnFamily("testColumnFamily1");
+        columnFamily.set("compressed", text.toString());
+        columnFamily.set("raw", headerBytes);
+        row.addColumnFamily(columnFamily);
+        assertTrue(columnFamily.get("compressed").compress(CompressionCodec.FAST));
+
+        RowWritable result = new RowWritable();
+        result.readFields(toInput(new RowWritable(row)));
+        ColumnFamily resultColumnFamily = result.getRow().get("testColumnFamily1");
+        assertTrue(resultColumnFamily.get("compressed").isCompressed());
+        assertEquals(text.toString(), resultColumnFamily.get("compressed").toString());
+        assertFalse(resultColumnFamily.get("raw").isCompressed());
+        assertArrayEquals(headerBytes, resultColumnFamily.get("raw").toBytes());
+    }
+
+    @Test
+    public void testRowKeyRawComparator() throws Exception {
+        WritableComparator comparator = WritableComparator.get(RowKeyWritable.class);
+        String[] rowKeys = {"", "a", "ab", "b", "\u00e9", "\uffee", "\ud83d\ude00"};
+        for (int i = 0; i < rowKeys.length; i++) {
+            for (int j = 0; j < rowKeys.length; j++) {
+                RowKeyWritable key1 = new RowKeyWritable(rowKeys[i]);
+                RowKeyWritable key2 = new RowKeyWritable(rowKeys[j]);
+                DataOutputBuffer out1 = toOutput(key1);
+                DataOutputBuffer out2 = toOutput(key2);
+                int rawResult = comparator.compare(out1.getData(), 0, out1.getLength(), out2.getData(), 0, out2.getLength());
+                assertEquals(Integer.signum(i - j), Integer.signum(rawResult));
+                assertEquals(Integer.signum(i - j), Integer.signum(key1.compareTo(key2)));
+            }
+        }
+
+        RowKeyWritable result = new RowKeyWritable();
+        DataOutputBuffer out = toOutput(new RowKeyWritable(new RowKey("testRowKey")));
+        DataInputBuffer in = new DataInputBuffer();
+        in.reset(out.getData(), out.getLength());
+        result.readFields(in);
+        assertEquals("testRowKey", result.getRowKey().toString());
+    }
+
+    private static DataInputBuffer toInput(Writable writable) throws Exception {
+        DataOutputBuffer out = toOutput(writable);
+        DataInputBuffer in = new DataInputBuffer();
+        in.reset(out.getData(), out.getLength());
+        return in;
+    }
+
+    private static DataOutputBuffer toOutput(Writable writable) throws Exception {
+        DataOutputBuffer out = new DataOutputBuffer();
+        writable.write(out);
+        return out;
+    }
+}
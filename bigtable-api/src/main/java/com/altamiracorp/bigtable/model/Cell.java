@@ -0,0 +1,69 @@
+package com.altamiracorp.bigtable.model;
+
+import java.util.Comparator;
+
+/**
+ * One column of a row together with the name of its column family, as streamed by
+ * {@link ModelSession#scanColumns}
+ */
+public class Cell {
+    /**
+     * Sorts cells the way a row stores them, by column family, column name and visibility
+     */
+    public static final Comparator<Cell> KEY_ORDER = new Comparator<Cell>() {
+        @Override
+        public int compare(Cell cell1, Cell cell2) {
+            return compareKeys(cell1.getColumnFamilyName(), cell1.getColumnName(), cell1.getVisibility(),
+                    cell2.getColumnFamilyName(), cell2.getColumnName(), cell2.getVisibility());
+        }
+    };
+
+    private final String columnFamilyName;
+    private final Column column;
+
+    public Cell(String columnFamilyName, Column column) {
+        this.columnFamilyName = columnFamilyName;
+        this.column = column;
+    }
+
+    public String getColumnFamilyName() {
+        return columnFamilyName;
+    }
+
+    public Column getColumn() {
+        return column;
+    }
+
+    public String getColumnName() {
+        return column.getName();
+    }
+
+    public Value getValue() {
+        return column.getValue();
+    }
+
+    public String getVisibility() {
+        return column.getVisibility();
+    }
+
+    static int compareKeys(String columnFamilyName1, String columnName1, String visibility1,
+                           String columnFamilyName2, String columnName2, String visibility2) {
+        int result = columnFamilyName1.compareTo(columnFamilyName2);
+        if (result == 0) {
+            result = columnName1.compareTo(columnName2);
+        }
+        if (result == 0) {
+            result = nullToEmpty(visibility1).compareTo(nullToEmpty(visibility2));
+        }
+        return result;
+    }
+
+    static String nullToEmpty(String visibility) {
+        return visibility == null ? "" : visibility;
+    }
+
+    @Override
+    public String toString() {
+        return columnFamilyName + ":" + column.getName() + " = " + column.getValue();
+    }
+}
@@ -7,14 +7,19 @@ public class Column {
     private boolean dirty;
     private boolean delete;
 
+    /**
+     * @param value the value, or null for a column that is only deleted
+     */
     public Column(String name, Object value) {
-        this.name = name;
-        this.value = new Value(value);
+        this(name, value, null);
     }
 
+    /**
+     * @param value the value, or null for a column that is only deleted
+     */
     public Column(String name, Object value, String visibility) {
         this.name = name;
-        this.value = new Value(value);
+        this.value = value == null ? null : new Value(value);
         this.visibility = visibility;
     }
 
@@ -0,0 +1,95 @@
+package com.altamiracorp.bigtable.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the columns of one row selected by a {@link ColumnScan}, reading them from the session as they are
+ * needed so that rows with millions of columns can be read in bounded memory. Close the cursor when done
+ * reading, since callers usually stop before the cells run out.
+ */
+public class ColumnCursor implements Iterator<Cell>, Closeable {
+    private final Iterator<Cell> cells;
+    private final ColumnScan scan;
+    private Cell next;
+    private Cell last;
+    private long skipped;
+    private int returned;
+
+    /**
+     * @param cells the cells after the resume position of the scan, in {@link Cell#KEY_ORDER}; closed with the
+     *              cursor if it is {@link Closeable}
+     * @param scan
+     */
+    public ColumnCursor(Iterator<Cell> cells, ColumnScan scan) {
+        this.cells = cells;
+        this.scan = scan;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (returned >= scan.getLimit()) {
+            return false;
+        }
+        while (cells.hasNext()) {
+            Cell cell = cells.next();
+            if (!scan.matches(cell.getColumnFamilyName(), cell.getColumnName())) {
+                continue;
+            }
+            if (skipped < scan.getOffset()) {
+                skipped++;
+                continue;
+            }
+            next = cell;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Cell next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        last = next;
+        next = null;
+        returned++;
+        return last;
+    }
+
+    /**
+     * @return a token for {@link ColumnScan#setResumeToken} that continues after the last column returned
+     */
+    public String getResumeToken() {
+        if (last == null) {
+            return scan.getResumeToken();
+        }
+        return ColumnScan.createResumeToken(last);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Releases the scan reading the cells
+     */
+    @Override
+    public void close() {
+        next = null;
+        if (!(cells instanceof Closeable)) {
+            return;
+        }
+        try {
+            ((Closeable) cells).close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.altamiracorp.bigtable.model;
+
+import com.altamiracorp.bigtable.model.key.CompositeRowKey;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Selects the columns of one row streamed by {@link ModelSession#scanColumns}. Columns can be restricted to some
+ * column families and to a range of column names, and paged with an offset and limit or, for rows too wide to skip
+ * through, by resuming after the last column of the previous page.
+ * <pre>
+ * ColumnScan scan = new ColumnScan().addColumnFamily("edges").setLimit(1000);
+ * ColumnCursor cursor = session.scanColumns(tableName, rowKey, scan, user);
+ * try {
+ *     while (cursor.hasNext()) {
+ *         Cell cell = cursor.next();
+ *     }
+ *     scan.setResumeToken(cursor.getResumeToken());
+ * } finally {
+ *     cursor.close();
+ * }
+ * </pre>
+ */
+public class ColumnScan {
+    private final Set<String> columnFamilyNames = new TreeSet<String>();
+    private String columnNameStart;
+    private String columnNameEnd;
+    private long offset;
+    private int limit = Integer.MAX_VALUE;
+    private String resumeToken;
+    private CompositeRowKey resumePosition;
+
+    /**
+     * Restricts the scan to a column family. Without any column family every column family is scanned.
+     */
+    public ColumnScan addColumnFamily(String columnFamilyName) {
+        columnFamilyNames.add(columnFamilyName);
+        return this;
+    }
+
+    /**
+     * Restricts the scan to the column names between start inclusive and end exclusive, in every column family
+     *
+     * @param start null for no lower bound
+     * @param end   null for no upper bound
+     */
+    public ColumnScan setColumnNameRange(String start, String end) {
+        this.columnNameStart = start;
+        this.columnNameEnd = end;
+        return this;
+    }
+
+    /**
+     * Skips this many matching columns. The skipped columns are still read, so prefer a resume token for deep pages.
+     */
+    public ColumnScan setOffset(long offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    public ColumnScan setLimit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Starts the scan after the column a previous cursor stopped at
+     *
+     * @param resumeToken from {@link ColumnCursor#getResumeToken()}, or null to start at the first column
+     */
+    public ColumnScan setResumeToken(String resumeToken) {
+        this.resumeToken = resumeToken;
+        this.resumePosition = resumeToken == null ? null : CompositeRowKey.parse(resumeToken);
+        if (resumePosition != null && resumePosition.size() != 3) {
+            throw new IllegalArgumentException("Invalid resume token: " + resumeToken);
+        }
+        return this;
+    }
+
+    public Set<String> getColumnFamilyNames() {
+        return Collections.unmodifiableSet(columnFamilyNames);
+    }
+
+    public String getColumnNameStart() {
+        return columnNameStart;
+    }
+
+    public String getColumnNameEnd() {
+        return columnNameEnd;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public String getResumeToken() {
+        return resumeToken;
+    }
+
+    public String getResumeColumnFamilyName() {
+        return resumePosition == null ? null : resumePosition.getString(0);
+    }
+
+    public String getResumeColumnName() {
+        return resumePosition == null ? null : resumePosition.getString(1);
+    }
+
+    public String getResumeVisibility() {
+        return resumePosition == null ? null : resumePosition.getString(2);
+    }
+
+    /**
+     * @return true if the column is in the column families and column name range of the scan
+     */
+    public boolean matches(String columnFamilyName, String columnName) {
+        if (!columnFamilyNames.isEmpty() && !columnFamilyNames.contains(columnFamilyName)) {
+            return false;
+        }
+        if (columnNameStart != null && columnName.compareTo(columnNameStart) < 0) {
+            return false;
+        }
+        return columnNameEnd == null || columnName.compareTo(columnNameEnd) < 0;
+    }
+
+    /**
+     * @return true if the column sorts after the resume position, or there is none
+     */
+    public boolean isAfterResumePosition(String columnFamilyName, String columnName, String visibility) {
+        if (resumePosition == null) {
+            return true;
+        }
+        return Cell.compareKeys(columnFamilyName, columnName, visibility,
+                getResumeColumnFamilyName(), getResumeColumnName(), getResumeVisibility()) > 0;
+    }
+
+    public static String createResumeToken(Cell cell) {
+        return CompositeRowKey.builder()
+                .add(cell.getColumnFamilyName())
+                .add(cell.getColumnName())
+                .add(Cell.nullToEmpty(cell.getVisibility()))
+                .build()
+                .toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.altamiracorp.bigtable.model;
+
+/**
+ * An amount to add to a counter column
+ *
+ * @see ModelSession#incrementMany(String, java.util.Collection)
+ */
+public class CounterIncrement {
+    private final String rowKey;
+    private final String columnFamilyName;
+    private final String columnName;
+    private final long delta;
+
+    public CounterIncrement(String rowKey, String columnFamilyName, String columnName, long delta) {
+        this.rowKey = rowKey;
+        this.columnFamilyName = columnFamilyName;
+        this.columnName = columnName;
+        this.delta = delta;
+    }
+
+    public String getRowKey() {
+        return rowKey;
+    }
+
+    public String getColumnFamilyName() {
+        return columnFamilyName;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public long getDelta() {
+        return delta;
+    }
+
+    @Override
+    public String toString() {
+        return rowKey + ":" + columnFamilyName + ":" + columnName + "+=" + delta;
+    }
+}
@@ -1,6 +1,7 @@
 package com.altamiracorp.bigtable.model;
 
 
+import com.altamiracorp.bigtable.model.key.RowKeyRegexPlan;
 import com.altamiracorp.bigtable.model.user.ModelUserContext;
 
 import java.util.*;
@@ -19,6 +20,7 @@ public class MockSession extends ModelSession {
         if (table == null) {
             throw new NullPointerException("Could not find table with name: " + row.getTableName());
         }
+        updateIndexes(row, flushFlag);
         table.add(row);
     }
 
@@ -29,6 +31,49 @@ public class MockSession extends ModelSession {
         }
     }
 
+    /**
+     * Adds to the counters of the stored rows in place, since saving a row adds another copy of it
+     */
+    @Override
+    public synchronized void incrementMany(String tableName, Collection<CounterIncrement> increments) {
+        for (CounterIncrement increment : increments) {
+            checkCounterFamily(tableName, increment.getColumnFamilyName());
+            Row<?> row = findByRowKey(tableName, increment.getRowKey(), null);
+            if (row == null) {
+                row = new Row<RowKey>(tableName, new RowKey(increment.getRowKey()));
+                save(row);
+            }
+            ColumnFamily columnFamily = row.get(increment.getColumnFamilyName());
+            if (columnFamily == null) {
+                columnFamily = new ColumnFamily(increment.getColumnFamilyName());
+                row.addColumnFamily(columnFamily);
+            }
+            Value current = columnFamily.get(increment.getColumnName());
+            columnFamily.set(increment.getColumnName(), increment.getDelta() + (current == null ? 0 : current.toLong()));
+        }
+    }
+
+    /**
+     * Advances the sequence of the stored row in place, like {@link #incrementMany}
+     */
+    @Override
+    public synchronized long allocateIds(String tableName, String rowKey, String columnFamilyName, String columnName, long count) {
+        Row<?> row = findByRowKey(tableName, rowKey, null);
+        if (row == null) {
+            row = new Row<RowKey>(tableName, new RowKey(rowKey));
+            save(row);
+        }
+        ColumnFamily columnFamily = row.get(columnFamilyName);
+        if (columnFamily == null) {
+            columnFamily = new ColumnFamily(columnFamilyName);
+            row.addColumnFamily(columnFamily);
+        }
+        Value current = columnFamily.get(columnName);
+        long first = current == null ? 0 : current.toLong();
+        columnFamily.set(columnName, first + count);
+        return first;
+    }
+
     @Override
     public Iterable<Row> findByRowKeyRange(String tableName, String keyStart, String keyEnd, ModelUserContext user) {
         List<Row> rows = this.tables.get(tableName);
@@ -64,15 +109,31 @@ public class MockSession extends ModelSession {
             throw new RuntimeException("Unable to find table " + tableName + ". Did you remember to call initializeTable() in Session.initialieTables()?");
         }
 
+        RowKeyRegexPlan plan = RowKeyRegexPlan.plan(rowKeyRegex);
+        Pattern pattern = Pattern.compile(rowKeyRegex);
         List<Row> result = new ArrayList<Row>();
         for (Row row : rows) {
-            if (!Pattern.matches(rowKeyRegex, row.getRowKey().toString())) {
+            String rowKey = row.getRowKey().toString();
+            if (isInPlan(plan, rowKey) && pattern.matcher(rowKey).matches()) {
                 result.add(row);
             }
         }
+        Collections.sort(result, new RowKeyComparator());
         return result;
     }
 
+    private static boolean isInPlan(RowKeyRegexPlan plan, String rowKey) {
+        if (plan.isFullScan()) {
+            return true;
+        }
+        for (String prefix : plan.getPrefixes()) {
+            if (rowKey.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public Iterable<Row> findAll(String tableName, ModelUserContext user) {
         return this.tables.get(tableName);
@@ -108,7 +169,10 @@ public class MockSession extends ModelSession {
 
     @Override
     public void initializeTable(String tableName, ModelUserContext user) {
-        this.tables.put(tableName, new ArrayList<Row>());
+        // declaring counters or indexes initializes their tables again, which must keep the rows
+        if (!this.tables.containsKey(tableName)) {
+            this.tables.put(tableName, new ArrayList<Row>());
+        }
     }
 
     @Override
@@ -118,6 +182,7 @@ public class MockSession extends ModelSession {
 
     @Override
     public void deleteRow(String tableName, RowKey rowKey) {
+        deleteIndexEntries(tableName, rowKey);
         String rowKeyStr = rowKey.toString();
         List<Row> rows = this.tables.get(tableName);
         for (int i = 0; i < rows.size(); i++) {
@@ -130,6 +195,7 @@ public class MockSession extends ModelSession {
 
     @Override
     public void deleteColumn(Row row, String tableName, String columnFamily, String columnQualifier, String columnVisibility) {
+        deleteIndexEntries(tableName, row.getRowKey(), columnFamily, columnQualifier);
         List<ColumnFamily> columnFamilies = (List<ColumnFamily>) row.getColumnFamilies();
         for (int i = 0; i < columnFamilies.size(); i++) {
             if (columnFamilies.get(i).getColumnFamilyName().equals(columnFamily)) {
@@ -1,16 +1,183 @@
 package com.altamiracorp.bigtable.model;
 
+import com.altamiracorp.bigtable.model.bitmap.BitmapIndex;
+import com.altamiracorp.bigtable.model.bitmap.BitmapIndexes;
+import com.altamiracorp.bigtable.model.bitmap.BitmapQuery;
+import com.altamiracorp.bigtable.model.compression.CompressionPolicy;
+import com.altamiracorp.bigtable.model.index.SecondaryIndex;
+import com.altamiracorp.bigtable.model.index.SecondaryIndexes;
+import com.altamiracorp.bigtable.model.join.JoinType;
+import com.altamiracorp.bigtable.model.join.MergeJoin;
+import com.altamiracorp.bigtable.model.metrics.DefaultMetricsRegistry;
+import com.altamiracorp.bigtable.model.metrics.MetricsRegistry;
+import com.altamiracorp.bigtable.model.metrics.NoopMetricsRegistry;
+import com.altamiracorp.bigtable.model.metrics.SlowQueryLog;
+import com.altamiracorp.bigtable.model.stats.TableStatistics;
 import com.altamiracorp.bigtable.model.user.ModelUserContext;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 public abstract class ModelSession {
     protected static final String CONFIG_AUTOFLUSH = "bigtable.autoflush";
+    protected static final String CONFIG_METRICS_ENABLED = "bigtable.metrics.enabled";
+    protected static final String CONFIG_METRICS_JMX_NAME = "bigtable.metrics.jmxName";
+    protected static final String CONFIG_SLOW_QUERY_THRESHOLD_MILLIS = "bigtable.slowQuery.thresholdMillis";
+    protected static final String CONFIG_SLOW_QUERY_CAPACITY = "bigtable.slowQuery.capacity";
+    protected static final String CONFIG_COMPRESSION_COLUMNS = "bigtable.compression.columns";
+    protected static final String CONFIG_COMPRESSION_MINIMUM_SIZE = "bigtable.compression.minimumSize";
+    protected static final String CONFIG_PREFETCH_DEPTH = "bigtable.prefetch.depth";
+    private static final int DEFAULT_SLOW_QUERY_CAPACITY = 100;
+    private static final int DEFAULT_JOIN_PREFETCH_DEPTH = 100;
+
+    private volatile MetricsRegistry metricsRegistry = NoopMetricsRegistry.INSTANCE;
+    private volatile SlowQueryLog slowQueryLog = SlowQueryLog.DISABLED;
+    private volatile CompressionPolicy compressionPolicy = new CompressionPolicy();
+    private volatile int prefetchDepth;
+    private final SecondaryIndexes secondaryIndexes = new SecondaryIndexes(this);
+    private final BitmapIndexes bitmapIndexes = new BitmapIndexes(this);
+    private final ConcurrentMap<String, Set<String>> counterFamilies = new ConcurrentHashMap<String, Set<String>>();
 
     public abstract void init(Map<String, Object> properties);
 
+    /**
+     * Enables in memory metrics when bigtable.metrics.enabled is true, exporting them through JMX
+     * when bigtable.metrics.jmxName is also set
+     *
+     * @param properties
+     */
+    protected void initMetrics(Map<String, Object> properties) {
+        Object enabled = properties.get(CONFIG_METRICS_ENABLED);
+        if (enabled == null || !Boolean.parseBoolean(enabled.toString())) {
+            return;
+        }
+        DefaultMetricsRegistry registry = new DefaultMetricsRegistry();
+        Object jmxName = properties.get(CONFIG_METRICS_JMX_NAME);
+        if (jmxName != null) {
+            registry.registerMBean(jmxName.toString());
+        }
+        setMetricsRegistry(registry);
+    }
+
+    /**
+     * Enables the slow query log when bigtable.slowQuery.thresholdMillis is set. bigtable.slowQuery.capacity
+     * sets the number of queries kept in memory.
+     *
+     * @param properties
+     */
+    protected void initSlowQueryLog(Map<String, Object> properties) {
+        Object thresholdMillis = properties.get(CONFIG_SLOW_QUERY_THRESHOLD_MILLIS);
+        if (thresholdMillis == null) {
+            return;
+        }
+        Object capacity = properties.get(CONFIG_SLOW_QUERY_CAPACITY);
+        setSlowQueryLog(new SlowQueryLog(
+                Long.parseLong(thresholdMillis.toString()),
+                capacity == null ? DEFAULT_SLOW_QUERY_CAPACITY : Integer.parseInt(capacity.toString())));
+    }
+
+    /**
+     * Compresses the columns listed in bigtable.compression.columns, a comma separated list of family=codec or
+     * family:column=codec entries. bigtable.compression.minimumSize sets the smallest value compressed.
+     *
+     * @param properties
+     */
+    protected void initCompression(Map<String, Object> properties) {
+        Object columns = properties.get(CONFIG_COMPRESSION_COLUMNS);
+        if (columns == null) {
+            return;
+        }
+        CompressionPolicy policy = CompressionPolicy.parse(columns.toString());
+        Object minimumSize = properties.get(CONFIG_COMPRESSION_MINIMUM_SIZE);
+        if (minimumSize != null) {
+            policy.setMinimumSize(Integer.parseInt(minimumSize.toString()));
+        }
+        setCompressionPolicy(policy);
+    }
+
+    /**
+     * Reads scans ahead of the consumer on a background thread when bigtable.prefetch.depth is set
+     *
+     * @param properties
+     */
+    protected void initPrefetch(Map<String, Object> properties) {
+        Object depth = properties.get(CONFIG_PREFETCH_DEPTH);
+        if (depth != null) {
+            setPrefetchDepth(Integer.parseInt(depth.toString()));
+        }
+    }
+
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    /**
+     * Sets the number of rows the scans of this session read ahead of the consumer on a background thread.
+     * Iterators of prefetched scans are {@link PrefetchingIterable.PrefetchingIterator}s, which should be closed by
+     * consumers that stop early.
+     *
+     * @param prefetchDepth the number of rows, or 0 to read rows only as they are asked for
+     */
+    public void setPrefetchDepth(int prefetchDepth) {
+        this.prefetchDepth = prefetchDepth;
+    }
+
+    /**
+     * Wraps the rows of a scan in a {@link PrefetchingIterable} when prefetching is enabled
+     */
+    protected Iterable<Row> prefetch(Iterable<Row> rows) {
+        int depth = prefetchDepth;
+        return depth > 0 ? new PrefetchingIterable<Row>(rows, depth) : rows;
+    }
+
+    public CompressionPolicy getCompressionPolicy() {
+        return compressionPolicy;
+    }
+
+    /**
+     * Replaces the policy choosing which columns this session compresses when writing
+     *
+     * @param compressionPolicy the policy, or null to disable compression
+     */
+    public void setCompressionPolicy(CompressionPolicy compressionPolicy) {
+        this.compressionPolicy = compressionPolicy == null ? new CompressionPolicy() : compressionPolicy;
+    }
+
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    /**
+     * Replaces the log receiving this session's slow queries
+     *
+     * @param slowQueryLog the log, or null to disable slow query logging
+     */
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog == null ? SlowQueryLog.DISABLED : slowQueryLog;
+    }
+
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    /**
+     * Replaces the registry receiving this session's metrics
+     *
+     * @param metricsRegistry the registry, or null to disable metrics
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry == null ? NoopMetricsRegistry.INSTANCE : metricsRegistry;
+    }
+
     /**
      * Save a row
      *
@@ -58,7 +225,9 @@ public abstract class ModelSession {
     public abstract Iterable<Row> findByRowStartsWith(String tableName, String rowKeyPrefix, ModelUserContext user);
 
     /**
-     * Find rows with the group of row keys that match the provided regular expression
+     * Find rows with the group of row keys that match the provided regular expression. The whole row key has to
+     * match. Only the ranges of the expression's literal prefixes are scanned, see
+     * {@link com.altamiracorp.bigtable.model.key.RowKeyRegexPlan}. Rows are returned in row key order.
      *
      * @param tableName
      * @param rowKeyRegex
@@ -67,6 +236,19 @@ public abstract class ModelSession {
      */
     public abstract Iterable<Row> findByRowKeyRegex(String tableName, String rowKeyRegex, ModelUserContext user);
 
+    /**
+     * Like {@link #findByRowKeyRegex}, but rows may be returned in no particular order, which lets sessions scan
+     * the matching ranges in parallel. This default returns the ordered rows.
+     *
+     * @param tableName
+     * @param rowKeyRegex
+     * @param user
+     * @return
+     */
+    public Iterable<Row> findByRowKeyRegexUnordered(String tableName, String rowKeyRegex, ModelUserContext user) {
+        return findByRowKeyRegex(tableName, rowKeyRegex, user);
+    }
+
     public abstract Iterable<Row> findAll(String tableName, ModelUserContext user);
 
     public abstract long rowCount(String tableName, ModelUserContext user);
@@ -92,6 +274,425 @@ public abstract class ModelSession {
      */
     public abstract Row findByRowKey(String tableName, String rowKey, Map<String, String> columnsToReturn, ModelUserContext user);
 
+    /**
+     * Returns the rows with the specified row keys, in the order of the row keys. Row keys with no row are skipped.
+     *
+     * @param tableName
+     * @param rowKeys
+     * @param user
+     * @return
+     */
+    public List<Row> findByRowKeys(String tableName, Collection<String> rowKeys, ModelUserContext user) {
+        List<Row> results = new ArrayList<Row>();
+        for (String rowKey : rowKeys) {
+            Row row = findByRowKey(tableName, rowKey, user);
+            if (row != null) {
+                results.add(row);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Streams the columns of a row selected by the scan, in column family, column name and visibility order.
+     * This default reads the whole row; sessions override it to read the columns as the cursor advances.
+     *
+     * @param tableName
+     * @param rowKey
+     * @param scan
+     * @param user
+     * @return
+     */
+    public ColumnCursor scanColumns(String tableName, String rowKey, ColumnScan scan, ModelUserContext user) {
+        List<Cell> cells = new ArrayList<Cell>();
+        Row<?> row = findByRowKey(tableName, rowKey, user);
+        if (row != null) {
+            for (ColumnFamily columnFamily : row.getColumnFamilies()) {
+                for (Column column : columnFamily.getColumns()) {
+                    if (scan.isAfterResumePosition(columnFamily.getColumnFamilyName(), column.getName(), column.getVisibility())) {
+                        cells.add(new Cell(columnFamily.getColumnFamilyName(), column));
+                    }
+                }
+            }
+        }
+        Collections.sort(cells, Cell.KEY_ORDER);
+        return new ColumnCursor(cells.iterator(), scan);
+    }
+
+    /**
+     * Returns the row keys in a range without their columns, in row key order
+     *
+     * @param tableName
+     * @param keyStart
+     * @param keyEnd
+     * @param limit     the maximum number of row keys to return
+     * @param user
+     * @return
+     */
+    public List<String> listRowKeys(String tableName, String keyStart, String keyEnd, int limit, ModelUserContext user) {
+        List<String> results = new ArrayList<String>();
+        if (limit <= 0) {
+            return results;
+        }
+        for (Row row : findByRowKeyRange(tableName, keyStart, keyEnd, user)) {
+            results.add(row.getRowKey().toString());
+            if (results.size() >= limit) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return true if the row has at least one column visible to the user
+     */
+    public boolean exists(String tableName, String rowKey, ModelUserContext user) {
+        return findByRowKey(tableName, rowKey, user) != null;
+    }
+
+    /**
+     * Returns the row keys that have at least one column visible to the user, in the order of the row keys
+     *
+     * @param tableName
+     * @param rowKeys
+     * @param user
+     * @return
+     */
+    public Set<String> existsMany(String tableName, Collection<String> rowKeys, ModelUserContext user) {
+        Set<String> results = new LinkedHashSet<String>();
+        for (Row row : findByRowKeys(tableName, rowKeys, user)) {
+            results.add(row.getRowKey().toString());
+        }
+        return results;
+    }
+
+    /**
+     * Estimates the size of a whole table
+     *
+     * @param tableName
+     * @param user
+     * @return
+     */
+    public TableStatistics getStatistics(String tableName, ModelUserContext user) {
+        return getStatistics(tableName, null, null, user);
+    }
+
+    /**
+     * Estimates the number of rows, cells and bytes in a row key range without scanning all of it, so that callers
+     * can decide how to query the range before committing to a full scan. This implementation reads the whole
+     * range and returns exact counts.
+     *
+     * @param tableName
+     * @param keyStart  the first row key, or null for the start of the table
+     * @param keyEnd    the last row key, or null for the end of the table
+     * @param user
+     * @return
+     */
+    public TableStatistics getStatistics(String tableName, String keyStart, String keyEnd, ModelUserContext user) {
+        long rows = 0;
+        long cells = 0;
+        long bytes = 0;
+        for (Row<?> row : findInRange(tableName, keyStart, keyEnd, user)) {
+            rows++;
+            int rowKeyLength = row.getRowKey().toString().length();
+            for (ColumnFamily columnFamily : row.getColumnFamilies()) {
+                for (Column column : columnFamily.getColumns()) {
+                    cells++;
+                    bytes += rowKeyLength + columnFamily.getColumnFamilyName().length() + column.getName().length()
+                            + (column.getVisibility() == null ? 0 : column.getVisibility().length())
+                            + column.getValue().getStoredBytes().length;
+                }
+            }
+        }
+        return new TableStatistics(tableName, keyStart, keyEnd, 1, rows, cells, bytes, rows, true);
+    }
+
+    /**
+     * Returns about count rows spread across a row key range, in row key order, for estimating the makeup of
+     * the range. This implementation reads the whole range and picks rows at random.
+     *
+     * @param tableName
+     * @param keyStart  the first row key, or null for the start of the table
+     * @param keyEnd    the last row key, or null for the end of the table
+     * @param count     the maximum number of rows to return
+     * @param user
+     * @return
+     */
+    public List<Row> sample(String tableName, String keyStart, String keyEnd, int count, ModelUserContext user) {
+        List<Row> results = new ArrayList<Row>();
+        if (count <= 0) {
+            return results;
+        }
+        Random random = new Random();
+        long seen = 0;
+        for (Row row : findInRange(tableName, keyStart, keyEnd, user)) {
+            seen++;
+            if (results.size() < count) {
+                results.add(row);
+            } else {
+                long index = (long) (random.nextDouble() * seen);
+                if (index < count) {
+                    results.set((int) index, row);
+                }
+            }
+        }
+        Collections.sort(results, new RowKeyComparator());
+        return results;
+    }
+
+    private Iterable<Row> findInRange(String tableName, String keyStart, String keyEnd, ModelUserContext user) {
+        if (keyStart == null && keyEnd == null) {
+            return findAll(tableName, user);
+        }
+        return findByRowKeyRange(tableName, keyStart == null ? "" : keyStart, keyEnd == null ? "\uFFFF" : keyEnd, user);
+    }
+
+    /**
+     * Joins the rows of two tables by row key within a range. Both tables are scanned in row key order at the same
+     * time and only the current row of each is held, so the join runs in constant memory whatever the table sizes.
+     * Joined rows are returned in row key order; callers that stop early should close the
+     * {@link MergeJoin.MergeJoinIterator}.
+     *
+     * @param leftTableName
+     * @param rightTableName
+     * @param keyStart
+     * @param keyEnd
+     * @param joinType
+     * @param user
+     * @return
+     */
+    public MergeJoin mergeJoin(String leftTableName, String rightTableName, String keyStart, String keyEnd, JoinType joinType, ModelUserContext user) {
+        int depth = prefetchDepth > 0 ? prefetchDepth : DEFAULT_JOIN_PREFETCH_DEPTH;
+        return new MergeJoin(
+                findByRowKeyRange(leftTableName, keyStart, keyEnd, user),
+                findByRowKeyRange(rightTableName, keyStart, keyEnd, user),
+                joinType, depth);
+    }
+
+    /**
+     * Declares an index and creates its table. Only rows saved after this call are indexed.
+     *
+     * @param index
+     * @param user
+     */
+    public void addIndex(SecondaryIndex index, ModelUserContext user) {
+        initializeTable(index.getIndexTableName(), user);
+        secondaryIndexes.add(index);
+    }
+
+    public List<SecondaryIndex> getIndexes(String tableName) {
+        return secondaryIndexes.getIndexes(tableName);
+    }
+
+    /**
+     * Declares a column family whose columns are counters and initializes its table. Counters are changed with
+     * {@link #increment} and hold longs. Declare counter families before the table is used, in every session
+     * that increments them.
+     *
+     * @param tableName
+     * @param columnFamilyName
+     * @param user
+     */
+    public void addCounterFamily(String tableName, String columnFamilyName, ModelUserContext user) {
+        Set<String> families = counterFamilies.get(tableName);
+        if (families == null) {
+            counterFamilies.putIfAbsent(tableName, new CopyOnWriteArraySet<String>());
+            families = counterFamilies.get(tableName);
+        }
+        families.add(columnFamilyName);
+        initializeTable(tableName, user);
+    }
+
+    /**
+     * @return the declared counter families of the table
+     */
+    public Set<String> getCounterFamilies(String tableName) {
+        Set<String> families = counterFamilies.get(tableName);
+        return families == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(families);
+    }
+
+    /**
+     * Adds an amount to a counter column, which is created with the amount if it does not exist. Counter columns
+     * are not indexed.
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamilyName a declared counter family
+     * @param columnName
+     * @param delta
+     */
+    public void increment(String tableName, String rowKey, String columnFamilyName, String columnName, long delta) {
+        incrementMany(tableName, Collections.singletonList(new CounterIncrement(rowKey, columnFamilyName, columnName, delta)));
+    }
+
+    /**
+     * Adds amounts to counter columns. This implementation reads each counter, adds to it and saves it, which is
+     * only safe when this session is the only writer of the counters.
+     *
+     * @param tableName
+     * @param increments
+     */
+    public synchronized void incrementMany(String tableName, Collection<CounterIncrement> increments) {
+        ModelUserContext user = createIndexMaintenanceUserContext();
+        for (CounterIncrement increment : increments) {
+            checkCounterFamily(tableName, increment.getColumnFamilyName());
+            long value = increment.getDelta();
+            Row<?> row = findByRowKey(tableName, increment.getRowKey(), user);
+            ColumnFamily columnFamily = row == null ? null : row.get(increment.getColumnFamilyName());
+            Value current = columnFamily == null ? null : columnFamily.get(increment.getColumnName());
+            if (current != null) {
+                value += current.toLong();
+            }
+            Row<RowKey> update = new Row<RowKey>(tableName, new RowKey(increment.getRowKey()));
+            update.addColumnFamily(new ColumnFamily(increment.getColumnFamilyName()).set(increment.getColumnName(), value));
+            save(update);
+        }
+    }
+
+    /**
+     * Reserves a block of ids from a sequence held in a long column, which starts at 0 if it does not exist. The
+     * column is written before this returns, whatever the flush settings. This implementation reads the column
+     * and saves it increased, which is only safe when this session is the only one reserving from the sequence.
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamilyName
+     * @param columnName
+     * @param count            the number of ids to reserve
+     * @return the first id of the block, the others following it
+     */
+    public synchronized long allocateIds(String tableName, String rowKey, String columnFamilyName, String columnName, long count) {
+        Row<?> row = findByRowKey(tableName, rowKey, createIndexMaintenanceUserContext());
+        ColumnFamily columnFamily = row == null ? null : row.get(columnFamilyName);
+        Value current = columnFamily == null ? null : columnFamily.get(columnName);
+        long first = current == null ? 0 : current.toLong();
+        Row<RowKey> update = new Row<RowKey>(tableName, new RowKey(rowKey));
+        update.addColumnFamily(new ColumnFamily(columnFamilyName).set(columnName, first + count));
+        save(update, FlushFlag.FLUSH);
+        return first;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the column family was not declared with {@link #addCounterFamily}
+     */
+    protected void checkCounterFamily(String tableName, String columnFamilyName) {
+        if (!getCounterFamilies(tableName).contains(columnFamilyName)) {
+            throw new IllegalArgumentException("Column family " + columnFamilyName + " of table " + tableName + " is not a counter family");
+        }
+    }
+
+    /**
+     * Find rows whose indexed column equals a value
+     *
+     * @param tableName
+     * @param indexName
+     * @param value     a String for STRING indexes or a Number for LONG and DOUBLE indexes
+     * @param user
+     * @return
+     */
+    public List<Row> findByIndex(String tableName, String indexName, Object value, ModelUserContext user) {
+        return secondaryIndexes.find(tableName, indexName, value, user);
+    }
+
+    /**
+     * Find rows whose indexed column is between low inclusive and high exclusive
+     *
+     * @param tableName
+     * @param indexName
+     * @param low
+     * @param high
+     * @param user
+     * @return
+     */
+    public List<Row> findByIndexRange(String tableName, String indexName, Object low, Object high, ModelUserContext user) {
+        return secondaryIndexes.findRange(tableName, indexName, low, high, user);
+    }
+
+    /**
+     * Declares a bitmap index and creates the bitmap table of its table. Only rows saved after this call are
+     * indexed.
+     *
+     * @param index
+     * @param user
+     */
+    public void addBitmapIndex(BitmapIndex index, ModelUserContext user) {
+        initializeTable(index.getBitmapTableName(), user);
+        bitmapIndexes.add(index);
+    }
+
+    public List<BitmapIndex> getBitmapIndexes(String tableName) {
+        return bitmapIndexes.getIndexes(tableName);
+    }
+
+    /**
+     * Find rows matching a combination of bitmap index filters
+     *
+     * @param tableName
+     * @param query
+     * @param user
+     * @return
+     */
+    public List<Row> findByBitmapQuery(String tableName, BitmapQuery query, ModelUserContext user) {
+        return bitmapIndexes.find(tableName, query, user);
+    }
+
+    /**
+     * Counts the rows matching a combination of bitmap index filters from the bitmaps alone, without applying the
+     * visibility of the user
+     *
+     * @param tableName
+     * @param query
+     * @return
+     */
+    public int countByBitmapQuery(String tableName, BitmapQuery query) {
+        return bitmapIndexes.count(tableName, query);
+    }
+
+    /**
+     * The user context index maintenance reads previous column values with. It must be able to see every indexed
+     * column, or the entries of values it cannot see are left behind.
+     *
+     * @return
+     */
+    public ModelUserContext createIndexMaintenanceUserContext() {
+        return createModelUserContext();
+    }
+
+    /**
+     * Called by implementations before writing a row, to maintain the indexes on its table
+     *
+     * @param row
+     * @param flushFlag
+     */
+    protected void updateIndexes(Row row, FlushFlag flushFlag) {
+        secondaryIndexes.update(row, flushFlag);
+        bitmapIndexes.update(row, flushFlag);
+    }
+
+    /**
+     * Called by implementations before deleting a row, to delete its index entries
+     *
+     * @param tableName
+     * @param rowKey
+     */
+    protected void deleteIndexEntries(String tableName, RowKey rowKey) {
+        secondaryIndexes.deleteRow(tableName, rowKey);
+        bitmapIndexes.deleteRow(tableName, rowKey);
+    }
+
+    /**
+     * Called by implementations before deleting a column, to delete its index entries
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamily
+     * @param columnQualifier
+     */
+    protected void deleteIndexEntries(String tableName, RowKey rowKey, String columnFamily, String columnQualifier) {
+        secondaryIndexes.deleteColumn(tableName, rowKey, columnFamily, columnQualifier);
+        bitmapIndexes.deleteColumn(tableName, rowKey, columnFamily, columnQualifier);
+    }
+
     /**
      * Initialize a table
      *
@@ -0,0 +1,220 @@
+package com.altamiracorp.bigtable.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads another iterable on a background thread into a bounded queue, so that fetching the next items overlaps
+ * with the work the consumer does on the current one.
+ * <p/>
+ * A consumer that stops early should {@link PrefetchingIterator#close() close} the iterator. An iterator that is
+ * simply dropped is noticed once it has been garbage collected, and its background thread stops then. Either way
+ * the background thread closes the source's iterator if it is {@link Closeable}, releasing its scanner. Exceptions
+ * thrown by the source are rethrown to the consumer after the items read before them.
+ * <pre>
+ * for (Row row : new PrefetchingIterable&lt;Row&gt;(session.findAll(tableName, user), 100)) {
+ *     render(row);
+ * }
+ * </pre>
+ */
+public class PrefetchingIterable<T> implements Iterable<T> {
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+    private static final Object END = new Object();
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "bigtable-prefetch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final Iterable<T> source;
+    private final int depth;
+    private final Executor executor;
+
+    /**
+     * @param source the iterable to read, whose iterator is created and used on the background thread
+     * @param depth  the number of items read ahead of the consumer
+     */
+    public PrefetchingIterable(Iterable<T> source, int depth) {
+        this(source, depth, DEFAULT_EXECUTOR);
+    }
+
+    public PrefetchingIterable(Iterable<T> source, int depth, Executor executor) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth must be at least 1");
+        }
+        this.source = source;
+        this.depth = depth;
+        this.executor = executor;
+    }
+
+    @Override
+    public PrefetchingIterator<T> iterator() {
+        PrefetchingIterator<T> iterator = new PrefetchingIterator<T>(depth);
+        executor.execute(new Producer<T>(source, iterator));
+        return iterator;
+    }
+
+    public static class PrefetchingIterator<T> implements Iterator<T>, Closeable {
+        private final BlockingQueue<Object> queue;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private Object next;
+        private boolean done;
+
+        private PrefetchingIterator(int depth) {
+            this.queue = new ArrayBlockingQueue<Object>(depth);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (done) {
+                return false;
+            }
+            Object item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the next item", e);
+            }
+            if (item == END) {
+                done = true;
+                return false;
+            }
+            if (item instanceof Failure) {
+                done = true;
+                Throwable cause = ((Failure) item).cause;
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+            next = item;
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object item = next;
+            next = null;
+            return (T) item;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Stops the background thread and drops the items it has read ahead
+         */
+        @Override
+        public void close() {
+            closed.set(true);
+            done = true;
+            next = null;
+            queue.clear();
+        }
+    }
+
+    /**
+     * Holds the iterator only weakly, so that an abandoned iterator can be collected and stop the producer
+     */
+    private static class Producer<T> implements Runnable {
+        private final Iterable<T> source;
+        private final BlockingQueue<Object> queue;
+        private final AtomicBoolean closed;
+        private final WeakReference<PrefetchingIterator<T>> consumer;
+
+        private Producer(Iterable<T> source, PrefetchingIterator<T> consumer) {
+            this.source = source;
+            this.queue = consumer.queue;
+            this.closed = consumer.closed;
+            this.consumer = new WeakReference<PrefetchingIterator<T>>(consumer);
+        }
+
+        @Override
+        public void run() {
+            Iterator<T> iterator = null;
+            try {
+                iterator = source.iterator();
+                while (iterator.hasNext()) {
+                    if (!offer(iterator.next())) {
+                        return;
+                    }
+                }
+                offer(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                try {
+                    offer(new Failure(e));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            } finally {
+                close(iterator);
+            }
+        }
+
+        /**
+         * Closes a source iterator that holds a scanner, whether it was read to the end or the consumer went away
+         */
+        private static void close(Iterator<?> iterator) {
+            if (!(iterator instanceof Closeable)) {
+                return;
+            }
+            try {
+                ((Closeable) iterator).close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /**
+         * @return false if the consumer has gone away
+         */
+        private boolean offer(Object item) throws InterruptedException {
+            while (!closed.get() && consumer.get() != null) {
+                if (queue.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class Failure {
+        private final Throwable cause;
+
+        private Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+}
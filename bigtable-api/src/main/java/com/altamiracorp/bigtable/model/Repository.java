@@ -1,5 +1,8 @@
 package com.altamiracorp.bigtable.model;
 
+import com.altamiracorp.bigtable.model.bitmap.BitmapQuery;
+import com.altamiracorp.bigtable.model.jfr.FlightRecorderSupport;
+import com.altamiracorp.bigtable.model.jfr.RepositoryEvent;
 import com.altamiracorp.bigtable.model.user.ModelUserContext;
 
 import java.util.*;
@@ -18,22 +21,28 @@ public abstract class Repository<T extends Row> {
     public abstract String getTableName();
 
     public T findByRowKey(String rowKey, ModelUserContext user) {
+        RepositoryEvent event = beginEvent();
         Row row = modelSession.findByRowKey(getTableName(), rowKey, user);
         if (row == null) {
+            commitEvent(event, "findByRowKey", 0);
             return null;
         }
         T r = fromRow(row);
         r.setDirtyBits(false);
+        commitEvent(event, "findByRowKey", 1);
         return r;
     }
 
     public T findByRowKey(String rowKey, Map<String, String> columnsToReturn, ModelUserContext user) {
+        RepositoryEvent event = beginEvent();
         Row row = modelSession.findByRowKey(getTableName(), rowKey, columnsToReturn, user);
         if (row == null) {
+            commitEvent(event, "findByRowKey", 0);
             return null;
         }
         T r = fromRow(row);
         r.setDirtyBits(false);
+        commitEvent(event, "findByRowKey", 1);
         return r;
     }
 
@@ -41,6 +50,22 @@ public abstract class Repository<T extends Row> {
         return fromRows(modelSession.findByRowStartsWith(getTableName(), rowKeyPrefix, user));
     }
 
+    public Iterable<T> findByRowKeys(Collection<String> rowKeys, ModelUserContext user) {
+        return fromRows(modelSession.findByRowKeys(getTableName(), rowKeys, user));
+    }
+
+    public Iterable<T> findByIndex(String indexName, Object value, ModelUserContext user) {
+        return fromRows(modelSession.findByIndex(getTableName(), indexName, value, user));
+    }
+
+    public Iterable<T> findByIndexRange(String indexName, Object low, Object high, ModelUserContext user) {
+        return fromRows(modelSession.findByIndexRange(getTableName(), indexName, low, high, user));
+    }
+
+    public Iterable<T> findByBitmapQuery(BitmapQuery query, ModelUserContext user) {
+        return fromRows(modelSession.findByBitmapQuery(getTableName(), query, user));
+    }
+
     public Iterable<T> findAll(ModelUserContext user) {
         return fromRows(modelSession.findAll(getTableName(), user));
     }
@@ -50,11 +75,14 @@ public abstract class Repository<T extends Row> {
     }
 
     public void save(T obj, FlushFlag flushFlag) {
+        RepositoryEvent event = beginEvent();
         Row r = toRow(obj);
         modelSession.save(r, flushFlag);
+        commitEvent(event, "save", 1);
     }
 
     public void saveMany(Collection<T> objs) {
+        RepositoryEvent event = beginEvent();
         List<Row> rows = new ArrayList<Row>();
         String tableName = null;
         for (T obj : objs) {
@@ -65,6 +93,7 @@ public abstract class Repository<T extends Row> {
             rows.add(row);
         }
         modelSession.saveMany(tableName, rows);
+        commitEvent(event, "saveMany", rows.size());
     }
 
     public Iterable<T> fromRows(final Iterable<Row> rows) {
@@ -96,7 +125,9 @@ public abstract class Repository<T extends Row> {
     }
 
     public void delete(RowKey rowKey) {
+        RepositoryEvent event = beginEvent();
         modelSession.deleteRow(getTableName(), rowKey);
+        commitEvent(event, "delete", 1);
     }
 
     protected ModelSession getModelSession() {
@@ -104,6 +135,34 @@ public abstract class Repository<T extends Row> {
     }
 
     public void flush() {
+        RepositoryEvent event = beginEvent();
         getModelSession().flush();
+        commitEvent(event, "flush", 0);
+    }
+
+    /**
+     * @return a started Flight Recorder event, or null if the event is not being recorded
+     */
+    private static RepositoryEvent beginEvent() {
+        if (!FlightRecorderSupport.isAvailable()) {
+            return null;
+        }
+        RepositoryEvent event = new RepositoryEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    private void commitEvent(RepositoryEvent event, String operation, long rows) {
+        if (event == null) {
+            return;
+        }
+        event.repository = getClass().getName();
+        event.tableName = getTableName();
+        event.operation = operation;
+        event.rows = rows;
+        event.commit();
     }
 }
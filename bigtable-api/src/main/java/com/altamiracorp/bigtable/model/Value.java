@@ -1,19 +1,54 @@
 package com.altamiracorp.bigtable.model;
 
+import com.altamiracorp.bigtable.model.compression.CompressionCodec;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONString;
 
 import java.nio.ByteBuffer;
 
+/**
+ * The bytes of a column. Values read in compressed form keep their compressed bytes and are decompressed on
+ * first access, so callers always see the uncompressed data. Bytes passed to the constructor are always taken as
+ * they are; only {@link #fromStoredBytes(byte[])} recognises the compressed form.
+ */
 public class Value implements JSONString {
-    private final byte[] value;
+    private volatile byte[] value;
+    private volatile byte[] compressedValue;
 
     public Value(Object value) {
         if (value == null) {
             throw new NullPointerException("Value cannot be null");
         }
-        this.value = toBytes(value);
+        if (value instanceof Value) {
+            this.value = ((Value) value).value;
+            this.compressedValue = ((Value) value).compressedValue;
+        } else {
+            this.value = toBytes(value);
+        }
+    }
+
+    private Value() {
+    }
+
+    /**
+     * Creates a value from bytes read from the store, which are taken as compressed if they start with a
+     * compression header. Only used for the columns a {@link com.altamiracorp.bigtable.model.compression.CompressionPolicy}
+     * compresses.
+     *
+     * @param storedBytes
+     */
+    public static Value fromStoredBytes(byte[] storedBytes) {
+        if (storedBytes == null) {
+            throw new NullPointerException("Value cannot be null");
+        }
+        Value result = new Value();
+        if (CompressionCodec.isCompressed(storedBytes)) {
+            result.compressedValue = storedBytes;
+        } else {
+            result.value = storedBytes;
+        }
+        return result;
     }
 
     private byte[] toBytes(Object value) {
@@ -45,10 +80,6 @@ public class Value implements JSONString {
             return new byte[]{ (byte)( (Boolean)value ? 1 : 0)};
         }
 
-        if (value instanceof Value) {
-            return ((Value) value).toBytes();
-        }
-
         if (value instanceof JSONObject) {
             return jsonObjectToBytes((JSONObject) value);
         }
@@ -77,40 +108,81 @@ public class Value implements JSONString {
     }
 
     public byte[] toBytes() {
-        return this.value;
+        byte[] bytes = this.value;
+        if (bytes == null) {
+            bytes = CompressionCodec.decompress(this.compressedValue);
+            this.value = bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the bytes to write to the store, compressed if this value is compressed
+     */
+    public byte[] getStoredBytes() {
+        byte[] compressed = this.compressedValue;
+        return compressed != null ? compressed : this.value;
+    }
+
+    public boolean isCompressed() {
+        return this.compressedValue != null;
+    }
+
+    /**
+     * Compresses the stored form of this value. The value is left uncompressed if it is already compressed or
+     * compression would not make it smaller.
+     *
+     * @param codec
+     * @return true if this call compressed the value
+     */
+    public boolean compress(CompressionCodec codec) {
+        if (this.compressedValue != null) {
+            return false;
+        }
+        byte[] bytes = this.value;
+        byte[] compressed = codec.compress(bytes);
+        if (compressed.length >= bytes.length) {
+            return false;
+        }
+        this.compressedValue = compressed;
+        return true;
     }
 
     public Long toLong() {
-        if (this.value.length != 8) {
-            throw new RuntimeException("toLong failed. Expected 8 bytes found " + this.value.length);
+        byte[] bytes = toBytes();
+        if (bytes.length != 8) {
+            throw new RuntimeException("toLong failed. Expected 8 bytes found " + bytes.length);
         }
-        return ByteBuffer.wrap(this.value).getLong();
+        return ByteBuffer.wrap(bytes).getLong();
     }
 
     public Double toDouble() {
-        if (this.value.length != 8) {
-            throw new RuntimeException("toDouble failed. Expected 8 bytes found " + this.value.length);
+        byte[] bytes = toBytes();
+        if (bytes.length != 8) {
+            throw new RuntimeException("toDouble failed. Expected 8 bytes found " + bytes.length);
         }
-        return ByteBuffer.wrap(this.value).getDouble();
+        return ByteBuffer.wrap(bytes).getDouble();
     }
 
     public Integer toInteger() {
-        if (this.value.length != 4) {
-            throw new RuntimeException("toInteger failed. Expected 4 bytes found " + this.value.length);
+        byte[] bytes = toBytes();
+        if (bytes.length != 4) {
+            throw new RuntimeException("toInteger failed. Expected 4 bytes found " + bytes.length);
         }
-        return ByteBuffer.wrap(this.value).getInt();
+        return ByteBuffer.wrap(bytes).getInt();
     }
 
     public Boolean toBoolean() {
-        if (this.value.length != 1) {
-            throw new RuntimeException("toBoolean failed. Expected 1 byte found " + this.value.length);
+        byte[] bytes = toBytes();
+        if (bytes.length != 1) {
+            throw new RuntimeException("toBoolean failed. Expected 1 byte found " + bytes.length);
         }
-        return (int)this.value[0] == 1;
+        return (int)bytes[0] == 1;
     }
 
     @Override
     public String toString() {
-        return new String(this.value);
+        return new String(toBytes());
     }
 
     public static byte[] toBytes(Value value) {
@@ -165,10 +237,11 @@ public class Value implements JSONString {
 
     @Override
     public String toJSONString() {
+        byte[] bytes = toBytes();
         StringBuilder sb = new StringBuilder();
         sb.append('"');
-        for (int i = 0; i < this.value.length; i++) {
-            byte b = this.value[i];
+        for (int i = 0; i < bytes.length; i++) {
+            byte b = bytes[i];
             if (b == '"') {
                 sb.append("\\\"");
             } else if (b == '\\') {
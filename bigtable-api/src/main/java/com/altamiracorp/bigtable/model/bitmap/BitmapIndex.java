@@ -0,0 +1,65 @@
+package com.altamiracorp.bigtable.model.bitmap;
+
+import com.altamiracorp.bigtable.model.index.IndexType;
+
+/**
+ * Declares a bitmap index on one column of a table. Suited to columns with few distinct values: every row gets a
+ * dense ordinal and each distinct value a {@link CompressedBitmap} of the ordinals of the rows holding it.
+ */
+public class BitmapIndex {
+    private static final String BITMAP_TABLE_SUFFIX = "_bitmap";
+
+    private final String name;
+    private final String tableName;
+    private final String columnFamilyName;
+    private final String columnName;
+    private final IndexType type;
+
+    public BitmapIndex(String name, String tableName, String columnFamilyName, String columnName) {
+        this(name, tableName, columnFamilyName, columnName, IndexType.STRING);
+    }
+
+    public BitmapIndex(String name, String tableName, String columnFamilyName, String columnName, IndexType type) {
+        this.name = name;
+        this.tableName = tableName;
+        this.columnFamilyName = columnFamilyName;
+        this.columnName = columnName;
+        this.type = type;
+    }
+
+    /**
+     * @return the table holding the ordinals and bitmaps of every bitmap index on a table
+     */
+    public static String getBitmapTableName(String tableName) {
+        return tableName + BITMAP_TABLE_SUFFIX;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getColumnFamilyName() {
+        return columnFamilyName;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public IndexType getType() {
+        return type;
+    }
+
+    public String getBitmapTableName() {
+        return getBitmapTableName(tableName);
+    }
+
+    @Override
+    public String toString() {
+        return "BitmapIndex{name=" + name + ", tableName=" + tableName + ", column=" + columnFamilyName + ":" + columnName + ", type=" + type + "}";
+    }
+}
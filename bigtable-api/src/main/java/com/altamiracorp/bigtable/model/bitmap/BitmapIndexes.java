@@ -0,0 +1,445 @@
+package com.altamiracorp.bigtable.model.bitmap;
+
+import com.altamiracorp.bigtable.model.Column;
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.FlushFlag;
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.Value;
+import com.altamiracorp.bigtable.model.key.CompositeRowKey;
+import com.altamiracorp.bigtable.model.user.ModelUserContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The bitmap indexes declared on a session, and their maintenance. Each indexed table has a side table holding:
+ * <ul>
+ * <li>("o", row key) the ordinal of a row</li>
+ * <li>("r", ordinal) the row key of an ordinal</li>
+ * <li>("n") the next ordinal to reserve, advanced with {@link ModelSession#allocateIds}</li>
+ * <li>("l", container) the rows that exist, which NOT queries are evaluated against</li>
+ * <li>("b", index name, encoded value, container) the rows holding a value</li>
+ * </ul>
+ * A container row covers the ordinals sharing their high 16 bits, with one boolean column per ordinal named by its
+ * low 16 bits in hex. Adding or removing a row writes only that column, with the flush flag of the row that caused
+ * it, so sessions never overwrite each other's changes and a bitmap reaches the table no later than the row does.
+ * Bitmaps are read from their rows by each query rather than cached, so queries see the changes of every session.
+ * <p/>
+ * Sessions reserve blocks of ordinals from the shared sequence, so two sessions never give different rows the same
+ * ordinal. A row first saved by two sessions at once may get two ordinals; queries return it once but counts may
+ * include it twice. Changes to one row in a session are made one at a time, while rows that hash to different
+ * locks are maintained in parallel.
+ * <p/>
+ * Queries resolve the matching ordinals from the bitmaps, batch fetch the rows and drop those which, as the
+ * querying user sees them, do not match.
+ */
+public class BitmapIndexes {
+    private static final String ORDINAL_PREFIX = "o";
+    private static final String ROW_KEY_PREFIX = "r";
+    private static final String NEXT_ORDINAL_PREFIX = "n";
+    private static final String LIVE_ROWS_PREFIX = "l";
+    private static final String BITMAP_PREFIX = "b";
+    private static final String COLUMN_FAMILY = "bitmap";
+    private static final String ORDINAL_COLUMN = "ordinal";
+    private static final String ROW_KEY_COLUMN = "rowKey";
+    private static final String NEXT_ORDINAL_COLUMN = "nextOrdinal";
+    private static final int ORDINAL_CACHE_SIZE = 10000;
+    private static final int ORDINAL_BLOCK_SIZE = 100;
+    private static final int ROW_LOCKS = 64;
+
+    private final ModelSession session;
+    private final Map<String, TableBitmaps> tables = new HashMap<String, TableBitmaps>();
+
+    public BitmapIndexes(ModelSession session) {
+        this.session = session;
+    }
+
+    public void add(BitmapIndex index) {
+        synchronized (tables) {
+            TableBitmaps table = tables.get(index.getTableName());
+            if (table == null) {
+                table = new TableBitmaps(index.getTableName());
+                tables.put(index.getTableName(), table);
+            }
+            table.addIndex(index);
+        }
+    }
+
+    public List<BitmapIndex> getIndexes(String tableName) {
+        TableBitmaps table = findTable(tableName);
+        if (table == null) {
+            return Collections.emptyList();
+        }
+        return table.getIndexes();
+    }
+
+    /**
+     * Moves the ordinal of a row about to be saved to the bitmaps of its new values, and out of the bitmaps of
+     * the indexed columns the row deletes
+     *
+     * @param row
+     * @param flushFlag
+     */
+    public void update(Row<?> row, FlushFlag flushFlag) {
+        TableBitmaps table = findTable(row.getTableName());
+        if (table == null) {
+            return;
+        }
+        Map<BitmapIndex, Column> changedColumns = new HashMap<BitmapIndex, Column>();
+        boolean setsValue = false;
+        for (BitmapIndex index : table.getIndexes()) {
+            Column column = getColumn(row, index);
+            if (column != null && (column.isDirty() || column.isDelete())) {
+                changedColumns.put(index, column);
+                setsValue |= !column.isDelete();
+            }
+        }
+        if (changedColumns.isEmpty()) {
+            return;
+        }
+
+        String rowKey = row.getRowKey().toString();
+        synchronized (table.getRowLock(rowKey)) {
+            Integer ordinal = setsValue ? table.getOrCreateOrdinal(rowKey, flushFlag) : table.getOrdinal(rowKey);
+            if (ordinal == null) {
+                // only deletes columns of a row that was never indexed
+                return;
+            }
+            Row<?> previous = findIndexedColumns(table.tableName, rowKey, changedColumns.keySet());
+            for (Map.Entry<BitmapIndex, Column> changedColumn : changedColumns.entrySet()) {
+                BitmapIndex index = changedColumn.getKey();
+                Column previousColumn = previous == null ? null : getColumn(previous, index);
+                String previousEncodedValue = previousColumn == null ? null : index.getType().encode(previousColumn.getValue());
+                if (changedColumn.getValue().isDelete()) {
+                    if (previousEncodedValue != null) {
+                        table.setMember(bitmapKey(index, previousEncodedValue), ordinal, false, flushFlag);
+                    }
+                    continue;
+                }
+                String encodedValue = index.getType().encode(changedColumn.getValue().getValue());
+                if (previousEncodedValue != null && !previousEncodedValue.equals(encodedValue)) {
+                    table.setMember(bitmapKey(index, previousEncodedValue), ordinal, false, flushFlag);
+                }
+                table.setMember(bitmapKey(index, encodedValue), ordinal, true, flushFlag);
+            }
+            if (setsValue) {
+                table.setMember(liveRowsKey(), ordinal, true, flushFlag);
+            }
+        }
+    }
+
+    /**
+     * Removes a row about to be deleted from the bitmaps, and from the rows NOT queries match
+     */
+    public void deleteRow(String tableName, RowKey rowKey) {
+        TableBitmaps table = findTable(tableName);
+        if (table == null) {
+            return;
+        }
+        synchronized (table.getRowLock(rowKey.toString())) {
+            Integer ordinal = table.getOrdinal(rowKey.toString());
+            if (ordinal == null) {
+                return;
+            }
+            removeFromBitmaps(table, rowKey.toString(), ordinal, table.getIndexes());
+            table.setMember(liveRowsKey(), ordinal, false, FlushFlag.DEFAULT);
+        }
+    }
+
+    /**
+     * Removes a row from the bitmaps of a column about to be deleted
+     */
+    public void deleteColumn(String tableName, RowKey rowKey, String columnFamilyName, String columnName) {
+        TableBitmaps table = findTable(tableName);
+        if (table == null) {
+            return;
+        }
+        List<BitmapIndex> indexes = new ArrayList<BitmapIndex>();
+        for (BitmapIndex index : table.getIndexes()) {
+            if (index.getColumnFamilyName().equals(columnFamilyName) && index.getColumnName().equals(columnName)) {
+                indexes.add(index);
+            }
+        }
+        if (indexes.isEmpty()) {
+            return;
+        }
+        synchronized (table.getRowLock(rowKey.toString())) {
+            Integer ordinal = table.getOrdinal(rowKey.toString());
+            if (ordinal == null) {
+                return;
+            }
+            removeFromBitmaps(table, rowKey.toString(), ordinal, indexes);
+        }
+    }
+
+    private void removeFromBitmaps(TableBitmaps table, String rowKey, int ordinal, Collection<BitmapIndex> indexes) {
+        Row<?> previous = findIndexedColumns(table.tableName, rowKey, indexes);
+        if (previous == null) {
+            return;
+        }
+        for (BitmapIndex index : indexes) {
+            Column column = getColumn(previous, index);
+            if (column != null) {
+                table.setMember(bitmapKey(index, index.getType().encode(column.getValue())), ordinal, false, FlushFlag.DEFAULT);
+            }
+        }
+    }
+
+    /**
+     * @return the number of rows matching the query according to the bitmaps, without fetching or checking them
+     */
+    public int count(String tableName, BitmapQuery query) {
+        return query.evaluate(getTable(tableName)).getCardinality();
+    }
+
+    /**
+     * @return the rows matching the query, in ordinal order
+     */
+    public List<Row> find(String tableName, BitmapQuery query, ModelUserContext user) {
+        TableBitmaps table = getTable(tableName);
+        int[] ordinals = query.evaluate(table).toArray();
+        if (ordinals.length == 0) {
+            return new ArrayList<Row>();
+        }
+
+        String bitmapTableName = BitmapIndex.getBitmapTableName(tableName);
+        List<String> ordinalKeys = new ArrayList<String>(ordinals.length);
+        for (int ordinal : ordinals) {
+            ordinalKeys.add(rowKeyKey(ordinal).toString());
+        }
+        Set<String> rowKeys = new LinkedHashSet<String>(ordinals.length);
+        for (Row ordinalRow : session.findByRowKeys(bitmapTableName, ordinalKeys, session.createIndexMaintenanceUserContext())) {
+            rowKeys.add(getValue(ordinalRow, ROW_KEY_COLUMN).toString());
+        }
+
+        List<Row> results = new ArrayList<Row>();
+        for (Row row : session.findByRowKeys(tableName, rowKeys, user)) {
+            if (query.matches(row, table)) {
+                results.add(row);
+            }
+        }
+        return results;
+    }
+
+    private TableBitmaps findTable(String tableName) {
+        synchronized (tables) {
+            return tables.get(tableName);
+        }
+    }
+
+    private TableBitmaps getTable(String tableName) {
+        TableBitmaps table = findTable(tableName);
+        if (table == null) {
+            throw new IllegalArgumentException("No bitmap indexes on table " + tableName);
+        }
+        return table;
+    }
+
+    private Row<?> findIndexedColumns(String tableName, String rowKey, Iterable<BitmapIndex> indexes) {
+        Map<String, String> columnsToReturn = new HashMap<String, String>();
+        for (BitmapIndex index : indexes) {
+            String existing = columnsToReturn.get(index.getColumnFamilyName());
+            boolean otherColumn = existing != null && !existing.equals(index.getColumnName());
+            columnsToReturn.put(index.getColumnFamilyName(), otherColumn ? "*" : index.getColumnName());
+        }
+        return session.findByRowKey(tableName, rowKey, columnsToReturn, session.createIndexMaintenanceUserContext());
+    }
+
+    private static Column getColumn(Row<?> row, BitmapIndex index) {
+        ColumnFamily columnFamily = row.get(index.getColumnFamilyName());
+        if (columnFamily == null) {
+            return null;
+        }
+        return columnFamily.getColumn(index.getColumnName());
+    }
+
+    private static Value getValue(Row<?> row, String columnName) {
+        ColumnFamily columnFamily = row.get(COLUMN_FAMILY);
+        return columnFamily == null ? null : columnFamily.get(columnName);
+    }
+
+    private static RowKey ordinalKey(String rowKey) {
+        return CompositeRowKey.builder().add(ORDINAL_PREFIX).add(rowKey).build();
+    }
+
+    private static RowKey rowKeyKey(int ordinal) {
+        return CompositeRowKey.builder().add(ROW_KEY_PREFIX).addInt(ordinal).build();
+    }
+
+    private static RowKey nextOrdinalKey() {
+        return CompositeRowKey.builder().add(NEXT_ORDINAL_PREFIX).build();
+    }
+
+    private static CompositeRowKey liveRowsKey() {
+        return CompositeRowKey.builder().add(LIVE_ROWS_PREFIX).build();
+    }
+
+    private static CompositeRowKey bitmapKey(BitmapIndex index, String encodedValue) {
+        return CompositeRowKey.builder().add(BITMAP_PREFIX).add(index.getName()).addEncoded(encodedValue).build();
+    }
+
+    /**
+     * The indexes and ordinals of one indexed table. Its fields are guarded by the object's lock, which is never
+     * held while reading or writing the tables. Ordinals never change once given, so they are cached.
+     */
+    class TableBitmaps {
+        private final String tableName;
+        private final String bitmapTableName;
+        private final Object[] rowLocks = new Object[ROW_LOCKS];
+        private final Map<String, BitmapIndex> indexes = new LinkedHashMap<String, BitmapIndex>();
+        private final Map<String, Integer> ordinalCache = new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > ORDINAL_CACHE_SIZE;
+            }
+        };
+        private final Object ordinalBlockLock = new Object();
+        private long nextOrdinal;
+        private long ordinalBlockEnd;
+
+        TableBitmaps(String tableName) {
+            this.tableName = tableName;
+            this.bitmapTableName = BitmapIndex.getBitmapTableName(tableName);
+            for (int i = 0; i < rowLocks.length; i++) {
+                rowLocks[i] = new Object();
+            }
+        }
+
+        /**
+         * @return the lock that orders the changes to a row
+         */
+        Object getRowLock(String rowKey) {
+            return rowLocks[(rowKey.hashCode() & Integer.MAX_VALUE) % rowLocks.length];
+        }
+
+        synchronized void addIndex(BitmapIndex index) {
+            indexes.put(index.getName(), index);
+        }
+
+        synchronized List<BitmapIndex> getIndexes() {
+            return new ArrayList<BitmapIndex>(indexes.values());
+        }
+
+        synchronized BitmapIndex getIndex(String indexName) {
+            BitmapIndex index = indexes.get(indexName);
+            if (index == null) {
+                throw new IllegalArgumentException("No bitmap index named " + indexName + " on table " + tableName);
+            }
+            return index;
+        }
+
+        /**
+         * @return the bitmap of a value, as stored now
+         */
+        CompressedBitmap getBitmap(BitmapIndex index, String encodedValue) {
+            return readBitmap(bitmapKey(index, encodedValue));
+        }
+
+        /**
+         * @return the bitmap of the rows that exist, as stored now
+         */
+        CompressedBitmap getAllOrdinals() {
+            return readBitmap(liveRowsKey());
+        }
+
+        /**
+         * Reads the container rows of a bitmap. Later columns win, for stores that return every version.
+         */
+        private CompressedBitmap readBitmap(CompositeRowKey key) {
+            CompressedBitmap bitmap = new CompressedBitmap();
+            Iterable<Row> containerRows = session.findByRowStartsWith(bitmapTableName, key.toString(), session.createIndexMaintenanceUserContext());
+            for (Row<?> containerRow : containerRows) {
+                CompositeRowKey containerKey = CompositeRowKey.parse(containerRow.getRowKey().toString());
+                int high = containerKey.getInt(containerKey.size() - 1);
+                ColumnFamily members = containerRow.get(COLUMN_FAMILY);
+                if (members == null) {
+                    continue;
+                }
+                for (Column member : members.getColumns()) {
+                    int ordinal = high << 16 | Integer.parseInt(member.getName(), 16);
+                    if (member.getValue().toBoolean()) {
+                        bitmap.add(ordinal);
+                    } else {
+                        bitmap.remove(ordinal);
+                    }
+                }
+            }
+            return bitmap;
+        }
+
+        /**
+         * Writes whether the row of an ordinal is in a bitmap, touching only the ordinal's column
+         */
+        void setMember(CompositeRowKey key, int ordinal, boolean member, FlushFlag flushFlag) {
+            RowKey containerKey = CompositeRowKey.parse(key.toString() + CompositeRowKey.builder().addInt(ordinal >>> 16).build());
+            session.save(createRow(containerKey, String.format("%04x", ordinal & 0xFFFF), member), flushFlag);
+        }
+
+        Integer getOrdinal(String rowKey) {
+            synchronized (this) {
+                Integer ordinal = ordinalCache.get(rowKey);
+                if (ordinal != null) {
+                    return ordinal;
+                }
+            }
+            Row ordinalRow = session.findByRowKey(bitmapTableName, ordinalKey(rowKey).toString(), session.createIndexMaintenanceUserContext());
+            Value value = ordinalRow == null ? null : getValue(ordinalRow, ORDINAL_COLUMN);
+            if (value == null) {
+                return null;
+            }
+            synchronized (this) {
+                ordinalCache.put(rowKey, value.toInteger());
+            }
+            return value.toInteger();
+        }
+
+        /**
+         * Gives a new row the next ordinal of this session's block, writing both mappings with the row's flush
+         * flag. Called holding the row's lock, so this session cannot give the row two ordinals.
+         */
+        int getOrCreateOrdinal(String rowKey, FlushFlag flushFlag) {
+            Integer ordinal = getOrdinal(rowKey);
+            if (ordinal != null) {
+                return ordinal;
+            }
+            int allocated = allocateOrdinal();
+            synchronized (this) {
+                ordinalCache.put(rowKey, allocated);
+            }
+            session.save(createRow(rowKeyKey(allocated), ROW_KEY_COLUMN, rowKey), flushFlag);
+            session.save(createRow(ordinalKey(rowKey), ORDINAL_COLUMN, allocated), flushFlag);
+            return allocated;
+        }
+
+        /**
+         * @return the next ordinal of this session's block, reserving a new block from the table when it runs out
+         */
+        private int allocateOrdinal() {
+            synchronized (ordinalBlockLock) {
+                if (nextOrdinal == ordinalBlockEnd) {
+                    nextOrdinal = session.allocateIds(bitmapTableName, nextOrdinalKey().toString(), COLUMN_FAMILY, NEXT_ORDINAL_COLUMN, ORDINAL_BLOCK_SIZE);
+                    ordinalBlockEnd = nextOrdinal + ORDINAL_BLOCK_SIZE;
+                }
+                if (nextOrdinal > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("The bitmap ordinals of table " + tableName + " are exhausted");
+                }
+                return (int) nextOrdinal++;
+            }
+        }
+
+        private Row<RowKey> createRow(RowKey rowKey, String columnName, Object value) {
+            Row<RowKey> row = new Row<RowKey>(bitmapTableName, rowKey);
+            row.addColumnFamily(new ColumnFamily(COLUMN_FAMILY).set(columnName, value));
+            return row;
+        }
+    }
+}
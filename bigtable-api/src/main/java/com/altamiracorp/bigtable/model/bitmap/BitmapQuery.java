@@ -0,0 +1,161 @@
+package com.altamiracorp.bigtable.model.bitmap;
+
+import com.altamiracorp.bigtable.model.Column;
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A filter over the bitmap indexes of a table, combining equality tests with AND, OR and NOT.
+ * <pre>
+ * BitmapQuery query = BitmapQuery.and(
+ *         BitmapQuery.eq("status", "active"),
+ *         BitmapQuery.in("region", "us-east", "us-west"),
+ *         BitmapQuery.not(BitmapQuery.eq("type", "test")));
+ * session.findByBitmapQuery(tableName, query, user);
+ * </pre>
+ */
+public abstract class BitmapQuery {
+    public static BitmapQuery eq(String indexName, Object value) {
+        return new Equals(indexName, value);
+    }
+
+    /**
+     * @return a query matching rows whose indexed column equals any of the values
+     */
+    public static BitmapQuery in(String indexName, Object... values) {
+        BitmapQuery[] queries = new BitmapQuery[values.length];
+        for (int i = 0; i < values.length; i++) {
+            queries[i] = eq(indexName, values[i]);
+        }
+        return or(queries);
+    }
+
+    public static BitmapQuery and(BitmapQuery... queries) {
+        return new Combination(true, Arrays.asList(queries));
+    }
+
+    public static BitmapQuery or(BitmapQuery... queries) {
+        return new Combination(false, Arrays.asList(queries));
+    }
+
+    public static BitmapQuery not(BitmapQuery query) {
+        return new Not(query);
+    }
+
+    /**
+     * @return the ordinals of the rows matching this query according to the bitmaps
+     */
+    abstract CompressedBitmap evaluate(BitmapIndexes.TableBitmaps bitmaps);
+
+    /**
+     * @return true if the row, as the querying user sees it, matches this query
+     */
+    abstract boolean matches(Row<?> row, BitmapIndexes.TableBitmaps bitmaps);
+
+    private static class Equals extends BitmapQuery {
+        private final String indexName;
+        private final Object value;
+
+        Equals(String indexName, Object value) {
+            this.indexName = indexName;
+            this.value = value;
+        }
+
+        @Override
+        CompressedBitmap evaluate(BitmapIndexes.TableBitmaps bitmaps) {
+            BitmapIndex index = bitmaps.getIndex(indexName);
+            return bitmaps.getBitmap(index, index.getType().encodeQueryValue(value));
+        }
+
+        @Override
+        boolean matches(Row<?> row, BitmapIndexes.TableBitmaps bitmaps) {
+            BitmapIndex index = bitmaps.getIndex(indexName);
+            ColumnFamily columnFamily = row.get(index.getColumnFamilyName());
+            Column column = columnFamily == null ? null : columnFamily.getColumn(index.getColumnName());
+            return column != null && index.getType().encode(column.getValue()).equals(index.getType().encodeQueryValue(value));
+        }
+
+        @Override
+        public String toString() {
+            return indexName + "=" + value;
+        }
+    }
+
+    private static class Combination extends BitmapQuery {
+        private final boolean and;
+        private final List<BitmapQuery> queries;
+
+        Combination(boolean and, List<BitmapQuery> queries) {
+            if (queries.isEmpty()) {
+                throw new IllegalArgumentException("At least one query is required");
+            }
+            this.and = and;
+            this.queries = queries;
+        }
+
+        @Override
+        CompressedBitmap evaluate(BitmapIndexes.TableBitmaps bitmaps) {
+            CompressedBitmap result = null;
+            for (BitmapQuery query : queries) {
+                CompressedBitmap bitmap = query.evaluate(bitmaps);
+                if (result == null) {
+                    result = bitmap;
+                } else {
+                    result = and ? CompressedBitmap.and(result, bitmap) : CompressedBitmap.or(result, bitmap);
+                }
+                if (and && result.isEmpty()) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        boolean matches(Row<?> row, BitmapIndexes.TableBitmaps bitmaps) {
+            for (BitmapQuery query : queries) {
+                if (query.matches(row, bitmaps) != and) {
+                    return !and;
+                }
+            }
+            return and;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder("(");
+            for (int i = 0; i < queries.size(); i++) {
+                if (i > 0) {
+                    result.append(and ? " AND " : " OR ");
+                }
+                result.append(queries.get(i));
+            }
+            return result.append(")").toString();
+        }
+    }
+
+    private static class Not extends BitmapQuery {
+        private final BitmapQuery query;
+
+        Not(BitmapQuery query) {
+            this.query = query;
+        }
+
+        @Override
+        CompressedBitmap evaluate(BitmapIndexes.TableBitmaps bitmaps) {
+            return CompressedBitmap.andNot(bitmaps.getAllOrdinals(), query.evaluate(bitmaps));
+        }
+
+        @Override
+        boolean matches(Row<?> row, BitmapIndexes.TableBitmaps bitmaps) {
+            return !query.matches(row, bitmaps);
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + query;
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package com.altamiracorp.bigtable.model.bitmap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A compressed set of non-negative ints using the roaring layout: ordinals are split by their high 16 bits into
+ * containers, each holding the low 16 bits either as a sorted array, when the container has at most 4096 values,
+ * or as a 65536 bit bitmap. Sparse and dense ranges both stay small, and AND, OR and AND NOT work container by
+ * container.
+ */
+public class CompressedBitmap {
+    private static final int ARRAY_MAX_CARDINALITY = 4096;
+    private static final int BITMAP_WORDS = 1024;
+    private static final byte ARRAY_CONTAINER = 0;
+    private static final byte BITMAP_CONTAINER = 1;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    public CompressedBitmap() {
+        this(4);
+    }
+
+    private CompressedBitmap(int capacity) {
+        keys = new char[capacity];
+        containers = new Container[capacity];
+    }
+
+    /**
+     * @return a bitmap holding every ordinal from start inclusive to end exclusive
+     */
+    public static CompressedBitmap range(int start, int end) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (int high = start >>> 16; start < end && high <= (end - 1) >>> 16; high++) {
+            int containerStart = Math.max(start, high << 16) & 0xffff;
+            int containerEnd = Math.min(end - 1, (high << 16) | 0xffff) & 0xffff;
+            long[] bits = new long[BITMAP_WORDS];
+            for (int word = containerStart >>> 6; word <= containerEnd >>> 6; word++) {
+                long mask = -1L;
+                if (word == containerStart >>> 6) {
+                    mask &= -1L << containerStart;
+                }
+                if (word == containerEnd >>> 6) {
+                    mask &= -1L >>> (63 - (containerEnd & 63));
+                }
+                bits[word] = mask;
+            }
+            result.append((char) high, Container.fromBits(bits));
+        }
+        return result;
+    }
+
+    public void add(int ordinal) {
+        checkOrdinal(ordinal);
+        char high = (char) (ordinal >>> 16);
+        int index = findContainer(high);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, high, new Container());
+        }
+        containers[index].add((char) ordinal);
+    }
+
+    public void remove(int ordinal) {
+        checkOrdinal(ordinal);
+        int index = findContainer((char) (ordinal >>> 16));
+        if (index < 0) {
+            return;
+        }
+        containers[index].remove((char) ordinal);
+        if (containers[index].cardinality == 0) {
+            removeContainer(index);
+        }
+    }
+
+    public boolean contains(int ordinal) {
+        if (ordinal < 0) {
+            return false;
+        }
+        int index = findContainer((char) (ordinal >>> 16));
+        return index >= 0 && containers[index].contains((char) ordinal);
+    }
+
+    public int getCardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the ordinals in ascending order
+     */
+    public int[] toArray() {
+        int[] result = new int[getCardinality()];
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            offset = containers[i].copyTo(result, offset, keys[i] << 16);
+        }
+        return result;
+    }
+
+    public CompressedBitmap copy() {
+        CompressedBitmap result = new CompressedBitmap(Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            result.append(keys[i], containers[i].copy());
+        }
+        return result;
+    }
+
+    public static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(Math.min(a.size, b.size), 1));
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container container = a.containers[i].and(b.containers[j]);
+                if (container.cardinality > 0) {
+                    result.append(a.keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(a.size + b.size, 1));
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.append(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i >= a.size || a.keys[i] > b.keys[j]) {
+                result.append(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                result.append(a.keys[i], a.containers[i].or(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the ordinals of a which are not in b
+     */
+    public static CompressedBitmap andNot(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(a.size, 1));
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            Container container = j < b.size && b.keys[j] == a.keys[i] ? a.containers[i].andNot(b.containers[j]) : a.containers[i].copy();
+            if (container.cardinality > 0) {
+                result.append(a.keys[i], container);
+            }
+        }
+        return result;
+    }
+
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                Container container = containers[i];
+                out.writeChar(keys[i]);
+                out.writeInt(container.cardinality);
+                if (container.bits != null) {
+                    out.writeByte(BITMAP_CONTAINER);
+                    for (long word : container.bits) {
+                        out.writeLong(word);
+                    }
+                } else {
+                    out.writeByte(ARRAY_CONTAINER);
+                    for (int k = 0; k < container.cardinality; k++) {
+                        out.writeChar(container.array[k]);
+                    }
+                }
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static CompressedBitmap fromBytes(byte[] data) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            int size = in.readInt();
+            CompressedBitmap result = new CompressedBitmap(Math.max(size, 1));
+            for (int i = 0; i < size; i++) {
+                char key = in.readChar();
+                Container container = new Container();
+                container.cardinality = in.readInt();
+                byte type = in.readByte();
+                if (type == BITMAP_CONTAINER) {
+                    container.array = null;
+                    container.bits = new long[BITMAP_WORDS];
+                    for (int k = 0; k < BITMAP_WORDS; k++) {
+                        container.bits[k] = in.readLong();
+                    }
+                } else if (type == ARRAY_CONTAINER) {
+                    container.array = new char[Math.max(container.cardinality, 4)];
+                    for (int k = 0; k < container.cardinality; k++) {
+                        container.array[k] = in.readChar();
+                    }
+                } else {
+                    throw new RuntimeException("Unknown bitmap container type: " + type);
+                }
+                result.append(key, container);
+            }
+            return result;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read bitmap", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CompressedBitmap)) {
+            return false;
+        }
+        return Arrays.equals(toArray(), ((CompressedBitmap) o).toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return "CompressedBitmap{cardinality=" + getCardinality() + ", containers=" + size + "}";
+    }
+
+    private static void checkOrdinal(int ordinal) {
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("Ordinals must not be negative: " + ordinal);
+        }
+    }
+
+    private int findContainer(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        ensureCapacity(size + 1);
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    /**
+     * Adds a container after every existing one
+     */
+    private void append(char key, Container container) {
+        ensureCapacity(size + 1);
+        keys[size] = key;
+        containers[size] = container;
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newCapacity = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, newCapacity);
+            containers = Arrays.copyOf(containers, newCapacity);
+        }
+    }
+
+    /**
+     * The low 16 bits of the ordinals sharing the same high 16 bits. Exactly one of array and bits is set.
+     */
+    private static class Container {
+        private char[] array = new char[4];
+        private long[] bits;
+        private int cardinality;
+
+        static Container fromBits(long[] bits) {
+            Container container = new Container();
+            int cardinality = 0;
+            for (long word : bits) {
+                cardinality += Long.bitCount(word);
+            }
+            container.cardinality = cardinality;
+            if (cardinality > ARRAY_MAX_CARDINALITY) {
+                container.array = null;
+                container.bits = bits;
+            } else {
+                container.array = new char[Math.max(cardinality, 4)];
+                int offset = 0;
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    long remaining = bits[word];
+                    while (remaining != 0) {
+                        container.array[offset++] = (char) ((word << 6) + Long.numberOfTrailingZeros(remaining));
+                        remaining &= remaining - 1;
+                    }
+                }
+            }
+            return container;
+        }
+
+        void add(char value) {
+            if (bits != null) {
+                long mask = 1L << value;
+                if ((bits[value >>> 6] & mask) == 0) {
+                    bits[value >>> 6] |= mask;
+                    cardinality++;
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(array, 0, cardinality, value);
+            if (index >= 0) {
+                return;
+            }
+            if (cardinality == ARRAY_MAX_CARDINALITY) {
+                bits = toBits();
+                array = null;
+                add(value);
+                return;
+            }
+            index = -index - 1;
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(array.length * 2, ARRAY_MAX_CARDINALITY));
+            }
+            System.arraycopy(array, index, array, index + 1, cardinality - index);
+            array[index] = value;
+            cardinality++;
+        }
+
+        void remove(char value) {
+            if (bits != null) {
+                long mask = 1L << value;
+                if ((bits[value >>> 6] & mask) != 0) {
+                    bits[value >>> 6] &= ~mask;
+                    cardinality--;
+                    if (cardinality <= ARRAY_MAX_CARDINALITY) {
+                        Container converted = fromBits(bits);
+                        array = converted.array;
+                        bits = converted.bits;
+                    }
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(array, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(array, index + 1, array, index, cardinality - index - 1);
+                cardinality--;
+            }
+        }
+
+        boolean contains(char value) {
+            if (bits != null) {
+                return (bits[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(array, 0, cardinality, value) >= 0;
+        }
+
+        long[] toBits() {
+            if (bits != null) {
+                return bits.clone();
+            }
+            long[] result = new long[BITMAP_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                result[array[i] >>> 6] |= 1L << array[i];
+            }
+            return result;
+        }
+
+        Container copy() {
+            Container container = new Container();
+            container.cardinality = cardinality;
+            container.array = array == null ? null : array.clone();
+            container.bits = bits == null ? null : bits.clone();
+            return container;
+        }
+
+        Container and(Container other) {
+            if (bits == null || other.bits == null) {
+                Container arrayContainer = bits == null ? this : other;
+                Container otherContainer = bits == null ? other : this;
+                Container result = new Container();
+                result.array = new char[Math.max(arrayContainer.cardinality, 4)];
+                for (int i = 0; i < arrayContainer.cardinality; i++) {
+                    if (otherContainer.contains(arrayContainer.array[i])) {
+                        result.array[result.cardinality++] = arrayContainer.array[i];
+                    }
+                }
+                return result;
+            }
+            long[] result = new long[BITMAP_WORDS];
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result[i] = bits[i] & other.bits[i];
+            }
+            return fromBits(result);
+        }
+
+        Container or(Container other) {
+            if (bits == null && other.bits == null && cardinality + other.cardinality <= ARRAY_MAX_CARDINALITY) {
+                Container result = new Container();
+                result.array = new char[Math.max(cardinality + other.cardinality, 4)];
+                int i = 0;
+                int j = 0;
+                while (i < cardinality || j < other.cardinality) {
+                    char value;
+                    if (j >= other.cardinality || (i < cardinality && array[i] < other.array[j])) {
+                        value = array[i++];
+                    } else if (i >= cardinality || array[i] > other.array[j]) {
+                        value = other.array[j++];
+                    } else {
+                        value = array[i++];
+                        j++;
+                    }
+                    result.array[result.cardinality++] = value;
+                }
+                return result;
+            }
+            long[] result = toBits();
+            if (other.bits != null) {
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    result[i] |= other.bits[i];
+                }
+            } else {
+                for (int i = 0; i < other.cardinality; i++) {
+                    result[other.array[i] >>> 6] |= 1L << other.array[i];
+                }
+            }
+            return fromBits(result);
+        }
+
+        Container andNot(Container other) {
+            if (bits == null) {
+                Container result = new Container();
+                result.array = new char[Math.max(cardinality, 4)];
+                for (int i = 0; i < cardinality; i++) {
+                    if (!other.contains(array[i])) {
+                        result.array[result.cardinality++] = array[i];
+                    }
+                }
+                return result;
+            }
+            long[] result = bits.clone();
+            if (other.bits != null) {
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    result[i] &= ~other.bits[i];
+                }
+            } else {
+                for (int i = 0; i < other.cardinality; i++) {
+                    result[other.array[i] >>> 6] &= ~(1L << other.array[i]);
+                }
+            }
+            return fromBits(result);
+        }
+
+        int copyTo(int[] target, int offset, int high) {
+            if (bits == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    target[offset++] = high | array[i];
+                }
+                return offset;
+            }
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long remaining = bits[word];
+                while (remaining != 0) {
+                    target[offset++] = high | ((word << 6) + Long.numberOfTrailingZeros(remaining));
+                    remaining &= remaining - 1;
+                }
+            }
+            return offset;
+        }
+    }
+}
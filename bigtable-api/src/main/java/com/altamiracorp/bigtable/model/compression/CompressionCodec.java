@@ -0,0 +1,113 @@
+package com.altamiracorp.bigtable.model.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codecs for compressed values. Compressed values start with a header holding a magic number, the codec id and
+ * the uncompressed length, so they can be recognised and decompressed without knowing how they were written.
+ * The header is longer than any encoded number or boolean, so those are never mistaken for compressed values.
+ */
+public enum CompressionCodec {
+    /**
+     * Deflate at its fastest level, for values read and written often
+     */
+    FAST((byte) 1, Deflater.BEST_SPEED),
+    /**
+     * Deflate at its best compression level, for large values which are rarely read
+     */
+    DEFLATE((byte) 2, Deflater.BEST_COMPRESSION);
+
+    private static final byte[] MAGIC = new byte[]{0, 'B', 'T', 'Z'};
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + 4;
+
+    private final byte id;
+    private final int level;
+
+    CompressionCodec(byte id, int level) {
+        this.id = id;
+        this.level = level;
+    }
+
+    public static CompressionCodec parse(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+
+    /**
+     * @return the header followed by the compressed data
+     */
+    public byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_LENGTH + data.length / 2 + 16);
+            out.write(MAGIC, 0, MAGIC.length);
+            out.write(id);
+            out.write(ByteBuffer.allocate(4).putInt(data.length).array(), 0, 4);
+            byte[] buffer = new byte[Math.min(Math.max(data.length, 64), 64 * 1024)];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static boolean isCompressed(byte[] data) {
+        if (data == null || data.length < HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return findById(data[MAGIC.length]) != null;
+    }
+
+    /**
+     * @param data a value starting with a compression header
+     * @return the uncompressed value
+     */
+    public static byte[] decompress(byte[] data) {
+        if (!isCompressed(data)) {
+            throw new IllegalArgumentException("Value does not start with a compression header");
+        }
+        int length = ByteBuffer.wrap(data, MAGIC.length + 1, 4).getInt();
+        byte[] result = new byte[length];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+            int offset = 0;
+            while (offset < length) {
+                int count = inflater.inflate(result, offset, length - offset);
+                if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                offset += count;
+            }
+            if (offset != length) {
+                throw new RuntimeException("Compressed value is truncated. Expected " + length + " bytes found " + offset);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new RuntimeException("Could not decompress value", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static CompressionCodec findById(byte id) {
+        for (CompressionCodec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+        return null;
+    }
+}
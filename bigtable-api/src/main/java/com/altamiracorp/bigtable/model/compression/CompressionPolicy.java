@@ -0,0 +1,123 @@
+package com.altamiracorp.bigtable.model.compression;
+
+import com.altamiracorp.bigtable.model.Column;
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the column families and columns whose values are compressed when written. A codec set for a column
+ * overrides the codec of its family. Values smaller than the minimum size, or which do not get smaller, are
+ * written as they are. Values read back are only recognised as compressed in the columns the policy selects, so
+ * a column should be removed from the policy only once its compressed values have been rewritten.
+ * <pre>
+ * session.getCompressionPolicy()
+ *         .compressFamily("content", CompressionCodec.DEFLATE)
+ *         .compressColumn("metadata", "json", CompressionCodec.FAST);
+ * </pre>
+ */
+public class CompressionPolicy {
+    public static final int DEFAULT_MINIMUM_SIZE = 1024;
+    private static final String COLUMN_SEPARATOR = ":";
+
+    private final Map<String, CompressionCodec> familyCodecs = new ConcurrentHashMap<String, CompressionCodec>();
+    private final Map<String, Map<String, CompressionCodec>> columnCodecs = new ConcurrentHashMap<String, Map<String, CompressionCodec>>();
+    private volatile int minimumSize = DEFAULT_MINIMUM_SIZE;
+
+    /**
+     * Parses a comma separated list of family=codec or family:column=codec entries, e.g.
+     * "content=deflate,metadata:json=fast"
+     */
+    public static CompressionPolicy parse(String columns) {
+        CompressionPolicy policy = new CompressionPolicy();
+        for (String entry : columns.split(",")) {
+            if (entry.trim().length() == 0) {
+                continue;
+            }
+            int equals = entry.lastIndexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected family=codec or family:column=codec, found: " + entry);
+            }
+            String name = entry.substring(0, equals).trim();
+            CompressionCodec codec = CompressionCodec.parse(entry.substring(equals + 1));
+            int separator = name.indexOf(COLUMN_SEPARATOR);
+            if (separator < 0) {
+                policy.compressFamily(name, codec);
+            } else {
+                policy.compressColumn(name.substring(0, separator), name.substring(separator + 1), codec);
+            }
+        }
+        return policy;
+    }
+
+    public CompressionPolicy compressFamily(String columnFamilyName, CompressionCodec codec) {
+        familyCodecs.put(columnFamilyName, codec);
+        return this;
+    }
+
+    public CompressionPolicy compressColumn(String columnFamilyName, String columnName, CompressionCodec codec) {
+        Map<String, CompressionCodec> columns = columnCodecs.get(columnFamilyName);
+        if (columns == null) {
+            columns = new ConcurrentHashMap<String, CompressionCodec>();
+            columnCodecs.put(columnFamilyName, columns);
+        }
+        columns.put(columnName, codec);
+        return this;
+    }
+
+    public int getMinimumSize() {
+        return minimumSize;
+    }
+
+    /**
+     * @param minimumSize values smaller than this many bytes are never compressed
+     */
+    public CompressionPolicy setMinimumSize(int minimumSize) {
+        this.minimumSize = minimumSize;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return familyCodecs.isEmpty() && columnCodecs.isEmpty();
+    }
+
+    /**
+     * @return the codec for the column or null if it is not compressed
+     */
+    public CompressionCodec getCodec(String columnFamilyName, String columnName) {
+        Map<String, CompressionCodec> columns = columnCodecs.get(columnFamilyName);
+        if (columns != null) {
+            CompressionCodec codec = columns.get(columnName);
+            if (codec != null) {
+                return codec;
+            }
+        }
+        return familyCodecs.get(columnFamilyName);
+    }
+
+    /**
+     * Compresses the values of the dirty columns of the row which this policy selects. Values keep their
+     * uncompressed bytes, only the bytes written to the store change.
+     *
+     * @param row
+     */
+    public void apply(Row<?> row) {
+        if (isEmpty()) {
+            return;
+        }
+        for (ColumnFamily columnFamily : row.getColumnFamilies()) {
+            for (Column column : columnFamily.getColumns()) {
+                if (!column.isDirty() || column.isDelete() || column.getValue() == null) {
+                    continue;
+                }
+                CompressionCodec codec = getCodec(columnFamily.getColumnFamilyName(), column.getName());
+                if (codec != null && column.getValue().toBytes().length >= minimumSize) {
+                    column.getValue().compress(codec);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.altamiracorp.bigtable.model.index;
+
+import com.altamiracorp.bigtable.model.Value;
+import com.altamiracorp.bigtable.model.key.KeyEncoding;
+
+/**
+ * How the values of an indexed column are interpreted. The index sorts by the order preserving encoding of the
+ * type, so range queries on LONG and DOUBLE indexes follow numeric order.
+ */
+public enum IndexType {
+    STRING {
+        @Override
+        public String encode(Value value) {
+            return KeyEncoding.encodeString(value.toString());
+        }
+
+        @Override
+        public String encodeQueryValue(Object value) {
+            return KeyEncoding.encodeString(value.toString());
+        }
+    },
+    LONG {
+        @Override
+        public String encode(Value value) {
+            return KeyEncoding.encodeLong(value.toBytes().length == 4 ? value.toInteger() : value.toLong());
+        }
+
+        @Override
+        public String encodeQueryValue(Object value) {
+            return KeyEncoding.encodeLong(((Number) value).longValue());
+        }
+    },
+    DOUBLE {
+        @Override
+        public String encode(Value value) {
+            return KeyEncoding.encodeDouble(value.toDouble());
+        }
+
+        @Override
+        public String encodeQueryValue(Object value) {
+            return KeyEncoding.encodeDouble(((Number) value).doubleValue());
+        }
+    };
+
+    /**
+     * @return the encoded form of a stored column value
+     */
+    public abstract String encode(Value value);
+
+    /**
+     * @return the encoded form of a value passed to a query
+     */
+    public abstract String encodeQueryValue(Object value);
+}
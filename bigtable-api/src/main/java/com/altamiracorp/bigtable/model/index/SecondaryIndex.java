@@ -0,0 +1,56 @@
+package com.altamiracorp.bigtable.model.index;
+
+/**
+ * Declares an index on one column of a table. The index is kept in its own table, with a row per indexed value
+ * and base row whose key is the encoded value followed by the base row key.
+ */
+public class SecondaryIndex {
+    private static final String INDEX_TABLE_SEPARATOR = "_index_";
+
+    private final String name;
+    private final String tableName;
+    private final String columnFamilyName;
+    private final String columnName;
+    private final IndexType type;
+
+    public SecondaryIndex(String name, String tableName, String columnFamilyName, String columnName) {
+        this(name, tableName, columnFamilyName, columnName, IndexType.STRING);
+    }
+
+    public SecondaryIndex(String name, String tableName, String columnFamilyName, String columnName, IndexType type) {
+        this.name = name;
+        this.tableName = tableName;
+        this.columnFamilyName = columnFamilyName;
+        this.columnName = columnName;
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getColumnFamilyName() {
+        return columnFamilyName;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public IndexType getType() {
+        return type;
+    }
+
+    public String getIndexTableName() {
+        return tableName + INDEX_TABLE_SEPARATOR + name;
+    }
+
+    @Override
+    public String toString() {
+        return "SecondaryIndex{name=" + name + ", tableName=" + tableName + ", column=" + columnFamilyName + ":" + columnName + ", type=" + type + "}";
+    }
+}
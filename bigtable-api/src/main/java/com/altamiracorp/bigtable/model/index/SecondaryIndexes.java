@@ -0,0 +1,238 @@
+package com.altamiracorp.bigtable.model.index;
+
+import com.altamiracorp.bigtable.model.Column;
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.FlushFlag;
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.key.CompositeRowKey;
+import com.altamiracorp.bigtable.model.key.KeyRange;
+import com.altamiracorp.bigtable.model.user.ModelUserContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The indexes declared on a session, and their maintenance. Index entries are written through the session
+ * before the base row, carrying the visibility of the indexed column. The previous value of the column is read
+ * with {@link ModelSession#createIndexMaintenanceUserContext()} so that its entry can be deleted. Entries are
+ * deleted by saving the entry row with its column marked deleted, so the delete goes through the index table's
+ * writer with the flush flag of the base row.
+ * <p/>
+ * Index and base tables are not updated atomically, so queries fetch the base rows and drop those whose current
+ * value no longer matches.
+ */
+public class SecondaryIndexes {
+    public static final String INDEX_COLUMN_FAMILY = "index";
+    public static final String ROW_KEY_COLUMN = "rowKey";
+
+    private final ModelSession session;
+    private final Map<String, List<SecondaryIndex>> indexesByTable = new ConcurrentHashMap<String, List<SecondaryIndex>>();
+
+    public SecondaryIndexes(ModelSession session) {
+        this.session = session;
+    }
+
+    public synchronized void add(SecondaryIndex index) {
+        List<SecondaryIndex> indexes = indexesByTable.get(index.getTableName());
+        if (indexes == null) {
+            indexes = new CopyOnWriteArrayList<SecondaryIndex>();
+            indexesByTable.put(index.getTableName(), indexes);
+        }
+        for (SecondaryIndex existing : indexes) {
+            if (existing.getName().equals(index.getName())) {
+                indexes.remove(existing);
+            }
+        }
+        indexes.add(index);
+    }
+
+    public List<SecondaryIndex> getIndexes(String tableName) {
+        List<SecondaryIndex> indexes = indexesByTable.get(tableName);
+        if (indexes == null) {
+            return Collections.emptyList();
+        }
+        return indexes;
+    }
+
+    public SecondaryIndex getIndex(String tableName, String indexName) {
+        for (SecondaryIndex index : getIndexes(tableName)) {
+            if (index.getName().equals(indexName)) {
+                return index;
+            }
+        }
+        throw new IllegalArgumentException("No index named " + indexName + " on table " + tableName);
+    }
+
+    /**
+     * Writes the index entries for the dirty indexed columns of a row about to be saved, deleting the entries of
+     * the values they replace and of the indexed columns the row deletes
+     *
+     * @param row
+     * @param flushFlag
+     */
+    public void update(Row<?> row, FlushFlag flushFlag) {
+        List<SecondaryIndex> indexes = getIndexes(row.getTableName());
+        if (indexes.isEmpty()) {
+            return;
+        }
+        Map<SecondaryIndex, Column> changedColumns = new HashMap<SecondaryIndex, Column>();
+        for (SecondaryIndex index : indexes) {
+            Column column = getColumn(row, index);
+            if (column != null && (column.isDirty() || column.isDelete())) {
+                changedColumns.put(index, column);
+            }
+        }
+        if (changedColumns.isEmpty()) {
+            return;
+        }
+
+        Row<?> previous = findIndexedColumns(row.getTableName(), row.getRowKey(), changedColumns.keySet());
+        String rowKey = row.getRowKey().toString();
+        for (Map.Entry<SecondaryIndex, Column> changedColumn : changedColumns.entrySet()) {
+            SecondaryIndex index = changedColumn.getKey();
+            Column previousColumn = previous == null ? null : getColumn(previous, index);
+            if (changedColumn.getValue().isDelete()) {
+                if (previousColumn != null) {
+                    deleteEntry(index, previousColumn, rowKey, flushFlag);
+                }
+                continue;
+            }
+            String encodedValue = index.getType().encode(changedColumn.getValue().getValue());
+            if (previousColumn != null && !index.getType().encode(previousColumn.getValue()).equals(encodedValue)) {
+                deleteEntry(index, previousColumn, rowKey, flushFlag);
+            }
+            session.save(createEntry(index, encodedValue, rowKey, changedColumn.getValue().getVisibility()), flushFlag);
+        }
+    }
+
+    /**
+     * Deletes the index entries of a row about to be deleted
+     */
+    public void deleteRow(String tableName, RowKey rowKey) {
+        List<SecondaryIndex> indexes = getIndexes(tableName);
+        if (indexes.isEmpty()) {
+            return;
+        }
+        deleteEntries(tableName, rowKey, indexes);
+    }
+
+    /**
+     * Deletes the index entries of a column about to be deleted
+     */
+    public void deleteColumn(String tableName, RowKey rowKey, String columnFamilyName, String columnName) {
+        List<SecondaryIndex> indexes = new ArrayList<SecondaryIndex>();
+        for (SecondaryIndex index : getIndexes(tableName)) {
+            if (index.getColumnFamilyName().equals(columnFamilyName) && index.getColumnName().equals(columnName)) {
+                indexes.add(index);
+            }
+        }
+        if (indexes.isEmpty()) {
+            return;
+        }
+        deleteEntries(tableName, rowKey, indexes);
+    }
+
+    private void deleteEntries(String tableName, RowKey rowKey, Iterable<SecondaryIndex> indexes) {
+        Row<?> previous = findIndexedColumns(tableName, rowKey, indexes);
+        if (previous == null) {
+            return;
+        }
+        for (SecondaryIndex index : indexes) {
+            Column column = getColumn(previous, index);
+            if (column != null) {
+                deleteEntry(index, column, rowKey.toString(), FlushFlag.DEFAULT);
+            }
+        }
+    }
+
+    /**
+     * @param indexedColumn the current value of the indexed column, whose visibility the entry carries
+     */
+    private void deleteEntry(SecondaryIndex index, Column indexedColumn, String rowKey, FlushFlag flushFlag) {
+        String encodedValue = index.getType().encode(indexedColumn.getValue());
+        Row<RowKey> entry = createEntry(index, encodedValue, rowKey, indexedColumn.getVisibility());
+        entry.get(INDEX_COLUMN_FAMILY).getColumn(ROW_KEY_COLUMN).setDelete(true);
+        session.save(entry, flushFlag);
+    }
+
+    /**
+     * @return the rows whose indexed column equals the value, in index order
+     */
+    public List<Row> find(String tableName, String indexName, Object value, ModelUserContext user) {
+        SecondaryIndex index = getIndex(tableName, indexName);
+        String encodedValue = index.getType().encodeQueryValue(value);
+        KeyRange range = KeyRange.prefix(CompositeRowKey.builder().addEncoded(encodedValue).build());
+        return find(index, range, encodedValue, encodedValue, true, user);
+    }
+
+    /**
+     * @return the rows whose indexed column is between low inclusive and high exclusive, in index order
+     */
+    public List<Row> findRange(String tableName, String indexName, Object low, Object high, ModelUserContext user) {
+        SecondaryIndex index = getIndex(tableName, indexName);
+        String encodedLow = index.getType().encodeQueryValue(low);
+        String encodedHigh = index.getType().encodeQueryValue(high);
+        return find(index, new KeyRange(encodedLow, encodedHigh), encodedLow, encodedHigh, false, user);
+    }
+
+    private List<Row> find(SecondaryIndex index, KeyRange range, String encodedLow, String encodedHigh, boolean exact, ModelUserContext user) {
+        Set<String> rowKeys = new LinkedHashSet<String>();
+        for (Row entry : session.findByRowKeyRange(index.getIndexTableName(), range.getStart(), range.getEnd(), user)) {
+            rowKeys.add(CompositeRowKey.parse(entry.getRowKey().toString()).getString(1));
+        }
+        List<Row> results = new ArrayList<Row>();
+        for (Row row : session.findByRowKeys(index.getTableName(), rowKeys, user)) {
+            Column column = getColumn(row, index);
+            if (column == null) {
+                continue;
+            }
+            String encodedValue = index.getType().encode(column.getValue());
+            boolean matches = exact
+                    ? encodedValue.equals(encodedLow)
+                    : encodedValue.compareTo(encodedLow) >= 0 && encodedValue.compareTo(encodedHigh) < 0;
+            if (matches) {
+                results.add(row);
+            }
+        }
+        return results;
+    }
+
+    private Row<?> findIndexedColumns(String tableName, RowKey rowKey, Iterable<SecondaryIndex> indexes) {
+        Map<String, String> columnsToReturn = new HashMap<String, String>();
+        for (SecondaryIndex index : indexes) {
+            String existing = columnsToReturn.get(index.getColumnFamilyName());
+            boolean otherColumn = existing != null && !existing.equals(index.getColumnName());
+            columnsToReturn.put(index.getColumnFamilyName(), otherColumn ? "*" : index.getColumnName());
+        }
+        return session.findByRowKey(tableName, rowKey.toString(), columnsToReturn, session.createIndexMaintenanceUserContext());
+    }
+
+    private static Column getColumn(Row<?> row, SecondaryIndex index) {
+        ColumnFamily columnFamily = row.get(index.getColumnFamilyName());
+        if (columnFamily == null) {
+            return null;
+        }
+        return columnFamily.getColumn(index.getColumnName());
+    }
+
+    private static RowKey createEntryKey(String encodedValue, String rowKey) {
+        return CompositeRowKey.builder().addEncoded(encodedValue).add(rowKey).build();
+    }
+
+    private static Row<RowKey> createEntry(SecondaryIndex index, String encodedValue, String rowKey, String visibility) {
+        Row<RowKey> entry = new Row<RowKey>(index.getIndexTableName(), createEntryKey(encodedValue, rowKey));
+        ColumnFamily columnFamily = new ColumnFamily(INDEX_COLUMN_FAMILY);
+        columnFamily.set(ROW_KEY_COLUMN, rowKey, visibility);
+        entry.addColumnFamily(columnFamily);
+        return entry;
+    }
+}
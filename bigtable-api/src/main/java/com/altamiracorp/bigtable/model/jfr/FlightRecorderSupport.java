@@ -0,0 +1,27 @@
+package com.altamiracorp.bigtable.model.jfr;
+
+/**
+ * Guards the Flight Recorder events in this package. The jdk.jfr API is only present on Java 8u262 and
+ * later, so event classes must not be touched unless {@link #isAvailable()} returns true.
+ */
+public final class FlightRecorderSupport {
+    private static final boolean AVAILABLE = detect();
+
+    private FlightRecorderSupport() {
+    }
+
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    private static boolean detect() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
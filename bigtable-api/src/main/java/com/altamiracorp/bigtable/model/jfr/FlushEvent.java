@@ -0,0 +1,19 @@
+package com.altamiracorp.bigtable.model.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.altamiracorp.bigtable.Flush")
+@Label("BigTable Flush")
+@Category({"BigTable", "Storage"})
+@Description("A batch writer flush or close, waiting for buffered mutations to be written")
+public class FlushEvent extends Event {
+    @Label("Table")
+    public String tableName;
+
+    @Label("Close")
+    public boolean close;
+}
@@ -0,0 +1,25 @@
+package com.altamiracorp.bigtable.model.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.altamiracorp.bigtable.Repository")
+@Label("BigTable Repository Call")
+@Category({"BigTable", "Repository"})
+@Description("A Repository read, write or delete, including model conversion")
+public class RepositoryEvent extends Event {
+    @Label("Repository")
+    public String repository;
+
+    @Label("Table")
+    public String tableName;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Rows")
+    public long rows;
+}
@@ -0,0 +1,36 @@
+package com.altamiracorp.bigtable.model.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A read from the underlying store, from the start of the scan until its last row was read
+ */
+@Name("com.altamiracorp.bigtable.Scan")
+@Label("BigTable Scan")
+@Category({"BigTable", "Storage"})
+@Description("A row key, range, prefix or regex query")
+public class ScanEvent extends Event {
+    @Label("Table")
+    public String tableName;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Query")
+    public String query;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Cells")
+    public long cells;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
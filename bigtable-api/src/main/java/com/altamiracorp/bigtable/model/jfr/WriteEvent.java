@@ -0,0 +1,27 @@
+package com.altamiracorp.bigtable.model.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A mutation handed to a batch writer. The duration includes any time spent waiting for buffer space.
+ */
+@Name("com.altamiracorp.bigtable.Write")
+@Label("BigTable Write")
+@Category({"BigTable", "Storage"})
+@Description("A row mutation added to a batch writer")
+public class WriteEvent extends Event {
+    @Label("Table")
+    public String tableName;
+
+    @Label("Column Updates")
+    public int updates;
+
+    @Label("Mutation Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,21 @@
+package com.altamiracorp.bigtable.model.join;
+
+/**
+ * Which row keys a {@link MergeJoin} returns
+ */
+public enum JoinType {
+    /**
+     * Row keys found in both tables
+     */
+    INNER,
+
+    /**
+     * Row keys found in the left table, with the right row when there is one
+     */
+    LEFT,
+
+    /**
+     * Row keys found in either table
+     */
+    FULL
+}
@@ -0,0 +1,36 @@
+package com.altamiracorp.bigtable.model.join;
+
+import com.altamiracorp.bigtable.model.Row;
+
+/**
+ * The rows of two tables that share a row key. Either side is null when the join type keeps row keys that only
+ * one of the tables has.
+ */
+public class JoinedRow {
+    private final String rowKey;
+    private final Row left;
+    private final Row right;
+
+    public JoinedRow(String rowKey, Row left, Row right) {
+        this.rowKey = rowKey;
+        this.left = left;
+        this.right = right;
+    }
+
+    public String getRowKey() {
+        return rowKey;
+    }
+
+    public Row getLeft() {
+        return left;
+    }
+
+    public Row getRight() {
+        return right;
+    }
+
+    @Override
+    public String toString() {
+        return "JoinedRow{rowKey=" + rowKey + ", left=" + (left != null) + ", right=" + (right != null) + "}";
+    }
+}
@@ -0,0 +1,190 @@
+package com.altamiracorp.bigtable.model.join;
+
+import com.altamiracorp.bigtable.model.PrefetchingIterable;
+import com.altamiracorp.bigtable.model.Row;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Joins two scans sorted by row key by walking them side by side, holding only the current row of each. Each side
+ * is read on its own background thread, so the two scans run concurrently.
+ * <p/>
+ * Row keys are compared by code point, the order of their UTF-8 bytes in the table. Consumers that stop early
+ * should close the iterator to stop the background scans.
+ */
+public class MergeJoin implements Iterable<JoinedRow> {
+    private final Iterable<Row> left;
+    private final Iterable<Row> right;
+    private final JoinType joinType;
+    private final int prefetchDepth;
+
+    /**
+     * @param left          rows sorted by row key
+     * @param right         rows sorted by row key
+     * @param joinType
+     * @param prefetchDepth the number of rows each side reads ahead
+     */
+    public MergeJoin(Iterable<Row> left, Iterable<Row> right, JoinType joinType, int prefetchDepth) {
+        this.left = left;
+        this.right = right;
+        this.joinType = joinType;
+        this.prefetchDepth = prefetchDepth;
+    }
+
+    @Override
+    public MergeJoinIterator iterator() {
+        return new MergeJoinIterator(prefetch(left).iterator(), prefetch(right).iterator(), joinType);
+    }
+
+    private Iterable<Row> prefetch(Iterable<Row> rows) {
+        if (rows instanceof PrefetchingIterable) {
+            return rows;
+        }
+        return new PrefetchingIterable<Row>(rows, prefetchDepth);
+    }
+
+    /**
+     * Compares row keys by code point, which unlike {@link String#compareTo} agrees with the byte order of their
+     * UTF-8 encoding for characters outside the basic multilingual plane
+     */
+    public static int compareRowKeys(String rowKey1, String rowKey2) {
+        int length = Math.min(rowKey1.length(), rowKey2.length());
+        for (int i = 0; i < length; i++) {
+            char c1 = rowKey1.charAt(i);
+            char c2 = rowKey2.charAt(i);
+            if (c1 == c2) {
+                continue;
+            }
+            if (isSurrogate(c1) || isSurrogate(c2)) {
+                return rowKey1.codePointAt(i) - rowKey2.codePointAt(i);
+            }
+            return c1 - c2;
+        }
+        return rowKey1.length() - rowKey2.length();
+    }
+
+    private static boolean isSurrogate(char c) {
+        return Character.isHighSurrogate(c) || Character.isLowSurrogate(c);
+    }
+
+    public static class MergeJoinIterator implements Iterator<JoinedRow>, Closeable {
+        private final Iterator<Row> left;
+        private final Iterator<Row> right;
+        private final JoinType joinType;
+        private Row leftRow;
+        private Row rightRow;
+        private JoinedRow next;
+
+        private MergeJoinIterator(Iterator<Row> left, Iterator<Row> right, JoinType joinType) {
+            this.left = left;
+            this.right = right;
+            this.joinType = joinType;
+            this.leftRow = nextOrNull(left);
+            this.rightRow = nextOrNull(right);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && (leftRow != null || rightRow != null)) {
+                next = advance();
+            }
+            if (next == null) {
+                close();
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Consumes the smaller current row, or both when their keys are equal
+         *
+         * @return the joined row to return, or null if the join type drops it
+         */
+        private JoinedRow advance() {
+            if (rightRow == null) {
+                if (joinType == JoinType.INNER) {
+                    leftRow = null;
+                    return null;
+                }
+                return consumeLeft();
+            }
+            if (leftRow == null) {
+                if (joinType != JoinType.FULL) {
+                    rightRow = null;
+                    return null;
+                }
+                return consumeRight();
+            }
+            String leftKey = leftRow.getRowKey().toString();
+            int comparison = compareRowKeys(leftKey, rightRow.getRowKey().toString());
+            if (comparison == 0) {
+                JoinedRow joinedRow = new JoinedRow(leftKey, leftRow, rightRow);
+                leftRow = nextOrNull(left);
+                rightRow = nextOrNull(right);
+                return joinedRow;
+            }
+            if (comparison < 0) {
+                JoinedRow joinedRow = consumeLeft();
+                return joinType == JoinType.INNER ? null : joinedRow;
+            }
+            JoinedRow joinedRow = consumeRight();
+            return joinType == JoinType.FULL ? joinedRow : null;
+        }
+
+        private JoinedRow consumeLeft() {
+            JoinedRow joinedRow = new JoinedRow(leftRow.getRowKey().toString(), leftRow, null);
+            leftRow = nextOrNull(left);
+            return joinedRow;
+        }
+
+        private JoinedRow consumeRight() {
+            JoinedRow joinedRow = new JoinedRow(rightRow.getRowKey().toString(), null, rightRow);
+            rightRow = nextOrNull(right);
+            return joinedRow;
+        }
+
+        private static Row nextOrNull(Iterator<Row> rows) {
+            return rows.hasNext() ? rows.next() : null;
+        }
+
+        @Override
+        public JoinedRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            JoinedRow result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Stops the scans of both sides
+         */
+        @Override
+        public void close() {
+            leftRow = null;
+            rightRow = null;
+            closeSide(left);
+            closeSide(right);
+        }
+
+        private static void closeSide(Iterator<Row> rows) {
+            if (!(rows instanceof Closeable)) {
+                return;
+            }
+            try {
+                ((Closeable) rows).close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
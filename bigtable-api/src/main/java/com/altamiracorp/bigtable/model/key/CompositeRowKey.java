@@ -0,0 +1,154 @@
+package com.altamiracorp.bigtable.model.key;
+
+import com.altamiracorp.bigtable.model.RowKey;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A row key made of typed components, each encoded with {@link KeyEncoding} and ended by
+ * {@link KeyEncoding#TERMINATOR}. Keys sort by their first component, then their second and so on, and a key
+ * sorts before the keys it is a prefix of.
+ * <pre>
+ * CompositeRowKey key = CompositeRowKey.builder().add("sensor1").addTimestampDescending(time).build();
+ * CompositeRowKey parsed = CompositeRowKey.parse(row.getRowKey().toString());
+ * Date time = parsed.getTimestampDescending(1);
+ * </pre>
+ */
+public class CompositeRowKey extends RowKey {
+    private final List<String> components;
+
+    private CompositeRowKey(String rowKey, List<String> components) {
+        super(rowKey);
+        this.components = Collections.unmodifiableList(components);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Splits a key built by {@link Builder} into its encoded components
+     *
+     * @throws IllegalArgumentException if the last component is not terminated
+     */
+    public static CompositeRowKey parse(String rowKey) {
+        List<String> components = new ArrayList<String>();
+        int start = 0;
+        while (start < rowKey.length()) {
+            int end = rowKey.indexOf(KeyEncoding.TERMINATOR, start);
+            if (end < 0) {
+                throw new IllegalArgumentException("Row key does not end with a terminated component: " + rowKey);
+            }
+            components.add(rowKey.substring(start, end));
+            start = end + 1;
+        }
+        return new CompositeRowKey(rowKey, components);
+    }
+
+    public int size() {
+        return components.size();
+    }
+
+    /**
+     * @return the component as it appears in the key
+     */
+    public String getEncoded(int index) {
+        return components.get(index);
+    }
+
+    public String getString(int index) {
+        return KeyEncoding.decodeString(getEncoded(index));
+    }
+
+    public long getLong(int index) {
+        return KeyEncoding.decodeLong(getEncoded(index));
+    }
+
+    public long getLongDescending(int index) {
+        return KeyEncoding.decodeLongDescending(getEncoded(index));
+    }
+
+    public int getInt(int index) {
+        return KeyEncoding.decodeInt(getEncoded(index));
+    }
+
+    public int getIntDescending(int index) {
+        return KeyEncoding.decodeIntDescending(getEncoded(index));
+    }
+
+    public double getDouble(int index) {
+        return KeyEncoding.decodeDouble(getEncoded(index));
+    }
+
+    public double getDoubleDescending(int index) {
+        return KeyEncoding.decodeDoubleDescending(getEncoded(index));
+    }
+
+    public Date getTimestamp(int index) {
+        return KeyEncoding.decodeTimestamp(getEncoded(index));
+    }
+
+    public Date getTimestampDescending(int index) {
+        return KeyEncoding.decodeTimestampDescending(getEncoded(index));
+    }
+
+    public static class Builder {
+        private final StringBuilder rowKey = new StringBuilder();
+        private final List<String> components = new ArrayList<String>();
+
+        public Builder add(String value) {
+            return addEncoded(KeyEncoding.encodeString(value));
+        }
+
+        public Builder addLong(long value) {
+            return addEncoded(KeyEncoding.encodeLong(value));
+        }
+
+        public Builder addLongDescending(long value) {
+            return addEncoded(KeyEncoding.encodeLongDescending(value));
+        }
+
+        public Builder addInt(int value) {
+            return addEncoded(KeyEncoding.encodeInt(value));
+        }
+
+        public Builder addIntDescending(int value) {
+            return addEncoded(KeyEncoding.encodeIntDescending(value));
+        }
+
+        public Builder addDouble(double value) {
+            return addEncoded(KeyEncoding.encodeDouble(value));
+        }
+
+        public Builder addDoubleDescending(double value) {
+            return addEncoded(KeyEncoding.encodeDoubleDescending(value));
+        }
+
+        public Builder addTimestamp(Date value) {
+            return addEncoded(KeyEncoding.encodeTimestamp(value));
+        }
+
+        public Builder addTimestampDescending(Date value) {
+            return addEncoded(KeyEncoding.encodeTimestampDescending(value));
+        }
+
+        /**
+         * @param encoded a component already encoded with {@link KeyEncoding}
+         */
+        public Builder addEncoded(String encoded) {
+            if (encoded.indexOf(KeyEncoding.TERMINATOR) >= 0) {
+                throw new IllegalArgumentException("Encoded key component contains the terminator: " + encoded);
+            }
+            components.add(encoded);
+            rowKey.append(encoded).append(KeyEncoding.TERMINATOR);
+            return this;
+        }
+
+        public CompositeRowKey build() {
+            return new CompositeRowKey(rowKey.toString(), new ArrayList<String>(components));
+        }
+    }
+}
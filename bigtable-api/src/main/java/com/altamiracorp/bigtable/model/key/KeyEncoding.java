@@ -0,0 +1,185 @@
+package com.altamiracorp.bigtable.model.key;
+
+import java.util.Date;
+
+/**
+ * Order preserving encodings of typed values as row key strings. Encoded numbers sort in numeric order both as
+ * Java strings and as UTF-8 bytes, so they can be used with findByRowKeyRange on any session.
+ * <p/>
+ * Numbers are written as fixed width lower case hex of their bits, transformed so that unsigned order matches
+ * numeric order. Descending variants invert the bits so that the largest value sorts first. Strings are escaped
+ * so that they never contain {@link #TERMINATOR}, which ends every component of a {@link CompositeRowKey}.
+ */
+public class KeyEncoding {
+    public static final char TERMINATOR = '\u0000';
+    public static final char ESCAPE = '\u0001';
+    private static final char ESCAPED_TERMINATOR = '\u0001';
+    private static final char ESCAPED_ESCAPE = '\u0002';
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int LONG_LENGTH = 16;
+    private static final int INT_LENGTH = 8;
+
+    public static String encodeLong(long value) {
+        return toHex(value ^ Long.MIN_VALUE, LONG_LENGTH);
+    }
+
+    public static long decodeLong(String encoded) {
+        return fromHex(encoded, LONG_LENGTH) ^ Long.MIN_VALUE;
+    }
+
+    public static String encodeLongDescending(long value) {
+        return encodeLong(~value);
+    }
+
+    public static long decodeLongDescending(String encoded) {
+        return ~decodeLong(encoded);
+    }
+
+    public static String encodeInt(int value) {
+        return toHex((value ^ Integer.MIN_VALUE) & 0xffffffffL, INT_LENGTH);
+    }
+
+    public static int decodeInt(String encoded) {
+        return (int) fromHex(encoded, INT_LENGTH) ^ Integer.MIN_VALUE;
+    }
+
+    public static String encodeIntDescending(int value) {
+        return encodeInt(~value);
+    }
+
+    public static int decodeIntDescending(String encoded) {
+        return ~decodeInt(encoded);
+    }
+
+    public static String encodeDouble(double value) {
+        return toHex(toSortableBits(value), LONG_LENGTH);
+    }
+
+    public static double decodeDouble(String encoded) {
+        return fromSortableBits(fromHex(encoded, LONG_LENGTH));
+    }
+
+    public static String encodeDoubleDescending(double value) {
+        return toHex(~toSortableBits(value), LONG_LENGTH);
+    }
+
+    public static double decodeDoubleDescending(String encoded) {
+        return fromSortableBits(~fromHex(encoded, LONG_LENGTH));
+    }
+
+    /**
+     * Negative doubles have all their bits inverted and positive doubles only their sign bit, so that unsigned
+     * order matches numeric order. -0.0 sorts just before 0.0 and NaN after positive infinity.
+     */
+    private static long toSortableBits(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+    }
+
+    private static double fromSortableBits(long bits) {
+        return Double.longBitsToDouble(bits < 0 ? bits ^ Long.MIN_VALUE : ~bits);
+    }
+
+    /**
+     * @param timestamp milliseconds since the epoch
+     */
+    public static String encodeTimestamp(long timestamp) {
+        return encodeLong(timestamp);
+    }
+
+    public static String encodeTimestamp(Date timestamp) {
+        return encodeTimestamp(timestamp.getTime());
+    }
+
+    public static Date decodeTimestamp(String encoded) {
+        return new Date(decodeLong(encoded));
+    }
+
+    /**
+     * Newest first, the usual order for time series and audit rows
+     */
+    public static String encodeTimestampDescending(long timestamp) {
+        return encodeLongDescending(timestamp);
+    }
+
+    public static String encodeTimestampDescending(Date timestamp) {
+        return encodeTimestampDescending(timestamp.getTime());
+    }
+
+    public static Date decodeTimestampDescending(String encoded) {
+        return new Date(decodeLongDescending(encoded));
+    }
+
+    /**
+     * Escapes the terminator and escape characters. The escaped form sorts like the original, and a string sorts
+     * before its extensions once both are terminated.
+     */
+    public static String encodeString(String value) {
+        StringBuilder result = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != TERMINATOR && c != ESCAPE) {
+                if (result != null) {
+                    result.append(c);
+                }
+                continue;
+            }
+            if (result == null) {
+                result = new StringBuilder(value.length() + 4);
+                result.append(value, 0, i);
+            }
+            result.append(ESCAPE).append(c == TERMINATOR ? ESCAPED_TERMINATOR : ESCAPED_ESCAPE);
+        }
+        return result == null ? value : result.toString();
+    }
+
+    public static String decodeString(String encoded) {
+        if (encoded.indexOf(ESCAPE) < 0) {
+            return encoded;
+        }
+        StringBuilder result = new StringBuilder(encoded.length());
+        for (int i = 0; i < encoded.length(); i++) {
+            char c = encoded.charAt(i);
+            if (c != ESCAPE) {
+                result.append(c);
+                continue;
+            }
+            if (++i >= encoded.length()) {
+                throw new IllegalArgumentException("Truncated escape sequence in key: " + encoded);
+            }
+            char escaped = encoded.charAt(i);
+            if (escaped == ESCAPED_TERMINATOR) {
+                result.append(TERMINATOR);
+            } else if (escaped == ESCAPED_ESCAPE) {
+                result.append(ESCAPE);
+            } else {
+                throw new IllegalArgumentException("Invalid escape sequence in key: " + encoded);
+            }
+        }
+        return result.toString();
+    }
+
+    private static String toHex(long value, int length) {
+        char[] chars = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = HEX_DIGITS[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    private static long fromHex(String encoded, int length) {
+        if (encoded.length() != length) {
+            throw new IllegalArgumentException("Expected " + length + " hex digits, found: " + encoded);
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = Character.digit(encoded.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid hex digit in key component: " + encoded);
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,102 @@
+package com.altamiracorp.bigtable.model.key;
+
+import java.util.Date;
+
+/**
+ * Start and end keys for {@link com.altamiracorp.bigtable.model.ModelSession#findByRowKeyRange} covering exactly the
+ * {@link CompositeRowKey}s that match a prefix or a range of values in the component after it.
+ * <p/>
+ * End keys are never themselves valid composite keys, so a range is exclusive of its end whether a session treats
+ * the end key as inclusive or not.
+ * <pre>
+ * CompositeRowKey sensor = CompositeRowKey.builder().add("sensor1").build();
+ * KeyRange range = KeyRange.timestampRangeDescending(sensor, from, to);
+ * session.findByRowKeyRange(tableName, range.getStart(), range.getEnd(), user);
+ * </pre>
+ */
+public class KeyRange {
+    private static final char AFTER_TERMINATOR = (char) (KeyEncoding.TERMINATOR + 1);
+    private final String start;
+    private final String end;
+
+    public KeyRange(String start, String end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public String getStart() {
+        return start;
+    }
+
+    public String getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the range of the prefix itself and every key with further components
+     */
+    public static KeyRange prefix(CompositeRowKey prefix) {
+        String key = prefix.toString();
+        if (key.length() == 0) {
+            throw new IllegalArgumentException("prefix must have at least one component");
+        }
+        return new KeyRange(key, key.substring(0, key.length() - 1) + AFTER_TERMINATOR);
+    }
+
+    /**
+     * @return keys whose component after the prefix, encoded with {@link KeyEncoding#encodeLong}, is between
+     * low inclusive and high exclusive
+     */
+    public static KeyRange longRange(CompositeRowKey prefix, long low, long high) {
+        return ascending(prefix, KeyEncoding.encodeLong(low), KeyEncoding.encodeLong(high));
+    }
+
+    public static KeyRange longRangeDescending(CompositeRowKey prefix, long low, long high) {
+        return descending(prefix, KeyEncoding.encodeLongDescending(low), KeyEncoding.encodeLongDescending(high));
+    }
+
+    public static KeyRange intRange(CompositeRowKey prefix, int low, int high) {
+        return ascending(prefix, KeyEncoding.encodeInt(low), KeyEncoding.encodeInt(high));
+    }
+
+    public static KeyRange intRangeDescending(CompositeRowKey prefix, int low, int high) {
+        return descending(prefix, KeyEncoding.encodeIntDescending(low), KeyEncoding.encodeIntDescending(high));
+    }
+
+    public static KeyRange doubleRange(CompositeRowKey prefix, double low, double high) {
+        return ascending(prefix, KeyEncoding.encodeDouble(low), KeyEncoding.encodeDouble(high));
+    }
+
+    public static KeyRange doubleRangeDescending(CompositeRowKey prefix, double low, double high) {
+        return descending(prefix, KeyEncoding.encodeDoubleDescending(low), KeyEncoding.encodeDoubleDescending(high));
+    }
+
+    public static KeyRange timestampRange(CompositeRowKey prefix, Date low, Date high) {
+        return ascending(prefix, KeyEncoding.encodeTimestamp(low), KeyEncoding.encodeTimestamp(high));
+    }
+
+    public static KeyRange timestampRangeDescending(CompositeRowKey prefix, Date low, Date high) {
+        return descending(prefix, KeyEncoding.encodeTimestampDescending(low), KeyEncoding.encodeTimestampDescending(high));
+    }
+
+    /**
+     * Keys with the low component start with prefix + low, keys with the high component start with prefix + high
+     * and sort after it.
+     */
+    private static KeyRange ascending(CompositeRowKey prefix, String encodedLow, String encodedHigh) {
+        return new KeyRange(prefix + encodedLow, prefix + encodedHigh);
+    }
+
+    /**
+     * Encoded descending, high sorts first and is excluded by starting just after its terminator, and low sorts last
+     * and is included by ending just after its terminator.
+     */
+    private static KeyRange descending(CompositeRowKey prefix, String encodedLow, String encodedHigh) {
+        return new KeyRange(prefix + encodedHigh + AFTER_TERMINATOR, prefix + encodedLow + AFTER_TERMINATOR);
+    }
+
+    @Override
+    public String toString() {
+        return "KeyRange{start=" + start + ", end=" + end + "}";
+    }
+}
@@ -0,0 +1,298 @@
+package com.altamiracorp.bigtable.model.key;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The literal prefixes every row key matched by a regular expression must start with, so that a regex query can
+ * scan the ranges of those prefixes instead of the whole table. The whole key has to match the expression, as with
+ * {@link java.util.regex.Pattern#matches}, so "user_123_.*", "^user_123_.*" and "(user|group)_1.*" all have prefixes.
+ * <p/>
+ * Only literal characters, escaped characters, \Q...\E quotes and groups of alternatives are planned. Planning
+ * stops at the first character class, wildcard or optional element; anything it does not understand, such as
+ * inline flags, leaves a full scan.
+ * <pre>
+ * RowKeyRegexPlan plan = RowKeyRegexPlan.plan("(user|group)_1.*");
+ * plan.getPrefixes(); // [group_1, user_1]
+ * </pre>
+ */
+public class RowKeyRegexPlan {
+    /**
+     * Planning stops before a group whose alternatives would take the number of prefixes past this
+     */
+    public static final int MAX_PREFIXES = 64;
+
+    private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    private final String regex;
+    private final List<String> prefixes;
+
+    private RowKeyRegexPlan(String regex, List<String> prefixes) {
+        this.regex = regex;
+        this.prefixes = Collections.unmodifiableList(prefixes);
+    }
+
+    public static RowKeyRegexPlan plan(String regex) {
+        Prefixes result = new Parser(regex).parseAlternatives(regex.length());
+        List<String> prefixes = new ArrayList<String>();
+        for (String prefix : result.prefixes) {
+            if (prefix.length() == 0) {
+                return new RowKeyRegexPlan(regex, new ArrayList<String>());
+            }
+            if (prefixes.isEmpty() || !prefix.startsWith(prefixes.get(prefixes.size() - 1))) {
+                prefixes.add(prefix);
+            }
+        }
+        return new RowKeyRegexPlan(regex, prefixes);
+    }
+
+    public String getRegex() {
+        return regex;
+    }
+
+    /**
+     * @return the sorted prefixes, none of which starts with another, or an empty list for a full scan
+     */
+    public List<String> getPrefixes() {
+        return prefixes;
+    }
+
+    public boolean isFullScan() {
+        return prefixes.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return isFullScan() ? "full scan" : "prefixes " + prefixes;
+    }
+
+    /**
+     * Prefixes of the text matched by part of the expression, and whether that part is nothing but those literals
+     */
+    private static class Prefixes {
+        private final TreeSet<String> prefixes;
+        private final boolean complete;
+
+        private Prefixes(TreeSet<String> prefixes, boolean complete) {
+            this.prefixes = prefixes;
+            this.complete = complete;
+        }
+    }
+
+    private static class Parser {
+        private final String regex;
+        private int position;
+
+        private Parser(String regex) {
+            this.regex = regex;
+        }
+
+        /**
+         * Parses alternatives separated by '|' up to the end index
+         */
+        private Prefixes parseAlternatives(int end) {
+            TreeSet<String> prefixes = new TreeSet<String>();
+            boolean complete = true;
+            while (true) {
+                int alternativeEnd = findAlternativeEnd(position, end);
+                Prefixes alternative = parseSequence(alternativeEnd);
+                prefixes.addAll(alternative.prefixes);
+                complete &= alternative.complete;
+                position = alternativeEnd;
+                if (position >= end) {
+                    return new Prefixes(prefixes, complete);
+                }
+                position++;
+            }
+        }
+
+        private Prefixes parseSequence(int end) {
+            TreeSet<String> prefixes = new TreeSet<String>();
+            prefixes.add("");
+            if (position < end && regex.charAt(position) == '^') {
+                position++;
+            }
+            while (position < end) {
+                char c = regex.charAt(position);
+                if (c == '\\' && position + 1 < end && regex.charAt(position + 1) == 'Q') {
+                    int quoteEnd = regex.indexOf("\\E", position + 2);
+                    int literalEnd = quoteEnd < 0 || quoteEnd > end ? end : quoteEnd;
+                    String literal = regex.substring(position + 2, literalEnd);
+                    position = literalEnd == end ? end : literalEnd + 2;
+                    if (literal.length() == 0) {
+                        continue;
+                    }
+                    char quantifier = peek(end);
+                    if (isOptionalQuantifier(quantifier)) {
+                        return new Prefixes(append(prefixes, literal.substring(0, literal.length() - 1)), false);
+                    }
+                    prefixes = append(prefixes, literal);
+                    if (quantifier == '+') {
+                        return new Prefixes(prefixes, false);
+                    }
+                } else if (c == '\\') {
+                    if (position + 1 >= end || Character.isLetterOrDigit(regex.charAt(position + 1))) {
+                        return new Prefixes(prefixes, false);
+                    }
+                    position += 2;
+                    if (!appendLiteral(prefixes, regex.charAt(position - 1), end)) {
+                        return new Prefixes(prefixes, false);
+                    }
+                } else if (c == '(') {
+                    int groupEnd = findGroupEnd(position, end);
+                    if (groupEnd < 0) {
+                        return new Prefixes(prefixes, false);
+                    }
+                    int groupStart = position + 1;
+                    if (regex.startsWith("?:", groupStart)) {
+                        groupStart += 2;
+                    } else if (groupStart < groupEnd && regex.charAt(groupStart) == '?') {
+                        return new Prefixes(prefixes, false);
+                    }
+                    position = groupStart;
+                    Prefixes group = parseAlternatives(groupEnd);
+                    position = groupEnd + 1;
+                    char quantifier = peek(end);
+                    if (isOptionalQuantifier(quantifier)
+                            || prefixes.size() * group.prefixes.size() > MAX_PREFIXES) {
+                        return new Prefixes(prefixes, false);
+                    }
+                    prefixes = append(prefixes, group.prefixes);
+                    if (!group.complete || quantifier == '+') {
+                        return new Prefixes(prefixes, false);
+                    }
+                } else if (METACHARACTERS.indexOf(c) >= 0) {
+                    return new Prefixes(prefixes, false);
+                } else {
+                    position++;
+                    if (!appendLiteral(prefixes, c, end)) {
+                        return new Prefixes(prefixes, false);
+                    }
+                }
+            }
+            return new Prefixes(prefixes, true);
+        }
+
+        /**
+         * Appends a character that was just read unless it is optional
+         *
+         * @return false if planning should stop after this character
+         */
+        private boolean appendLiteral(TreeSet<String> prefixes, char c, int end) {
+            char quantifier = peek(end);
+            if (isOptionalQuantifier(quantifier)) {
+                return false;
+            }
+            TreeSet<String> appended = append(prefixes, String.valueOf(c));
+            prefixes.clear();
+            prefixes.addAll(appended);
+            return quantifier != '+';
+        }
+
+        private char peek(int end) {
+            return position < end ? regex.charAt(position) : 0;
+        }
+
+        private static boolean isOptionalQuantifier(char c) {
+            return c == '?' || c == '*' || c == '{';
+        }
+
+        private static TreeSet<String> append(TreeSet<String> prefixes, String suffix) {
+            TreeSet<String> results = new TreeSet<String>();
+            for (String prefix : prefixes) {
+                results.add(prefix + suffix);
+            }
+            return results;
+        }
+
+        private static TreeSet<String> append(TreeSet<String> prefixes, TreeSet<String> suffixes) {
+            TreeSet<String> results = new TreeSet<String>();
+            for (String prefix : prefixes) {
+                for (String suffix : suffixes) {
+                    results.add(prefix + suffix);
+                }
+            }
+            return results;
+        }
+
+        /**
+         * @return the index of the next '|' outside of groups and character classes, or end
+         */
+        private int findAlternativeEnd(int start, int end) {
+            int depth = 0;
+            for (int i = start; i < end; i++) {
+                char c = regex.charAt(i);
+                if (c == '\\') {
+                    i = skipEscape(i, end);
+                } else if (c == '[') {
+                    i = skipCharacterClass(i, end);
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                } else if (c == '|' && depth == 0) {
+                    return i;
+                }
+            }
+            return end;
+        }
+
+        /**
+         * @return the index of the ')' closing the group opened at start, or -1
+         */
+        private int findGroupEnd(int start, int end) {
+            int depth = 0;
+            for (int i = start; i < end; i++) {
+                char c = regex.charAt(i);
+                if (c == '\\') {
+                    i = skipEscape(i, end);
+                } else if (c == '[') {
+                    i = skipCharacterClass(i, end);
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                    if (depth == 0) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private int skipEscape(int start, int end) {
+            if (start + 1 < end && regex.charAt(start + 1) == 'Q') {
+                int quoteEnd = regex.indexOf("\\E", start + 2);
+                return quoteEnd < 0 || quoteEnd >= end ? end : quoteEnd + 1;
+            }
+            return start + 1;
+        }
+
+        private int skipCharacterClass(int start, int end) {
+            int i = start + 1;
+            if (i < end && regex.charAt(i) == '^') {
+                i++;
+            }
+            if (i < end && regex.charAt(i) == ']') {
+                i++;
+            }
+            int depth = 1;
+            for (; i < end; i++) {
+                char c = regex.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == '[') {
+                    depth++;
+                } else if (c == ']') {
+                    depth--;
+                    if (depth == 0) {
+                        return i;
+                    }
+                }
+            }
+            return end;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.altamiracorp.bigtable.model.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a latency histogram per operation and table and a counter per counter name and table in memory.
+ */
+public class DefaultMetricsRegistry implements MetricsRegistry, MetricsRegistryMXBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultMetricsRegistry.class);
+    private static final String JMX_DOMAIN = "com.altamiracorp.bigtable";
+    private static final String KEY_SEPARATOR = "/";
+
+    private final ConcurrentMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<String, LatencyHistogram>();
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+    private ObjectName objectName;
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordLatency(String operation, String tableName, long durationNanos) {
+        getLatencyHistogram(operation, tableName).record(durationNanos);
+    }
+
+    @Override
+    public void incrementCounter(String counter, String tableName, long amount) {
+        String key = createKey(tableName, counter);
+        AtomicLong value = counters.get(key);
+        if (value == null) {
+            AtomicLong newValue = new AtomicLong();
+            value = counters.putIfAbsent(key, newValue);
+            if (value == null) {
+                value = newValue;
+            }
+        }
+        value.addAndGet(amount);
+    }
+
+    public LatencyHistogram getLatencyHistogram(String operation, String tableName) {
+        String key = createKey(tableName, operation);
+        LatencyHistogram histogram = latencies.get(key);
+        if (histogram == null) {
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = latencies.putIfAbsent(key, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        return histogram;
+    }
+
+    public long getCounter(String counter, String tableName) {
+        AtomicLong value = counters.get(createKey(tableName, counter));
+        return value == null ? 0 : value.get();
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> results = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+            results.put(counter.getKey(), counter.getValue().get());
+        }
+        return results;
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> results = new TreeMap<String, Long>();
+        for (Map.Entry<String, LatencyHistogram> latency : latencies.entrySet()) {
+            results.put(latency.getKey(), latency.getValue().getCount());
+        }
+        return results;
+    }
+
+    @Override
+    public Map<String, Double> getOperationMeanMillis() {
+        Map<String, Double> results = new TreeMap<String, Double>();
+        for (Map.Entry<String, LatencyHistogram> latency : latencies.entrySet()) {
+            results.put(latency.getKey(), latency.getValue().getMeanMillis());
+        }
+        return results;
+    }
+
+    @Override
+    public Map<String, Double> getOperationP50Millis() {
+        return getOperationPercentileMillis(50.0);
+    }
+
+    @Override
+    public Map<String, Double> getOperationP99Millis() {
+        return getOperationPercentileMillis(99.0);
+    }
+
+    @Override
+    public Map<String, Double> getOperationMaxMillis() {
+        Map<String, Double> results = new TreeMap<String, Double>();
+        for (Map.Entry<String, LatencyHistogram> latency : latencies.entrySet()) {
+            results.put(latency.getKey(), latency.getValue().getMaxMillis());
+        }
+        return results;
+    }
+
+    private Map<String, Double> getOperationPercentileMillis(double percentile) {
+        Map<String, Double> results = new TreeMap<String, Double>();
+        for (Map.Entry<String, LatencyHistogram> latency : latencies.entrySet()) {
+            results.put(latency.getKey(), latency.getValue().getPercentileMillis(percentile));
+        }
+        return results;
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : latencies.values()) {
+            histogram.reset();
+        }
+        for (AtomicLong counter : counters.values()) {
+            counter.set(0);
+        }
+    }
+
+    /**
+     * Registers this registry with the platform MBean server as com.altamiracorp.bigtable:type=Metrics,name=[name]
+     *
+     * @param name
+     */
+    public synchronized void registerMBean(String name) {
+        try {
+            unregisterMBean();
+            ObjectName newObjectName = new ObjectName(JMX_DOMAIN + ":type=Metrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newObjectName);
+            objectName = newObjectName;
+        } catch (Exception e) {
+            throw new RuntimeException("Could not register metrics MBean: " + name, e);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            LOGGER.warn("Could not unregister metrics MBean: " + objectName, e);
+        }
+        objectName = null;
+    }
+
+    private static String createKey(String tableName, String name) {
+        return tableName + KEY_SEPARATOR + name;
+    }
+}
@@ -0,0 +1,101 @@
+package com.altamiracorp.bigtable.model.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free latency histogram with power of two buckets. Bucket 0 counts zero durations and bucket i
+ * counts durations in [2^(i-1), 2^i) nanoseconds, so percentiles are accurate to within a factor of
+ * two. That is enough to tell a 2ms lookup from a 200ms one while keeping recording to a few atomic
+ * increments.
+ */
+public class LatencyHistogram {
+    private static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long durationNanos) {
+        if (durationNanos < 0) {
+            durationNanos = 0;
+        }
+        buckets.incrementAndGet(BUCKET_COUNT - Long.numberOfLeadingZeros(durationNanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(durationNanos);
+        long max = maxNanos.get();
+        while (durationNanos > max && !maxNanos.compareAndSet(max, durationNanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanMillis() {
+        long c = getCount();
+        if (c == 0) {
+            return 0.0;
+        }
+        return toMillis(getTotalNanos() / (double) c);
+    }
+
+    public double getMaxMillis() {
+        return toMillis(getMaxNanos());
+    }
+
+    /**
+     * Returns the upper bound of the bucket containing the requested percentile
+     *
+     * @param percentile between 0 and 100
+     * @return the duration in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= Math.max(target, 1)) {
+                return i == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public double getPercentileMillis(double percentile) {
+        return toMillis(getPercentileNanos(percentile));
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
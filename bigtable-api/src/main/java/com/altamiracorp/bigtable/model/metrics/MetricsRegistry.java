@@ -0,0 +1,54 @@
+package com.altamiracorp.bigtable.model.metrics;
+
+/**
+ * Receives the metrics recorded by a ModelSession. Implementations must be thread safe. Sessions check
+ * {@link #isEnabled()} before doing any measurement work, so a disabled registry costs a single call.
+ * <p/>
+ * Implement this interface to forward metrics to another metrics library, or use
+ * {@link DefaultMetricsRegistry} which keeps them in memory and exports them through JMX.
+ */
+public interface MetricsRegistry {
+    String OPERATION_FIND_BY_ROW_KEY = "findByRowKey";
+    String OPERATION_FIND_BY_ROW_KEYS = "findByRowKeys";
+    String OPERATION_SCAN = "scan";
+    String OPERATION_LIST_ROW_KEYS = "listRowKeys";
+    String OPERATION_EXISTS = "exists";
+    String OPERATION_ROW_COUNT = "rowCount";
+    String OPERATION_STATISTICS = "statistics";
+    String OPERATION_SAMPLE = "sample";
+    String OPERATION_SAVE = "save";
+    String OPERATION_SAVE_MANY = "saveMany";
+    String OPERATION_INCREMENT = "increment";
+    String OPERATION_DELETE_ROW = "deleteRow";
+    String OPERATION_FLUSH = "flush";
+    String OPERATION_CLOSE_WRITER = "closeWriter";
+
+    String COUNTER_ROWS_READ = "rowsRead";
+    String COUNTER_CELLS_READ = "cellsRead";
+    String COUNTER_BYTES_READ = "bytesRead";
+    String COUNTER_MUTATIONS_WRITTEN = "mutationsWritten";
+    String COUNTER_BYTES_WRITTEN = "bytesWritten";
+    String COUNTER_MUTATIONS_REJECTED = "mutationsRejected";
+    String COUNTER_FLUSHES = "flushes";
+    String COUNTER_WRITER_CLOSES = "writerCloses";
+
+    boolean isEnabled();
+
+    /**
+     * Records the duration of one operation
+     *
+     * @param operation     one of the OPERATION_ constants or a custom operation name
+     * @param tableName     table the operation ran against
+     * @param durationNanos
+     */
+    void recordLatency(String operation, String tableName, long durationNanos);
+
+    /**
+     * Adds to a counter
+     *
+     * @param counter   one of the COUNTER_ constants or a custom counter name
+     * @param tableName table the counter applies to
+     * @param amount
+     */
+    void incrementCounter(String counter, String tableName, long amount);
+}
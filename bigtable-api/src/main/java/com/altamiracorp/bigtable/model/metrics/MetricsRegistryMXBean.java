@@ -0,0 +1,23 @@
+package com.altamiracorp.bigtable.model.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of a {@link DefaultMetricsRegistry}. Map keys are "tableName/operation" for latencies and
+ * "tableName/counter" for counters.
+ */
+public interface MetricsRegistryMXBean {
+    Map<String, Long> getCounters();
+
+    Map<String, Long> getOperationCounts();
+
+    Map<String, Double> getOperationMeanMillis();
+
+    Map<String, Double> getOperationP50Millis();
+
+    Map<String, Double> getOperationP99Millis();
+
+    Map<String, Double> getOperationMaxMillis();
+
+    void reset();
+}
@@ -0,0 +1,24 @@
+package com.altamiracorp.bigtable.model.metrics;
+
+/**
+ * The registry used when metrics are disabled
+ */
+public final class NoopMetricsRegistry implements MetricsRegistry {
+    public static final NoopMetricsRegistry INSTANCE = new NoopMetricsRegistry();
+
+    private NoopMetricsRegistry() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void recordLatency(String operation, String tableName, long durationNanos) {
+    }
+
+    @Override
+    public void incrementCounter(String counter, String tableName, long amount) {
+    }
+}
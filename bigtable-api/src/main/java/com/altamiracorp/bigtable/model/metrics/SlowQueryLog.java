@@ -0,0 +1,153 @@
+package com.altamiracorp.bigtable.model.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the most recent queries slower than a threshold in a fixed size ring and writes each of them to the
+ * com.altamiracorp.bigtable.model.metrics.SlowQueryLog logger, so they can be routed to their own file.
+ */
+public class SlowQueryLog {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlowQueryLog.class);
+    private static final int CALLER_STACK_DEPTH = 5;
+    private static final String[] IGNORED_STACK_PREFIXES = {
+            "java.",
+            "sun.",
+            "org.apache.accumulo.",
+            "com.altamiracorp.bigtable.model.metrics.",
+            "com.altamiracorp.bigtable.model.ModelSession",
+            "com.altamiracorp.bigtable.model.Repository",
+            "com.altamiracorp.bigtable.model.accumulo.AccumuloSession",
+            "com.altamiracorp.bigtable.model.accumulo.MeteredRowIterable",
+            "com.altamiracorp.bigtable.model.accumulo.ScanMonitor"
+    };
+
+    public static final SlowQueryLog DISABLED = new SlowQueryLog(-1, 0);
+
+    private final long thresholdNanos;
+    private final SlowQueryRecord[] records;
+    private int nextIndex;
+    private int size;
+
+    /**
+     * @param thresholdMillis queries taking at least this long are recorded, negative to disable
+     * @param capacity        number of records to keep in memory
+     */
+    public SlowQueryLog(long thresholdMillis, int capacity) {
+        this.thresholdNanos = thresholdMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.records = new SlowQueryRecord[Math.max(capacity, 0)];
+    }
+
+    public boolean isEnabled() {
+        return thresholdNanos >= 0;
+    }
+
+    public long getThresholdMillis() {
+        return thresholdNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    public boolean isSlow(long durationNanos) {
+        return isEnabled() && durationNanos >= thresholdNanos;
+    }
+
+    public void record(SlowQueryRecord record) {
+        LOGGER.warn("slow query: {}", record);
+        add(record);
+    }
+
+    /**
+     * Records a query that has run past the threshold but has not finished, so that it is logged even if its
+     * caller abandons it. Pass the record to {@link #update} once the query finishes.
+     */
+    public void recordRunning(SlowQueryRecord record) {
+        LOGGER.warn("slow query still running: {}", record);
+        add(record);
+    }
+
+    /**
+     * Replaces the record of a running query with its final record, or adds the final record if the running
+     * one has already left the ring
+     */
+    public void update(SlowQueryRecord running, SlowQueryRecord record) {
+        LOGGER.warn("slow query: {}", record);
+        synchronized (records) {
+            for (int i = 0; i < records.length; i++) {
+                if (records[i] == running) {
+                    records[i] = record;
+                    return;
+                }
+            }
+        }
+        add(record);
+    }
+
+    private void add(SlowQueryRecord record) {
+        if (records.length == 0) {
+            return;
+        }
+        synchronized (records) {
+            records[nextIndex] = record;
+            nextIndex = (nextIndex + 1) % records.length;
+            size = Math.min(size + 1, records.length);
+        }
+    }
+
+    /**
+     * @return the recorded queries, most recent first
+     */
+    public List<SlowQueryRecord> getRecords() {
+        synchronized (records) {
+            List<SlowQueryRecord> results = new ArrayList<SlowQueryRecord>(size);
+            for (int i = 1; i <= size; i++) {
+                results.add(records[(nextIndex - i + records.length) % records.length]);
+            }
+            return results;
+        }
+    }
+
+    public void clear() {
+        synchronized (records) {
+            for (int i = 0; i < records.length; i++) {
+                records[i] = null;
+            }
+            nextIndex = 0;
+            size = 0;
+        }
+    }
+
+    /**
+     * Summarizes the current thread's stack as the first few frames outside of the JDK, Accumulo and the session
+     * classes, which is where the query was issued or consumed
+     *
+     * @return frames formatted as class.method:line
+     */
+    public static List<String> getCallerStack() {
+        List<String> results = new ArrayList<String>();
+        for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+            if (isIgnoredFrame(element.getClassName())) {
+                continue;
+            }
+            results.add(element.getClassName() + "." + element.getMethodName() + ":" + element.getLineNumber());
+            if (results.size() >= CALLER_STACK_DEPTH) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Entries ending with a dot match whole packages, other entries match a class and its inner classes
+     */
+    private static boolean isIgnoredFrame(String className) {
+        for (String prefix : IGNORED_STACK_PREFIXES) {
+            if (prefix.endsWith(".") ? className.startsWith(prefix) : className.equals(prefix) || className.startsWith(prefix + "$")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,122 @@
+package com.altamiracorp.bigtable.model.metrics;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A query which took longer than the {@link SlowQueryLog} threshold
+ */
+public class SlowQueryRecord {
+    private final long timestamp;
+    private final String tableName;
+    private final String operation;
+    private final String query;
+    private final String authorizations;
+    private final long rowsReturned;
+    private final long cellsScanned;
+    private final long bytesScanned;
+    private final long timeToFirstRowMillis;
+    private final long totalMillis;
+    private final List<String> callerStack;
+
+    public SlowQueryRecord(long timestamp, String tableName, String operation, String query, String authorizations,
+                           long rowsReturned, long cellsScanned, long bytesScanned, long timeToFirstRowMillis,
+                           long totalMillis, List<String> callerStack) {
+        this.timestamp = timestamp;
+        this.tableName = tableName;
+        this.operation = operation;
+        this.query = query;
+        this.authorizations = authorizations;
+        this.rowsReturned = rowsReturned;
+        this.cellsScanned = cellsScanned;
+        this.bytesScanned = bytesScanned;
+        this.timeToFirstRowMillis = timeToFirstRowMillis;
+        this.totalMillis = totalMillis;
+        this.callerStack = callerStack == null ? Collections.<String>emptyList() : callerStack;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public String getAuthorizations() {
+        return authorizations;
+    }
+
+    public long getRowsReturned() {
+        return rowsReturned;
+    }
+
+    public long getCellsScanned() {
+        return cellsScanned;
+    }
+
+    public long getBytesScanned() {
+        return bytesScanned;
+    }
+
+    /**
+     * @return the time until the first row was returned, or -1 if the query returned no rows
+     */
+    public long getTimeToFirstRowMillis() {
+        return timeToFirstRowMillis;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public List<String> getCallerStack() {
+        return callerStack;
+    }
+
+    public JSONObject toJson() {
+        try {
+            JSONObject json = new JSONObject();
+            json.put("timestamp", getTimestamp());
+            json.put("tableName", getTableName());
+            json.put("operation", getOperation());
+            json.put("query", getQuery());
+            json.put("authorizations", getAuthorizations());
+            json.put("rowsReturned", getRowsReturned());
+            json.put("cellsScanned", getCellsScanned());
+            json.put("bytesScanned", getBytesScanned());
+            json.put("timeToFirstRowMillis", getTimeToFirstRowMillis());
+            json.put("totalMillis", getTotalMillis());
+            json.put("callerStack", new JSONArray(getCallerStack()));
+            return json;
+        } catch (JSONException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "table=" + getTableName()
+                + ", operation=" + getOperation()
+                + ", query=" + getQuery()
+                + ", authorizations=" + getAuthorizations()
+                + ", rows=" + getRowsReturned()
+                + ", cells=" + getCellsScanned()
+                + ", bytes=" + getBytesScanned()
+                + ", timeToFirstRowMs=" + getTimeToFirstRowMillis()
+                + ", totalMs=" + getTotalMillis()
+                + ", caller=" + getCallerStack();
+    }
+}
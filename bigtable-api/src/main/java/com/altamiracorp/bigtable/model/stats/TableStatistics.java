@@ -0,0 +1,102 @@
+package com.altamiracorp.bigtable.model.stats;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * The estimated size of a table or of a row key range within it. Unless {@link #isExact()} the counts are derived
+ * from a sample and the stored size of the table, and are only good for choosing how to run a query, for example
+ * whether a range is small enough for a single scan.
+ */
+public class TableStatistics {
+    private final String tableName;
+    private final String keyStart;
+    private final String keyEnd;
+    private final int tablets;
+    private final long estimatedRows;
+    private final long estimatedCells;
+    private final long estimatedBytes;
+    private final long sampledRows;
+    private final boolean exact;
+
+    /**
+     * @param keyStart    the first row key of the range, or null for the start of the table
+     * @param keyEnd      the last row key of the range, or null for the end of the table
+     * @param tablets     the number of tablets the range spans
+     * @param sampledRows the number of rows read to make the estimate
+     * @param exact       true if every row in the range was read
+     */
+    public TableStatistics(String tableName, String keyStart, String keyEnd, int tablets, long estimatedRows,
+                           long estimatedCells, long estimatedBytes, long sampledRows, boolean exact) {
+        this.tableName = tableName;
+        this.keyStart = keyStart;
+        this.keyEnd = keyEnd;
+        this.tablets = tablets;
+        this.estimatedRows = estimatedRows;
+        this.estimatedCells = estimatedCells;
+        this.estimatedBytes = estimatedBytes;
+        this.sampledRows = sampledRows;
+        this.exact = exact;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getKeyStart() {
+        return keyStart;
+    }
+
+    public String getKeyEnd() {
+        return keyEnd;
+    }
+
+    public int getTablets() {
+        return tablets;
+    }
+
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    public long getEstimatedCells() {
+        return estimatedCells;
+    }
+
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    public long getSampledRows() {
+        return sampledRows;
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    public JSONObject toJson() {
+        try {
+            JSONObject json = new JSONObject();
+            json.put("tableName", getTableName());
+            json.put("keyStart", getKeyStart());
+            json.put("keyEnd", getKeyEnd());
+            json.put("tablets", getTablets());
+            json.put("estimatedRows", getEstimatedRows());
+            json.put("estimatedCells", getEstimatedCells());
+            json.put("estimatedBytes", getEstimatedBytes());
+            json.put("sampledRows", getSampledRows());
+            json.put("exact", isExact());
+            return json;
+        } catch (JSONException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TableStatistics{tableName=" + tableName + ", keyStart=" + keyStart + ", keyEnd=" + keyEnd
+                + ", tablets=" + tablets + ", estimatedRows=" + estimatedRows + ", estimatedCells=" + estimatedCells
+                + ", estimatedBytes=" + estimatedBytes + ", sampledRows=" + sampledRows + ", exact=" + exact + "}";
+    }
+}
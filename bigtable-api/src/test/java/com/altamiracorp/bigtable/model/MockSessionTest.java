@@ -0,0 +1,26 @@
+package com.altamiracorp.bigtable.model;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class MockSessionTest {
+    private static final String TEST_TABLE_NAME = "testTable";
+
+    private MockModelUserContext queryUser = new MockModelUserContext();
+
+    @Test
+    public void testKeepsRowsWhenCounterFamilyIsDeclared() {
+        MockSession mockSession = new MockSession();
+        mockSession.addCounterFamily(TEST_TABLE_NAME, "hits", queryUser);
+        Row<RowKey> row = new Row<RowKey>(TEST_TABLE_NAME, new RowKey("page1"));
+        row.addColumnFamily(new ColumnFamily("data").set("title", "Page One"));
+        mockSession.save(row);
+        mockSession.addCounterFamily(TEST_TABLE_NAME, "shares", queryUser);
+
+        assertEquals("Page One", mockSession.findByRowKey(TEST_TABLE_NAME, "page1", queryUser).get("data").get("title").toString());
+    }
+}
@@ -0,0 +1,91 @@
+package com.altamiracorp.bigtable.model;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PrefetchingIterableTest {
+    @Test
+    public void testCloseStopsTheProducer() throws Exception {
+        final AtomicInteger produced = new AtomicInteger();
+        Iterable<Integer> endless = new Iterable<Integer>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<Integer>() {
+                    @Override
+                    public boolean hasNext() {
+                        return true;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        return produced.incrementAndGet();
+                    }
+
+                    @Override
+                    public void remove() {
+                    }
+                };
+            }
+        };
+
+        PrefetchingIterable.PrefetchingIterator<Integer> iterator = new PrefetchingIterable<Integer>(endless, 3).iterator();
+        assertEquals(1, (int) iterator.next());
+        assertEquals(2, (int) iterator.next());
+        Thread.sleep(100);
+        assertTrue(produced.get() <= 2 + 3 + 1);
+
+        iterator.close();
+        assertFalse(iterator.hasNext());
+        Thread.sleep(300);
+        int producedAfterClose = produced.get();
+        Thread.sleep(300);
+        assertEquals(producedAfterClose, produced.get());
+    }
+
+    @Test
+    public void testSourceExceptionsReachTheConsumer() {
+        Iterable<Integer> failing = new Iterable<Integer>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<Integer>() {
+                    private int count;
+
+                    @Override
+                    public boolean hasNext() {
+                        return true;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (count == 2) {
+                            throw new IllegalStateException("scan failed");
+                        }
+                        return count++;
+                    }
+
+                    @Override
+                    public void remove() {
+                    }
+                };
+            }
+        };
+
+        Iterator<Integer> iterator = new PrefetchingIterable<Integer>(failing, 10).iterator();
+        assertEquals(0, (int) iterator.next());
+        assertEquals(1, (int) iterator.next());
+        try {
+            iterator.hasNext();
+            fail("expected the source exception");
+        } catch (IllegalStateException e) {
+            assertEquals("scan failed", e.getMessage());
+        }
+        assertFalse(iterator.hasNext());
+    }
+}
@@ -0,0 +1,32 @@
+package com.altamiracorp.bigtable.model;
+
+import com.altamiracorp.bigtable.model.compression.CompressionCodec;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ValueTest {
+    @Test
+    public void testCallerBytesAreNeverDecompressed() {
+        byte[] headerBytes = CompressionCodec.FAST.compress("compressed by the caller".getBytes());
+        Value value = new Value(headerBytes);
+        assertFalse(value.isCompressed());
+        assertArrayEquals(headerBytes, value.toBytes());
+        assertFalse(new Value(value).isCompressed());
+        assertTrue(Value.fromStoredBytes(headerBytes).isCompressed());
+    }
+
+    @Test
+    public void testNumbersAreNeverCompressed() {
+        byte[] bytes = CompressionCodec.FAST.compress(new byte[0]);
+        assertTrue(CompressionCodec.isCompressed(bytes));
+        assertEquals(0, CompressionCodec.decompress(bytes).length);
+
+        assertEquals(Long.valueOf(0x00425456L), new Value(0x00425456L).toLong());
+        assertFalse(new Value(Long.MIN_VALUE).isCompressed());
+        assertFalse(CompressionCodec.isCompressed(new Value(0.0).toBytes()));
+    }
+}
@@ -0,0 +1,68 @@
+package com.altamiracorp.bigtable.model.bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class CompressedBitmapTest {
+    @Test
+    public void testBitmapOperations() {
+        Random random = new Random(1);
+        CompressedBitmap a = new CompressedBitmap();
+        CompressedBitmap b = new CompressedBitmap();
+        TreeSet<Integer> expectedA = new TreeSet<Integer>();
+        TreeSet<Integer> expectedB = new TreeSet<Integer>();
+        for (int i = 0; i < 20000; i++) {
+            int value = random.nextInt(200000);
+            a.add(value);
+            expectedA.add(value);
+            value = random.nextInt(100000) * 2;
+            b.add(value);
+            expectedB.add(value);
+        }
+        for (int i = 0; i < 70000; i++) {
+            a.add(i);
+            expectedA.add(i);
+        }
+        for (int i = 0; i < 65000; i += 2) {
+            a.remove(i);
+            expectedA.remove(i);
+        }
+
+        assertEquals(expectedA, toSet(a));
+        assertEquals(expectedA, toSet(CompressedBitmap.fromBytes(a.toBytes())));
+
+        TreeSet<Integer> expected = new TreeSet<Integer>(expectedA);
+        expected.retainAll(expectedB);
+        assertEquals(expected, toSet(CompressedBitmap.and(a, b)));
+        expected = new TreeSet<Integer>(expectedA);
+        expected.addAll(expectedB);
+        assertEquals(expected, toSet(CompressedBitmap.or(a, b)));
+        expected = new TreeSet<Integer>(expectedA);
+        expected.removeAll(expectedB);
+        assertEquals(expected, toSet(CompressedBitmap.andNot(a, b)));
+
+        CompressedBitmap range = CompressedBitmap.range(65530, 131080);
+        assertEquals(131080 - 65530, range.getCardinality());
+        assertTrue(range.contains(65530));
+        assertTrue(range.contains(131079));
+        assertFalse(range.contains(131080));
+        assertFalse(range.contains(65529));
+    }
+
+    private static Set<Integer> toSet(CompressedBitmap bitmap) {
+        Set<Integer> results = new TreeSet<Integer>();
+        for (int ordinal : bitmap.toArray()) {
+            results.add(ordinal);
+        }
+        assertEquals(results.size(), bitmap.getCardinality());
+        return results;
+    }
+}
@@ -0,0 +1,19 @@
+package com.altamiracorp.bigtable.model.join;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class MergeJoinTest {
+    @Test
+    public void testCompareRowKeys() {
+        String supplementary = new String(Character.toChars(0x10000));
+        assertTrue(supplementary.compareTo("\uFFFF") < 0);
+        assertTrue(MergeJoin.compareRowKeys(supplementary, "\uFFFF") > 0);
+        assertTrue(MergeJoin.compareRowKeys("ab", "abc") < 0);
+        assertEquals(0, MergeJoin.compareRowKeys("abc", "abc"));
+    }
+}
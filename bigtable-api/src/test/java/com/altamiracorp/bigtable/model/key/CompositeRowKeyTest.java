@@ -0,0 +1,58 @@
+package com.altamiracorp.bigtable.model.key;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class CompositeRowKeyTest {
+    @Test
+    public void testEncodingOrder() {
+        long[] longs = new long[]{Long.MIN_VALUE, -1000, -1, 0, 1, 1000, Long.MAX_VALUE};
+        for (int i = 1; i < longs.length; i++) {
+            assertTrue(KeyEncoding.encodeLong(longs[i - 1]).compareTo(KeyEncoding.encodeLong(longs[i])) < 0);
+            assertTrue(KeyEncoding.encodeLongDescending(longs[i - 1]).compareTo(KeyEncoding.encodeLongDescending(longs[i])) > 0);
+            assertEquals(longs[i], KeyEncoding.decodeLongDescending(KeyEncoding.encodeLongDescending(longs[i])));
+        }
+
+        double[] doubles = new double[]{Double.NEGATIVE_INFINITY, -1.5e10, -1, -0.5, 0, 0.25, 1, 2.5e10, Double.POSITIVE_INFINITY};
+        for (int i = 1; i < doubles.length; i++) {
+            assertTrue(KeyEncoding.encodeDouble(doubles[i - 1]).compareTo(KeyEncoding.encodeDouble(doubles[i])) < 0);
+            assertEquals(doubles[i], KeyEncoding.decodeDouble(KeyEncoding.encodeDouble(doubles[i])), 0);
+        }
+
+        int[] ints = new int[]{Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE};
+        for (int i = 1; i < ints.length; i++) {
+            assertTrue(KeyEncoding.encodeInt(ints[i - 1]).compareTo(KeyEncoding.encodeInt(ints[i])) < 0);
+            assertEquals(ints[i], KeyEncoding.decodeInt(KeyEncoding.encodeInt(ints[i])));
+        }
+    }
+
+    @Test
+    public void testBuildAndParse() {
+        Date time = new Date(1400000000000L);
+        CompositeRowKey key = CompositeRowKey.builder()
+                .add("a\u0000b\u0001c")
+                .addLong(-42)
+                .addDoubleDescending(3.5)
+                .addTimestampDescending(time)
+                .build();
+
+        CompositeRowKey parsed = CompositeRowKey.parse(key.toString());
+        assertEquals(4, parsed.size());
+        assertEquals("a\u0000b\u0001c", parsed.getString(0));
+        assertEquals(-42, parsed.getLong(1));
+        assertEquals(3.5, parsed.getDoubleDescending(2), 0);
+        assertEquals(time, parsed.getTimestampDescending(3));
+
+        String shorter = CompositeRowKey.builder().add("ab").build().toString();
+        String longer = CompositeRowKey.builder().add("abc").build().toString();
+        String extended = CompositeRowKey.builder().add("ab").add("z").build().toString();
+        assertTrue(shorter.compareTo(extended) < 0);
+        assertTrue(extended.compareTo(longer) < 0);
+    }
+}
@@ -0,0 +1,44 @@
+package com.altamiracorp.bigtable.model.key;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class RowKeyRegexPlanTest {
+    @Test
+    public void testPlan() {
+        assertPrefixes("user_123_.*", "user_123_");
+        assertPrefixes("^user_123_.*", "user_123_");
+        assertPrefixes("user_123_[ab]", "user_123_");
+        assertPrefixes("user_12?", "user_1");
+        assertPrefixes("user_12+", "user_12");
+        assertPrefixes("user\\.123", "user.123");
+        assertPrefixes(Pattern.quote("user.1") + "*", "user.");
+        assertPrefixes("(user|group)_1.*", "group_1", "user_1");
+        assertPrefixes("(?:user|group)_(1|2)", "group_1", "group_2", "user_1", "user_2");
+        assertPrefixes("user_1.*|user_12|group", "group", "user_1");
+        assertPrefixes("(user_1.*|group)_2", "group", "user_1");
+        assertPrefixes("user_(1|2)?x", "user_");
+
+        assertFullScan(".*1");
+        assertFullScan("(?i)user_1.*");
+        assertFullScan("user_1|.*");
+        assertFullScan("u?ser");
+        assertFullScan("[u]ser");
+        assertFullScan("\\w+");
+    }
+
+    private static void assertPrefixes(String regex, String... prefixes) {
+        assertEquals(regex, Arrays.asList(prefixes), RowKeyRegexPlan.plan(regex).getPrefixes());
+    }
+
+    private static void assertFullScan(String regex) {
+        assertTrue(regex, RowKeyRegexPlan.plan(regex).isFullScan());
+    }
+}
@@ -0,0 +1,82 @@
+package com.altamiracorp.bigtable.benchmarks;
+
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.accumulo.AccumuloHelper;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion between rows and Accumulo cells for narrow rows (one family, a few columns) and wide rows
+ * (several families, hundreds of columns). Writes go to a batch writer that only consumes the mutations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccumuloHelperBenchmark {
+    @Param({"narrow", "wide"})
+    public String shape;
+
+    private List<Map.Entry<Key, Value>> accumuloRow;
+    private Row row;
+    private BlackholeBatchWriter writer;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        SyntheticData data = new SyntheticData(42);
+        int columnFamilies = "wide".equals(shape) ? 4 : 1;
+        int columns = "wide".equals(shape) ? 250 : 5;
+        accumuloRow = data.accumuloRow("row:" + data.randomString(16), columnFamilies, columns, 32);
+        row = data.row("row:" + data.randomString(16), columnFamilies, columns, 32);
+        writer = new BlackholeBatchWriter(blackhole);
+    }
+
+    @Benchmark
+    public Row accumuloRowToRow() {
+        return AccumuloHelper.accumuloRowToRow(SyntheticData.TABLE_NAME, accumuloRow.iterator());
+    }
+
+    @Benchmark
+    public boolean addRowToWriter() throws MutationsRejectedException {
+        return AccumuloHelper.addRowToWriter(writer, row);
+    }
+
+    private static class BlackholeBatchWriter implements BatchWriter {
+        private final Blackhole blackhole;
+
+        public BlackholeBatchWriter(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void addMutation(Mutation mutation) throws MutationsRejectedException {
+            blackhole.consume(mutation);
+        }
+
+        @Override
+        public void addMutations(Iterable<Mutation> mutations) throws MutationsRejectedException {
+            for (Mutation mutation : mutations) {
+                addMutation(mutation);
+            }
+        }
+
+        @Override
+        public void flush() throws MutationsRejectedException {
+        }
+
+        @Override
+        public void close() throws MutationsRejectedException {
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.altamiracorp.bigtable.benchmarks;
+
+public enum Endpoint {
+    SESSION_CREATE,
+    SESSION_READ,
+    SESSION_MUTATE,
+    TABLE_QUERY
+}
@@ -0,0 +1,202 @@
+package com.altamiracorp.bigtable.benchmarks;
+
+import com.altamiracorp.bigtable.jetty.BigTableJettySessionIdManager;
+import com.altamiracorp.bigtable.jetty.BigTableJettySessionManager;
+import com.altamiracorp.bigtable.jetty.BigTableSessionHandler;
+import com.altamiracorp.bigtable.load.MiniCluster;
+import com.altamiracorp.bigtable.load.OperationStats;
+import com.altamiracorp.bigtable.load.StatsReporter;
+import com.altamiracorp.bigtable.load.SynchronizedModelSession;
+import com.altamiracorp.bigtable.model.MockSession;
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.accumulo.AccumuloSession;
+import com.altamiracorp.bigtable.model.user.ModelUserContext;
+import com.altamiracorp.bigtableui.Router;
+import com.beust.jcommander.DynamicParameter;
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End to end benchmark of the session manager and the UI endpoints. Jetty is embedded with the BigTable session
+ * manager and the UI router over an in-memory session or a MiniAccumuloCluster, then concurrent HTTP clients
+ * create, read and mutate sessions and query a synthetic table. Requests per second and latency percentiles
+ * are reported per endpoint.
+ */
+public class HttpBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpBenchmark.class);
+    private static final String SESSION_MOCK = "mock";
+    private static final String SESSION_MINICLUSTER = "minicluster";
+
+    @Parameter(names = {"-session"}, description = "Model session behind the server: mock or minicluster")
+    private String sessionType = SESSION_MOCK;
+
+    @Parameter(names = {"-port"}, description = "Port to listen on, 0 for any free port")
+    private int port = 0;
+
+    @Parameter(names = {"-threads"}, description = "Number of concurrent HTTP clients")
+    private int threadCount = 8;
+
+    @Parameter(names = {"-requests"}, description = "Number of requests to send")
+    private long requestCount = 20000;
+
+    @Parameter(names = {"-duration"}, description = "Maximum run time in seconds, 0 for no limit")
+    private long durationSeconds = 0;
+
+    @Parameter(names = {"-create"}, description = "Proportion of requests starting a new session")
+    private double createProportion = 0.05;
+
+    @Parameter(names = {"-read"}, description = "Proportion of session reads")
+    private double readProportion = 0.6;
+
+    @Parameter(names = {"-mutate"}, description = "Proportion of session mutations")
+    private double mutateProportion = 0.25;
+
+    @Parameter(names = {"-query"}, description = "Proportion of table queries")
+    private double queryProportion = 0.1;
+
+    @Parameter(names = {"-tableRows"}, description = "Number of rows in the query table")
+    private int tableRowCount = 1000;
+
+    @Parameter(names = {"-queryRows"}, description = "Maximum rows returned by each query")
+    private int queryRowCount = 20;
+
+    @Parameter(names = {"-payloadSize"}, description = "Size of the session attribute written by creates and mutations")
+    private int payloadSize = 256;
+
+    @Parameter(names = {"-reportInterval"}, description = "Seconds between interval reports")
+    private int reportIntervalSeconds = 10;
+
+    @Parameter(names = {"-seed"}, description = "Random seed")
+    private long seed = 42;
+
+    @DynamicParameter(names = {"-D"}, description = "Session properties")
+    private Map<String, String> sessionProperties = new HashMap<String, String>();
+
+    private void run(String[] args) throws Exception {
+        new JCommander(this, args);
+
+        MiniCluster cluster = null;
+        Map<String, Object> properties = new HashMap<String, Object>(sessionProperties);
+        if (SESSION_MINICLUSTER.equals(sessionType)) {
+            cluster = new MiniCluster();
+            cluster.start();
+            properties.putAll(cluster.getSessionProperties());
+        }
+
+        ModelSession modelSession = createSession();
+        modelSession.init(properties);
+        Server server = null;
+        try {
+            createQueryTable(modelSession);
+            server = startServer(modelSession);
+            String baseUrl = "http://localhost:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+            LOGGER.info("server running: " + baseUrl);
+            runClients(baseUrl);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+            modelSession.close();
+            if (cluster != null) {
+                cluster.stop();
+            }
+        }
+    }
+
+    /**
+     * MockSession keeps its tables in unsynchronized collections, so its calls are serialized
+     */
+    private ModelSession createSession() {
+        if (SESSION_MOCK.equals(sessionType)) {
+            return new SynchronizedModelSession(new MockSession());
+        }
+        if (SESSION_MINICLUSTER.equals(sessionType)) {
+            return new AccumuloSession();
+        }
+        throw new RuntimeException("Unhandled session type: " + sessionType);
+    }
+
+    private void createQueryTable(ModelSession modelSession) {
+        ModelUserContext user = modelSession.createModelUserContext();
+        modelSession.deleteTable(SyntheticData.TABLE_NAME, user);
+        modelSession.initializeTable(SyntheticData.TABLE_NAME, user);
+        modelSession.saveMany(SyntheticData.TABLE_NAME, new SyntheticData(seed).rows(tableRowCount, 2, 10, 64));
+        modelSession.flush();
+    }
+
+    private Server startServer(final ModelSession modelSession) throws Exception {
+        Server server = new Server();
+        ServerConnector connector = new ServerConnector(server);
+        connector.setPort(port);
+        server.addConnector(connector);
+
+        BigTableJettySessionManager sessionManager = new BigTableJettySessionManager(modelSession);
+        BigTableJettySessionIdManager sessionIdManager = new BigTableJettySessionIdManager(server, sessionManager);
+        server.setSessionIdManager(sessionIdManager);
+        sessionManager.setSessionIdManager(sessionIdManager);
+
+        ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+        context.setContextPath("/");
+        context.setSessionHandler(new BigTableSessionHandler(sessionManager));
+        // Router looks up the injector ApplicationBootstrap would normally store in the servlet context
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(ModelSession.class).toInstance(modelSession);
+            }
+        });
+        context.setAttribute(Injector.class.getName(), injector);
+        context.addServlet(new ServletHolder(new SessionServlet()), "/session/*");
+        context.addServlet(new ServletHolder(new Router()), "/*");
+
+        server.setHandler(context);
+        server.start();
+        return server;
+    }
+
+    private void runClients(String baseUrl) throws InterruptedException {
+        OperationStats[] stats = new OperationStats[Endpoint.values().length];
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats[endpoint.ordinal()] = new OperationStats(endpoint.name());
+        }
+        double[] proportions = new double[]{createProportion, readProportion, mutateProportion, queryProportion};
+        String payload = new SyntheticData(seed).randomString(payloadSize);
+
+        long startTime = System.nanoTime();
+        long deadline = durationSeconds > 0 ? startTime + TimeUnit.SECONDS.toNanos(durationSeconds) : Long.MAX_VALUE;
+        AtomicLong remainingRequests = new AtomicLong(requestCount);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < threadCount; i++) {
+            HttpClientWorker worker = new HttpClientWorker(baseUrl, SyntheticData.TABLE_NAME, proportions, stats, remainingRequests,
+                    deadline, queryRowCount, payload, seed + i + 1);
+            Thread thread = new Thread(worker, "http-client-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        new StatsReporter(System.out, stats, reportIntervalSeconds).awaitAndReport(threads, startTime);
+    }
+
+    public static void main(String[] args) {
+        try {
+            new HttpBenchmark().run(args);
+        } catch (Exception ex) {
+            LOGGER.error("Could not run HTTP benchmark", ex);
+        }
+    }
+}
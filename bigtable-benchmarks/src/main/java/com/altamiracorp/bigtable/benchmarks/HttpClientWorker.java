@@ -0,0 +1,149 @@
+package com.altamiracorp.bigtable.benchmarks;
+
+import com.altamiracorp.bigtable.load.OperationStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One HTTP client with its own session cookie. It creates a session, then issues a weighted mix of session
+ * reads, session mutations, table queries and new sessions until the request budget is used up or the
+ * deadline passes. Each request is timed until its response body has been read.
+ */
+public class HttpClientWorker implements Runnable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientWorker.class);
+    private static final String SESSION_COOKIE = "JSESSIONID";
+
+    private final String baseUrl;
+    private final String tableName;
+    private final double[] cumulativeProportions;
+    private final OperationStats[] stats;
+    private final AtomicLong remainingRequests;
+    private final long deadlineNanos;
+    private final int queryRowCount;
+    private final String payload;
+    private final Random random;
+    private final byte[] buffer = new byte[8192];
+    private String sessionCookie;
+
+    /**
+     * @param proportions relative weight of each endpoint, indexed by {@link Endpoint#ordinal()}
+     */
+    public HttpClientWorker(String baseUrl, String tableName, double[] proportions, OperationStats[] stats,
+                            AtomicLong remainingRequests, long deadlineNanos, int queryRowCount, String payload, long seed) {
+        this.baseUrl = baseUrl;
+        this.tableName = tableName;
+        this.stats = stats;
+        this.remainingRequests = remainingRequests;
+        this.deadlineNanos = deadlineNanos;
+        this.queryRowCount = queryRowCount;
+        this.payload = payload;
+        this.random = new Random(seed);
+
+        this.cumulativeProportions = new double[proportions.length];
+        double total = 0;
+        for (int i = 0; i < proportions.length; i++) {
+            total += proportions[i];
+            cumulativeProportions[i] = total;
+        }
+        for (int i = 0; i < proportions.length; i++) {
+            cumulativeProportions[i] /= total;
+        }
+    }
+
+    @Override
+    public void run() {
+        Endpoint next = Endpoint.SESSION_CREATE;
+        while (remainingRequests.decrementAndGet() >= 0 && System.nanoTime() < deadlineNanos) {
+            request(next);
+            next = sessionCookie == null ? Endpoint.SESSION_CREATE : nextEndpoint();
+        }
+    }
+
+    private Endpoint nextEndpoint() {
+        double value = random.nextDouble();
+        Endpoint[] endpoints = Endpoint.values();
+        for (int i = 0; i < endpoints.length; i++) {
+            if (value < cumulativeProportions[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    private void request(Endpoint endpoint) {
+        OperationStats endpointStats = stats[endpoint.ordinal()];
+        long startTime = System.nanoTime();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(getUrl(endpoint)).openConnection();
+            if (sessionCookie != null && endpoint != Endpoint.SESSION_CREATE) {
+                connection.setRequestProperty("Cookie", SESSION_COOKIE + "=" + sessionCookie);
+            }
+            int status = connection.getResponseCode();
+            consume(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+            if (endpoint == Endpoint.SESSION_CREATE) {
+                sessionCookie = getSessionCookie(connection.getHeaderFields().get("Set-Cookie"));
+            }
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                endpointStats.notFound();
+            } else if (status >= 400) {
+                endpointStats.error();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("{} failed", endpoint, e);
+            endpointStats.error();
+        }
+        endpointStats.record(System.nanoTime() - startTime);
+    }
+
+    private String getUrl(Endpoint endpoint) throws IOException {
+        switch (endpoint) {
+            case SESSION_CREATE:
+                return baseUrl + "/session/create?" + SessionServlet.PAYLOAD_PARAMETER + "=" + URLEncoder.encode(payload, "UTF-8");
+            case SESSION_READ:
+                return baseUrl + "/session/read";
+            case SESSION_MUTATE:
+                return baseUrl + "/session/mutate?" + SessionServlet.PAYLOAD_PARAMETER + "=" + URLEncoder.encode(payload, "UTF-8");
+            case TABLE_QUERY:
+                String start = "row:" + (char) ('a' + random.nextInt(26));
+                return baseUrl + "/table/" + tableName + "?rowCount=" + queryRowCount + "&start=" + URLEncoder.encode(start, "UTF-8");
+            default:
+                throw new RuntimeException("Unhandled endpoint: " + endpoint);
+        }
+    }
+
+    private void consume(InputStream in) throws IOException {
+        if (in == null) {
+            return;
+        }
+        try {
+            while (in.read(buffer) >= 0) {
+                // discard
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String getSessionCookie(List<String> setCookieHeaders) {
+        if (setCookieHeaders == null) {
+            return null;
+        }
+        for (String header : setCookieHeaders) {
+            if (!header.startsWith(SESSION_COOKIE + "=")) {
+                continue;
+            }
+            int end = header.indexOf(';');
+            return header.substring(SESSION_COOKIE.length() + 1, end < 0 ? header.length() : end);
+        }
+        return null;
+    }
+}
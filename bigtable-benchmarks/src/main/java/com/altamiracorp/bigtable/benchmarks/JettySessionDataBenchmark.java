@@ -0,0 +1,52 @@
+package com.altamiracorp.bigtable.benchmarks;
+
+import com.altamiracorp.bigtable.jetty.model.JettySessionData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Java serialization of session attributes into and out of the session data column family
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JettySessionDataBenchmark {
+    private static final String ATTRIBUTE_NAME = "attribute";
+
+    @Param({"string", "map"})
+    public String attribute;
+
+    private Object object;
+    private JettySessionData sessionData;
+
+    @Setup
+    public void setup() {
+        SyntheticData data = new SyntheticData(42);
+        if ("map".equals(attribute)) {
+            HashMap<String, String> map = new HashMap<String, String>();
+            for (int i = 0; i < 50; i++) {
+                map.put(data.randomString(12), data.randomString(64));
+            }
+            object = map;
+        } else {
+            object = data.randomString(64);
+        }
+        sessionData = new JettySessionData();
+        sessionData.setObject(ATTRIBUTE_NAME, object);
+    }
+
+    @Benchmark
+    public JettySessionData setObject() {
+        return sessionData.setObject(ATTRIBUTE_NAME, object);
+    }
+
+    @Benchmark
+    public Object getObject() {
+        return sessionData.getObject(ATTRIBUTE_NAME);
+    }
+}
@@ -0,0 +1,37 @@
+package com.altamiracorp.bigtable.benchmarks;
+
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtableui.routes.Query;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of a page of query results to the JSON returned by the UI
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryRenderBenchmark {
+    @Param({"100"})
+    public int rowCount;
+
+    @Param({"32", "4096"})
+    public int valueLength;
+
+    private List<Row> rows;
+
+    @Setup
+    public void setup() {
+        rows = new SyntheticData(42).rows(rowCount, 2, 10, valueLength);
+    }
+
+    @Benchmark
+    public String rowsToJson() {
+        return Query.rowsToJson(rows, rowCount).toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.altamiracorp.bigtable.benchmarks;
+
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKeyComparator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging rows, resetting their dirty bits and sorting them by row key
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowBenchmark {
+    @Param({"narrow", "wide"})
+    public String shape;
+
+    @Param({"1000"})
+    public int sortRowCount;
+
+    private Row existingRow;
+    private Row newRow;
+    private List<Row> unsortedRows;
+    private RowKeyComparator comparator = new RowKeyComparator();
+
+    @Setup
+    public void setup() {
+        SyntheticData data = new SyntheticData(42);
+        int columnFamilies = "wide".equals(shape) ? 4 : 1;
+        int columns = "wide".equals(shape) ? 250 : 5;
+        existingRow = data.row("row:existing", columnFamilies, columns, 32);
+        // overlaps the existing row's families and columns, so update replaces rather than grows
+        newRow = data.row("row:existing", columnFamilies, columns, 32);
+        unsortedRows = data.rows(sortRowCount, 1, 1, 8);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Benchmark
+    public Row update() {
+        existingRow.update(newRow);
+        return existingRow;
+    }
+
+    @Benchmark
+    public Row setDirtyBits() {
+        existingRow.setDirtyBits(false);
+        return existingRow;
+    }
+
+    @Benchmark
+    public List<Row> sortByRowKey() {
+        List<Row> rows = new ArrayList<Row>(unsortedRows);
+        Collections.sort(rows, comparator);
+        return rows;
+    }
+}
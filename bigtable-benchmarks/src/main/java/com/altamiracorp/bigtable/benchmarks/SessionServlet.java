@@ -0,0 +1,55 @@
+package com.altamiracorp.bigtable.benchmarks;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+
+/**
+ * Creates, reads and mutates HTTP sessions so that the session manager sees the traffic of a real application.
+ * <ul>
+ * <li>/session/create starts a new session holding a payload attribute</li>
+ * <li>/session/read returns the payload of the current session</li>
+ * <li>/session/mutate replaces the payload and increments a counter attribute</li>
+ * </ul>
+ * Requests for a session which does not exist return 404.
+ */
+public class SessionServlet extends HttpServlet {
+    public static final String PAYLOAD_PARAMETER = "payload";
+    private static final String PAYLOAD_ATTRIBUTE = "payload";
+    private static final String COUNTER_ATTRIBUTE = "counter";
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String action = request.getPathInfo();
+        if ("/create".equals(action)) {
+            HttpSession session = request.getSession(true);
+            session.setAttribute(PAYLOAD_ATTRIBUTE, request.getParameter(PAYLOAD_PARAMETER));
+            session.setAttribute(COUNTER_ATTRIBUTE, 0);
+            respond(response, session.getId());
+            return;
+        }
+
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "no session");
+            return;
+        }
+        if ("/read".equals(action)) {
+            respond(response, String.valueOf(session.getAttribute(PAYLOAD_ATTRIBUTE)));
+        } else if ("/mutate".equals(action)) {
+            Integer counter = (Integer) session.getAttribute(COUNTER_ATTRIBUTE);
+            session.setAttribute(COUNTER_ATTRIBUTE, counter == null ? 1 : counter + 1);
+            session.setAttribute(PAYLOAD_ATTRIBUTE, request.getParameter(PAYLOAD_PARAMETER));
+            respond(response, String.valueOf(session.getAttribute(COUNTER_ATTRIBUTE)));
+        } else {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "unknown action: " + action);
+        }
+    }
+
+    private void respond(HttpServletResponse response, String body) throws IOException {
+        response.setContentType("text/plain");
+        response.getWriter().write(body);
+    }
+}
@@ -0,0 +1,116 @@
+package com.altamiracorp.bigtable.benchmarks;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Generates rows, cells and values for the benchmarks from a fixed seed, so every run of a benchmark
+ * sees the same data without needing a cluster.
+ */
+public class SyntheticData {
+    public static final String TABLE_NAME = "benchmarkTable";
+    public static final String[] VISIBILITIES = {"", "A", "A&B", "(A|B)&C"};
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+
+    private final Random random;
+
+    public SyntheticData(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public String randomString(int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+
+    public byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * @return a value of the given type as accepted by {@link com.altamiracorp.bigtable.model.Value}
+     */
+    public Object randomValue(ValueType type, int length) {
+        switch (type) {
+            case STRING:
+                return randomString(length);
+            case LONG:
+                return random.nextLong();
+            case INTEGER:
+                return random.nextInt();
+            case DOUBLE:
+                return random.nextDouble();
+            case BOOLEAN:
+                return random.nextBoolean();
+            case BYTES:
+                return randomBytes(length);
+            default:
+                throw new RuntimeException("Unhandled value type: " + type);
+        }
+    }
+
+    /**
+     * Creates rows whose keys are random but share a common prefix, like the keys of a real table
+     *
+     * @param count           number of rows
+     * @param columnFamilies  column families per row
+     * @param columns         columns per column family
+     * @param valueLength     length of each string value
+     */
+    public List<Row> rows(int count, int columnFamilies, int columns, int valueLength) {
+        List<Row> results = new ArrayList<Row>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(row("row:" + randomString(16), columnFamilies, columns, valueLength));
+        }
+        return results;
+    }
+
+    public Row row(String rowKey, int columnFamilies, int columns, int valueLength) {
+        Row<RowKey> row = new Row<RowKey>(TABLE_NAME, new RowKey(rowKey));
+        for (int cf = 0; cf < columnFamilies; cf++) {
+            ColumnFamily columnFamily = new ColumnFamily("cf" + cf);
+            for (int c = 0; c < columns; c++) {
+                columnFamily.set("column" + c, randomString(valueLength), VISIBILITIES[random.nextInt(VISIBILITIES.length)]);
+            }
+            row.addColumnFamily(columnFamily);
+        }
+        return row;
+    }
+
+    /**
+     * Creates the sorted cells of one row as a scanner would return them
+     */
+    public List<Map.Entry<Key, Value>> accumuloRow(String rowKey, int columnFamilies, int columns, int valueLength) {
+        TreeMap<Key, Value> cells = new TreeMap<Key, Value>();
+        for (int cf = 0; cf < columnFamilies; cf++) {
+            for (int c = 0; c < columns; c++) {
+                Key key = new Key(rowKey, "cf" + cf, "column" + c, VISIBILITIES[random.nextInt(VISIBILITIES.length)], 1L);
+                cells.put(key, new Value(randomString(valueLength).getBytes()));
+            }
+        }
+        return new ArrayList<Map.Entry<Key, Value>>(cells.entrySet());
+    }
+
+    public static enum ValueType {
+        STRING,
+        LONG,
+        INTEGER,
+        DOUBLE,
+        BOOLEAN,
+        BYTES
+    }
+}
@@ -0,0 +1,67 @@
+package com.altamiracorp.bigtable.benchmarks;
+
+import com.altamiracorp.bigtable.model.Value;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of each supported type to a {@link Value}, decoding it back and rendering it as JSON
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueBenchmark {
+    @Param({"STRING", "LONG", "INTEGER", "DOUBLE", "BOOLEAN", "BYTES"})
+    public SyntheticData.ValueType type;
+
+    @Param({"16", "1024"})
+    public int length;
+
+    private Object object;
+    private Value value;
+
+    @Setup
+    public void setup() {
+        object = new SyntheticData(42).randomValue(type, length);
+        value = new Value(object);
+    }
+
+    @Benchmark
+    public Value encode() {
+        return new Value(object);
+    }
+
+    @Benchmark
+    public Object decode() {
+        switch (type) {
+            case STRING:
+                return value.toString();
+            case LONG:
+                return value.toLong();
+            case INTEGER:
+                return value.toInteger();
+            case DOUBLE:
+                return value.toDouble();
+            case BOOLEAN:
+                return value.toBoolean();
+            default:
+                return value.toBytes();
+        }
+    }
+
+    @Benchmark
+    public String toJSONString() {
+        return value.toJSONString();
+    }
+
+    @Benchmark
+    public void roundTrip(Blackhole blackhole) {
+        Value encoded = new Value(object);
+        blackhole.consume(new Value(encoded.toBytes()).toBytes());
+    }
+}
@@ -23,7 +23,7 @@ public class BigTableJettySessionIdManager extends AbstractSessionIdManager {
 
     @Override
     public boolean idInUse(String id) {
-        return sessionManager.loadSession(id) != null;
+        return sessionManager.sessionExists(id);
     }
 
     @Override
@@ -4,6 +4,7 @@ import com.altamiracorp.bigtable.jetty.model.*;
 import com.altamiracorp.bigtable.model.Column;
 import com.altamiracorp.bigtable.model.FlushFlag;
 import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.jfr.FlightRecorderSupport;
 import com.altamiracorp.bigtable.model.user.ModelUserContext;
 import com.google.common.base.Optional;
 import com.google.common.cache.CacheBuilder;
@@ -50,21 +51,36 @@ public class BigTableJettySessionManager extends NoSqlSessionManager {
 
     @Override
     protected NoSqlSession loadSession(String clusterId) {
+        SessionEvent event = beginEvent();
         Optional<JettySessionRow> row = cache.getUnchecked(clusterId);
         if (!row.isPresent()) {
+            commitEvent(event, "load", false, 0);
             return null;
         }
 
         JettySessionMetadata metadata = row.get().getMetadata();
         NoSqlSession session = new NoSqlSession(this, metadata.getCreated(), metadata.getAccessed(), metadata.getClusterId(), metadata.getVersion());
-        setData(session, row.get().getData());
+        int attributeCount = setData(session, row.get().getData());
         session.didActivate();
 
+        commitEvent(event, "load", true, attributeCount);
         return session;
     }
 
+    /**
+     * Checks for a stored session without loading its attributes, answering from the cache when it can
+     */
+    public boolean sessionExists(String clusterId) {
+        Optional<JettySessionRow> row = cache.getIfPresent(clusterId);
+        if (row != null) {
+            return row.isPresent();
+        }
+        return getModelSession().exists(JettySessionRow.TABLE_NAME, clusterId, getModelUserContext());
+    }
+
     @Override
     protected Object save(NoSqlSession session, Object version, boolean activateAfterSave) {
+        SessionEvent event = beginEvent();
         session.willPassivate();
 
         if (session.isValid()) {
@@ -102,10 +118,12 @@ public class BigTableJettySessionManager extends NoSqlSessionManager {
             }
 
             jettySessionRepository.save(row, FlushFlag.FLUSH);
+            commitEvent(event, "save", !isNew, attributesToSave.size());
         } else {
             // invalid session
             jettySessionRepository.delete(new JettySessionRowKey(session.getClusterId()));
             cache.invalidate(session.getClusterId());
+            commitEvent(event, "delete", true, 0);
         }
 
         if (activateAfterSave) {
@@ -117,6 +135,7 @@ public class BigTableJettySessionManager extends NoSqlSessionManager {
 
     @Override
     protected Object refresh(NoSqlSession session, Object version) {
+        SessionEvent event = beginEvent();
         Optional<JettySessionRow> optRow = cache.getUnchecked(session.getClusterId());
 
         if (version != null) {
@@ -124,6 +143,7 @@ public class BigTableJettySessionManager extends NoSqlSessionManager {
                 Long savedVersion = optRow.get().getMetadata().getVersion();
                 if (savedVersion != null && savedVersion == ((Number) version).longValue()) {
                     // refresh not required
+                    commitEvent(event, "refresh", true, 0);
                     return version;
                 }
             }
@@ -132,31 +152,36 @@ public class BigTableJettySessionManager extends NoSqlSessionManager {
 
         if (!optRow.isPresent()) {
             session.invalidate();
+            commitEvent(event, "refresh", false, 0);
             return null;
         }
 
         JettySessionRow row = optRow.get();
         session.willPassivate();
         session.clearAttributes();
-        setData(session, row.getData());
+        int attributeCount = setData(session, row.getData());
 
         row.getMetadata().setAccessed(System.currentTimeMillis());
         jettySessionRepository.save(row);
 
         session.didActivate();
+        commitEvent(event, "refresh", true, attributeCount);
 
         return version;
     }
 
     @Override
     protected boolean remove(NoSqlSession session) {
+        SessionEvent event = beginEvent();
         Optional<JettySessionRow> optRow = cache.getUnchecked(session.getClusterId());
 
         if (optRow.isPresent()) {
             jettySessionRepository.delete(optRow.get().getRowKey());
             cache.invalidate(session.getClusterId());
+            commitEvent(event, "remove", true, 0);
             return true;
         } else {
+            commitEvent(event, "remove", false, 0);
             return false;
         }
     }
@@ -166,14 +191,42 @@ public class BigTableJettySessionManager extends NoSqlSessionManager {
         // TODO
     }
 
-    private void setData(NoSqlSession session, JettySessionData data) {
+    private int setData(NoSqlSession session, JettySessionData data) {
+        int count = 0;
         for (Column col : data.getColumns()) {
             String name = col.getName();
             Object value = data.getObject(name);
 
             session.doPutOrRemove(name, value);
             session.bindValue(name, value);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return a started Flight Recorder event, or null if the event is not being recorded
+     */
+    private static SessionEvent beginEvent() {
+        if (!FlightRecorderSupport.isAvailable()) {
+            return null;
+        }
+        SessionEvent event = new SessionEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    private static void commitEvent(SessionEvent event, String operation, boolean found, int attributeCount) {
+        if (event == null) {
+            return;
         }
+        event.operation = operation;
+        event.found = found;
+        event.attributeCount = attributeCount;
+        event.commit();
     }
 
     public ModelSession getModelSession() {
@@ -0,0 +1,27 @@
+package com.altamiracorp.bigtable.jetty;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A session load, save, refresh or remove by {@link BigTableJettySessionManager}. Only touch this class
+ * when {@link com.altamiracorp.bigtable.model.jfr.FlightRecorderSupport#isAvailable()} returns true.
+ */
+@Name("com.altamiracorp.bigtable.JettySession")
+@Label("BigTable Jetty Session")
+@Category({"BigTable", "Jetty"})
+@Description("A Jetty session read from or written to BigTable")
+public class SessionEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Found")
+    public boolean found;
+
+    @Label("Attributes")
+    @Description("Attributes loaded, or attributes written for saves")
+    public int attributeCount;
+}
@@ -0,0 +1,97 @@
+package com.altamiracorp.bigtable.load;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Picks the record number of the next key to read, update, scan or delete. Records are numbered from zero in
+ * insert order and the inserted count grows as the workload inserts.
+ */
+public abstract class KeyChooser {
+    public static final String UNIFORM = "uniform";
+    public static final String ZIPFIAN = "zipfian";
+    public static final String LATEST = "latest";
+
+    protected final AtomicLong insertedCount;
+
+    protected KeyChooser(AtomicLong insertedCount) {
+        this.insertedCount = insertedCount;
+    }
+
+    public abstract long nextRecord(Random random);
+
+    public static KeyChooser create(String distribution, AtomicLong insertedCount) {
+        if (UNIFORM.equals(distribution)) {
+            return new UniformKeyChooser(insertedCount);
+        }
+        if (ZIPFIAN.equals(distribution)) {
+            return new ZipfianKeyChooser(insertedCount);
+        }
+        if (LATEST.equals(distribution)) {
+            return new LatestKeyChooser(insertedCount);
+        }
+        throw new RuntimeException("Unhandled key distribution: " + distribution);
+    }
+
+    /**
+     * Every inserted record is equally likely
+     */
+    public static class UniformKeyChooser extends KeyChooser {
+        public UniformKeyChooser(AtomicLong insertedCount) {
+            super(insertedCount);
+        }
+
+        @Override
+        public long nextRecord(Random random) {
+            long count = Math.max(insertedCount.get(), 1);
+            return (long) (random.nextDouble() * count);
+        }
+    }
+
+    /**
+     * A few records are very popular and most are rarely touched. The popular records are scattered over
+     * the key space by hashing the zipfian rank, as YCSB's scrambled zipfian does, so they are not all in
+     * one tablet.
+     */
+    public static class ZipfianKeyChooser extends KeyChooser {
+        private final ZipfianGenerator generator = new ZipfianGenerator();
+
+        public ZipfianKeyChooser(AtomicLong insertedCount) {
+            super(insertedCount);
+        }
+
+        @Override
+        public long nextRecord(Random random) {
+            long count = Math.max(insertedCount.get(), 1);
+            long rank = generator.next(random, count);
+            return (fnvHash64(rank) & Long.MAX_VALUE) % count;
+        }
+    }
+
+    /**
+     * The most recently inserted records are the most popular, following a zipfian distribution over age
+     */
+    public static class LatestKeyChooser extends KeyChooser {
+        private final ZipfianGenerator generator = new ZipfianGenerator();
+
+        public LatestKeyChooser(AtomicLong insertedCount) {
+            super(insertedCount);
+        }
+
+        @Override
+        public long nextRecord(Random random) {
+            long count = Math.max(insertedCount.get(), 1);
+            return count - 1 - generator.next(random, count);
+        }
+    }
+
+    public static long fnvHash64(long value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < 8; i++) {
+            hash ^= value & 0xff;
+            hash *= 0x100000001B3L;
+            value >>= 8;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,197 @@
+package com.altamiracorp.bigtable.load;
+
+import com.altamiracorp.bigtable.model.MockSession;
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.accumulo.AccumuloSession;
+import com.altamiracorp.bigtable.model.user.ModelUserContext;
+import com.beust.jcommander.DynamicParameter;
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * YCSB style load generator which drives a {@link ModelSession} with a configurable mix of reads, updates,
+ * inserts, scans and deletes. The table is loaded with the initial records, then the worker threads run the
+ * mix while throughput and latency percentiles are printed per interval and for the whole run.
+ * <p/>
+ * Session properties given with -D are passed to {@link ModelSession#init(Map)}, so the same workload can be
+ * run against differently tuned sessions, e.g. -Dbigtable.metrics.enabled=true.
+ */
+public class LoadGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final String SESSION_MOCK = "mock";
+    private static final String SESSION_MINICLUSTER = "minicluster";
+    private static final String SESSION_ACCUMULO = "accumulo";
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    @Parameter(names = {"-session"}, description = "Session to drive: mock, minicluster or accumulo (configured with -D properties)")
+    private String sessionType = SESSION_MOCK;
+
+    @Parameter(names = {"-table"}, description = "Table to load and query")
+    private String tableName = "loadtest";
+
+    @Parameter(names = {"-records"}, description = "Number of records loaded before the run")
+    private long recordCount = 10000;
+
+    @Parameter(names = {"-skipLoad"}, description = "Reuse the records already in the table; -records must match what was loaded")
+    private boolean skipLoad = false;
+
+    @Parameter(names = {"-operations"}, description = "Number of operations to run")
+    private long operationCount = 100000;
+
+    @Parameter(names = {"-duration"}, description = "Maximum run time in seconds, 0 for no limit")
+    private long durationSeconds = 0;
+
+    @Parameter(names = {"-threads"}, description = "Number of worker threads")
+    private int threadCount = 4;
+
+    @Parameter(names = {"-target"}, description = "Target operations per second over all threads, 0 for no limit")
+    private double targetOpsPerSecond = 0;
+
+    @Parameter(names = {"-read"}, description = "Proportion of reads")
+    private double readProportion = 0.95;
+
+    @Parameter(names = {"-update"}, description = "Proportion of updates")
+    private double updateProportion = 0.05;
+
+    @Parameter(names = {"-insert"}, description = "Proportion of inserts")
+    private double insertProportion = 0;
+
+    @Parameter(names = {"-scan"}, description = "Proportion of scans")
+    private double scanProportion = 0;
+
+    @Parameter(names = {"-delete"}, description = "Proportion of deletes")
+    private double deleteProportion = 0;
+
+    @Parameter(names = {"-distribution"}, description = "Key distribution: uniform, zipfian or latest")
+    private String distribution = KeyChooser.ZIPFIAN;
+
+    @Parameter(names = {"-fieldCount"}, description = "Number of columns per record")
+    private int fieldCount = 10;
+
+    @Parameter(names = {"-fieldLength"}, description = "Length of each column value")
+    private int fieldLength = 100;
+
+    @Parameter(names = {"-maxScanLength"}, description = "Maximum number of rows read by a scan")
+    private int maxScanLength = 100;
+
+    @Parameter(names = {"-reportInterval"}, description = "Seconds between interval reports")
+    private int reportIntervalSeconds = 10;
+
+    @Parameter(names = {"-authorizations"}, description = "Comma separated authorizations for reads")
+    private String authorizations = "";
+
+    @Parameter(names = {"-seed"}, description = "Random seed")
+    private long seed = 42;
+
+    @DynamicParameter(names = {"-D"}, description = "Session properties")
+    private Map<String, String> sessionProperties = new HashMap<String, String>();
+
+    private final PrintStream out = System.out;
+
+    private void run(String[] args) throws Exception {
+        new JCommander(this, args);
+
+        MiniCluster cluster = null;
+        Map<String, Object> properties = new HashMap<String, Object>(sessionProperties);
+        if (SESSION_MINICLUSTER.equals(sessionType)) {
+            cluster = new MiniCluster();
+            cluster.start();
+            properties.putAll(cluster.getSessionProperties());
+        }
+
+        ModelSession session = createSession();
+        session.init(properties);
+        try {
+            ModelUserContext user = session.createModelUserContext(authorizations.split(","));
+            AtomicLong insertedCount = new AtomicLong(recordCount);
+            Workload workload = new Workload(tableName, new double[]{
+                    readProportion, updateProportion, insertProportion, scanProportion, deleteProportion
+            }, distribution, insertedCount, fieldCount, fieldLength, maxScanLength);
+
+            if (!skipLoad) {
+                load(session, user, workload);
+            }
+            runOperations(session, user, workload);
+        } finally {
+            session.close();
+            if (cluster != null) {
+                cluster.stop();
+            }
+        }
+    }
+
+    /**
+     * MockSession keeps its tables in unsynchronized collections, so its calls are serialized
+     */
+    private ModelSession createSession() {
+        if (SESSION_MOCK.equals(sessionType)) {
+            return new SynchronizedModelSession(new MockSession());
+        }
+        if (SESSION_MINICLUSTER.equals(sessionType) || SESSION_ACCUMULO.equals(sessionType)) {
+            return new AccumuloSession();
+        }
+        throw new RuntimeException("Unhandled session type: " + sessionType);
+    }
+
+    private void load(ModelSession session, ModelUserContext user, Workload workload) {
+        session.deleteTable(tableName, user);
+        session.initializeTable(tableName, user);
+
+        Random random = new Random(seed);
+        long startTime = System.nanoTime();
+        List<Row> batch = new ArrayList<Row>(LOAD_BATCH_SIZE);
+        for (long record = 0; record < recordCount; record++) {
+            batch.add(workload.createRow(Workload.toRowKey(record), random));
+            if (batch.size() == LOAD_BATCH_SIZE) {
+                session.saveMany(tableName, batch);
+                batch.clear();
+            }
+        }
+        session.saveMany(tableName, batch);
+        session.flush();
+        double elapsedSeconds = (System.nanoTime() - startTime) / (double) TimeUnit.SECONDS.toNanos(1);
+        out.println(String.format("loaded %d records in %.1f sec (%.1f records/sec)",
+                recordCount, elapsedSeconds, elapsedSeconds > 0 ? recordCount / elapsedSeconds : 0));
+    }
+
+    private void runOperations(ModelSession session, ModelUserContext user, Workload workload) throws InterruptedException {
+        OperationStats[] stats = new OperationStats[Operation.values().length];
+        for (Operation operation : Operation.values()) {
+            stats[operation.ordinal()] = new OperationStats(operation.name());
+        }
+
+        long startTime = System.nanoTime();
+        long deadline = durationSeconds > 0 ? startTime + TimeUnit.SECONDS.toNanos(durationSeconds) : Long.MAX_VALUE;
+        AtomicLong remainingOperations = new AtomicLong(operationCount);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < threadCount; i++) {
+            LoadWorker worker = new LoadWorker(workload, session, user, stats, remainingOperations,
+                    deadline, targetOpsPerSecond / threadCount, seed + i + 1);
+            Thread thread = new Thread(worker, "load-worker-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        new StatsReporter(out, stats, reportIntervalSeconds).awaitAndReport(threads, startTime);
+        session.flush();
+    }
+
+    public static void main(String[] args) {
+        try {
+            new LoadGenerator().run(args);
+        } catch (Exception ex) {
+            LOGGER.error("Could not run load generator", ex);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.altamiracorp.bigtable.load;
+
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.user.ModelUserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues operations against the session until the shared operation budget is used up or the deadline passes.
+ * Operations are timed until their results have been consumed, starting just before the session call or, when
+ * throttled, at the time the operation was scheduled to start. A slow operation therefore also counts against the
+ * operations it delays, instead of hiding the wait they would have seen (coordinated omission).
+ */
+public class LoadWorker implements Runnable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadWorker.class);
+
+    private final Workload workload;
+    private final ModelSession session;
+    private final ModelUserContext user;
+    private final OperationStats[] stats;
+    private final AtomicLong remainingOperations;
+    private final long deadlineNanos;
+    private final long intervalNanos;
+    private final Random random;
+
+    /**
+     * @param deadlineNanos     System.nanoTime() after which the worker stops, or Long.MAX_VALUE
+     * @param targetOpsPerSecond operations per second for this worker, or 0 to run unthrottled
+     */
+    public LoadWorker(Workload workload, ModelSession session, ModelUserContext user, OperationStats[] stats,
+                      AtomicLong remainingOperations, long deadlineNanos, double targetOpsPerSecond, long seed) {
+        this.workload = workload;
+        this.session = session;
+        this.user = user;
+        this.stats = stats;
+        this.remainingOperations = remainingOperations;
+        this.deadlineNanos = deadlineNanos;
+        this.intervalNanos = targetOpsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / targetOpsPerSecond) : 0;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void run() {
+        long nextStart = System.nanoTime();
+        while (remainingOperations.decrementAndGet() >= 0 && System.nanoTime() < deadlineNanos) {
+            long scheduledStart = 0;
+            if (intervalNanos > 0) {
+                throttle(nextStart);
+                scheduledStart = nextStart;
+                nextStart += intervalNanos;
+            }
+            Operation operation = workload.nextOperation(random);
+            OperationStats operationStats = stats[operation.ordinal()];
+            long startTime = intervalNanos > 0 ? scheduledStart : System.nanoTime();
+            try {
+                if (!execute(operation)) {
+                    operationStats.notFound();
+                }
+            } catch (RuntimeException e) {
+                LOGGER.debug("{} failed", operation, e);
+                operationStats.error();
+            }
+            operationStats.record(System.nanoTime() - startTime);
+        }
+    }
+
+    private void throttle(long nextStart) {
+        long sleepNanos = nextStart - System.nanoTime();
+        if (sleepNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return false if a read or scan found nothing
+     */
+    private boolean execute(Operation operation) {
+        String tableName = workload.getTableName();
+        switch (operation) {
+            case READ: {
+                String rowKey = workload.nextExistingKey(random);
+                return session.findByRowKey(tableName, rowKey, user) != null;
+            }
+            case UPDATE: {
+                Row row = workload.createUpdate(workload.nextExistingKey(random), random);
+                session.save(row);
+                return true;
+            }
+            case INSERT: {
+                long record = workload.nextInsertRecord();
+                try {
+                    session.save(workload.createRow(Workload.toRowKey(record), random));
+                } finally {
+                    workload.insertCompleted(record);
+                }
+                return true;
+            }
+            case SCAN: {
+                String startKey = workload.nextExistingKey(random);
+                int scanLength = workload.nextScanLength(random);
+                int rows = 0;
+                Iterator<Row> iterator = session.findByRowKeyRange(tableName, startKey, Workload.KEY_END, user).iterator();
+                while (rows < scanLength && iterator.hasNext()) {
+                    iterator.next();
+                    rows++;
+                }
+                return rows > 0;
+            }
+            case DELETE: {
+                String rowKey = workload.nextExistingKey(random);
+                session.deleteRow(tableName, new RowKey(rowKey));
+                return true;
+            }
+            default:
+                throw new RuntimeException("Unhandled operation: " + operation);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.altamiracorp.bigtable.load;
+
+import org.apache.accumulo.minicluster.MiniAccumuloCluster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A MiniAccumuloCluster in a temporary directory, with the properties an AccumuloSession needs to connect to it
+ */
+public class MiniCluster {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MiniCluster.class);
+    private static final String ROOT_PASSWORD = "password";
+
+    private File dir;
+    private MiniAccumuloCluster cluster;
+
+    public void start() throws IOException, InterruptedException {
+        dir = File.createTempFile("bigtable-minicluster", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Could not create temporary directory " + dir);
+        }
+        cluster = new MiniAccumuloCluster(dir, ROOT_PASSWORD);
+        cluster.start();
+        LOGGER.info("started MiniAccumuloCluster in " + dir);
+    }
+
+    public Map<String, Object> getSessionProperties() {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("bigtable.accumulo.instanceName", cluster.getInstanceName());
+        properties.put("bigtable.accumulo.zookeeperServerNames", cluster.getZooKeepers());
+        properties.put("bigtable.accumulo.username", "root");
+        properties.put("bigtable.accumulo.password", ROOT_PASSWORD);
+        return properties;
+    }
+
+    public void stop() throws IOException, InterruptedException {
+        if (cluster != null) {
+            cluster.stop();
+            cluster = null;
+        }
+        if (dir != null) {
+            deleteDirectory(dir);
+            dir = null;
+        }
+    }
+
+    private static void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteDirectory(file);
+            }
+        }
+        if (!dir.delete()) {
+            LOGGER.warn("Could not delete " + dir);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.altamiracorp.bigtable.load;
+
+public enum Operation {
+    READ,
+    UPDATE,
+    INSERT,
+    SCAN,
+    DELETE
+}
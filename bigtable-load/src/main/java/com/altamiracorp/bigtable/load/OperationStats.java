@@ -0,0 +1,85 @@
+package com.altamiracorp.bigtable.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies of one operation type or endpoint in microseconds. Worker threads record into a {@link Recorder}; the
+ * reporter takes the interval histogram periodically and accumulates it into the run's total.
+ */
+public class OperationStats {
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final String name;
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+    private final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+    private final AtomicLong notFound = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private Histogram interval;
+
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long durationNanos) {
+        recorder.recordValue(Math.max(durationNanos / 1000, 0));
+    }
+
+    public void notFound() {
+        notFound.incrementAndGet();
+    }
+
+    public void error() {
+        errors.incrementAndGet();
+    }
+
+    /**
+     * Called by the reporter thread only
+     *
+     * @return the latencies recorded since the previous call
+     */
+    public Histogram nextInterval() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        return interval;
+    }
+
+    public Histogram getTotal() {
+        return total;
+    }
+
+    public long getNotFound() {
+        return notFound.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public static String summarize(Histogram histogram) {
+        return String.format("count=%d mean=%.1f p50=%d p95=%d p99=%d p99.9=%d max=%d",
+                histogram.getTotalCount(),
+                histogram.getMean(),
+                histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(95),
+                histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9),
+                histogram.getMaxValue());
+    }
+
+    public void printTotal(PrintStream out, double elapsedSeconds) {
+        out.println(String.format("[%s] throughput=%.1f ops/sec %s (us) notFound=%d errors=%d",
+                name,
+                elapsedSeconds > 0 ? total.getTotalCount() / elapsedSeconds : 0,
+                summarize(total),
+                getNotFound(),
+                getErrors()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.altamiracorp.bigtable.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for the worker threads while printing the throughput and latency percentiles of each interval, then
+ * prints the totals for the whole run
+ */
+public class StatsReporter {
+    private final PrintStream out;
+    private final OperationStats[] stats;
+    private final long reportIntervalNanos;
+
+    public StatsReporter(PrintStream out, OperationStats[] stats, int reportIntervalSeconds) {
+        this.out = out;
+        this.stats = stats;
+        this.reportIntervalNanos = TimeUnit.SECONDS.toNanos(reportIntervalSeconds);
+    }
+
+    /**
+     * @param startTime System.nanoTime() when the workers were started
+     */
+    public void awaitAndReport(List<Thread> threads, long startTime) throws InterruptedException {
+        long lastReportTime = startTime;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                long wait = lastReportTime + reportIntervalNanos - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.timedJoin(thread, wait);
+                    continue;
+                }
+                long now = System.nanoTime();
+                reportInterval(now - startTime, now - lastReportTime);
+                lastReportTime = now;
+            }
+        }
+        long endTime = System.nanoTime();
+        reportInterval(endTime - startTime, endTime - lastReportTime);
+        reportTotals(endTime - startTime);
+    }
+
+    private void reportInterval(long elapsedNanos, long intervalNanos) {
+        StringBuilder line = new StringBuilder();
+        long operations = 0;
+        for (OperationStats operationStats : stats) {
+            Histogram interval = operationStats.nextInterval();
+            if (interval.getTotalCount() == 0) {
+                continue;
+            }
+            operations += interval.getTotalCount();
+            line.append(String.format(" [%s %s]", operationStats.getName(), OperationStats.summarize(interval)));
+        }
+        double intervalSeconds = toSeconds(intervalNanos);
+        out.println(String.format("%d sec: %d operations; %.1f ops/sec;%s",
+                TimeUnit.NANOSECONDS.toSeconds(elapsedNanos),
+                operations,
+                intervalSeconds > 0 ? operations / intervalSeconds : 0,
+                line));
+    }
+
+    private void reportTotals(long elapsedNanos) {
+        double elapsedSeconds = toSeconds(elapsedNanos);
+        long totalOperations = 0;
+        for (OperationStats operationStats : stats) {
+            totalOperations += operationStats.getTotal().getTotalCount();
+        }
+        out.println(String.format("run time %.1f sec, %d operations, throughput %.1f ops/sec",
+                elapsedSeconds, totalOperations, elapsedSeconds > 0 ? totalOperations / elapsedSeconds : 0));
+        for (OperationStats operationStats : stats) {
+            if (operationStats.getTotal().getTotalCount() > 0) {
+                operationStats.printTotal(out, elapsedSeconds);
+            }
+        }
+    }
+
+    private static double toSeconds(long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+}
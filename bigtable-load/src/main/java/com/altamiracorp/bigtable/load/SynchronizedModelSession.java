@@ -0,0 +1,130 @@
+package com.altamiracorp.bigtable.load;
+
+import com.altamiracorp.bigtable.model.FlushFlag;
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+import com.altamiracorp.bigtable.model.user.ModelUserContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes calls to a session which is not thread safe, such as MockSession, so that it can be driven by
+ * several threads. Query results are copied while the lock is held.
+ */
+public class SynchronizedModelSession extends ModelSession {
+    private final ModelSession session;
+
+    public SynchronizedModelSession(ModelSession session) {
+        this.session = session;
+    }
+
+    @Override
+    public synchronized void init(Map<String, Object> properties) {
+        session.init(properties);
+    }
+
+    @Override
+    public synchronized void save(Row row, FlushFlag flushFlag) {
+        session.save(row, flushFlag);
+    }
+
+    @Override
+    public synchronized void saveMany(String tableName, Collection<Row> rows) {
+        session.saveMany(tableName, rows);
+    }
+
+    @Override
+    public synchronized Iterable<Row> findByRowKeyRange(String tableName, String keyStart, String keyEnd, ModelUserContext user) {
+        return copy(session.findByRowKeyRange(tableName, keyStart, keyEnd, user));
+    }
+
+    @Override
+    public synchronized Iterable<Row> findByRowStartsWith(String tableName, String rowKeyPrefix, ModelUserContext user) {
+        return copy(session.findByRowStartsWith(tableName, rowKeyPrefix, user));
+    }
+
+    @Override
+    public synchronized Iterable<Row> findByRowKeyRegex(String tableName, String rowKeyRegex, ModelUserContext user) {
+        return copy(session.findByRowKeyRegex(tableName, rowKeyRegex, user));
+    }
+
+    @Override
+    public synchronized Iterable<Row> findAll(String tableName, ModelUserContext user) {
+        return copy(session.findAll(tableName, user));
+    }
+
+    @Override
+    public synchronized long rowCount(String tableName, ModelUserContext user) {
+        return session.rowCount(tableName, user);
+    }
+
+    @Override
+    public synchronized Row findByRowKey(String tableName, String rowKey, ModelUserContext user) {
+        return session.findByRowKey(tableName, rowKey, user);
+    }
+
+    @Override
+    public synchronized Row findByRowKey(String tableName, String rowKey, Map<String, String> columnsToReturn, ModelUserContext user) {
+        return session.findByRowKey(tableName, rowKey, columnsToReturn, user);
+    }
+
+    @Override
+    public synchronized void initializeTable(String tableName, ModelUserContext user) {
+        session.initializeTable(tableName, user);
+    }
+
+    @Override
+    public synchronized void deleteTable(String tableName, ModelUserContext user) {
+        session.deleteTable(tableName, user);
+    }
+
+    @Override
+    public synchronized void deleteRow(String tableName, RowKey rowKey) {
+        session.deleteRow(tableName, rowKey);
+    }
+
+    @Override
+    public synchronized void deleteColumn(Row row, String tableName, String columnFamily, String columnQualifier, String columnVisibility) {
+        session.deleteColumn(row, tableName, columnFamily, columnQualifier, columnVisibility);
+    }
+
+    @Override
+    public synchronized List<String> getTableList(ModelUserContext user) {
+        return session.getTableList(user);
+    }
+
+    @Override
+    public synchronized void close() {
+        session.close();
+    }
+
+    @Override
+    public synchronized void flush() {
+        session.flush();
+    }
+
+    @Override
+    public synchronized ModelUserContext createModelUserContext(String... authorizations) {
+        return session.createModelUserContext(authorizations);
+    }
+
+    @Override
+    public synchronized void alterColumnsVisibility(Row row, String matchVisibility, String newVisibility, FlushFlag flushFlag) {
+        session.alterColumnsVisibility(row, matchVisibility, newVisibility, flushFlag);
+    }
+
+    private static Iterable<Row> copy(Iterable<Row> rows) {
+        if (rows == null) {
+            return null;
+        }
+        List<Row> results = new ArrayList<Row>();
+        for (Row row : rows) {
+            results.add(row);
+        }
+        return results;
+    }
+}
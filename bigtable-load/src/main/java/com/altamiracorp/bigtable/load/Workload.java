@@ -0,0 +1,146 @@
+package com.altamiracorp.bigtable.load;
+
+import com.altamiracorp.bigtable.model.ColumnFamily;
+import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.RowKey;
+
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The traffic shape: the operation mix, which keys the operations touch and the shape of the rows written.
+ * Rows have one column family with fieldCount string columns of fieldLength characters each.
+ */
+public class Workload {
+    public static final String COLUMN_FAMILY_NAME = "fields";
+    public static final String KEY_PREFIX = "user";
+    public static final String KEY_END = KEY_PREFIX + "~";
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+
+    private final String tableName;
+    private final Operation[] operations;
+    private final double[] cumulativeProportions;
+    private final KeyChooser keyChooser;
+    private final AtomicLong insertedCount;
+    private final AtomicLong nextInsertRecord;
+    private final SortedSet<Long> completedInserts = new TreeSet<Long>();
+    private final int fieldCount;
+    private final int fieldLength;
+    private final int maxScanLength;
+
+    /**
+     * @param proportions   relative weight of each operation, indexed by {@link Operation#ordinal()}
+     * @param insertedCount the number of records loaded so far, shared with the key chooser. Only grows once
+     *                      every record below the new count has been inserted.
+     */
+    public Workload(String tableName, double[] proportions, String distribution, AtomicLong insertedCount, int fieldCount, int fieldLength, int maxScanLength) {
+        this.tableName = tableName;
+        this.operations = Operation.values();
+        this.cumulativeProportions = new double[operations.length];
+        double total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += proportions[i];
+            cumulativeProportions[i] = total;
+        }
+        if (total <= 0) {
+            throw new RuntimeException("At least one operation proportion must be positive");
+        }
+        for (int i = 0; i < operations.length; i++) {
+            cumulativeProportions[i] /= total;
+        }
+        this.insertedCount = insertedCount;
+        this.nextInsertRecord = new AtomicLong(insertedCount.get());
+        this.keyChooser = KeyChooser.create(distribution, insertedCount);
+        this.fieldCount = fieldCount;
+        this.fieldLength = fieldLength;
+        this.maxScanLength = maxScanLength;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Operation nextOperation(Random random) {
+        double value = random.nextDouble();
+        for (int i = 0; i < operations.length; i++) {
+            if (value < cumulativeProportions[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    /**
+     * @return the key of an existing record, chosen by the key distribution
+     */
+    public String nextExistingKey(Random random) {
+        return toRowKey(keyChooser.nextRecord(random));
+    }
+
+    /**
+     * @return the number of a new record, which becomes visible to the key distribution once
+     * {@link #insertCompleted(long)} has been called for it and every record before it
+     */
+    public long nextInsertRecord() {
+        return nextInsertRecord.getAndIncrement();
+    }
+
+    /**
+     * Called once the insert of a record has finished, or failed, so that reads only choose records whose
+     * insert is no longer in flight. Inserts finish out of order, so the inserted count only moves past the
+     * records which have all finished.
+     */
+    public void insertCompleted(long record) {
+        synchronized (completedInserts) {
+            completedInserts.add(record);
+            long count = insertedCount.get();
+            while (!completedInserts.isEmpty() && completedInserts.first() == count) {
+                completedInserts.remove(count);
+                count++;
+            }
+            insertedCount.set(count);
+        }
+    }
+
+    public int nextScanLength(Random random) {
+        return 1 + random.nextInt(maxScanLength);
+    }
+
+    /**
+     * Record numbers are hashed so that records inserted together are spread over the key space
+     */
+    public static String toRowKey(long record) {
+        return String.format("%s%019d", KEY_PREFIX, KeyChooser.fnvHash64(record) & Long.MAX_VALUE);
+    }
+
+    public Row createRow(String rowKey, Random random) {
+        Row<RowKey> row = new Row<RowKey>(tableName, new RowKey(rowKey));
+        ColumnFamily columnFamily = new ColumnFamily(COLUMN_FAMILY_NAME);
+        for (int i = 0; i < fieldCount; i++) {
+            columnFamily.set("field" + i, randomString(random, fieldLength));
+        }
+        row.addColumnFamily(columnFamily);
+        return row;
+    }
+
+    /**
+     * @return a row which overwrites one randomly chosen field of the record
+     */
+    public Row createUpdate(String rowKey, Random random) {
+        Row<RowKey> row = new Row<RowKey>(tableName, new RowKey(rowKey));
+        ColumnFamily columnFamily = new ColumnFamily(COLUMN_FAMILY_NAME);
+        columnFamily.set("field" + random.nextInt(fieldCount), randomString(random, fieldLength));
+        row.addColumnFamily(columnFamily);
+        return row;
+    }
+
+    private static String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,85 @@
+package com.altamiracorp.bigtable.load;
+
+import java.util.Random;
+
+/**
+ * Generates zipfian distributed ranks in [0, count), where rank 0 is the most popular, using the method from
+ * Gray et al, "Quickly Generating Billion-Record Synthetic Databases". The zeta constant is extended
+ * incrementally as the item count grows, so a workload which inserts does not recompute it from scratch. Threads
+ * sharing a generator can pass counts out of order; a smaller count than the largest seen is answered by
+ * subtracting the few terms past it, without changing or locking the cached constant.
+ */
+public class ZipfianGenerator {
+    public static final double DEFAULT_THETA = 0.99;
+
+    private final double theta;
+    private final double alpha;
+    private final double zeta2;
+    private volatile Zeta zeta = new Zeta(0, 0);
+
+    public ZipfianGenerator() {
+        this(DEFAULT_THETA);
+    }
+
+    public ZipfianGenerator(double theta) {
+        this.theta = theta;
+        this.alpha = 1.0 / (1.0 - theta);
+        this.zeta2 = 1.0 + Math.pow(0.5, theta);
+    }
+
+    public long next(Random random, long count) {
+        if (count <= 1) {
+            return 0;
+        }
+        double zeta = zeta(count);
+        double eta = (1.0 - Math.pow(2.0 / count, 1.0 - theta)) / (1.0 - zeta2 / zeta);
+        double u = random.nextDouble();
+        double uz = u * zeta;
+        if (uz < 1.0) {
+            return 0;
+        }
+        if (uz < zeta2) {
+            return 1;
+        }
+        long rank = (long) (count * Math.pow(eta * u - eta + 1.0, alpha));
+        return Math.min(rank, count - 1);
+    }
+
+    private double zeta(long count) {
+        Zeta current = this.zeta;
+        if (count > current.count) {
+            synchronized (this) {
+                current = this.zeta;
+                if (count > current.count) {
+                    current = new Zeta(count, current.value + sum(current.count + 1, count));
+                    this.zeta = current;
+                }
+            }
+        }
+        if (count == current.count) {
+            return current.value;
+        }
+        if (current.count - count < count) {
+            return current.value - sum(count + 1, current.count);
+        }
+        return sum(1, count);
+    }
+
+    private double sum(long first, long last) {
+        double result = 0;
+        for (long i = first; i <= last; i++) {
+            result += 1.0 / Math.pow(i, theta);
+        }
+        return result;
+    }
+
+    private static class Zeta {
+        private final long count;
+        private final double value;
+
+        private Zeta(long count, double value) {
+            this.count = count;
+            this.value = value;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.altamiracorp.bigtableui;
 
+import com.altamiracorp.bigtable.model.ColumnCursor;
+import com.altamiracorp.bigtable.model.ColumnScan;
 import com.altamiracorp.bigtable.model.ModelSession;
 import com.altamiracorp.bigtable.model.Row;
+import com.altamiracorp.bigtable.model.stats.TableStatistics;
 import com.altamiracorp.bigtable.model.user.ModelUserContext;
 import com.altamiracorp.bigtableui.model.Table;
 import com.google.inject.Inject;
@@ -36,4 +39,14 @@ public class BigTableRepository {
         LOGGER.info("query [tableName: " + tableName + ", start: " + start + ", end: " + end + "]");
         return modelSession.findByRowKeyRange(tableName, start, end, user);
     }
+
+    public ColumnCursor scanColumns(String tableName, String rowKey, ColumnScan scan, ModelUserContext user) {
+        LOGGER.info("scanColumns [tableName: " + tableName + ", rowKey: " + rowKey + "]");
+        return modelSession.scanColumns(tableName, rowKey, scan, user);
+    }
+
+    public TableStatistics getStatistics(String tableName, String start, String end, ModelUserContext user) {
+        LOGGER.info("getStatistics [tableName: " + tableName + ", start: " + start + ", end: " + end + "]");
+        return modelSession.getStatistics(tableName, start, end, user);
+    }
 }
@@ -1,6 +1,9 @@
 package com.altamiracorp.bigtableui;
 
 import com.altamiracorp.bigtableui.routes.Query;
+import com.altamiracorp.bigtableui.routes.RowGet;
+import com.altamiracorp.bigtableui.routes.SlowQueryGet;
+import com.altamiracorp.bigtableui.routes.TableStatisticsGet;
 import com.altamiracorp.bigtableui.routes.TableGet;
 import com.altamiracorp.miniweb.StaticFileHandler;
 import com.google.inject.Injector;
@@ -28,6 +31,9 @@ public class Router extends HttpServlet {
 
         app.get("/table", TableGet.class);
         app.get("/table/{tableName}", Query.class);
+        app.get("/table/{tableName}/row/{rowKey}", RowGet.class);
+        app.get("/table/{tableName}/stats", TableStatisticsGet.class);
+        app.get("/slow-queries", SlowQueryGet.class);
     }
 
     @Override
@@ -1,7 +1,10 @@
 package com.altamiracorp.bigtableui.routes;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -76,27 +79,39 @@ public class Query extends BaseRequestHandler {
         respondWithJson(response, json);
     }
 
-    private JSONArray rowsToJson(Iterable<Row> rows, long rowCount) {
+    public static JSONArray rowsToJson(Iterable<Row> rows, long rowCount) {
         JSONArray result = new JSONArray();
         long count = 0;
-        for (Row row : rows) {
-            result.put(rowToJson(row));
-            count++;
-            if (count > rowCount) {
-                break;
+        Iterator<Row> iterator = rows.iterator();
+        try {
+            while (iterator.hasNext()) {
+                result.put(rowToJson(iterator.next()));
+                count++;
+                if (count > rowCount) {
+                    break;
+                }
+            }
+        } finally {
+            // stops prefetching and records the scan in the metrics and slow query log when it ends early
+            if (iterator instanceof Closeable) {
+                try {
+                    ((Closeable) iterator).close();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
             }
         }
         return result;
     }
 
-    private JSONObject rowToJson(Row row) {
+    private static JSONObject rowToJson(Row row) {
         JSONObject result = new JSONObject();
         result.put("key", row.getRowKey().toString());
         result.put("columnFamilies", columnFamiliesToJson(row.getColumnFamilies()));
         return result;
     }
 
-    private JSONObject columnFamiliesToJson(Collection<ColumnFamily> columnFamilies) {
+    private static JSONObject columnFamiliesToJson(Collection<ColumnFamily> columnFamilies) {
         JSONObject result = new JSONObject();
         for (ColumnFamily columnFamily : columnFamilies) {
             JSONObject columnFamilyJson = new JSONObject();
@@ -106,7 +121,7 @@ public class Query extends BaseRequestHandler {
         return result;
     }
 
-    private JSONObject columnsToJson(Collection<Column> columns) {
+    private static JSONObject columnsToJson(Collection<Column> columns) {
         JSONObject result = new JSONObject();
         for (Column column : columns) {
             result.put(column.getName(), columnToJson(column));
@@ -114,7 +129,7 @@ public class Query extends BaseRequestHandler {
         return result;
     }
 
-    private JSONObject columnToJson(Column column) {
+    static JSONObject columnToJson(Column column) {
         Value value = column.getValue();
         byte[] valueBytes = value.toBytes();
         if (valueBytes.length > MAX_VALUE_LENGTH) {
@@ -0,0 +1,92 @@
+package com.altamiracorp.bigtableui.routes;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.altamiracorp.bigtable.model.Cell;
+import com.altamiracorp.bigtable.model.ColumnCursor;
+import com.altamiracorp.bigtable.model.ColumnScan;
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.user.ModelUserContext;
+import com.altamiracorp.bigtableui.BigTableRepository;
+import com.altamiracorp.bigtableui.util.StringEscapeUtils;
+import com.altamiracorp.miniweb.HandlerChain;
+import com.google.inject.Inject;
+
+/**
+ * Pages through the columns of one row, so that rows too wide to load at once can be browsed. Pass the returned
+ * resumeToken back to get the next page.
+ */
+public class RowGet extends BaseRequestHandler {
+    private static final int DEFAULT_COLUMN_COUNT = 100;
+    private final ModelSession modelSession;
+    private final BigTableRepository bigTableRepository;
+
+    @Inject
+    public RowGet(
+            final ModelSession modelSession,
+            final BigTableRepository bigTableRepository) {
+        this.modelSession = modelSession;
+        this.bigTableRepository = bigTableRepository;
+    }
+
+    @Override
+    public void handle(HttpServletRequest request, HttpServletResponse response, HandlerChain chain) throws Exception {
+        final String tableName = (String) request.getAttribute("tableName");
+        final String rowKey = StringEscapeUtils.unescapeCString((String) request.getAttribute("rowKey"));
+        String authorizationsCommaSeparated = request.getParameter("authorizations");
+        String columnFamilies = request.getParameter("columnFamilies");
+        String start = request.getParameter("start");
+        String end = request.getParameter("end");
+        String columnCountString = request.getParameter("columnCount");
+        String resumeToken = request.getParameter("resumeToken");
+
+        if (authorizationsCommaSeparated == null) {
+            authorizationsCommaSeparated = "";
+        }
+
+        int columnCount = columnCountString == null ? DEFAULT_COLUMN_COUNT : Integer.parseInt(columnCountString);
+
+        ColumnScan scan = new ColumnScan()
+                .setColumnNameRange(emptyToNull(start), emptyToNull(end))
+                .setLimit(columnCount + 1)
+                .setResumeToken(resumeToken == null || resumeToken.length() == 0 ? null : resumeToken);
+        if (columnFamilies != null && columnFamilies.length() > 0) {
+            for (String columnFamily : columnFamilies.split(",")) {
+                scan.addColumnFamily(columnFamily);
+            }
+        }
+
+        String[] authorizations = authorizationsCommaSeparated.split(",");
+        ModelUserContext modelUserContext = modelSession.createModelUserContext(authorizations);
+        ColumnCursor cursor = bigTableRepository.scanColumns(tableName, rowKey, scan, modelUserContext);
+
+        JSONObject json = new JSONObject();
+        json.put("tableName", tableName);
+        json.put("key", rowKey);
+        try {
+            JSONArray columns = new JSONArray();
+            while (columns.length() < columnCount && cursor.hasNext()) {
+                Cell cell = cursor.next();
+                JSONObject columnJson = Query.columnToJson(cell.getColumn());
+                columnJson.put("columnFamily", cell.getColumnFamilyName());
+                columnJson.put("name", cell.getColumnName());
+                columns.put(columnJson);
+            }
+            json.put("columns", columns);
+            if (cursor.hasNext()) {
+                json.put("resumeToken", cursor.getResumeToken());
+            }
+        } finally {
+            cursor.close();
+        }
+        respondWithJson(response, json);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.length() == 0 ? null : StringEscapeUtils.unescapeCString(value);
+    }
+}
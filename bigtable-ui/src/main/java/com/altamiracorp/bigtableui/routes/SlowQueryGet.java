@@ -0,0 +1,37 @@
+package com.altamiracorp.bigtableui.routes;
+
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.metrics.SlowQueryLog;
+import com.altamiracorp.bigtable.model.metrics.SlowQueryRecord;
+import com.altamiracorp.miniweb.HandlerChain;
+import com.google.inject.Inject;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public class SlowQueryGet extends BaseRequestHandler {
+    private final ModelSession modelSession;
+
+    @Inject
+    public SlowQueryGet(final ModelSession modelSession) {
+        this.modelSession = modelSession;
+    }
+
+    @Override
+    public void handle(HttpServletRequest request, HttpServletResponse response, HandlerChain chain) throws Exception {
+        SlowQueryLog slowQueryLog = modelSession.getSlowQueryLog();
+
+        JSONObject results = new JSONObject();
+        results.put("enabled", slowQueryLog.isEnabled());
+        results.put("thresholdMillis", slowQueryLog.getThresholdMillis());
+        JSONArray queries = new JSONArray();
+        for (SlowQueryRecord record : slowQueryLog.getRecords()) {
+            queries.put(record.toJson());
+        }
+        results.put("queries", queries);
+
+        respondWithJson(response, results);
+    }
+}
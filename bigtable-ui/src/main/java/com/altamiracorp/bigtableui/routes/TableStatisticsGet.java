@@ -0,0 +1,47 @@
+package com.altamiracorp.bigtableui.routes;
+
+import com.altamiracorp.bigtable.model.ModelSession;
+import com.altamiracorp.bigtable.model.user.ModelUserContext;
+import com.altamiracorp.bigtableui.BigTableRepository;
+import com.altamiracorp.bigtableui.util.StringEscapeUtils;
+import com.altamiracorp.miniweb.HandlerChain;
+import com.google.inject.Inject;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Estimates the size of a table or row key range, so that a range can be checked before it is queried
+ */
+public class TableStatisticsGet extends BaseRequestHandler {
+    private final ModelSession modelSession;
+    private final BigTableRepository bigTableRepository;
+
+    @Inject
+    public TableStatisticsGet(
+            final ModelSession modelSession,
+            final BigTableRepository bigTableRepository) {
+        this.modelSession = modelSession;
+        this.bigTableRepository = bigTableRepository;
+    }
+
+    @Override
+    public void handle(HttpServletRequest request, HttpServletResponse response, HandlerChain chain) throws Exception {
+        final String tableName = (String) request.getAttribute("tableName");
+        String authorizationsCommaSeparated = request.getParameter("authorizations");
+        String start = request.getParameter("start");
+        String end = request.getParameter("end");
+
+        if (authorizationsCommaSeparated == null) {
+            authorizationsCommaSeparated = "";
+        }
+
+        String[] authorizations = authorizationsCommaSeparated.split(",");
+        ModelUserContext modelUserContext = modelSession.createModelUserContext(authorizations);
+        respondWithJson(response, bigTableRepository.getStatistics(tableName, emptyToNull(start), emptyToNull(end), modelUserContext).toJson());
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.length() == 0 ? null : StringEscapeUtils.unescapeCString(value);
+    }
+}